@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.DateRange;
+import eu.tecfox.formatterservice.template.models.section.elements.DateRangeElement;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringListElement;
+
+
+/**
+ * Helpers for benchmarks modifying templates. Templates themselves are generated by the 
+ * {@link eu.tecfox.formatterservice.testdata.SyntheticTemplateGenerator}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public final class BenchmarkTemplates {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+
+    private BenchmarkTemplates() {}
+
+
+    /**
+     * Removes all values, like a template is stored before {@link eu.tecfox.formatterservice.template.ExampleGenerator} 
+     * fills it with examples.
+     * 
+     * @param template to clear.
+     */
+    public static void clearValues(Template template) {
+
+        for (Section section : template.getSections())
+            for (SectionElement sectionElement : section.getElements())
+                clearValue(sectionElement);
+    }
+
+
+    private static void clearValue(SectionElement sectionElement) {
+
+        // strings are expected to be empty, not null
+        if (sectionElement instanceof StringElement stringElement)
+            stringElement.setValue("");
+
+        else if (sectionElement instanceof StringListElement stringListElement)
+            stringListElement.setValue(new ArrayList<>());
+
+        // date ranges are kept, only their dates are removed
+        else if (sectionElement instanceof DateRangeElement dateRangeElement)
+            dateRangeElement.setValue(new DateRange());
+
+        else if (sectionElement instanceof NestedElement nestedElement) {
+            clearValue((SectionElement) nestedElement.getKey());
+            nestedElement.getValue().forEach(nestedValue -> clearValue((SectionElement) nestedValue));
+
+        } else
+            sectionElement.clearValue();
+    }
+
+
+    /**
+     * Deep copies a template, e.g. for benchmarks modifying it.
+     * 
+     * @param template to copy.
+     * @return a new template with the same content.
+     */
+    public static Template copy(Template template) {
+
+        return copy(template, Template.class);
+    }
+
+
+    private static <T> T copy(Object value, Class<T> type) {
+
+        try {
+            return MAPPER.readValue(MAPPER.writerFor(type).writeValueAsBytes(value), type);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.style.Style;
+import eu.tecfox.formatterservice.testdata.SyntheticTemplateGenerator;
+import io.micrometer.core.instrument.Metrics;
+
+
+/**
+ * Benchmarks of the render pipeline, end to end and stage by stage.
+ * <p>
+ * Plan, skeleton and section caches are warm after the first invocation, so most benchmarks measure 
+ * repeated renders of the same profile. Their "Cold" variants render with caches that never keep anything, 
+ * i.e. like the first render of a template. {@link #addContentAfterEdit(Blackhole)} changes one section per 
+ * invocation, like a user editing a single field. {@link #getVersion()} and {@link #hashSections()} measure 
+ * the hashing every render pays before any cache is looked up.
+ * <p>
+ * Templates are generated by the {@link SyntheticTemplateGenerator}. Parameters without sweep (like 
+ * {@code logoSize}) can be swept from the command line of the jmh jar, e.g. {@code -p logoSize=0,65536}.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=FormatterBenchmark}, allocation rates are reported by the 
+ * gc profiler.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int numSections;
+
+    @Param({"8"})
+    private int numElements;
+
+    @Param({"8", "64"})
+    private int listLength;
+
+    @Param({"2", "16"})
+    private int numNestedValues;
+
+    @Param({"4"})
+    private int numStyles;
+
+    /** Size of the header logo in bytes, 0 for none. */
+    @Param({"0"})
+    private int logoSize;
+
+    private RenderServices renderServices;
+
+    /** Like {@link #renderServices} but plans, skeletons and sections are never cached. */
+    private RenderServices coldRenderServices;
+
+    private Template template;
+
+    private Style style;
+
+    /** Paragraph and run styled again and again by {@link #addStyle()}. */
+    private XWPFParagraph paragraph;
+
+    private XWPFRun run;
+
+    /** Document with content, written by {@link #writeDocument()}. */
+    private XWPFDocument builtDocument;
+
+    private int numEdits;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        ResourceHandler.createDirs(INPUT_RESOURCE_PATH, OUTPUT_RESOURCE_PATH);
+
+        // meters go to the empty global registry, i.e. nowhere
+        this.renderServices = RenderServices.createStandalone(Metrics.globalRegistry);
+        this.coldRenderServices = new RenderServices(renderServices.getMediaLibrary(), 
+                                                     renderServices.getFontRegistry(), 
+                                                     renderServices.getSectionExecutor(), 
+                                                     renderServices.getRenderMetrics(), 
+                                                     new FragmentCache(DataSize.ofBytes(0), Metrics.globalRegistry), 
+                                                     new RenderPlanCache(0, Metrics.globalRegistry), 
+                                                     new SkeletonCache(0, Metrics.globalRegistry));
+
+        this.template = new SyntheticTemplateGenerator().sections(numSections)
+                                                        .elements(numElements)
+                                                        .listLength(listLength)
+                                                        .nestedValues(numNestedValues)
+                                                        .styles(numStyles)
+                                                        .logoSize(logoSize, renderServices.getMediaLibrary())
+                                                        .generate();
+        this.style = template.getSections().get(0).getStyleValue();
+
+        this.builtDocument = DocumentSkeleton.newDocument(template, renderServices);
+        new SectionFormatter(template, builtDocument, renderServices).addContent();
+
+        this.paragraph = new XWPFDocument().createParagraph();
+        this.run = paragraph.createRun();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+
+        builtDocument.close();
+    }
+
+
+    @Benchmark
+    public void formatDocument() throws IOException {
+
+        formatDocument(renderServices);
+    }
+
+
+    @Benchmark
+    public void formatDocumentCold() throws IOException {
+
+        formatDocument(coldRenderServices);
+    }
+
+
+    @Benchmark
+    public XWPFDocument addContent() {
+
+        return addContent(renderServices);
+    }
+
+
+    @Benchmark
+    public XWPFDocument addContentCold() {
+
+        return addContent(coldRenderServices);
+    }
+
+
+    @Benchmark
+    public void addContentAfterEdit(Blackhole blackhole) {
+
+        // change a different section every time
+        Section section = template.getSections().get(numEdits++ % numSections);
+        section.setTitle("edit " + numEdits);
+
+        new SectionFormatter(template, blackhole::consume, renderServices).addContent();
+    }
+
+
+    @Benchmark
+    public XWPFDocument addHeaderAndFooter() {
+
+        XWPFDocument document = new XWPFDocument();
+        new HeaderFooterFormatter(template, document, renderServices.getMediaLibrary()).addHeaderAndFooter();
+
+        return document;
+    }
+
+
+    @Benchmark
+    public XWPFRun addStyle() {
+
+        StyleFormatter.addStyle(paragraph, run, style);
+
+        return run;
+    }
+
+
+    @Benchmark
+    public void writeDocument() throws IOException {
+
+        // serialization only, the document is not closed
+        builtDocument.write(OutputStream.nullOutputStream());
+    }
+
+
+    @Benchmark
+    public void writeDocumentStreaming() throws IOException {
+
+        writeDocumentStreaming(renderServices);
+    }
+
+
+    @Benchmark
+    public void writeDocumentStreamingCold() throws IOException {
+
+        writeDocumentStreaming(coldRenderServices);
+    }
+
+
+    /**
+     * Per render cost of the plan version, paid even if the plan is cached.
+     */
+    @Benchmark
+    public String getVersion() {
+
+        return RenderPlanCompiler.getVersion(template);
+    }
+
+
+    /**
+     * Per render cost of the section hashes, paid once for the render cache key and the cached sections.
+     */
+    @Benchmark
+    public List<String> hashSections() {
+
+        return ContentHash.ofSections(template);
+    }
+
+
+    /**
+     * Renders the whole document like a download, without any disk io.
+     */
+    private void formatDocument(RenderServices renderServices) throws IOException {
+
+        Formatter formatter = new Formatter(template, renderServices);
+        formatter.buildDocument();
+        formatter.writeDocument(OutputStream.nullOutputStream());
+    }
+
+
+    private XWPFDocument addContent(RenderServices renderServices) {
+
+        XWPFDocument document = new XWPFDocument();
+        new SectionFormatter(template, document, renderServices).addContent();
+
+        return document;
+    }
+
+
+    private void writeDocumentStreaming(RenderServices renderServices) throws IOException {
+
+        new StreamingDocxWriter(template, renderServices.getRenderPlanCache().getPlan(template), ContentHash.ofSections(template), renderServices)
+            .write(OutputStream.nullOutputStream());
+    }
+}
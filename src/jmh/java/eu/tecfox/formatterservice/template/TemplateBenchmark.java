@@ -0,0 +1,192 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.template;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import eu.tecfox.formatterservice.benchmark.BenchmarkTemplates;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.ValidTemplate;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.testdata.SyntheticTemplateGenerator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+
+/**
+ * Benchmarks of the template model operations that do not render anything: deserialization, validation, 
+ * patching, preparing a template for saving and generating examples.
+ * <p>
+ * Operations modifying the template get a fresh copy for every invocation, the copy is not measured.
+ * Element count and nested values are swept separately from the section count, as patching is quadratic 
+ * in the number of elements of a section.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=TemplateBenchmark}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int numSections;
+
+    @Param({"4", "32", "128"})
+    private int numElements;
+
+    @Param({"2", "16"})
+    private int numNestedValues;
+
+    private ObjectMapper mapper;
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private Template template;
+
+    private byte[] templateJson;
+
+    /** Service with a repository only returning the stored template, no database involved. */
+    private TemplateServiceImpl templateService;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        this.mapper = JsonMapper.builder().findAndAddModules().build();
+        this.validatorFactory = Validation.buildDefaultValidatorFactory();
+        this.validator = validatorFactory.getValidator();
+
+        this.template = new SyntheticTemplateGenerator().sections(numSections)
+                                                        .elements(numElements)
+                                                        .nestedValues(numNestedValues)
+                                                        .generate();
+        this.templateJson = mapper.writeValueAsBytes(template);
+
+        Template storedTemplate = BenchmarkTemplates.copy(template);
+        BenchmarkTemplates.clearValues(storedTemplate);
+        storedTemplate.setId("stored");
+
+        TemplateRepository templateRepository = (TemplateRepository) Proxy.newProxyInstance(
+            TemplateRepository.class.getClassLoader(), 
+            new Class<?>[] {TemplateRepository.class}, 
+            (proxy, method, args) -> {
+                if (method.getName().equals("findFirstByNameIsNull"))
+                    return Optional.of(storedTemplate);
+
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+        this.templateService = new TemplateServiceImpl(templateRepository);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        validatorFactory.close();
+    }
+
+
+    /**
+     * Fresh copies of the template for operations modifying it.
+     */
+    @State(Scope.Thread)
+    public static class Copies {
+
+        /** Template as stored, without values. */
+        private Template storedTemplate;
+
+        /** Template as sent by a client, with values. */
+        private Template profile;
+
+
+        @Setup(Level.Invocation)
+        public void setup(TemplateBenchmark benchmark) {
+
+            this.storedTemplate = BenchmarkTemplates.copy(benchmark.template);
+            BenchmarkTemplates.clearValues(storedTemplate);
+
+            this.profile = BenchmarkTemplates.copy(benchmark.template);
+        }
+    }
+
+
+    @Benchmark
+    public Template deserialize() throws IOException {
+
+        // polymorphic section elements, resolved by their type property
+        return mapper.readValue(templateJson, Template.class);
+    }
+
+
+    @Benchmark
+    public Set<ConstraintViolation<Template>> validate() {
+
+        // same group as the template controller, includes the TemplateValidator
+        return validator.validate(template, ValidTemplate.class);
+    }
+
+
+    @Benchmark
+    public Template patch(Copies copies) {
+
+        // patch the stored template with the values of the profile, section by section
+        List<Section> sections = copies.storedTemplate.getSections();
+        for (int i = 0; i < sections.size(); i++)
+            sections.get(i).patch(copies.profile.getSections().get(i));
+
+        return copies.storedTemplate;
+    }
+
+
+    @Benchmark
+    public Template prepareTemplate(Copies copies) {
+
+        // stored template is read from the snapshot, loaded on the first invocation
+        templateService.prepareTemplate(copies.profile);
+
+        return copies.profile;
+    }
+
+
+    @Benchmark
+    public Template buildExamples(Copies copies) {
+
+        ExampleGenerator.build(copies.storedTemplate);
+
+        return copies.storedTemplate;
+    }
+}
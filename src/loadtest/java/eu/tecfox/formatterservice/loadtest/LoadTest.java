@@ -0,0 +1,333 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import eu.tecfox.formatterservice.loadtest.LoadTestOptions.Mode;
+import eu.tecfox.formatterservice.recording.RecordedRequest;
+
+
+/**
+ * Replays requests recorded by the {@link eu.tecfox.formatterservice.recording.RequestRecordingFilter} 
+ * against a running instance and reports latency percentiles, throughput and error rates.
+ * <p>
+ * {@link Mode#OPEN} sends requests at a fixed rate (or at the recorded times) no matter how long responses 
+ * take, latencies are measured from the time a request should have been sent. {@link Mode#CLOSED} keeps a 
+ * fixed number of users busy, each sending the next request once the last one has been answered.
+ * <p>
+ * Instead of a recording, requests rendering synthetic templates of a given size can be sent, see 
+ * {@link SyntheticRequests}.
+ * <p>
+ * Run with {@code ./gradlew loadtest -PloadtestArgs="--mode open --rate 20 --duration 60s"}, see 
+ * {@link LoadTestOptions#USAGE}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class LoadTest {
+
+    /** Path segments like mongo ids, hashes or numbers, reported as "{id}" so endpoints are grouped. */
+    private static final Pattern ID_SEGMENT = Pattern.compile("/([0-9a-fA-F]{24}|[0-9a-fA-F]{64}|[0-9a-fA-F-]{36}|\\d+)(?=/|$)");
+
+    private final LoadTestOptions options;
+
+    private final List<RecordedRequest> recordedRequests;
+
+    private final HttpClient httpClient;
+
+    private final LoadTestReport report = new LoadTestReport();
+
+
+    public LoadTest(LoadTestOptions options, List<RecordedRequest> recordedRequests) {
+
+        this.options = options;
+        this.recordedRequests = recordedRequests;
+        this.httpClient = HttpClient.newBuilder()
+                                    .version(HttpClient.Version.HTTP_1_1)
+                                    .connectTimeout(Duration.ofSeconds(10))
+                                    .build();
+    }
+
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+        List<RecordedRequest> recordedRequests = options.synthetic() != null ? SyntheticRequests.generate(options.synthetic(), objectMapper) : 
+                                                                               read(options, objectMapper);
+
+        // case: nothing to replay
+        if (recordedRequests.isEmpty()) {
+            System.err.println("No requests recorded in " + options.file() + ".");
+            System.exit(1);
+        }
+
+        System.out.printf("Replaying %d requests against %s, mode %s%n", 
+                          recordedRequests.size(), options.target(), options.mode().name().toLowerCase());
+
+        LoadTest loadTest = new LoadTest(options, recordedRequests);
+        Duration elapsed = loadTest.run();
+
+        loadTest.getReport().print(System.out, elapsed);
+    }
+
+
+    /**
+     * Generates load until the configured duration is over (or the recording has been replayed once) and 
+     * waits for all outstanding responses.
+     * 
+     * @return wall clock time of the run.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Duration run() throws InterruptedException {
+
+        long start = System.nanoTime();
+
+        if (options.mode() == Mode.OPEN)
+            runOpen(start);
+        else
+            runClosed(start);
+
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+
+    public LoadTestReport getReport() {
+
+        return report;
+    }
+
+
+    /**
+     * Sends requests at their scheduled times without waiting for responses.
+     * 
+     * @param start of the run, in nanos.
+     */
+    private void runOpen(long start) {
+
+        long[] offsets = getOffsets();
+        long end = getEnd(start);
+
+        // one party per request in flight, plus this thread
+        Phaser inFlight = new Phaser(1);
+
+        for (long i = 0; isRemaining(i); i++) {
+            int size = recordedRequests.size();
+            long intendedStart = start + offsets[(int) (i % size)] + (i / size) * offsets[size];
+
+            // case: duration is over
+            if (intendedStart - end >= 0)
+                break;
+
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0)
+                LockSupport.parkNanos(delay);
+
+            RecordedRequest recordedRequest = getRecordedRequest(i);
+
+            inFlight.register();
+            send(recordedRequest)
+                .whenComplete((status, e) -> {
+                    report.record(getEndpoint(recordedRequest), System.nanoTime() - intendedStart, e == null ? status : 0);
+                    inFlight.arriveAndDeregister();
+                });
+        }
+
+        inFlight.arriveAndAwaitAdvance();
+    }
+
+
+    /**
+     * Lets every user send one request after the other until the run is over.
+     * 
+     * @param start of the run, in nanos.
+     * @throws InterruptedException if interrupted while waiting for the users.
+     */
+    private void runClosed(long start) throws InterruptedException {
+
+        long end = getEnd(start);
+        AtomicLong next = new AtomicLong();
+
+        ExecutorService users = Executors.newFixedThreadPool(options.concurrency());
+
+        for (int user = 0; user < options.concurrency(); user++) {
+            users.execute(() -> {
+                for (long i = next.getAndIncrement(); isRemaining(i) && System.nanoTime() - end < 0; i = next.getAndIncrement()) {
+                    RecordedRequest recordedRequest = getRecordedRequest(i);
+                    long requestStart = System.nanoTime();
+
+                    int status;
+                    try {
+                        status = send(recordedRequest).join();
+
+                    } catch (RuntimeException e) {
+                        status = 0;
+                    }
+
+                    report.record(getEndpoint(recordedRequest), System.nanoTime() - requestStart, status);
+                }
+            });
+        }
+
+        users.shutdown();
+        users.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * @param recordedRequest to send.
+     * @return the status of the response, once its body has been read completely.
+     */
+    private CompletableFuture<Integer> send(RecordedRequest recordedRequest) {
+
+        String pathAndQuery = recordedRequest.path() + (recordedRequest.query() == null ? "" : "?" + recordedRequest.query());
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(options.target() + pathAndQuery))
+                                                        .timeout(options.timeout())
+                                                        .method(recordedRequest.method(), 
+                                                                recordedRequest.body() == null ? BodyPublishers.noBody() : BodyPublishers.ofString(recordedRequest.body()));
+
+        if (recordedRequest.headers() != null)
+            recordedRequest.headers().forEach(requestBuilder::header);
+
+        return httpClient.sendAsync(requestBuilder.build(), BodyHandlers.discarding())
+                         .thenApply(HttpResponse::statusCode);
+    }
+
+
+    /**
+     * @return the offsets of the recorded requests from the start of a replay, in nanos. The last offset 
+     *         is the length of one replay of the whole recording.
+     */
+    private long[] getOffsets() {
+
+        int size = recordedRequests.size();
+        long[] offsets = new long[size + 1];
+
+        // case: fixed rate
+        if (options.rate() > 0) {
+            for (int i = 0; i <= size; i++)
+                offsets[i] = (long) (i * 1e9 / options.rate());
+
+            return offsets;
+        }
+
+        Instant first = recordedRequests.get(0).timestamp();
+        for (int i = 0; i < size; i++)
+            offsets[i] = (long) (Duration.between(first, recordedRequests.get(i).timestamp()).toNanos() / options.speed());
+
+        // pause before the next replay like the average pause between two requests
+        offsets[size] = size == 1 ? TimeUnit.SECONDS.toNanos(1) : offsets[size - 1] + offsets[size - 1] / (size - 1);
+
+        return offsets;
+    }
+
+
+    /**
+     * @param start of the run, in nanos.
+     * @return the end of the run, in nanos.
+     */
+    private long getEnd(long start) {
+
+        // may wrap around, ends are compared by difference like System.nanoTime()
+        return options.duration().isZero() ? Long.MAX_VALUE + start : start + options.duration().toNanos();
+    }
+
+
+    /**
+     * @param i index of the next request.
+     * @return false if only the recording is replayed once and this request is not part of it anymore.
+     */
+    private boolean isRemaining(long i) {
+
+        return !options.duration().isZero() || i < recordedRequests.size();
+    }
+
+
+    private RecordedRequest getRecordedRequest(long i) {
+
+        return recordedRequests.get((int) (i % recordedRequests.size()));
+    }
+
+
+    /**
+     * @param recordedRequest to get the endpoint for.
+     * @return method and path of the request, ids replaced with "{id}".
+     */
+    private static String getEndpoint(RecordedRequest recordedRequest) {
+
+        return recordedRequest.method() + " " + ID_SEGMENT.matcher(recordedRequest.path()).replaceAll("/{id}");
+    }
+
+
+    /**
+     * @param options with the file to read.
+     * @param objectMapper to read the requests with.
+     * @return the recorded requests in the order they have been received. The file is written in the order 
+     *         requests completed, so it is sorted by timestamp.
+     * @throws IOException if reading the file fails.
+     */
+    private static List<RecordedRequest> read(LoadTestOptions options, ObjectMapper objectMapper) throws IOException {
+
+        try (var lines = Files.lines(options.file())) {
+            return lines.filter(line -> !line.isBlank())
+                        .map(line -> {
+                            try {
+                                return objectMapper.readValue(line, RecordedRequest.class);
+
+                            } catch (IOException e) {
+                                throw new IllegalArgumentException("Invalid recorded request: " + line, e);
+                            }
+                        })
+                        .sorted(Comparator.comparing(RecordedRequest::timestamp))
+                        .toList();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+
+/**
+ * Command line options of the {@link LoadTest}.
+ * 
+ * @param file recording to replay, see {@link eu.tecfox.formatterservice.recording.RecordedRequest}.
+ * @param synthetic configuration of synthetic templates to send instead of a recording, null to replay 
+ *                  the file. See {@link SyntheticRequests}.
+ * @param target base uri of the instance under test, e.g. "http://localhost:4001".
+ * @param mode {@link Mode#OPEN} or {@link Mode#CLOSED}.
+ * @param rate requests per second in open mode. 0 replays the recorded arrival times.
+ * @param speed factor to speed up recorded arrival times by, only used if rate is 0.
+ * @param concurrency number of virtual users in closed mode.
+ * @param duration to generate load for. 0 replays the recording once.
+ * @param timeout of a single request.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record LoadTestOptions(
+    Path file,
+    String synthetic,
+    URI target,
+    Mode mode,
+    double rate,
+    double speed,
+    int concurrency,
+    Duration duration,
+    Duration timeout
+) {
+
+    static final String USAGE = """
+        Usage: loadtest [options]
+          --file <path>          recording to replay (default ./outputResources/recordings/requests.jsonl)
+          --synthetic <spec>     send synthetic templates instead, e.g. sections=16,elements=8,listLength=8,
+                                 nestedValues=4,styles=4,count=10,seed=1,pdf=false
+          --target <uri>         instance under test (default http://localhost:4001)
+          --mode open|closed     fixed arrival rate or fixed number of users (default open)
+          --rate <n>             open mode: requests per second, 0 replays recorded timing (default 10)
+          --speed <n>            open mode with rate 0: speed up recorded timing by this factor (default 1)
+          --concurrency <n>      closed mode: number of users (default 4)
+          --duration <n>s        how long to generate load, 0 replays the recording once (default 60s)
+          --timeout <n>s         timeout of a single request (default 60s)
+        """;
+
+
+    /**
+     * @param args command line arguments, see {@link #USAGE}.
+     * @return the parsed options, defaults for all missing ones.
+     * @throws IllegalArgumentException if an option is unknown or invalid.
+     */
+    public static LoadTestOptions parse(String[] args) {
+
+        Path file = Paths.get("./outputResources/recordings/requests.jsonl");
+        String synthetic = null;
+        URI target = URI.create("http://localhost:4001");
+        Mode mode = Mode.OPEN;
+        double rate = 10;
+        double speed = 1;
+        int concurrency = 4;
+        Duration duration = Duration.ofSeconds(60);
+        Duration timeout = Duration.ofSeconds(60);
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+
+            // case: option without value
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value of " + option + ".");
+
+            String value = args[++i];
+
+            switch (option) {
+                case "--file" -> file = Paths.get(value);
+                case "--synthetic" -> synthetic = value;
+                case "--target" -> target = URI.create(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+                case "--mode" -> mode = Mode.valueOf(value.toUpperCase());
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--speed" -> speed = Double.parseDouble(value);
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--duration" -> duration = parseDuration(value);
+                case "--timeout" -> timeout = parseDuration(value);
+                default -> throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        }
+
+        if (rate < 0 || speed <= 0 || concurrency < 1)
+            throw new IllegalArgumentException("Rate must not be negative, speed and concurrency must be positive.");
+
+        return new LoadTestOptions(file, synthetic, target, mode, rate, speed, concurrency, duration, timeout);
+    }
+
+
+    /**
+     * @param value like "30s", "5m" or "500ms". Plain numbers are seconds.
+     * @return the duration.
+     */
+    private static Duration parseDuration(String value) {
+
+        if (value.endsWith("ms"))
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+
+        if (value.endsWith("m"))
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+
+        if (value.endsWith("s"))
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+
+    /**
+     * How load is generated.
+     */
+    public enum Mode {
+
+        /** Requests arrive at a fixed rate (or the recorded times), no matter how fast the instance answers. */
+        OPEN,
+
+        /** A fixed number of users each send their next request once the last one has been answered. */
+        CLOSED
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Collects the outcome of every replayed request and reports latency percentiles, throughput and error 
+ * rates, in total and per endpoint.
+ * <p>
+ * Thread safe.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class LoadTestReport {
+
+    private final Stats total = new Stats();
+
+    /** Stats by "METHOD path". */
+    private final Map<String, Stats> endpoints = new TreeMap<>();
+
+
+    /**
+     * @param endpoint like "POST /api/formatter".
+     * @param latencyNanos from the intended start of the request until the response has been read.
+     * @param status of the response, 0 if the request failed without response (e.g. timeout).
+     */
+    public synchronized void record(String endpoint, long latencyNanos, int status) {
+
+        total.record(latencyNanos, status);
+        endpoints.computeIfAbsent(endpoint, key -> new Stats()).record(latencyNanos, status);
+    }
+
+
+    /**
+     * @return number of requests recorded so far.
+     */
+    public synchronized int getCount() {
+
+        return total.count;
+    }
+
+
+    /**
+     * @param out to print to.
+     * @param elapsed wall clock time of the whole run, to compute the throughput.
+     */
+    public synchronized void print(PrintStream out, Duration elapsed) {
+
+        double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+
+        out.printf("%-40s %8s %9s %9s %9s %9s %9s %7s %7s %7s%n", 
+                   "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "4xx %", "5xx %", "fail %");
+
+        endpoints.forEach((endpoint, stats) -> stats.print(out, endpoint, seconds));
+        total.print(out, "total", seconds);
+    }
+
+
+    /**
+     * Latencies and status counts of a group of requests.
+     */
+    private static class Stats {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private int clientErrors;
+
+        private int serverErrors;
+
+        private int failures;
+
+
+        void record(long latencyNanos, int status) {
+
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, count * 2);
+
+            latencies[count++] = latencyNanos;
+
+            if (status == 0)
+                failures++;
+
+            else if (status >= 500)
+                serverErrors++;
+
+            else if (status >= 400)
+                clientErrors++;
+        }
+
+
+        void print(PrintStream out, String name, double seconds) {
+
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+
+            out.printf("%-40s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f %7.2f %7.2f%n", 
+                       name, 
+                       count, 
+                       count / seconds, 
+                       toMillis(percentile(sorted, 0.50)), 
+                       toMillis(percentile(sorted, 0.95)), 
+                       toMillis(percentile(sorted, 0.99)), 
+                       toMillis(count == 0 ? 0 : sorted[count - 1]), 
+                       percent(clientErrors), 
+                       percent(serverErrors), 
+                       percent(failures));
+        }
+
+
+        /**
+         * @param sorted latencies in ascending order.
+         * @param quantile between 0 and 1.
+         * @return the latency at the quantile (nearest rank), 0 if there are none.
+         */
+        private static long percentile(long[] sorted, double quantile) {
+
+            if (sorted.length == 0)
+                return 0;
+
+            int rank = (int) Math.ceil(quantile * sorted.length);
+
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+
+        private double percent(int part) {
+
+            return count == 0 ? 0 : 100.0 * part / count;
+        }
+
+
+        private static double toMillis(long nanos) {
+
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.loadtest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.tecfox.formatterservice.recording.RecordedRequest;
+import eu.tecfox.formatterservice.testdata.SyntheticTemplateGenerator;
+
+
+/**
+ * Generates render requests of synthetic templates, to load an instance with templates of a given size 
+ * instead of a recording.
+ * <p>
+ * Configured like "sections=16,elements=8,listLength=8,nestedValues=4,styles=4,count=10,seed=1,pdf=false". 
+ * Count is the number of distinct templates, generated with consecutive seeds. Missing keys keep the 
+ * defaults of the {@link SyntheticTemplateGenerator}. Logos are not generated, the instance under test 
+ * would not know them.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+final class SyntheticRequests {
+
+    private SyntheticRequests() {}
+
+
+    /**
+     * @param spec comma separated "key=value" pairs, see class description.
+     * @param objectMapper to serialize the templates with.
+     * @return one render request per template.
+     * @throws IllegalArgumentException if a key is unknown or a value is not a number.
+     */
+    static List<RecordedRequest> generate(String spec, ObjectMapper objectMapper) {
+
+        Map<String, String> values = new HashMap<>();
+        for (String pair : spec.split(",")) {
+            String[] keyAndValue = pair.split("=", 2);
+
+            if (keyAndValue.length != 2)
+                throw new IllegalArgumentException("Invalid synthetic option " + pair + ".");
+
+            values.put(keyAndValue[0].trim(), keyAndValue[1].trim());
+        }
+
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator();
+        int count = 1;
+        long seed = 1;
+        boolean pdf = false;
+
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+
+            switch (entry.getKey()) {
+                case "sections" -> generator.sections(Integer.parseInt(value));
+                case "elements" -> generator.elements(Integer.parseInt(value));
+                case "listLength" -> generator.listLength(Integer.parseInt(value));
+                case "nestedValues" -> generator.nestedValues(Integer.parseInt(value));
+                case "styles" -> generator.styles(Integer.parseInt(value));
+                case "count" -> count = Math.max(Integer.parseInt(value), 1);
+                case "seed" -> seed = Long.parseLong(value);
+                case "pdf" -> pdf = Boolean.parseBoolean(value);
+                default -> throw new IllegalArgumentException("Unknown synthetic option " + entry.getKey() + ".");
+            }
+        }
+
+        List<RecordedRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            try {
+                String body = objectMapper.writeValueAsString(generator.seed(seed + i).generate());
+
+                requests.add(new RecordedRequest(Instant.now(), 
+                                                 "GET", 
+                                                 "/api/formatter", 
+                                                 "pdf=" + pdf, 
+                                                 Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE), 
+                                                 body));
+
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Failed to serialize synthetic template.", e);
+            }
+        }
+
+        return requests;
+    }
+}
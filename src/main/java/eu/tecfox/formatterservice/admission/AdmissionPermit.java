@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.admission;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Budget held by an admitted render. Closing the permit gives the budget back, closing it again has no 
+ * effect.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public final class AdmissionPermit implements AutoCloseable {
+
+    private final RenderAdmission renderAdmission;
+
+    private final int memoryPermits;
+
+    private final int cpuPermits;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+
+    AdmissionPermit(RenderAdmission renderAdmission, int memoryPermits, int cpuPermits) {
+
+        this.renderAdmission = renderAdmission;
+        this.memoryPermits = memoryPermits;
+        this.cpuPermits = cpuPermits;
+    }
+
+
+    @Override
+    public void close() {
+
+        if (closed.compareAndSet(false, true))
+            renderAdmission.release(memoryPermits, cpuPermits);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.admission;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.exception.TooManyRequestsException;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.formatter.SectionExecutor;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Admission control of renders against a global memory and cpu budget.
+ * <p>
+ * Every render is admitted with its estimated {@link RenderCost}. If the budget is exhausted the render 
+ * waits up to a configured time for running renders to finish and is rejected with 
+ * {@link TooManyRequestsException} after that, so a burst of large templates cannot exhaust the heap.
+ * <p>
+ * A render costing more than the whole budget is admitted once nothing else is running. Single renders, 
+ * batch lines and render jobs all share the same budget.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Component
+public class RenderAdmission {
+
+    /** Memory is counted in permits of this many bytes to stay in int range. */
+    static final long BYTES_PER_PERMIT = 1024;
+
+    private final MediaLibrary mediaLibrary;
+
+    private final SectionExecutor sectionExecutor;
+
+    private final Semaphore memoryBudget;
+
+    private final Semaphore cpuBudget;
+
+    private final int maxMemoryPermits;
+
+    private final int maxCpuPermits;
+
+    private final Duration maxWait;
+
+    private final Duration retryAfter;
+
+
+    /**
+     * @param mediaLibrary to look up the size of logos in.
+     * @param sectionExecutor rendering the sections, to look up how many sections a streaming render holds.
+     * @param memoryBudget heap all running renders may use together, 0 for half of the max heap.
+     * @param cpuBudget cpu units all running renders may use together, 0 for twice the number of processors.
+     * @param maxWait time a render waits for budget before it is rejected.
+     * @param retryAfter time rejected clients are told to wait before retrying.
+     */
+    public RenderAdmission(MediaLibrary mediaLibrary,
+                           SectionExecutor sectionExecutor,
+                           @Value("${formatter.admission.memory-budget:0}") DataSize memoryBudget,
+                           @Value("${formatter.admission.cpu-budget:0}") int cpuBudget,
+                           @Value("${formatter.admission.max-wait:2s}") Duration maxWait,
+                           @Value("${formatter.admission.retry-after:5s}") Duration retryAfter) {
+
+        long memoryBytes = memoryBudget.toBytes() > 0 ? memoryBudget.toBytes() : Runtime.getRuntime().maxMemory() / 2;
+
+        this.mediaLibrary = mediaLibrary;
+        this.sectionExecutor = sectionExecutor;
+        this.maxMemoryPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBytes / BYTES_PER_PERMIT));
+        this.maxCpuPermits = cpuBudget > 0 ? cpuBudget : 2 * Runtime.getRuntime().availableProcessors();
+        this.memoryBudget = new Semaphore(maxMemoryPermits, true);
+        this.cpuBudget = new Semaphore(maxCpuPermits, true);
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+    }
+
+
+    /**
+     * Admits the render of a template, waiting for budget if necessary.
+     * 
+     * @param template to render.
+     * @param renderEngine the template will be rendered with.
+     * @return the {@link AdmissionPermit} to close once the render is finished.
+     * @throws TooManyRequestsException if the budget did not become available in time.
+     */
+    public AdmissionPermit admit(Template template, RenderEngine renderEngine) {
+
+        return admit(template, renderEngine, maxWait);
+    }
+
+
+    /**
+     * Admits the render of a template, waiting for budget up to the given time, e.g. for renders nobody 
+     * waits for.
+     * 
+     * @param template to render.
+     * @param renderEngine the template will be rendered with.
+     * @param maxWait time to wait for budget.
+     * @return the {@link AdmissionPermit} to close once the render is finished.
+     * @throws TooManyRequestsException if the budget did not become available in time.
+     */
+    public AdmissionPermit admit(Template template, RenderEngine renderEngine, Duration maxWait) {
+
+        return admit(RenderCostEstimator.estimate(template, renderEngine, mediaLibrary, sectionExecutor.getLookahead()), maxWait);
+    }
+
+
+    /**
+     * Admits a render of the given cost, waiting for budget if necessary.
+     * 
+     * @param renderCost estimated cost of the render.
+     * @return the {@link AdmissionPermit} to close once the render is finished.
+     * @throws TooManyRequestsException if the budget did not become available in time.
+     */
+    public AdmissionPermit admit(RenderCost renderCost) {
+
+        return admit(renderCost, maxWait);
+    }
+
+
+    /**
+     * Admits a render of the given cost, waiting for budget up to the given time.
+     * 
+     * @param renderCost estimated cost of the render.
+     * @param maxWait time to wait for budget.
+     * @return the {@link AdmissionPermit} to close once the render is finished.
+     * @throws TooManyRequestsException if the budget did not become available in time.
+     */
+    public AdmissionPermit admit(RenderCost renderCost, Duration maxWait) {
+
+        // cap at budget, so large renders can still run on their own
+        int memoryPermits = (int) Math.min(maxMemoryPermits, Math.max(1, (renderCost.memoryBytes() + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT));
+        int cpuPermits = Math.min(maxCpuPermits, Math.max(1, renderCost.cpuUnits()));
+
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        try {
+            // case: no memory
+            if (!memoryBudget.tryAcquire(memoryPermits, maxWait.toNanos(), TimeUnit.NANOSECONDS))
+                throw reject(renderCost);
+
+            // case: no cpu
+            if (!cpuBudget.tryAcquire(cpuPermits, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                memoryBudget.release(memoryPermits);
+                throw reject(renderCost);
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(renderCost);
+        }
+
+        return new AdmissionPermit(this, memoryPermits, cpuPermits);
+    }
+
+
+    /**
+     * @return the memory still available in bytes.
+     */
+    public long getAvailableMemory() {
+
+        return memoryBudget.availablePermits() * BYTES_PER_PERMIT;
+    }
+
+
+    /**
+     * @return the cpu units still available.
+     */
+    public int getAvailableCpuUnits() {
+
+        return cpuBudget.availablePermits();
+    }
+
+
+    /**
+     * Gives the budget of a finished render back. Only called by {@link AdmissionPermit#close()}.
+     * 
+     * @param memoryPermits to release.
+     * @param cpuPermits to release.
+     */
+    void release(int memoryPermits, int cpuPermits) {
+
+        cpuBudget.release(cpuPermits);
+        memoryBudget.release(memoryPermits);
+    }
+
+
+    private TooManyRequestsException reject(RenderCost renderCost) {
+
+        log.info("Rejected render costing " + renderCost.memoryBytes() + " bytes and " + renderCost.cpuUnits() + " cpu units.");
+
+        return new TooManyRequestsException("Too many documents are being formatted at the moment, try again later.", retryAfter);
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.admission;
+
+
+/**
+ * Estimated resources a single render needs while it is running.
+ * 
+ * @param memoryBytes estimated peak heap usage in bytes.
+ * @param cpuUnits estimated share of the cpu budget, at least 1.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record RenderCost(
+    long memoryBytes,
+    int cpuUnits
+) {}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.admission;
+
+import java.util.List;
+import java.util.Objects;
+
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedValue;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringListElement;
+
+
+/**
+ * Estimates the {@link RenderCost} of a {@link Template} from its size, without rendering it.
+ * <p>
+ * The numbers are rough upper bounds of what an {@link org.apache.poi.xwpf.usermodel.XWPFDocument} keeps 
+ * on the heap per paragraph, run and character. {@link RenderEngine#STREAMING} only holds the sections 
+ * rendered ahead by the {@link eu.tecfox.formatterservice.formatter.SectionExecutor} at a time, so there 
+ * only the largest sections count for memory.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RenderCostEstimator {
+
+    /** Heap of an empty document including header, footer and styles. */
+    static final long BASE_BYTES = 1024 * 1024;
+
+    /** Heap per section element, i.e. per paragraph. */
+    static final long ELEMENT_BYTES = 8 * 1024;
+
+    /** Heap per list entry or nested value, i.e. per run with separator. */
+    static final long ENTRY_BYTES = 4 * 1024;
+
+    /** Heap per character of text, kept as String and as xml bean. */
+    static final long CHAR_BYTES = 16;
+
+    /** A picture is kept raw, as package part and while being written. */
+    static final long MEDIA_FACTOR = 3;
+
+    /** Number of elements and entries that make up one cpu unit. */
+    static final int ENTRIES_PER_CPU_UNIT = 1000;
+
+
+    private RenderCostEstimator() {}
+
+
+    /**
+     * @param template to estimate the cost of.
+     * @param renderEngine the template will be rendered with.
+     * @param mediaLibrary to look up the size of the logo in.
+     * @param sectionsInMemory maximum number of sections a streaming render holds at a time.
+     * @return the estimated {@link RenderCost}.
+     */
+    public static RenderCost estimate(Template template, RenderEngine renderEngine, MediaLibrary mediaLibrary, int sectionsInMemory) {
+
+        Counter counter = new Counter();
+
+        // count content
+        if (template.getSections() != null)
+            for (Section section : template.getSections())
+                counter.addSection(section);
+
+        long mediaBytes = mediaLibrary.getLogoSize(template.getHeader()) * MEDIA_FACTOR;
+
+        long contentBytes = counter.getBytes();
+
+        // case: streaming, at most this many of the largest sections are held at once
+        if (renderEngine == RenderEngine.STREAMING)
+            contentBytes = Math.min(contentBytes, counter.maxSectionBytes * Math.max(1, sectionsInMemory));
+
+        int cpuUnits = 1 + (int) ((counter.elements + counter.entries) / ENTRIES_PER_CPU_UNIT);
+
+        return new RenderCost(BASE_BYTES + mediaBytes + contentBytes, cpuUnits);
+    }
+
+
+    private static long length(Object value) {
+
+        return value == null ? 0 : value.toString().length();
+    }
+
+
+    /**
+     * Counts elements, entries and characters of section elements, including nested ones.
+     */
+    private static final class Counter {
+
+        private long elements = 0;
+
+        private long entries = 0;
+
+        private long chars = 0;
+
+        /** Heap of the largest section. */
+        private long maxSectionBytes = 0;
+
+
+        private void addSection(Section section) {
+
+            long bytesBefore = getBytes();
+
+            chars += length(section.getTitle());
+
+            if (section.getElements() != null)
+                section.getElements().forEach(this::addElement);
+
+            maxSectionBytes = Math.max(maxSectionBytes, getBytes() - bytesBefore);
+        }
+
+
+        private void addElement(SectionElement sectionElement) {
+
+            // case: no element
+            if (sectionElement == null)
+                return;
+
+            elements++;
+            addContent(sectionElement);
+        }
+
+
+        private long getBytes() {
+
+            return elements * ELEMENT_BYTES + entries * ENTRY_BYTES + chars * CHAR_BYTES;
+        }
+
+
+        private void addContent(Object element) {
+
+            // case: nested
+            if (element instanceof NestedElement nestedElement) {
+                if (nestedElement.getKey() != null)
+                    addContent(nestedElement.getKey());
+
+                List<NestedValue> values = Objects.requireNonNullElse(nestedElement.getValue(), List.of());
+                entries += values.size();
+                values.forEach(this::addContent);
+
+            // case: list
+            } else if (element instanceof StringListElement stringListElement) {
+                chars += length(stringListElement.getKey());
+
+                List<String> values = Objects.requireNonNullElse(stringListElement.getValue(), List.of());
+                entries += values.size();
+                values.forEach(value -> chars += length(value));
+
+            // case: single value
+            } else if (element instanceof SectionElement sectionElement) {
+                chars += length(sectionElement.getKey()) + length(sectionElement.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.artifact;
+
+import java.time.Instant;
+
+
+/**
+ * Metadata of a rendered document kept by an {@link ArtifactStore}.
+ *
+ * @param id unique id of the render that created the artifact.
+ * @param fileName name to use when the artifact is downloaded.
+ * @param contentType media type of the artifact.
+ * @param size of the artifact in bytes.
+ * @param createdAt time the artifact has been committed.
+ * @param expiresAt time after which the artifact may be evicted.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record Artifact(
+    String id,
+    String fileName,
+    String contentType,
+    long size,
+    Instant createdAt,
+    Instant expiresAt
+) {
+
+    /**
+     * @param now the current time.
+     * @return true if the artifact has outlived its time to live.
+     */
+    public boolean isExpired(Instant now) {
+
+        return !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.artifact;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+
+/**
+ * Interface of a store keeping rendered documents for a limited time, so they can be downloaded again
+ * without rendering them a second time.
+ *
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public interface ArtifactStore {
+
+    /**
+     * Starts a new artifact with a unique id.
+     *
+     * @param fileName to use when the artifact is downloaded.
+     * @param contentType media type of the artifact.
+     * @return an {@link ArtifactUpload} to write the artifact to.
+     */
+    ArtifactUpload create(String fileName, String contentType);
+
+    /**
+     * @param id of the artifact.
+     * @return the artifact metadata if the artifact exists and has not expired.
+     */
+    Optional<Artifact> find(String id);
+
+    /**
+     * Opens an artifact for reading. The artifact will not be evicted until the stream is closed.
+     *
+     * @param id of the artifact.
+     * @return the artifact content.
+     * @throws eu.tecfox.formatterservice.exception.ApiRequestException if there is no artifact with this id.
+     */
+    InputStream open(String id);
+
+    /**
+     * Deletes a single artifact. If it is being read at the moment it will be deleted as soon as the
+     * last reader is done.
+     *
+     * @param id of the artifact.
+     * @return true if the artifact existed.
+     */
+    boolean delete(String id);
+
+    /**
+     * Removes all expired artifacts and evicts the oldest ones if the store exceeds its size quota.
+     *
+     * @return number of evicted artifacts.
+     */
+    int evict();
+}
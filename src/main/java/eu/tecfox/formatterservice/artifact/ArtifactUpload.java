@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.artifact;
+
+import java.io.OutputStream;
+
+
+/**
+ * Stream writing a new artifact to an {@link ArtifactStore}.
+ * <p>
+ * The artifact only becomes visible after {@link #commit()}. Closing an upload that has not been
+ * committed discards everything written so far.
+ * <p>
+ * Uploads never throw on write. If the artifact exceeds the store's quota or cannot be written the upload
+ * is silently discarded, so an upload can be mirrored next to a client download without breaking it.
+ *
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public abstract class ArtifactUpload extends OutputStream {
+
+    /**
+     * @return the id the artifact will be available under once committed.
+     */
+    public abstract String getId();
+
+
+    @Override
+    public abstract void write(int b);
+
+
+    @Override
+    public abstract void write(byte[] bytes, int offset, int length);
+
+
+    /**
+     * Makes the artifact available for download.
+     *
+     * @return the committed {@link Artifact} or null if the upload has been discarded.
+     */
+    public abstract Artifact commit();
+
+
+    /**
+     * Discards the upload if it has not been committed. Closing it again has no effect.
+     */
+    @Override
+    public abstract void close();
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.artifact;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * {@link ArtifactStore} keeping every artifact as a single file named by its id.
+ * <p>
+ * Artifacts live for a configurable time and the whole store is bounded by a size quota. A background
+ * janitor thread evicts expired artifacts first and then the oldest ones until the quota is met again.
+ * Artifacts that are being downloaded are never deleted underneath their readers.
+ * <p>
+ * Uploads in progress count against the quota as their bytes arrive, so concurrent uploads cannot exceed it 
+ * either. If there is no room, committed artifacts are evicted. If all of the quota is taken by other 
+ * uploads, the upload is discarded.
+ *
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Component
+public class FileSystemArtifactStore implements ArtifactStore {
+
+    /** File suffix of artifacts that are still being written. */
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path directory;
+
+    private final Duration timeToLive;
+
+    private final long maxTotalBytes;
+
+    private final long maxArtifactBytes;
+
+    private final Duration janitorInterval;
+
+    /** Committed artifacts by id. */
+    private final Map<String, StoredArtifact> artifacts = new ConcurrentHashMap<>();
+
+    /** Size of all committed artifacts. */
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /** Bytes written by uploads that are neither committed nor discarded yet. */
+    private final AtomicLong uploadingBytes = new AtomicLong();
+
+    /** Counts commits to order artifacts by age. */
+    private final AtomicLong commitCounter = new AtomicLong();
+
+    private ScheduledExecutorService janitor;
+
+
+    public FileSystemArtifactStore(@Value("${formatter.artifacts.directory:" + OUTPUT_RESOURCE_PATH + "artifacts/}") String directory,
+                                   @Value("${formatter.artifacts.ttl:30m}") Duration timeToLive,
+                                   @Value("${formatter.artifacts.max-total-size:512MB}") DataSize maxTotalSize,
+                                   @Value("${formatter.artifacts.max-artifact-size:50MB}") DataSize maxArtifactSize,
+                                   @Value("${formatter.artifacts.janitor-interval:1m}") Duration janitorInterval) {
+
+        this.directory = Paths.get(directory);
+        this.timeToLive = timeToLive;
+        this.maxTotalBytes = maxTotalSize.toBytes();
+        this.maxArtifactBytes = maxArtifactSize.toBytes();
+        this.janitorInterval = janitorInterval;
+
+        prepareDirectory();
+    }
+
+
+    @Override
+    public ArtifactUpload create(String fileName, String contentType) {
+
+        return new FileArtifactUpload(UUID.randomUUID().toString(), fileName, contentType);
+    }
+
+
+    @Override
+    public Optional<Artifact> find(String id) {
+
+        StoredArtifact storedArtifact = artifacts.get(id);
+
+        // case: unknown or expired
+        if (storedArtifact == null || storedArtifact.artifact.isExpired(Instant.now()))
+            return Optional.empty();
+
+        return Optional.of(storedArtifact.artifact);
+    }
+
+
+    @Override
+    public InputStream open(String id) {
+
+        StoredArtifact storedArtifact = artifacts.get(id);
+
+        // register reader, fails if artifact has been deleted in the meantime
+        if (storedArtifact == null || storedArtifact.artifact.isExpired(Instant.now()) || !storedArtifact.acquire())
+            throw new ApiRequestException("No artifact with id " + id + " found.", HttpStatus.NOT_FOUND);
+
+        try {
+            return new FilterInputStream(Files.newInputStream(storedArtifact.path)) {
+                private boolean closed = false;
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+
+                    } finally {
+                        if (!closed) {
+                            closed = true;
+                            storedArtifact.release();
+                        }
+                    }
+                }
+            };
+
+        } catch (IOException e) {
+            storedArtifact.release();
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    @Override
+    public boolean delete(String id) {
+
+        StoredArtifact storedArtifact = artifacts.remove(id);
+
+        // case: unknown
+        if (storedArtifact == null)
+            return false;
+
+        totalBytes.addAndGet(-storedArtifact.artifact.size());
+        storedArtifact.markDeleted();
+
+        return true;
+    }
+
+
+    @Override
+    public synchronized int evict() {
+
+        Instant now = Instant.now();
+        int numEvicted = 0;
+
+        // remove expired artifacts
+        for (StoredArtifact storedArtifact : artifacts.values())
+            if (storedArtifact.artifact.isExpired(now) && delete(storedArtifact.artifact.id()))
+                numEvicted++;
+
+        // remove oldest artifacts until quota is met, including uploads in progress
+        while (totalBytes.get() + uploadingBytes.get() > maxTotalBytes) {
+            Optional<StoredArtifact> oldest = artifacts.values()
+                                                       .stream()
+                                                       .min(Comparator.comparingLong(storedArtifact -> storedArtifact.commitNumber));
+            if (oldest.isEmpty())
+                break;
+
+            if (delete(oldest.get().artifact.id()))
+                numEvicted++;
+        }
+
+        if (numEvicted > 0)
+            log.info("Evicted " + numEvicted + " artifacts.");
+
+        return numEvicted;
+    }
+
+
+    /**
+     * @return the size of all committed artifacts in bytes.
+     */
+    public long getTotalBytes() {
+
+        return totalBytes.get();
+    }
+
+
+    /**
+     * @return the bytes written by uploads in progress.
+     */
+    public long getUploadingBytes() {
+
+        return uploadingBytes.get();
+    }
+
+
+    /**
+     * Counts bytes of an upload against the quota, evicting committed artifacts if there is no room.
+     * 
+     * @param numBytes to write.
+     * @return true if the bytes have been counted, false if there is no room even after evicting.
+     */
+    private boolean reserve(long numBytes) {
+
+        if (totalBytes.get() + uploadingBytes.addAndGet(numBytes) <= maxTotalBytes)
+            return true;
+
+        evict();
+
+        // case: quota taken by other uploads
+        if (totalBytes.get() + uploadingBytes.get() > maxTotalBytes) {
+            uploadingBytes.addAndGet(-numBytes);
+            return false;
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Starts the background thread evicting artifacts periodically.
+     */
+    @PostConstruct
+    private void startJanitor() {
+
+        this.janitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "artifact-janitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = janitorInterval.toMillis();
+        janitor.scheduleWithFixedDelay(() -> {
+            try {
+                evict();
+
+            } catch (RuntimeException e) {
+                log.info("Failed to evict artifacts: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    @PreDestroy
+    private void stopJanitor() {
+
+        if (janitor != null)
+            janitor.shutdownNow();
+    }
+
+
+    /**
+     * Creates the artifact directory and removes leftovers of previous runs. Only files inside the
+     * store's own directory are touched.
+     *
+     * @throws ApiRequestException if the directory cannot be prepared.
+     */
+    private void prepareDirectory() {
+
+        try {
+            Files.createDirectories(directory);
+
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(Files::isRegularFile).forEach(this::deleteQuietly);
+            }
+
+        } catch (IOException e) {
+            throw new ApiRequestException("Failed to prepare artifact directory " + directory + ".", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    private void deleteQuietly(Path path) {
+
+        try {
+            Files.deleteIfExists(path);
+
+        } catch (IOException e) {
+            log.info("Failed to delete file " + path + ".");
+        }
+    }
+
+
+    /**
+     * A committed artifact and the number of streams currently reading it.
+     */
+    private final class StoredArtifact {
+
+        private final Artifact artifact;
+
+        private final Path path;
+
+        private final long commitNumber = commitCounter.incrementAndGet();
+
+        private int numReaders = 0;
+
+        private boolean deleted = false;
+
+
+        private StoredArtifact(Artifact artifact, Path path) {
+
+            this.artifact = artifact;
+            this.path = path;
+        }
+
+
+        private synchronized boolean acquire() {
+
+            if (deleted)
+                return false;
+
+            numReaders++;
+            return true;
+        }
+
+
+        private synchronized void release() {
+
+            numReaders--;
+
+            if (deleted && numReaders == 0)
+                deleteQuietly(path);
+        }
+
+
+        private synchronized void markDeleted() {
+
+            deleted = true;
+
+            if (numReaders == 0)
+                deleteQuietly(path);
+        }
+    }
+
+
+    /**
+     * Upload writing to a temporary file that is renamed to the artifact id on commit.
+     * <p>
+     * Synchronized, since a request that timed out closes the upload while the render might still write to it.
+     */
+    private final class FileArtifactUpload extends ArtifactUpload {
+
+        private final String id;
+
+        private final String fileName;
+
+        private final String contentType;
+
+        private final Path partPath;
+
+        private OutputStream outputStream;
+
+        private long size = 0;
+
+        private boolean discarded = false;
+
+        private boolean committed = false;
+
+
+        private FileArtifactUpload(String id, String fileName, String contentType) {
+
+            this.id = id;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.partPath = directory.resolve(id + PART_SUFFIX);
+
+            try {
+                this.outputStream = new BufferedOutputStream(Files.newOutputStream(partPath));
+
+            } catch (IOException e) {
+                discard("Failed to create artifact " + id + ".");
+            }
+        }
+
+
+        @Override
+        public String getId() {
+
+            return id;
+        }
+
+
+        @Override
+        public void write(int b) {
+
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+
+            // case: nothing to write to anymore
+            if (discarded || committed)
+                return;
+
+            // case: quota exceeded
+            if (size + length > maxArtifactBytes) {
+                discard("Artifact " + id + " exceeds the maximum artifact size.");
+                return;
+            }
+
+            // case: no room in store
+            if (!reserve(length)) {
+                discard("Artifact " + id + " exceeds the maximum total size.");
+                return;
+            }
+
+            size += length;
+
+            try {
+                outputStream.write(bytes, offset, length);
+
+            } catch (IOException e) {
+                discard("Failed to write artifact " + id + ".");
+            }
+        }
+
+
+        @Override
+        public synchronized Artifact commit() {
+
+            if (discarded || committed)
+                return null;
+
+            try {
+                outputStream.close();
+                Files.move(partPath, directory.resolve(id), StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (IOException e) {
+                discard("Failed to commit artifact " + id + ".");
+                return null;
+            }
+
+            committed = true;
+
+            Instant now = Instant.now();
+            Artifact artifact = new Artifact(id, fileName, contentType, size, now, now.plus(timeToLive));
+
+            artifacts.put(id, new StoredArtifact(artifact, directory.resolve(id)));
+
+            // counted as committed from now on
+            totalBytes.addAndGet(size);
+
+            // make room if necessary
+            if (totalBytes.get() + uploadingBytes.addAndGet(-size) > maxTotalBytes)
+                evict();
+
+            return artifact;
+        }
+
+
+        @Override
+        public synchronized void close() {
+
+            if (!committed)
+                discard(null);
+        }
+
+
+        /**
+         * Stops the upload and removes the temporary file.
+         *
+         * @param reason to log, may be null.
+         */
+        private void discard(String reason) {
+
+            if (discarded)
+                return;
+
+            discarded = true;
+            uploadingBytes.addAndGet(-size);
+
+            if (reason != null)
+                log.info(reason);
+
+            try {
+                if (outputStream != null)
+                    outputStream.close();
+
+            } catch (IOException e) {
+                // ignore, file is deleted anyway
+            }
+
+            deleteQuietly(partPath);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.metadata.AuditMetaData;
+import eu.tecfox.formatterservice.template.models.section.Section;
+
+
+/**
+ * Hashes model objects like templates or sections by their content, to use as cache key.
+ * <p>
+ * Objects are serialized with sorted properties and map entries, so equal content always has the same 
+ * hash. Audit meta data is left out, it never changes what is rendered.
+ * <p>
+ * Templates can be hashed from the hashes of their sections, see {@link #of(Template, List, String)}. 
+ * Sections are hashed once per render this way and the same hashes key the cached sections in the 
+ * {@link eu.tecfox.formatterservice.formatter.FragmentCache}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public final class ContentHash {
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+                                                                   .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                                                                   .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                                                                   .addMixIn(AuditMetaData.class, IgnoreAuditMetaData.class)
+                                                                   .findAndAddModules()
+                                                                   .build();
+
+    /** Like {@link #CANONICAL_MAPPER} but leaves the sections of templates out, they are hashed one by one. */
+    private static final ObjectMapper WITHOUT_SECTIONS_MAPPER = CANONICAL_MAPPER.copy()
+                                                                                .addMixIn(Template.class, IgnoreSections.class);
+
+
+    private ContentHash() {}
+
+
+    /**
+     * @param value to hash.
+     * @param suffix to hash after the value, e.g. an output format.
+     * @return the hex encoded SHA-256 hash of the canonical json of the value and the suffix.
+     * @throws ApiRequestException if the value cannot be serialized.
+     */
+    public static String of(Object value, String suffix) {
+
+        return hash(CANONICAL_MAPPER, value, List.of(suffix));
+    }
+
+
+    /**
+     * Hashes a template from the hashes of its sections, so the sections, which are most of the template, 
+     * are serialized only once per render.
+     * 
+     * @param template to hash.
+     * @param sectionHashes of the template, see {@link #ofSections(Template)}.
+     * @param suffix to hash after the template, e.g. an output format.
+     * @return the hex encoded SHA-256 hash of the template, its section hashes and the suffix.
+     * @throws ApiRequestException if the template cannot be serialized.
+     */
+    public static String of(Template template, List<String> sectionHashes, String suffix) {
+
+        List<String> parts = new ArrayList<>(sectionHashes);
+        parts.add(suffix);
+
+        return hash(WITHOUT_SECTIONS_MAPPER, template, parts);
+    }
+
+
+    /**
+     * @param template to hash the sections of.
+     * @return the hash of every section of the template, in template order.
+     * @throws ApiRequestException if a section cannot be serialized.
+     */
+    public static List<String> ofSections(Template template) {
+
+        // case: no sections
+        if (template.getSections() == null)
+            return List.of();
+
+        return template.getSections()
+                       .stream()
+                       .map(section -> of(section, "section"))
+                       .toList();
+    }
+
+
+    private static String hash(ObjectMapper objectMapper, Object value, List<String> parts) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            // hash while serializing, the json is never held as a whole
+            try (OutputStream outputStream = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                objectMapper.writeValue(outputStream, value);
+            }
+
+            for (String part : parts)
+                digest.update(("|" + part).getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest.digest());
+
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new ApiRequestException("Failed to hash " + value.getClass().getSimpleName() + ": " + e.getMessage(), 
+                                          HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Excludes audit meta data from the hash.
+     */
+    private abstract static class IgnoreAuditMetaData {
+
+        @JsonIgnore
+        abstract LocalDateTime getCreatedDate();
+
+        @JsonIgnore
+        abstract LocalDateTime getLastModifiedDate();
+
+        @JsonIgnore
+        abstract String getCreatedByUser();
+
+        @JsonIgnore
+        abstract String getModifiedByUser();
+    }
+
+
+    /**
+     * Excludes the sections of a template from its hash.
+     */
+    private abstract static class IgnoreSections {
+
+        @JsonIgnore
+        abstract List<Section> getSections();
+    }
+}
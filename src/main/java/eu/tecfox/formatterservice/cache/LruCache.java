@@ -0,0 +1,255 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+
+/**
+ * Thread safe cache evicting the least recently used entries once the total weight of all entries
+ * exceeds a maximum.
+ * <p>
+ * By default every entry weighs 1, so the maximum weight is the maximum number of entries. Use
+ * {@link #LruCache(long, ToLongFunction)} to bound the cache by e.g. bytes instead.
+ * <p>
+ * Keeps counters of hits, misses and evictions.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the values.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class LruCache<K, V> {
+
+    private final long maxWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    /** Entries in access order, least recently used first. */
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+
+    /**
+     * @param maxEntries maximum number of entries.
+     */
+    public LruCache(long maxEntries) {
+
+        this(maxEntries, value -> 1);
+    }
+
+
+    /**
+     * @param maxWeight maximum total weight of all entries.
+     * @param weigher calculating the weight of a single value.
+     */
+    public LruCache(long maxWeight, ToLongFunction<V> weigher) {
+
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+
+    /**
+     * @param key of the value.
+     * @return the cached value or null if there is none.
+     */
+    public V get(K key) {
+
+        V value;
+        synchronized (this) {
+            value = entries.get(key);
+        }
+
+        (value != null ? hits : misses).incrementAndGet();
+
+        return value;
+    }
+
+
+    /**
+     * Like {@link #get(Object)}, but removes the cached value and counts a miss if it is stale, e.g. 
+     * because it has expired.
+     *
+     * @param key of the value.
+     * @param isStale testing whether the cached value may not be used anymore.
+     * @return the cached value or null if there is none or it is stale.
+     */
+    public V get(K key, Predicate<V> isStale) {
+
+        V value;
+        synchronized (this) {
+            value = entries.get(key);
+
+            // case: stale
+            if (value != null && isStale.test(value)) {
+                invalidate(key);
+                value = null;
+            }
+        }
+
+        (value != null ? hits : misses).incrementAndGet();
+
+        return value;
+    }
+
+
+    /**
+     * Returns the cached value or computes and caches it if there is none.
+     * <p>
+     * The value is computed outside of any lock, so two threads missing the same key at the same time 
+     * might both compute it.
+     *
+     * @param key of the value.
+     * @param mappingFunction to compute the value with.
+     * @return the cached or computed value.
+     */
+    public V computeIfAbsent(K key, Function<K, V> mappingFunction) {
+
+        V value = get(key);
+
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Caches a value, evicting least recently used entries if necessary. Values heavier than the maximum 
+     * weight are not cached at all.
+     *
+     * @param key of the value.
+     * @param value to cache.
+     */
+    public synchronized void put(K key, V value) {
+
+        long valueWeight = weigher.applyAsLong(value);
+
+        // case: would never fit
+        if (valueWeight > maxWeight)
+            return;
+
+        V previous = entries.put(key, value);
+        if (previous != null)
+            weight -= weigher.applyAsLong(previous);
+
+        weight += valueWeight;
+
+        // evict least recently used
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            weight -= weigher.applyAsLong(eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Caches a value unless there is one already, e.g. for values loaded while another thread might have 
+     * cached a newer one.
+     *
+     * @param key of the value.
+     * @param value to cache.
+     * @return the value cached before or null if the given value has been cached.
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+
+        V previous = entries.get(key);
+
+        // case: cached already
+        if (previous != null)
+            return previous;
+
+        put(key, value);
+
+        return null;
+    }
+
+
+    /**
+     * @param key of the value to remove.
+     */
+    public synchronized void invalidate(K key) {
+
+        V previous = entries.remove(key);
+        if (previous != null)
+            weight -= weigher.applyAsLong(previous);
+    }
+
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void invalidateAll() {
+
+        entries.clear();
+        weight = 0;
+    }
+
+
+    public synchronized int size() {
+
+        return entries.size();
+    }
+
+
+    public synchronized long getWeight() {
+
+        return weight;
+    }
+
+
+    public long getMaxWeight() {
+
+        return maxWeight;
+    }
+
+
+    public long getHits() {
+
+        return hits.get();
+    }
+
+
+    public long getMisses() {
+
+        return misses.get();
+    }
+
+
+    public long getEvictions() {
+
+        return evictions.get();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+
+/**
+ * Cache of rendered documents by a canonical hash of the {@link Template} and the output format.
+ * <p>
+ * The hash covers everything the output depends on: the {@link ContentHash} of the template, the format 
+ * and the version of a logo referenced by path. It doubles as ETag, so clients can revalidate their copy 
+ * without anything being rendered.
+ * <p>
+ * Bounded by the total size of all cached documents, least recently used documents are evicted first. Hits, 
+ * misses, evictions and size are published as "formatter.render.cache.*" metrics.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class RenderCache {
+
+    private final LruCache<String, RenderResult> cache;
+
+    private final long maxEntryBytes;
+
+
+    public RenderCache(@Value("${formatter.render-cache.size:64MB}") DataSize size, 
+                       @Value("${formatter.render-cache.max-entry-size:5MB}") DataSize maxEntrySize,
+                       MeterRegistry meterRegistry) {
+
+        this.cache = new LruCache<>(size.toBytes(), renderResult -> renderResult.content().length);
+        this.maxEntryBytes = maxEntrySize.toBytes();
+
+        FunctionCounter.builder("formatter.render.cache.gets", cache, LruCache::getHits)
+                       .description("Lookups of rendered documents.")
+                       .tag("result", "hit")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.render.cache.gets", cache, LruCache::getMisses)
+                       .description("Lookups of rendered documents.")
+                       .tag("result", "miss")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.render.cache.evictions", cache, LruCache::getEvictions)
+                       .description("Rendered documents evicted to stay within the cache size.")
+                       .register(meterRegistry);
+
+        Gauge.builder("formatter.render.cache.size", cache, LruCache::getWeight)
+             .description("Size of all cached documents.")
+             .baseUnit(BaseUnits.BYTES)
+             .register(meterRegistry);
+    }
+
+
+    /**
+     * Computes the key of a render.
+     * 
+     * @param template to render.
+     * @param format of the output, e.g. "docx-XWPF", "pdf-NATIVE" or "html".
+     * @return the hex encoded SHA-256 hash of the canonical template and format.
+     * @throws ApiRequestException if the template cannot be serialized.
+     */
+    public String getKey(Template template, String format) {
+
+        return getKey(template, ContentHash.ofSections(template), format);
+    }
+
+
+    /**
+     * Like {@link #getKey(Template, String)} but reuses the section hashes the render has computed already.
+     * 
+     * @param template to render.
+     * @param sectionHashes of the template, see {@link ContentHash#ofSections(Template)}.
+     * @param format of the output.
+     * @return the hex encoded SHA-256 hash of the canonical template and format.
+     * @throws ApiRequestException if the template cannot be serialized.
+     */
+    public String getKey(Template template, List<String> sectionHashes, String format) {
+
+        return ContentHash.of(template, sectionHashes, format + "|" + getLogoVersion(template.getHeader()));
+    }
+
+
+    /**
+     * @param key of the render, see {@link #getKey(Template, String)}.
+     * @return the cached result or null if there is none.
+     */
+    public RenderResult get(String key) {
+
+        return cache.get(key);
+    }
+
+
+    /**
+     * @param key of the render, see {@link #getKey(Template, String)}.
+     * @param renderResult to cache, ignored if larger than the maximum entry size.
+     */
+    public void put(String key, RenderResult renderResult) {
+
+        if (renderResult.content().length <= maxEntryBytes)
+            cache.put(key, renderResult);
+    }
+
+
+    /**
+     * Starts recording a render to cache it once finished.
+     * 
+     * @param key of the render, see {@link #getKey(Template, String)}.
+     * @return a {@link Recorder} to write the rendered document to.
+     */
+    public Recorder record(String key) {
+
+        return new Recorder(key);
+    }
+
+
+    /**
+     * Removes all cached documents.
+     */
+    public void invalidateAll() {
+
+        cache.invalidateAll();
+    }
+
+
+    /**
+     * @return current statistics of the cache.
+     */
+    public RenderCacheStats getStats() {
+
+        return new RenderCacheStats(cache.size(), 
+                                    cache.getWeight(), 
+                                    cache.getMaxWeight(), 
+                                    cache.getHits(), 
+                                    cache.getMisses(), 
+                                    cache.getEvictions());
+    }
+
+
+    /**
+     * @param header of the template, may be null.
+     * @return a version of a logo referenced by path, as the file might change. Empty if there is none.
+     */
+    private static String getLogoVersion(Header header) {
+
+        File logoFile = MediaLibrary.getLogoFile(header);
+
+        // case: no logo file, hashes are content addressed already
+        if (logoFile == null)
+            return "";
+
+        return logoFile.lastModified() + ":" + logoFile.length();
+    }
+
+
+    /**
+     * A rendered document.
+     * 
+     * @param content of the document.
+     */
+    public record RenderResult(
+        byte[] content
+    ) {}
+
+
+    /**
+     * Stream collecting a rendered document. Stops collecting silently if the document gets larger than 
+     * the maximum entry size, so it can be mirrored next to a client download.
+     */
+    public final class Recorder extends OutputStream {
+
+        private final String key;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+
+        private Recorder(String key) {
+
+            this.key = key;
+        }
+
+
+        @Override
+        public void write(int b) {
+
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+
+            // case: discarded
+            if (buffer == null)
+                return;
+
+            // case: too large
+            if (buffer.size() + length > maxEntryBytes) {
+                buffer = null;
+                return;
+            }
+
+            buffer.write(bytes, offset, length);
+        }
+
+
+        /**
+         * Caches the recorded document.
+         */
+        public void commit() {
+
+            if (buffer != null)
+                put(key, new RenderResult(buffer.toByteArray()));
+
+            buffer = null;
+        }
+    }
+}
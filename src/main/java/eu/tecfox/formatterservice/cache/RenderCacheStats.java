@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.cache;
+
+
+/**
+ * Statistics of the {@link RenderCache}.
+ * 
+ * @param entries number of cached documents.
+ * @param bytes total size of all cached documents.
+ * @param maxBytes maximum total size.
+ * @param hits number of lookups that found a document.
+ * @param misses number of lookups that found nothing.
+ * @param evictions number of documents evicted to make room.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record RenderCacheStats(
+    int entries,
+    long bytes,
+    long maxBytes,
+    long hits,
+    long misses,
+    long evictions
+) {
+
+    /**
+     * @return the share of lookups that found a document, 0 if there were none.
+     */
+    public double getHitRate() {
+
+        long lookups = hits + misses;
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
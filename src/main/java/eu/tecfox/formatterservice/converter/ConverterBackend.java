@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import java.io.IOException;
+
+
+/**
+ * Interface of a conversion backend plugged into {@link PooledDocumentConverter}.
+ * <p>
+ * Starting an instance may be expensive (e.g. launching an external process), instances are therefore 
+ * kept warm and reused for many conversions.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public interface ConverterBackend {
+
+    /**
+     * @return the name of the backend, used for logging.
+     */
+    String getName();
+
+    /**
+     * Starts a new instance of the backend.
+     * 
+     * @return the started {@link ConverterInstance}.
+     * @throws IOException if the instance cannot be started.
+     */
+    ConverterInstance start() throws IOException;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+
+/**
+ * A started instance of a {@link ConverterBackend}. Instances are used by one thread at a time.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public interface ConverterInstance extends AutoCloseable {
+
+    /**
+     * Converts a serialized docx document. Neither stream is closed.
+     * 
+     * @param docx the document to convert.
+     * @param pdf stream to write the pdf to.
+     * @throws IOException if the conversion fails.
+     */
+    void convert(InputStream docx, OutputStream pdf) throws IOException;
+
+    /**
+     * Converts an in memory document. Serializes the document by default, backends working on 
+     * {@link XWPFDocument}s directly should override this.
+     * 
+     * @param document the document to convert.
+     * @param pdf stream to write the pdf to.
+     * @throws IOException if the conversion fails.
+     */
+    default void convert(XWPFDocument document, OutputStream pdf) throws IOException {
+
+        ByteArrayOutputStream docx = new ByteArrayOutputStream();
+        document.write(docx);
+
+        convert(new ByteArrayInputStream(docx.toByteArray()), pdf);
+    }
+
+    /**
+     * Stops the instance and frees its resources.
+     */
+    @Override
+    void close();
+}
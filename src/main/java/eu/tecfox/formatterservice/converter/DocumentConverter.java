@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+
+/**
+ * Interface of a service converting docx documents to pdf.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public interface DocumentConverter {
+
+    /**
+     * Converts a serialized docx document. Neither stream is closed.
+     * 
+     * @param docx the document to convert.
+     * @param pdf stream to write the pdf to.
+     * @throws IOException if reading or writing fails.
+     * @throws eu.tecfox.formatterservice.exception.ApiRequestException if the conversion fails.
+     */
+    void convert(InputStream docx, OutputStream pdf) throws IOException;
+
+    /**
+     * Converts an in memory document. The converter takes over the document and closes it once it is done with 
+     * it, also if the conversion fails or times out. Callers must not use the document after calling this.
+     * 
+     * @param document the document to convert, closed by the converter.
+     * @param pdf stream to write the pdf to, not closed.
+     * @throws IOException if writing fails.
+     * @throws eu.tecfox.formatterservice.exception.ApiRequestException if the conversion fails.
+     */
+    void convert(XWPFDocument document, OutputStream pdf) throws IOException;
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.documents4j.api.DocumentType;
+import com.documents4j.api.IConverter;
+import com.documents4j.job.LocalConverter;
+
+
+/**
+ * {@link ConverterBackend} converting with MS Word through documents4j. Every instance runs its own 
+ * {@link LocalConverter}, which is expensive to start.
+ * <p>
+ * Only works on Windows with MS Office installed. Used if "formatter.converter.backend" is set to 
+ * "documents4j".
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+@ConditionalOnProperty(name = "formatter.converter.backend", havingValue = "documents4j")
+public class Documents4jBackend implements ConverterBackend {
+
+    @Override
+    public String getName() {
+
+        return "documents4j";
+    }
+
+
+    @Override
+    public ConverterInstance start() throws IOException {
+
+        IConverter converter;
+        try {
+            converter = LocalConverter.builder().build();
+
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to start documents4j converter: " + e.getMessage(), e);
+        }
+
+        return new ConverterInstance() {
+
+            @Override
+            public void convert(InputStream docx, OutputStream pdf) throws IOException {
+
+                boolean converted = converter.convert(docx).as(DocumentType.DOCX)
+                                                           .to(pdf)
+                                                           .as(DocumentType.PDF)
+                                                           .execute();
+
+                if (!converted)
+                    throw new IOException("documents4j failed to convert the document.");
+            }
+
+
+            @Override
+            public void close() {
+
+                converter.shutDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * {@link DocumentConverter} running conversions on a fixed pool of warm {@link ConverterInstance}s.
+ * <p>
+ * Every worker thread owns one instance, which is started once and reused, so the pool size caps the 
+ * number of concurrent conversions. Jobs wait in a bounded queue; if it is full new jobs are rejected with 
+ * HttpStatus 429. A busy worker picks up queued jobs no idle worker would take and runs them as one 
+ * batch on its instance.
+ * <p>
+ * Every job has a timeout counted from its submission. A timed out job is cancelled and, if it is 
+ * already running, its worker is interrupted and replaces the instance, which might be stuck.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Component
+public class PooledDocumentConverter implements DocumentConverter {
+
+    private final ConverterBackend converterBackend;
+
+    private final BlockingQueue<Job> jobs;
+
+    private final int batchSize;
+
+    private final Duration timeout;
+
+    private final Duration retryAfter;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    /** Number of workers waiting for a job. */
+    private final AtomicInteger numIdleWorkers = new AtomicInteger();
+
+    private volatile boolean closed = false;
+
+
+    public PooledDocumentConverter(ConverterBackend converterBackend,
+                                   @Value("${formatter.converter.pool-size:2}") int poolSize,
+                                   @Value("${formatter.converter.queue-capacity:50}") int queueCapacity,
+                                   @Value("${formatter.converter.batch-size:4}") int batchSize,
+                                   @Value("${formatter.converter.timeout:60s}") Duration timeout,
+                                   @Value("${formatter.converter.retry-after:5s}") Duration retryAfter) {
+
+        this.converterBackend = converterBackend;
+        this.jobs = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+
+        // start workers, each warming up its instance
+        for (int i = 1; i <= poolSize; i++) {
+            Thread worker = new Thread(this::work, "converter-" + converterBackend.getName() + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+
+    @Override
+    public void convert(InputStream docx, OutputStream pdf) throws IOException {
+
+        byte[] docxBytes = docx.readAllBytes();
+
+        execute(new Job((instance, buffer) -> instance.convert(new ByteArrayInputStream(docxBytes), buffer), null), pdf);
+    }
+
+
+    /**
+     * Converts the document on a worker without serializing it. The worker owns the document from then on and 
+     * closes it once it is done with it, so a timed out conversion still running never sees a closed document.
+     */
+    @Override
+    public void convert(XWPFDocument document, OutputStream pdf) throws IOException {
+
+        execute(new Job((instance, buffer) -> instance.convert(document, buffer), document), pdf);
+    }
+
+
+    /**
+     * @return the number of jobs waiting for a worker.
+     */
+    public int getQueueSize() {
+
+        return jobs.size();
+    }
+
+
+    /**
+     * Stops all workers and their instances. Queued jobs are cancelled.
+     */
+    @PreDestroy
+    public void close() {
+
+        closed = true;
+
+        workers.forEach(Thread::interrupt);
+
+        List<Job> remainingJobs = new ArrayList<>();
+        jobs.drainTo(remainingJobs);
+        remainingJobs.forEach(Job::cancel);
+    }
+
+
+    /**
+     * Queues a job and waits for it. The pdf is only written to the stream once the conversion 
+     * succeeded, so a timed out job never writes to it.
+     * 
+     * @param job to run.
+     * @param pdf stream to write the result to.
+     * @throws IOException if writing the result fails.
+     */
+    private void execute(Job job, OutputStream pdf) throws IOException {
+
+        // case: full
+        if (closed || !jobs.offer(job)) {
+            job.cancel();
+            throw new TooManyRequestsException("Too many documents are being converted at the moment, try again later.", retryAfter);
+        }
+
+        try {
+            pdf.write(job.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+
+        } catch (TimeoutException e) {
+            job.cancel();
+            throw new ApiRequestException("Conversion timed out after " + timeout.toSeconds() + " seconds.", HttpStatus.SERVICE_UNAVAILABLE);
+
+        } catch (InterruptedException e) {
+            job.cancel();
+            Thread.currentThread().interrupt();
+            throw new ApiRequestException("Conversion has been interrupted.", HttpStatus.INTERNAL_SERVER_ERROR);
+
+        } catch (CancellationException e) {
+            throw new ApiRequestException("Conversion has been cancelled.", HttpStatus.SERVICE_UNAVAILABLE);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiRequestException apiRequestException)
+                throw apiRequestException;
+
+            throw new ApiRequestException("Failed to convert document: " + e.getCause().getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Loop of a worker thread. Keeps one instance warm and runs queued jobs on it.
+     */
+    private void work() {
+
+        ConverterInstance instance = startInstance();
+        List<Job> batch = new ArrayList<>(batchSize);
+
+        while (!closed) {
+            // wait for job
+            numIdleWorkers.incrementAndGet();
+            try {
+                batch.add(jobs.take());
+
+            } catch (InterruptedException e) {
+                continue;
+
+            } finally {
+                numIdleWorkers.decrementAndGet();
+            }
+
+            // take jobs no idle worker would take anyway
+            int numExtraJobs = Math.min(batchSize - 1, jobs.size() - numIdleWorkers.get());
+            if (numExtraJobs > 0)
+                jobs.drainTo(batch, numExtraJobs);
+
+            for (Job job : batch) {
+                // case: no warm instance, e.g. start failed or replaced
+                if (instance == null)
+                    instance = startInstance();
+
+                // case: start failed again
+                if (instance == null) {
+                    job.result.completeExceptionally(new ApiRequestException("Converter " + converterBackend.getName() + " is not available.", 
+                                                                             HttpStatus.SERVICE_UNAVAILABLE));
+                    job.finish();
+                    continue;
+                }
+
+                // case: interrupted, instance might be stuck
+                if (!run(job, instance)) {
+                    closeQuietly(instance);
+                    instance = null;
+                }
+            }
+
+            batch.clear();
+        }
+
+        closeQuietly(instance);
+    }
+
+
+    /**
+     * Runs a single job on the calling worker.
+     * 
+     * @param job to run.
+     * @param instance to run the job on.
+     * @return false if the job has been interrupted and the instance should be replaced.
+     */
+    private boolean run(Job job, ConverterInstance instance) {
+
+        // case: cancelled while queued
+        if (!job.start(Thread.currentThread()))
+            return true;
+
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            job.conversion.run(instance, buffer);
+            job.result.complete(buffer.toByteArray());
+
+        } catch (Exception e) {
+            job.result.completeExceptionally(e);
+
+        } finally {
+            job.finish();
+        }
+
+        // clears the interrupt of a cancelled job
+        return !Thread.interrupted();
+    }
+
+
+    private ConverterInstance startInstance() {
+
+        try {
+            return converterBackend.start();
+
+        } catch (IOException | RuntimeException e) {
+            log.info("Failed to start converter " + converterBackend.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    private void closeQuietly(ConverterInstance instance) {
+
+        if (instance == null)
+            return;
+
+        try {
+            instance.close();
+
+        } catch (RuntimeException e) {
+            log.info("Failed to close converter " + converterBackend.getName() + ": " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * A conversion to run on a worker.
+     */
+    @FunctionalInterface
+    private interface Conversion {
+
+        void run(ConverterInstance instance, OutputStream buffer) throws IOException;
+    }
+
+
+    /**
+     * A queued conversion and its result.
+     * <p>
+     * The document of the job, if any, is closed once nobody uses it anymore: by the worker after running the 
+     * job, or on cancel if no worker has started the job.
+     */
+    private static final class Job {
+
+        private final Conversion conversion;
+
+        /** Document owned by the job, null if there is none. */
+        private final AutoCloseable document;
+
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        /** Worker running the job, null if not running. */
+        private Thread worker;
+
+        private boolean started = false;
+
+        private boolean cancelled = false;
+
+        private boolean released = false;
+
+
+        private Job(Conversion conversion, AutoCloseable document) {
+
+            this.conversion = conversion;
+            this.document = document;
+        }
+
+
+        /**
+         * @param worker about to run the job.
+         * @return false if the job has been cancelled already.
+         */
+        private synchronized boolean start(Thread worker) {
+
+            if (cancelled)
+                return false;
+
+            this.worker = worker;
+            this.started = true;
+            return true;
+        }
+
+
+        private synchronized void finish() {
+
+            this.worker = null;
+            release();
+        }
+
+
+        /**
+         * Cancels the job and interrupts its worker if it is running. Closes the document if no worker has 
+         * started the job, a running worker closes it when it is done.
+         */
+        private synchronized void cancel() {
+
+            cancelled = true;
+            result.cancel(false);
+
+            if (worker != null)
+                worker.interrupt();
+
+            else if (!started)
+                release();
+        }
+
+
+        /**
+         * Closes the document, once.
+         */
+        private void release() {
+
+            // case: nothing to close
+            if (document == null || released)
+                return;
+
+            this.released = true;
+            try {
+                document.close();
+
+            } catch (Exception e) {
+                log.info("Failed to close converted document: " + e.getMessage());
+            }
+        }
+    }
+}
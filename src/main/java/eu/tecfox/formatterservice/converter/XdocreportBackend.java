@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.formatter.FontRegistry;
+import eu.tecfox.formatterservice.formatter.XwpfToPdf;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * {@link ConverterBackend} converting in pure Java with {@link XwpfToPdf}. In memory documents are 
+ * converted without serializing them.
+ * <p>
+ * Used if "formatter.converter.backend" is set to "xdocreport" or not set at all.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+@ConditionalOnProperty(name = "formatter.converter.backend", havingValue = "xdocreport", matchIfMissing = true)
+@RequiredArgsConstructor
+public class XdocreportBackend implements ConverterBackend {
+
+    private final FontRegistry fontRegistry;
+
+
+    @Override
+    public String getName() {
+
+        return "xdocreport";
+    }
+
+
+    @Override
+    public ConverterInstance start() {
+
+        return new ConverterInstance() {
+
+            @Override
+            public void convert(InputStream docx, OutputStream pdf) throws IOException {
+
+                try (XWPFDocument document = new XWPFDocument(docx)) {
+                    XwpfToPdf.convert(document, pdf, fontRegistry);
+                }
+            }
+
+
+            @Override
+            public void convert(XWPFDocument document, OutputStream pdf) {
+
+                XwpfToPdf.convert(document, pdf, fontRegistry);
+            }
+
+
+            @Override
+            public void close() {
+
+                // nothing to free
+            }
+        };
+    }
+}
@@ -19,6 +19,7 @@ package eu.tecfox.formatterservice.exception;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -40,7 +41,12 @@ public class ApiExceptionHandler {
 			e.getHttpStatus().value(),
 			e.getHttpStatus().getReasonPhrase(),
 			e.getMessage());
-		return new ResponseEntity<>(apiException, e.getHttpStatus());
+
+		HttpHeaders headers = new HttpHeaders();
+		if (e instanceof TooManyRequestsException tooManyRequestsException)
+			headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, tooManyRequestsException.getRetryAfter().toSeconds())));
+
+		return new ResponseEntity<>(apiException, headers, e.getHttpStatus());
 	}
 
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.exception;
+
+import java.time.Duration;
+
+import lombok.Getter;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * ApiRequestException with HttpStatus 429: Too Many Requests telling the client when to try again.
+ *
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Getter
+public class TooManyRequestsException extends ApiRequestException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Duration retryAfter;
+
+	/**
+	 * @param message the message that is sent to the client.
+	 * @param retryAfter time after which the client may retry, sent as Retry-After header.
+	 */
+	public TooManyRequestsException(String message, Duration retryAfter) {
+		super(message, HttpStatus.TOO_MANY_REQUESTS);
+		this.retryAfter = retryAfter;
+	}
+
+}
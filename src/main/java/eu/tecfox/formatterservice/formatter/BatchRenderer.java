@@ -0,0 +1,316 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import eu.tecfox.formatterservice.admission.AdmissionPermit;
+import eu.tecfox.formatterservice.admission.RenderAdmission;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.models.Template;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Class rendering a batch of templates given as newline-delimited JSON into a single zip.
+ * <p>
+ * Reading the input, rendering and writing the zip are pipelined: lines are parsed one by one and rendered on 
+ * a bounded worker pool, and every finished document is written to the zip in input order as soon as all 
+ * documents before it are written. At most "window" documents are in flight at any time, so memory is 
+ * bounded by the window size, not by the batch size.
+ * <p>
+ * Every line is admitted by the {@link RenderAdmission} before it is rendered, so a batch shares the budget 
+ * with all other renders. A line that cannot be parsed, admitted or rendered does not fail the batch. Its 
+ * zip entry is a text file with the error message instead. Only messages meant for clients, those of 
+ * {@link ApiRequestException}s, are written there, any other failure gets a generic message.
+ * <p>
+ * Lines longer than "formatter.batch.max-line-size" are skipped without buffering them and get an error entry.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Component
+public class BatchRenderer {
+
+    /** Name of the zip entry of a document, by its line number. */
+    private static final String DOCUMENT_ENTRY_NAME = "%05d-Profile.docx";
+
+    /** Name of the zip entry of a failed line, by its line number. */
+    private static final String ERROR_ENTRY_NAME = "%05d-error.txt";
+
+    /** Error message of failures not meant for clients. */
+    private static final String GENERIC_ERROR_MESSAGE = "Failed to render document.";
+
+    private final ObjectReader templateReader;
+
+    private final ExecutorService workers;
+
+    private final RenderServices renderServices;
+
+    private final RenderAdmission renderAdmission;
+
+    private final int windowSize;
+
+    /** Maximum length of a line in bytes. */
+    private final long maxLineBytes;
+
+
+    public BatchRenderer(ObjectMapper objectMapper, 
+                         RenderServices renderServices,
+                         RenderAdmission renderAdmission,
+                         @Value("${formatter.batch.threads:0}") int numThreads, 
+                         @Value("${formatter.batch.window:0}") int windowSize,
+                         @Value("${formatter.batch.max-line-size:5MB}") DataSize maxLineSize) {
+
+        // default to one thread per cpu
+        int poolSize = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+
+        this.templateReader = objectMapper.readerFor(Template.class);
+        this.renderServices = renderServices;
+        this.renderAdmission = renderAdmission;
+        this.windowSize = windowSize > 0 ? windowSize : 2 * poolSize;
+        this.maxLineBytes = maxLineSize.toBytes();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "batch-render-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Renders every line of the input and writes the documents to a zip. The output stream itself is not closed.
+     * 
+     * @param input newline-delimited UTF-8 JSON, one {@link Template} per line. Blank lines are skipped.
+     * @param outputStream to write the zip to.
+     * @param renderEngine to render the documents with.
+     * @return number of documents rendered successfully.
+     * @throws IOException if reading the input or writing the zip fails.
+     */
+    public int render(InputStream input, OutputStream outputStream, RenderEngine renderEngine) throws IOException {
+
+        Deque<Future<BatchEntry>> window = new ArrayDeque<>(windowSize);
+        int numRendered = 0;
+
+        try (InputStream reader = new BufferedInputStream(input);
+             ZipOutputStream zip = new ZipOutputStream(CloseShieldOutputStream.wrap(outputStream))) {
+
+            int lineNumber = 0;
+            for (Line line = readLine(reader); line != null; line = readLine(reader)) {
+                lineNumber++;
+
+                // case: blank line
+                if (!line.isTooLong() && line.text().isBlank())
+                    continue;
+
+                // make room in window
+                if (window.size() >= windowSize)
+                    numRendered += writeEntry(zip, window.poll());
+
+                // case: too long, nothing to render
+                if (line.isTooLong())
+                    window.add(CompletableFuture.completedFuture(errorEntry(lineNumber, "Line is longer than " + maxLineBytes + " bytes.")));
+
+                else
+                    window.add(submit(line.text(), lineNumber, renderEngine));
+            }
+
+            // write remaining entries
+            while (!window.isEmpty())
+                numRendered += writeEntry(zip, window.poll());
+
+        } finally {
+            // case: aborted, e.g. client gone
+            window.forEach(future -> future.cancel(true));
+        }
+
+        return numRendered;
+    }
+
+
+    @PreDestroy
+    private void shutdown() {
+
+        workers.shutdownNow();
+    }
+
+
+    /**
+     * Parses and renders a single line on the worker pool.
+     * 
+     * @param line JSON of a template.
+     * @param lineNumber of the line, used as entry name.
+     * @param renderEngine to render with.
+     * @return the future zip entry.
+     */
+    private Future<BatchEntry> submit(String line, int lineNumber, RenderEngine renderEngine) {
+
+        return workers.submit(() -> {
+            try {
+                Template template = templateReader.readValue(line);
+
+                // wait for budget, held until the document is buffered
+                ByteArrayOutputStream document = new ByteArrayOutputStream();
+                AdmissionPermit admissionPermit = renderAdmission.admit(template, renderEngine);
+                try {
+                    Formatter formatter = new Formatter(template, renderEngine, renderServices);
+                    formatter.buildDocument();
+                    formatter.writeDocument(document);
+
+                } finally {
+                    admissionPermit.close();
+                }
+
+                return new BatchEntry(DOCUMENT_ENTRY_NAME.formatted(lineNumber), document.toByteArray(), true);
+
+            } catch (JsonProcessingException e) {
+                log.info("Failed to parse line " + lineNumber + " of batch: " + e.getMessage());
+                return errorEntry(lineNumber, "Line is not a valid template.");
+
+            } catch (ApiRequestException e) {
+                log.info("Failed to render line " + lineNumber + " of batch: " + e.getMessage());
+                return errorEntry(lineNumber, e.getMessage());
+
+            } catch (Exception e) {
+                log.info("Failed to render line " + lineNumber + " of batch: " + e.getMessage());
+                return errorEntry(lineNumber, GENERIC_ERROR_MESSAGE);
+            }
+        });
+    }
+
+
+    /**
+     * Reads the next line as UTF-8, buffering at most {@link #maxLineBytes}. The rest of a longer line is 
+     * skipped.
+     * 
+     * @param reader to read from.
+     * @return the line without line break or null if the input has ended.
+     * @throws IOException if reading fails.
+     */
+    private Line readLine(InputStream reader) throws IOException {
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        boolean tooLong = false;
+
+        int b = reader.read();
+
+        // case: end of input
+        if (b == -1)
+            return null;
+
+        while (b != -1 && b != '\n') {
+            // case: too long, skip rest
+            if (line.size() >= maxLineBytes)
+                tooLong = true;
+
+            else
+                line.write(b);
+
+            b = reader.read();
+        }
+
+        // case: too long
+        if (tooLong)
+            return new Line(null, true);
+
+        String text = line.toString(StandardCharsets.UTF_8);
+
+        // strip \r of \r\n line breaks
+        if (text.endsWith("\r"))
+            text = text.substring(0, text.length() - 1);
+
+        return new Line(text, false);
+    }
+
+
+    private static BatchEntry errorEntry(int lineNumber, String message) {
+
+        return new BatchEntry(ERROR_ENTRY_NAME.formatted(lineNumber), message.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+
+    /**
+     * Waits for an entry and writes it to the zip.
+     * 
+     * @param zip to write to.
+     * @param future of the entry.
+     * @return 1 if the entry is a document, 0 if it is an error.
+     * @throws IOException if writing fails or waiting is interrupted.
+     */
+    private int writeEntry(ZipOutputStream zip, Future<BatchEntry> future) throws IOException {
+
+        BatchEntry entry;
+        try {
+            entry = future.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for batch entry.", e);
+
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        zip.putNextEntry(new ZipEntry(entry.name()));
+        zip.write(entry.content());
+        zip.closeEntry();
+
+        return entry.isDocument() ? 1 : 0;
+    }
+
+
+    /**
+     * Finished zip entry of a single line.
+     */
+    private record BatchEntry(String name, byte[] content, boolean isDocument) {}
+
+
+    /**
+     * Line of the input.
+     * 
+     * @param text of the line, null if it is too long.
+     * @param isTooLong true if the line is longer than the maximum and has been skipped.
+     */
+    private record Line(String text, boolean isTooLong) {}
+}
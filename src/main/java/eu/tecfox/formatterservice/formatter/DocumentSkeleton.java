@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.formatter.RenderPlan.ElementPlan;
+import eu.tecfox.formatterservice.formatter.RenderPlan.SectionPlan;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.metrics.RenderMetrics;
+import eu.tecfox.formatterservice.metrics.RenderStage;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+import eu.tecfox.formatterservice.template.models.style.Style;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Class providing an empty document with everything that does not depend on profile values: header with 
+ * logo, footer, section properties and the styles of the {@link RenderPlan}.
+ * <p>
+ * The skeleton is rendered once per template version and kept as .docx bytes in the {@link SkeletonCache}. 
+ * Every render parses these bytes into a new {@link XWPFDocument} and only adds the body content.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class DocumentSkeleton {
+
+    private DocumentSkeleton() {}
+
+
+    /**
+     * Creates a new document from the skeleton of the given template, rendering the skeleton if it is not 
+     * cached yet.
+     * 
+     * @param template to create the document for.
+     * @param renderServices to render the skeleton with.
+     * @return a new {@link XWPFDocument} with header, footer and styles but without content.
+     * @throws ApiRequestException if the skeleton cannot be read.
+     */
+    static XWPFDocument newDocument(Template template, RenderServices renderServices) {
+
+        return newDocument(template, renderServices.getRenderPlanCache().getPlan(template), renderServices);
+    }
+
+
+    /**
+     * Same as {@link #newDocument(Template, RenderServices)} with the plan of the current render.
+     * 
+     * @param template to create the document for.
+     * @param renderPlan of the template.
+     * @param renderServices to render the skeleton with.
+     * @return a new {@link XWPFDocument} with header, footer and styles but without content.
+     * @throws ApiRequestException if the skeleton cannot be read.
+     */
+    static XWPFDocument newDocument(Template template, RenderPlan renderPlan, RenderServices renderServices) {
+
+        try {
+            byte[] skeleton = renderServices.getSkeletonCache().getSkeleton(template, renderPlan, renderServices);
+
+            return new XWPFDocument(new ByteArrayInputStream(skeleton));
+
+        } catch (IOException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Renders the skeleton of a template.
+     * 
+     * @param template to take header and footer from.
+     * @param renderPlan to take the styles from.
+     * @param renderServices to take logo and metrics from.
+     * @return the skeleton as .docx bytes.
+     * @throws ApiRequestException if the skeleton cannot be written.
+     */
+    static byte[] render(Template template, RenderPlan renderPlan, RenderServices renderServices) {
+
+        ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+
+        try (XWPFDocument document = new XWPFDocument()) {
+            // add header and footer
+            RenderMetrics renderMetrics = renderServices.getRenderMetrics();
+            Timer.Sample sample = renderMetrics.start();
+            try {
+                new HeaderFooterFormatter(template, document, renderServices.getMediaLibrary()).addHeaderAndFooter();
+
+            } finally {
+                renderMetrics.stop(sample, RenderStage.HEADER_FOOTER);
+            }
+
+            // add styles
+            registerStyles(new StyleRegistry(document), renderPlan);
+
+            document.write(skeleton);
+
+        } catch (IOException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        return skeleton.toByteArray();
+    }
+
+
+    /**
+     * Computes the version of a skeleton. Other than the {@link RenderPlan} version this includes the content 
+     * hash of the logo, see {@link MediaLibrary#getLogoHash(Header)}, and the content hash of the footer.
+     * <p>
+     * The plan version already is a hash, so the parts are only joined, not hashed again.
+     * 
+     * @param template to compute the skeleton version of.
+     * @param renderPlan of the template.
+     * @param mediaLibrary to resolve logo files with.
+     * @return the version as cache key.
+     */
+    static String getVersion(Template template, RenderPlan renderPlan, MediaLibrary mediaLibrary) {
+
+        return renderPlan.version() + 
+               "|" + mediaLibrary.getLogoHash(template.getHeader()) + 
+               "|" + (template.getFooter() != null ? ContentHash.of(template.getFooter(), "footer") : null);
+    }
+
+
+    private static void registerStyles(StyleRegistry styleRegistry, RenderPlan renderPlan) {
+
+        registerStyle(styleRegistry, renderPlan.titleStyle());
+
+        for (SectionPlan sectionPlan : renderPlan.sections()) {
+            registerStyle(styleRegistry, sectionPlan.titleStyle());
+
+            for (ElementPlan elementPlan : sectionPlan.elements().values())
+                registerStyles(styleRegistry, elementPlan);
+        }
+    }
+
+
+    private static void registerStyles(StyleRegistry styleRegistry, ElementPlan elementPlan) {
+
+        registerStyle(styleRegistry, elementPlan.styleKey());
+        registerStyle(styleRegistry, elementPlan.styleValue());
+
+        if (elementPlan.nestedKey() != null)
+            registerStyles(styleRegistry, elementPlan.nestedKey());
+
+        for (ElementPlan nestedValuePlan : elementPlan.nestedValues().values())
+            registerStyles(styleRegistry, nestedValuePlan);
+    }
+
+
+    private static void registerStyle(StyleRegistry styleRegistry, Style style) {
+
+        // case: no style
+        if (style == null)
+            return;
+
+        styleRegistry.registerRunStyle(style);
+        styleRegistry.registerParagraphStyle(style);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
+
+import java.awt.Color;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.pdf.BaseFont;
+
+import fr.opensagres.xdocreport.itext.extension.font.IFontProvider;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Process wide registry of the fonts available for pdf conversion.
+ * <p>
+ * Scans the system font directories and the configured font directory once when created. Fonts are 
+ * embedded into the pdf. Font families that are not installed are replaced by the fall back font.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Component
+public class FontRegistry implements IFontProvider {
+
+    public static final String DEFAULT_FONT_DIRECTORY = INPUT_RESOURCE_PATH + "fonts/";
+
+    public static final String DEFAULT_FALLBACK_FONT = "DejaVu Sans";
+
+    private final String fallbackFont;
+
+    /** Font families as requested by documents mapped to the registered font name to use. */
+    private final Map<String, String> resolvedFamilies = new ConcurrentHashMap<>();
+
+
+    public FontRegistry(@Value("${formatter.pdf.font-directory:" + DEFAULT_FONT_DIRECTORY + "}") String fontDirectory,
+                        @Value("${formatter.pdf.fallback-font:" + DEFAULT_FALLBACK_FONT + "}") String fallbackFont) {
+
+        this.fallbackFont = fallbackFont;
+
+        registerFonts(fontDirectory);
+    }
+
+
+    @Override
+    public Font getFont(String familyName, String encoding, float size, int style, Color color) {
+
+        String fontName = resolveFamily(familyName);
+
+        // embed with unicode encoding, so umlauts and other non latin characters are kept
+        Font font = FontFactory.getFont(fontName, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, style, color);
+
+        // case: font cannot be embedded, use a standard font
+        if (font.getBaseFont() == null)
+            font = FontFactory.getFont(FontFactory.HELVETICA, encoding, size, style, color);
+
+        return font;
+    }
+
+
+    /**
+     * @param familyName font family as used in the document, may be null.
+     * @return the name of the registered font to use instead.
+     */
+    String resolveFamily(String familyName) {
+
+        // case: no family
+        if (familyName == null || familyName.isBlank())
+            return fallbackFont;
+
+        return resolvedFamilies.computeIfAbsent(familyName, family -> {
+            if (FontFactory.isRegistered(family))
+                return family;
+
+            log.info("Font " + family + " is not installed, using " + fallbackFont + " instead.");
+            return fallbackFont;
+        });
+    }
+
+
+    /**
+     * Registers all system fonts and the fonts of the given directory.
+     * 
+     * @param fontDirectory additional directory to scan, ignored if it does not exist.
+     */
+    private static void registerFonts(String fontDirectory) {
+
+        synchronized (FontRegistry.class) {
+            FontFactory.registerDirectories();
+
+            if (new File(fontDirectory).isDirectory())
+                FontFactory.registerDirectory(fontDirectory, true);
+        }
+
+        log.info("Registered " + FontFactory.getRegisteredFonts().size() + " fonts.");
+    }
+}
@@ -15,83 +15,310 @@
  */
 package eu.tecfox.formatterservice.formatter;
 
-import static eu.tecfox.formatterservice.formatter.ResourceHandler.DOCX_FORMATTED_BY_API;
-import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
-
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.springframework.http.HttpStatus;
 
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.converter.DocumentConverter;
 import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.metrics.RenderMetrics;
+import eu.tecfox.formatterservice.metrics.RenderStage;
 import eu.tecfox.formatterservice.template.models.Template;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Timer;
 
 
 /**
  * Class formatting a given {@link Template} to a MS Word document in .docx format. 
  * <p>
- * Writes the finished document to a file with a unique name in the 'inputResources' 
- * folder at the project root.
+ * Writes the finished document directly to any given {@link OutputStream}, nothing is written to disk.
+ * <p>
+ * The document is rendered with one of the {@link RenderEngine}s, {@link RenderEngine#XWPF} by default.
+ * <p>
+ * Every stage is timed by the {@link RenderMetrics}.
  * 
  * @since 1.0
  * @author Florin Schikarski
  */
 public class Formatter {
 
-    /** Target path to write the formatted docx file to. */
-    private static final String DOCX_PATH = OUTPUT_RESOURCE_PATH + DOCX_FORMATTED_BY_API;
+    private final Template template;
+
+    private final RenderEngine renderEngine;
+
+    private final RenderServices renderServices;
+
+    private final RenderMetrics renderMetrics;
+
+    /** Plan of the template, computed once per render. */
+    private RenderPlan renderPlan;
+
+    /** Content hashes of the sections, computed once per render. */
+    private List<String> sectionHashes;
+
+    /** Document being built, only used by {@link RenderEngine#XWPF}. */
+    private XWPFDocument document;
+
+    /** Counts this render as in flight from its first stage until its output has been written. */
+    private final AtomicReference<LongTaskTimer.Sample> activeRender = new AtomicReference<>();
+
+    /** True once the render has been started, it is started once per render. */
+    private boolean renderStarted;
 
-    private final XWPFDocument document = new XWPFDocument();
-    
-    private final SectionFormatter sectionFormatter;
 
-    private final HeaderFooterFormatter headerFooterFormatter;
+    public Formatter(Template template, RenderServices renderServices) {
+
+        this(template, RenderEngine.XWPF, renderServices);
+    }
+
+
+    public Formatter(Template template, RenderEngine renderEngine, RenderServices renderServices) {
+
+        this(template, renderEngine, null, renderServices);
+    }
 
 
-    public Formatter(Template template) {
-        
-        this.sectionFormatter = new SectionFormatter(template, document);
+    /**
+     * @param template to render.
+     * @param renderEngine to render with.
+     * @param sectionHashes of the template if the caller has computed them already, e.g. for the 
+     *                      {@link eu.tecfox.formatterservice.cache.RenderCache} key. Null to compute them 
+     *                      when needed.
+     * @param renderServices to render with.
+     */
+    public Formatter(Template template, RenderEngine renderEngine, List<String> sectionHashes, RenderServices renderServices) {
 
-        this.headerFooterFormatter = new HeaderFooterFormatter(template, document);
+        this.template = template;
+        this.renderEngine = renderEngine;
+        this.sectionHashes = sectionHashes;
+        this.renderServices = renderServices;
+        this.renderMetrics = renderServices.getRenderMetrics();
     } 
     
     
     /**
-     * Will execute the whole process of formatting and writing the document to a file.
+     * Adds text content to the document without writing it anywhere. Header and footer are already part of
+     * the {@link DocumentSkeleton} the document has been created from.
+     * <p>
+     * Use {@link #writeDocument(OutputStream)} afterwards to write the finished document. 
+     * <p>
+     * {@link RenderEngine#STREAMING} only prepares plan and skeleton here and adds the content while writing.
+     */
+    public void buildDocument() {
+
+        startRender();
+        try {
+            // case: streaming
+            if (renderEngine == RenderEngine.STREAMING) {
+                renderServices.getSkeletonCache().getSkeleton(template, getRenderPlan(), renderServices);
+                return;
+            }
+
+            buildXwpfDocument();
+
+        } catch (RuntimeException e) {
+            // nothing will be written
+            finishRender();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Writes the built document in .docx format to the given stream and closes the document.
+     * <p>
+     * The stream itself is not closed, so this can be used to write straight into an http response.
+     * 
+     * @param outputStream to write the document to.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void writeDocument(OutputStream outputStream) throws IOException {
+
+        // case: streaming
+        if (renderEngine == RenderEngine.STREAMING) {
+            write(outputStream, RenderStage.WRITE, "docx", os -> new StreamingDocxWriter(template, getRenderPlan(), getSectionHashes(), renderServices).write(os));
+            return;
+        }
+
+        // case: not built yet
+        if (document == null)
+            buildDocument();
+
+        write(outputStream, RenderStage.WRITE, "docx", os -> {
+            try (XWPFDocument builtDocument = document) {
+                builtDocument.write(os);
+            }
+        });
+    }
+
+
+    /**
+     * Gets the plan of the template, computing its version only once per render.
+     * 
+     * @return the {@link RenderPlan} of the template.
+     */
+    private RenderPlan getRenderPlan() {
+
+        if (renderPlan == null)
+            this.renderPlan = renderServices.getRenderPlanCache().getPlan(template);
+
+        return renderPlan;
+    }
+
+
+    /**
+     * Gets the content hashes of the sections, computing them only once per render.
      * 
-     * @return the relative path to the formatted .docx file.
+     * @return the hash of every section of the template.
      */
-    public String formatDocument() {
+    private List<String> getSectionHashes() {
+
+        if (sectionHashes == null)
+            this.sectionHashes = ContentHash.ofSections(template);
+
+        return sectionHashes;
+    }
+
+
+    private void buildXwpfDocument() {
+
+        // start from skeleton with header and footer
+        this.document = DocumentSkeleton.newDocument(template, getRenderPlan(), renderServices);
 
         // add text content
-        sectionFormatter.addContent();
+        Timer.Sample sample = renderMetrics.start();
+        try {
+            new SectionFormatter(template, getRenderPlan(), getSectionHashes(), new XwpfParagraphSink(document), renderServices).addContent();
+
+        } finally {
+            renderMetrics.stop(sample, RenderStage.CONTENT);
+        }
+    }
+
+
+    /**
+     * Converts the built document to pdf with the given {@link DocumentConverter} and writes it to the given 
+     * stream. The document is converted in memory, no docx is written. The converter takes over the document 
+     * and closes it.
+     * <p>
+     * {@link RenderEngine#STREAMING} never holds the whole document, so pdfs are always built with 
+     * {@link RenderEngine#XWPF}.
+     * <p>
+     * The stream itself is not closed.
+     * 
+     * @param outputStream to write the pdf to.
+     * @param documentConverter to convert with.
+     * @throws IOException if writing to the stream fails.
+     * @throws ApiRequestException if the conversion fails.
+     */
+    public void writePdf(OutputStream outputStream, DocumentConverter documentConverter) throws IOException {
+
+        // case: not built (as XWPFDocument) yet
+        if (document == null)
+            buildXwpfDocument();
+
+        // handed over, closed by the converter
+        XWPFDocument builtDocument = document;
+        this.document = null;
+
+        write(outputStream, RenderStage.CONVERT, "pdf", os -> documentConverter.convert(builtDocument, os));
+    }
+
+
+    /**
+     * Writes the content straight into a pdf, without building or converting a .docx document. See 
+     * {@link PdfRenderer#NATIVE}.
+     * <p>
+     * The stream itself is not closed.
+     * 
+     * @param outputStream to write the pdf to.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void writeNativePdf(OutputStream outputStream) throws IOException {
+
+        write(outputStream, RenderStage.WRITE, "pdf", os -> new PdfDocumentWriter(template, getRenderPlan(), getSectionHashes(), renderServices).write(os));
+    }
 
-        // add heder and footer
-        headerFooterFormatter.addHeaderAndFooter();
 
-        // write to .docx file
-        writeDocxToFile(DOCX_PATH);
+    /**
+     * Writes a lightweight html preview of the document, see {@link HtmlDocumentWriter}.
+     * <p>
+     * The stream itself is not closed.
+     * 
+     * @param outputStream to write the html to.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void writeHtml(OutputStream outputStream) throws IOException {
 
-        return DOCX_PATH;
+        write(outputStream, RenderStage.WRITE, "html", os -> new HtmlDocumentWriter(template, getRenderPlan(), getSectionHashes(), renderServices).write(os));
     }
 
 
     /**
-     * Writes a {@link XWPFDocument} to a .docx file to the given path.
+     * Runs a writing stage, timing it and recording the size of the output.
      * 
-     * @param path of the .docx file.
-     * @throws ApiRequestException if any path is not found.
+     * @param outputStream to write to.
+     * @param renderStage to time the writer as.
+     * @param format of the output.
+     * @param documentWriter writing the document.
+     * @throws IOException if writing to the stream fails.
      */
-    private void writeDocxToFile(String path) {
+    private void write(OutputStream outputStream, RenderStage renderStage, String format, DocumentWriter documentWriter) throws IOException {
 
-        try (OutputStream os = new FileOutputStream(path)) {
-            document.write(os);
-            document.close();
+        CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
 
-        } catch (IOException e) {
-            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        startRender();
+        Timer.Sample sample = renderMetrics.start();
+        try {
+            documentWriter.write(countingOutputStream);
+
+            renderMetrics.recordOutputSize(format, countingOutputStream.getByteCount());
+
+        } finally {
+            renderMetrics.stop(sample, renderStage);
+            finishRender();
         }
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Stops counting this render as in flight. Writing the document does that already, this is for renders 
+     * whose output is never written, e.g. because the request timed out before. 
+     * <p>
+     * Only the first call stops the in-flight sample, from whichever thread makes it. Any later call has no effect.
+     */
+    public void finishRender() {
+
+        LongTaskTimer.Sample sample = activeRender.getAndSet(null);
+        if (sample != null)
+            sample.stop();
+    }
+
+
+    /**
+     * Counts this render as in flight, unless it has been started before. 
+     */
+    private void startRender() {
+
+        if (renderStarted)
+            return;
+
+        this.renderStarted = true;
+        activeRender.set(renderMetrics.startRender(template));
+    }
+
+
+    /**
+     * Writes a document to a stream.
+     */
+    @FunctionalInterface
+    private interface DocumentWriter {
+
+        void write(OutputStream outputStream) throws IOException;
+    }
+}
@@ -15,32 +15,60 @@
  */
 package eu.tecfox.formatterservice.formatter;
 
-import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.BATCH_DOWNLOAD_NAME;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.DOCX_DOWNLOAD_NAME;
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.PDF_FORMATTED_BY_API;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
 
+import org.apache.commons.io.output.TeeOutputStream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import eu.tecfox.formatterservice.admission.AdmissionPermit;
+import eu.tecfox.formatterservice.admission.RenderAdmission;
+import eu.tecfox.formatterservice.artifact.Artifact;
+import eu.tecfox.formatterservice.artifact.ArtifactStore;
+import eu.tecfox.formatterservice.artifact.ArtifactUpload;
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.cache.RenderCache;
+import eu.tecfox.formatterservice.cache.RenderCache.Recorder;
+import eu.tecfox.formatterservice.cache.RenderCache.RenderResult;
+import eu.tecfox.formatterservice.cache.RenderCacheStats;
+import eu.tecfox.formatterservice.converter.DocumentConverter;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.TemplateService;
 import eu.tecfox.formatterservice.template.models.Template;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 
 
 /**
@@ -53,76 +81,385 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @RequestMapping("/api/formatter")
 @Api(tags = {"Formatter Controller"})
 @Tag(name = "Formatter Controller", description = "All endpoints related to the Formatter object.")
+@RequiredArgsConstructor
 // TODO: update swagger
 public class FormatterController {
+
+    /** 
+     * Response header carrying the id a rendered document can be downloaded again with. Not set for documents 
+     * served from the render cache, repeating the request is just as cheap as downloading an artifact. 
+     */
+    public static final String ARTIFACT_ID_HEADER = "X-Artifact-Id";
+
+    private static final String DOCX_CONTENT_TYPE = "application/octet-stream";
+
+    private static final String PDF_CONTENT_TYPE = "application/pdf";
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+
+    /** Key of the interceptor releasing the resources of a streamed response. */
+    private static final String COMPLETION_INTERCEPTOR_KEY = FormatterController.class.getName() + ".completion";
+
+    private final ArtifactStore artifactStore;
+
+    private final BatchRenderer batchRenderer;
+
+    private final RenderAdmission renderAdmission;
+
+    private final DocumentConverter documentConverter;
+
+    private final RenderCache renderCache;
+
+    private final TemplateService templateService;
+
+    private final RenderServices renderServices;
+
+    /** Engine to render with if the request does not specify one. */
+    @Value("${formatter.engine:XWPF}")
+    private RenderEngine defaultRenderEngine;
+
+    /** Renderer to create pdfs with if the request does not specify one. */
+    @Value("${formatter.pdf.renderer:CONVERTER}")
+    private PdfRenderer defaultPdfRenderer;
+
     
     @GetMapping
     @ApiOperation(value = "Format and download a user's profile as docx or pdf.")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "The formatted profile as docx or pdf."),
+        @ApiResponse(code = 304, message = "The profile has not changed since the version with the ETag in the If-None-Match header."),
         @ApiResponse(code = 404, message = "The user with id <userId> has no profile yet."),
+        @ApiResponse(code = 429, message = "Too many documents are being formatted, retry after the time in the Retry-After header.")
     })
     // TODO: does this endopint make sense?
-    public ResponseEntity<Resource> formatAndDownload(@RequestBody Template template, @RequestParam boolean pdf) throws IOException {
+    public ResponseEntity<StreamingResponseBody> formatAndDownload(@RequestBody Template template, 
+                                                                   @RequestParam boolean pdf, 
+                                                                   @RequestParam(required = false) RenderEngine engine,
+                                                                   @RequestParam(required = false) PdfRenderer pdfRenderer,
+                                                                   @RequestHeader HttpHeaders requestHeaders,
+                                                                   HttpServletRequest request) {
 
-        // format profile
-        Formatter formatter = new Formatter(template);
-        String docxPath = formatter.formatDocument();
+        boolean nativePdf = pdf && (pdfRenderer != null ? pdfRenderer : defaultPdfRenderer) == PdfRenderer.NATIVE;
 
-        // pdf path
-        String pdfPath = OUTPUT_RESOURCE_PATH + PDF_FORMATTED_BY_API;
+        // converted pdfs need the whole document, native pdfs only hold the sections rendered ahead
+        RenderEngine renderEngine;
+        if (nativePdf)
+            renderEngine = RenderEngine.STREAMING;
+        else if (pdf)
+            renderEngine = RenderEngine.XWPF;
+        else
+            renderEngine = engine != null ? engine : defaultRenderEngine;
 
-        // path to the download file
-        String filePath;
+        // name and type of the download file
+        String fileName;
+        String contentType;
+        String format;
         
         // download as pdf
         if (pdf) {
-            // convert
-            // TODO: uncomment this line when DocxConverter is fixed
-            // DocxToPdf.convert(docxPath, pdfPath);
-
-            // set download path
-            // filePath = pdfPath;
-            // TODO: delete the line below and use the line above when DocxConverter is fixed
-            filePath = docxPath;
+            fileName = PDF_FORMATTED_BY_API;
+            contentType = PDF_CONTENT_TYPE;
+            format = "pdf-" + (nativePdf ? PdfRenderer.NATIVE : PdfRenderer.CONVERTER);
 
         // download as docx
         } else {          
-            // set download path
-            filePath = docxPath;
+            fileName = DOCX_DOWNLOAD_NAME;
+            contentType = DOCX_CONTENT_TYPE;
+            format = "docx-" + renderEngine;
         }
 
-        // get resource
-        File file = new File(filePath);
-        InputStreamResource isr = new InputStreamResource(new FileInputStream(file));
-        
-        // download file
+        // hashed once, for the render cache and the cached sections
+        List<String> sectionHashes = ContentHash.ofSections(template);
+        String cacheKey = renderCache.getKey(template, sectionHashes, format);
+        String eTag = getETag(cacheKey);
+
+        // case: client has this version already
+        if (isNotModified(requestHeaders, eTag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                 .eTag(eTag)
+                                 .build();
+
+        RenderResult renderResult = renderCache.get(cacheKey);
+
+        // case: rendered before, no artifact since the cache answers repeated requests already
+        if (renderResult != null)
+            return ResponseEntity.ok()
+                                 .headers(getHttpHeaders(fileName))
+                                 .eTag(eTag)
+                                 .contentType(MediaType.parseMediaType(contentType))
+                                 .body(outputStream -> outputStream.write(renderResult.content()));
+
+        // wait for budget, held until the document has been written
+        AdmissionPermit admissionPermit = renderAdmission.admit(template, renderEngine);
+        try {
+            // format profile
+            Formatter formatter = new Formatter(template, renderEngine, sectionHashes, renderServices);
+            formatter.buildDocument();
+
+            // keep a copy for repeated downloads
+            ArtifactUpload artifact = artifactStore.create(fileName, contentType);
+            try {
+                Recorder recorder = renderCache.record(cacheKey);
+
+                // the body might never be written, e.g. if the request times out while waiting for a thread
+                onCompletion(request, admissionPermit::close, artifact::close, formatter::finishRender);
+
+                // write document straight into the response, the artifact store and the cache
+                return ResponseEntity.ok()
+                                     .headers(getHttpHeaders(fileName))
+                                     .eTag(eTag)
+                                     .header(ARTIFACT_ID_HEADER, artifact.getId())
+                                     .contentType(MediaType.parseMediaType(contentType))
+                                     .body(outputStream -> {
+                                         try (admissionPermit; artifact) {
+                                             OutputStream teeOutputStream = new TeeOutputStream(outputStream, new TeeOutputStream(artifact, recorder));
+
+                                             if (nativePdf)
+                                                 formatter.writeNativePdf(teeOutputStream);
+
+                                             // convert in memory
+                                             else if (pdf)
+                                                 formatter.writePdf(teeOutputStream, documentConverter);
+                                             else
+                                                 formatter.writeDocument(teeOutputStream);
+
+                                             artifact.commit();
+                                             recorder.commit();
+                                         }
+                                     });
+
+            } catch (RuntimeException e) {
+                artifact.close();
+                formatter.finishRender();
+                throw e;
+            }
+
+        } catch (RuntimeException e) {
+            admissionPermit.close();
+            throw e;
+        }
+    }
+
+
+    @GetMapping("/templates/{name}")
+    @ApiOperation(value = "Format and download a user's profile with a named template as docx or pdf. Takes the profile " + 
+                          "values as template, sections and elements are matched by identifier.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The formatted profile as docx or pdf."),
+        @ApiResponse(code = 304, message = "The profile has not changed since the version with the ETag in the If-None-Match header."),
+        @ApiResponse(code = 404, message = "No template with this name found."),
+        @ApiResponse(code = 429, message = "Too many documents are being formatted, retry after the time in the Retry-After header.")
+    })
+    public ResponseEntity<StreamingResponseBody> formatAndDownloadWithTemplate(@PathVariable String name, 
+                                                                               @RequestBody Template profile, 
+                                                                               @RequestParam boolean pdf, 
+                                                                               @RequestParam(required = false) RenderEngine engine,
+                                                                               @RequestParam(required = false) PdfRenderer pdfRenderer,
+                                                                               @RequestHeader HttpHeaders requestHeaders,
+                                                                               HttpServletRequest request) {
+
+        return formatAndDownload(templateService.fillTemplate(name, profile), pdf, engine, pdfRenderer, requestHeaders, request);
+    }
+
+
+    @GetMapping(value = "/templates/{name}/preview", produces = MediaType.TEXT_HTML_VALUE)
+    @ApiOperation(value = "Preview a user's profile with a named template as html.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The formatted profile as html."),
+        @ApiResponse(code = 304, message = "The profile has not changed since the version with the ETag in the If-None-Match header."),
+        @ApiResponse(code = 404, message = "No template with this name found."),
+        @ApiResponse(code = 429, message = "Too many documents are being formatted, retry after the time in the Retry-After header.")
+    })
+    public ResponseEntity<StreamingResponseBody> previewWithTemplate(@PathVariable String name, 
+                                                                     @RequestBody Template profile, 
+                                                                     @RequestHeader HttpHeaders requestHeaders,
+                                                                     HttpServletRequest request) {
+
+        return preview(templateService.fillTemplate(name, profile), requestHeaders, request);
+    }
+
+
+    @GetMapping(value = "/preview", produces = MediaType.TEXT_HTML_VALUE)
+    @ApiOperation(value = "Preview a user's profile as html. Much cheaper than formatting a docx or pdf.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The formatted profile as html."),
+        @ApiResponse(code = 304, message = "The profile has not changed since the version with the ETag in the If-None-Match header."),
+        @ApiResponse(code = 429, message = "Too many documents are being formatted, retry after the time in the Retry-After header.")
+    })
+    public ResponseEntity<StreamingResponseBody> preview(@RequestBody Template template, 
+                                                         @RequestHeader HttpHeaders requestHeaders, 
+                                                         HttpServletRequest request) {
+
+        List<String> sectionHashes = ContentHash.ofSections(template);
+        String cacheKey = renderCache.getKey(template, sectionHashes, "html");
+        String eTag = getETag(cacheKey);
+
+        // personal data, only the client may keep it and has to check back before using it
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        // case: client has this version already
+        if (isNotModified(requestHeaders, eTag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                 .cacheControl(cacheControl)
+                                 .eTag(eTag)
+                                 .build();
+
+        MediaType contentType = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+        RenderResult renderResult = renderCache.get(cacheKey);
+
+        // case: rendered before
+        if (renderResult != null)
+            return ResponseEntity.ok()
+                                 .cacheControl(cacheControl)
+                                 .eTag(eTag)
+                                 .contentType(contentType)
+                                 .body(outputStream -> outputStream.write(renderResult.content()));
+
+        // html is buffered as a whole, but much smaller than a document model
+        AdmissionPermit admissionPermit = renderAdmission.admit(template, RenderEngine.STREAMING);
+        try {
+            Formatter formatter = new Formatter(template, RenderEngine.STREAMING, sectionHashes, renderServices);
+            Recorder recorder = renderCache.record(cacheKey);
+
+            // the body might never be written, e.g. if the request times out while waiting for a thread
+            onCompletion(request, admissionPermit::close, formatter::finishRender);
+
+            return ResponseEntity.ok()
+                                 .cacheControl(cacheControl)
+                                 .eTag(eTag)
+                                 .contentType(contentType)
+                                 .body(outputStream -> {
+                                     try (admissionPermit) {
+                                         formatter.writeHtml(new TeeOutputStream(outputStream, recorder));
+                                         recorder.commit();
+                                     }
+                                 });
+
+        } catch (RuntimeException e) {
+            admissionPermit.close();
+            throw e;
+        }
+    }
+
+
+    @PostMapping(value = "/batch", consumes = NDJSON_CONTENT_TYPE, produces = ZIP_CONTENT_TYPE)
+    @ApiOperation(value = "Format many profiles at once. Takes one template as JSON per line and returns a zip with one docx per line.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Zip with the formatted profiles in input order, or an error text file per failed line.")
+    })
+    public ResponseEntity<StreamingResponseBody> formatBatch(InputStream templates, 
+                                                             @RequestParam(required = false) RenderEngine engine) {
+
+        RenderEngine renderEngine = engine != null ? engine : defaultRenderEngine;
+
+        // render while reading, write documents as they are ready
         return ResponseEntity.ok()
-                             .headers(getHttpHeaders(file.getName()))
-                             .contentLength(file.length())
-                             .contentType(MediaType.parseMediaType("application/octet-stream"))
-                             .body(isr);
+                             .headers(getHttpHeaders(BATCH_DOWNLOAD_NAME))
+                             .contentType(MediaType.parseMediaType(ZIP_CONTENT_TYPE))
+                             .body(outputStream -> batchRenderer.render(templates, outputStream, renderEngine));
+    }
+
+
+    @GetMapping("/artifacts/{id}")
+    @ApiOperation(value = "Download a previously formatted profile again without formatting it a second time.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The formatted profile."),
+        @ApiResponse(code = 404, message = "No artifact with this id, it might have expired.")
+    })
+    public ResponseEntity<Resource> downloadArtifact(@PathVariable String id) {
+
+        // get artifact
+        Artifact artifact = artifactStore.find(id)
+                                         .orElseThrow(() -> new ApiRequestException("No artifact with id " + id + " found.", HttpStatus.NOT_FOUND));
+
+        // download artifact
+        return ResponseEntity.ok()
+                             .headers(getHttpHeaders(artifact.fileName()))
+                             .contentLength(artifact.size())
+                             .contentType(MediaType.parseMediaType(artifact.contentType()))
+                             .body(new InputStreamResource(artifactStore.open(id)));
+    }
+
+
+    @GetMapping("/cache/stats")
+    @ApiOperation(value = "Get size, hit rate and evictions of the cache of formatted profiles.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The current statistics of the cache.")
+    })
+    public ResponseEntity<RenderCacheStats> getCacheStats() {
+
+        return ResponseEntity.ok(renderCache.getStats());
     }
 
 
-    @DeleteMapping("/deleteFiles")
-    @ApiOperation(value = "Delete all files created during the formatting process.")
+    @DeleteMapping("/artifacts/{id}")
+    @ApiOperation(value = "Delete a formatted profile before it expires.")
     @ApiResponses(value = {
-        @ApiResponse(code = 200, message = "All files in ./outpuresources have been deleted"),
-        @ApiResponse(code = 500, message = "Failed to delete some files.")
+        @ApiResponse(code = 200, message = "The artifact has been deleted."),
+        @ApiResponse(code = 404, message = "No artifact with this id.")
     })
-    public ResponseEntity<Boolean> deleteFiles() {
+    public ResponseEntity<Boolean> deleteArtifact(@PathVariable String id) {
 
-        // delete all files in ./outputResources
-        Boolean allDeleted = ResourceHandler.clearDirectory(OUTPUT_RESOURCE_PATH);
+        // delete artifact
+        boolean deleted = artifactStore.delete(id);
 
         // choose HttpStatus
-        HttpStatus httpStatus = allDeleted ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR;
+        HttpStatus httpStatus = deleted ? HttpStatus.OK : HttpStatus.NOT_FOUND;
 
-        return ResponseEntity.status(httpStatus).body(allDeleted);
+        return ResponseEntity.status(httpStatus).body(deleted);
     }
     
 
+    /**
+     * @param cacheKey of the render, see {@link RenderCache#getKey(Template, List, String)}.
+     * @return the strong ETag of the render.
+     */
+    private String getETag(String cacheKey) {
+
+        return "\"" + cacheKey + "\"";
+    }
+
+
+    /**
+     * @param requestHeaders of the request.
+     * @param eTag of the current version.
+     * @return true if the If-None-Match header matches the ETag, so the client has the current version.
+     */
+    private boolean isNotModified(HttpHeaders requestHeaders, String eTag) {
+
+        for (String requestETag : requestHeaders.getIfNoneMatch()) {
+            // weak comparison, like the spec requires for If-None-Match
+            if (requestETag.equals("*") || requestETag.replaceFirst("^W/", "").equals(eTag))
+                return true;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Runs the given callbacks once the async request has completed, also if it timed out or failed before the 
+     * response body has been written. 
+     * 
+     * @param request to register the callbacks for, has to return a {@link StreamingResponseBody}.
+     * @param callbacks to run, running them more than once must have no effect.
+     */
+    private void onCompletion(HttpServletRequest request, Runnable... callbacks) {
+
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(COMPLETION_INTERCEPTOR_KEY, new CallableProcessingInterceptor() {
+
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+
+                for (Runnable callback : callbacks)
+                    callback.run();
+            }
+        });
+    }
+
+
     /**
      * Create http headers for the download request.
      * 
@@ -134,9 +471,8 @@ public class FormatterController {
         HttpHeaders header = new HttpHeaders();
 
         header.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
-        header.add("Cache-Control", "no-cache, no-store, must-revalidate");
-        header.add("Pragma", "no-cache");
-        header.add("Expires", "0");
+        // personal data, only the client may keep it and has to revalidate it by ETag before using it
+        header.setCacheControl(CacheControl.noCache().cachePrivate());
 
         return header;
     }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.cache.LruCache;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.RunContent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+
+/**
+ * Cache of the rendered {@link Paragraph}s of sections, by section identifier and content hash.
+ * <p>
+ * Bounded by the estimated heap size of all cached paragraphs, least recently used sections are evicted 
+ * first. Styles are shared with the template and not counted. Hits, misses, evictions and size are published 
+ * as "formatter.fragment.cache.*" metrics.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class FragmentCache {
+
+    /** Cache size to use if none is configured. */
+    public static final DataSize DEFAULT_SIZE = DataSize.ofMegabytes(16);
+
+    /** Estimated bytes of a paragraph without its runs. */
+    private static final long PARAGRAPH_BYTES = 96;
+
+    /** Estimated bytes of a run without its contents. */
+    private static final long RUN_BYTES = 64;
+
+    /** Estimated bytes of a content, for texts without the characters. */
+    private static final long CONTENT_BYTES = 48;
+
+    private final LruCache<String, List<Paragraph>> cache;
+
+
+    public FragmentCache(@Value("${formatter.fragment-cache.size:16MB}") DataSize size, MeterRegistry meterRegistry) {
+
+        this.cache = new LruCache<>(size.toBytes(), FragmentCache::weigh);
+
+        FunctionCounter.builder("formatter.fragment.cache.gets", cache, LruCache::getHits)
+                       .description("Lookups of rendered sections.")
+                       .tag("result", "hit")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.fragment.cache.gets", cache, LruCache::getMisses)
+                       .description("Lookups of rendered sections.")
+                       .tag("result", "miss")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.fragment.cache.evictions", cache, LruCache::getEvictions)
+                       .description("Rendered sections evicted to stay within the cache size.")
+                       .register(meterRegistry);
+
+        Gauge.builder("formatter.fragment.cache.size", cache, LruCache::getWeight)
+             .description("Estimated size of all cached sections.")
+             .baseUnit(BaseUnits.BYTES)
+             .register(meterRegistry);
+    }
+
+
+    /**
+     * Gets the paragraphs of a section from the cache or renders them.
+     * 
+     * @param key of the section, identifier and content hash.
+     * @param renderer rendering the paragraphs if they are not cached.
+     * @return the paragraphs of the section. Shared, must not be modified.
+     */
+    List<Paragraph> computeIfAbsent(String key, Function<String, List<Paragraph>> renderer) {
+
+        return cache.computeIfAbsent(key, renderer);
+    }
+
+
+    /**
+     * @param paragraphs of a section.
+     * @return the estimated heap size of the paragraphs in bytes.
+     */
+    static long weigh(List<Paragraph> paragraphs) {
+
+        long bytes = 0;
+
+        for (Paragraph paragraph : paragraphs) {
+            bytes += PARAGRAPH_BYTES;
+
+            for (Run run : paragraph.getRuns()) {
+                bytes += RUN_BYTES;
+
+                for (RunContent runContent : run.getContents()) {
+                    bytes += CONTENT_BYTES;
+
+                    // case: text, two bytes per char at most
+                    if (runContent instanceof RunContent.Text text)
+                        bytes += 2L * text.value().length();
+                }
+            }
+        }
+
+        return bytes;
+    }
+}
@@ -18,13 +18,13 @@ package eu.tecfox.formatterservice.formatter;
 import static eu.tecfox.formatterservice.formatter.StyleFormatter.CURSOR_CENTER;
 import static eu.tecfox.formatterservice.formatter.StyleFormatter.CURSOR_RIGHT;
 
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.xwpf.model.XWPFHeaderFooterPolicy;
-import org.apache.poi.xwpf.usermodel.Document;
 import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFFooter;
@@ -35,7 +35,10 @@ import org.openxmlformats.schemas.wordprocessingml.x2006.main.STTabJc;
 import org.springframework.http.HttpStatus;
 
 import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.media.PictureFormat;
 import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Header;
 import eu.tecfox.formatterservice.template.models.elements.Footer;
 import eu.tecfox.formatterservice.template.models.style.Style;
 import jakarta.validation.constraints.DecimalMin;
@@ -60,6 +63,8 @@ public class HeaderFooterFormatter {
     private final Template template;
     
     private final XWPFDocument document;
+
+    private final MediaLibrary mediaLibrary;
     
 
     /**
@@ -81,13 +86,13 @@ public class HeaderFooterFormatter {
 
 
     /**
-     * Adds the specified logo using the path in the header object from the template field.
+     * Adds the specified logo using the hash or the path in the header object from the template field.
      * <p>
      * Places it on the top left of every page in the document as header.
      * Formats the logo with the size specified on top of this class.
      * 
      * @param header {@link XWPFHeader} to add the actual header to.
-     * @throws ApiRequestException if the logo file is not found or is badly formatted.
+     * @throws ApiRequestException if the logo is badly formatted.
      */
     private void addHeader(XWPFHeader header) {
 
@@ -95,28 +100,46 @@ public class HeaderFooterFormatter {
         XWPFParagraph paragraph = header.createParagraph();
         paragraph.setAlignment(ParagraphAlignment.RIGHT);
 
-        // get file name of logo
-        String logoFileName = template.getHeader().getLogo();
+        // get logo
+        Optional<byte[]> logo = getLogo(template.getHeader());
+
+        // case: logo not found
+        if (logo.isEmpty()) {
+            paragraph.createRun().setText("Failed to load logo.");
+            return;
+        }
         
         // add logo 
         try {
             paragraph.createRun()
-                     .addPicture(new FileInputStream(logoFileName), 
-                                 getPictureFormat(logoFileName),
+                     .addPicture(new ByteArrayInputStream(logo.get()), 
+                                 PictureFormat.detect(logo.get()).getPoiType(),
                                  "HeaderLogo", 
                                  cmToEMUs(TECFOX_LOGO_WIDTH), 
                                  cmToEMUs(TECFOX_LOGO_HEIGHT));
         
-        // case: file not found
-        } catch (IOException e) {
-            paragraph.createRun().setText("Failed to load logo.");
-
         // case: wrong format
-        } catch (InvalidFormatException e) {
+        } catch (IOException | InvalidFormatException e) {
             throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+
+    /**
+     * Gets the logo from the {@link MediaLibrary}, by hash if present, else by file path.
+     * 
+     * @param header of the template.
+     * @return the logo content or an empty optional if it cannot be found.
+     */
+    private Optional<byte[]> getLogo(Header header) {
+
+        // case: referenced by hash
+        if (header.getLogoHash() != null)
+            return mediaLibrary.find(header.getLogoHash());
+
+        return mediaLibrary.findFile(header.getLogo());
+    }
+
     
     /**
      * Adds the footer text from the footer object from the template field.
@@ -220,33 +243,4 @@ public class HeaderFooterFormatter {
 
         return (int) Math.round(EMU_PER_CENTIMETER * centimeters);
     }
-
-
-    /**
-     * Gets the format a picture is in using the last characters of the given file name.
-     * <p>
-     * Currently only "jpeg" and "png" are available.
-     * 
-     * @see org.apache.poi.xwpf.usermodel.Document
-     * @param fileName name of the picture file.
-     * @return the picture format as int, representing an enum.
-     * @throws ApiRequestException if the give format is not supported.
-     */
-    private int getPictureFormat(String fileName) {
-
-        // get file name length
-        int fileNameLength = fileName.length();
-
-        // get picture format as string
-        String lastFourChars = fileName.substring(fileNameLength - 4);
-        String lastThreeChars = fileName.substring(fileNameLength - 3);
-
-        if (lastFourChars.equalsIgnoreCase("jpeg"))
-            return Document.PICTURE_TYPE_JPEG;
-
-        if (lastThreeChars.equalsIgnoreCase("png"))
-            return Document.PICTURE_TYPE_PNG;
-
-        throw new ApiRequestException("Unknown picture format of file " + fileName + ". Use either png or jpeg.");
-    }
 }
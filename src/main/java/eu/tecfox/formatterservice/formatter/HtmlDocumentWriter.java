@@ -0,0 +1,343 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.util.HtmlUtils;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.ParagraphSink;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.RunContent;
+import eu.tecfox.formatterservice.formatter.model.TabStop;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.media.PictureFormat;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Footer;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Class writing a lightweight html preview of a document from the {@link SectionFormatter}'s paragraphs.
+ * <p>
+ * Every style becomes a css class named like its docx style (see {@link StyleRegistry}), page breaks become 
+ * a css page break with a divider, the header logo an image and the footer three columns. Tabs jump to the 
+ * paragraph's tab stops by padding the text in front of them.
+ * <p>
+ * The content is buffered, so the css of all styles can go into the head.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class HtmlDocumentWriter implements ParagraphSink {
+
+    /** Points per twip. */
+    private static final float POINTS_PER_TWIP = 1 / 20f;
+
+    /** Url the {@link eu.tecfox.formatterservice.media.MediaController} serves media by hash under. */
+    private static final String MEDIA_URL = "/api/media/";
+
+    /** Size of the header logo, same as in {@link HeaderFooterFormatter}. */
+    private static final String LOGO_SIZE = "width:3.53cm;height:0.9cm";
+
+    private static final String BASE_CSS = 
+        "body{margin:0;background:#eee}" +
+        ".page{box-sizing:border-box;width:21cm;min-height:29.7cm;margin:1em auto;padding:1in;background:#fff;display:flex;flex-direction:column}" +
+        ".header{text-align:right;margin-top:-0.5in;margin-bottom:0.5in}" +
+        ".content{flex:1}" +
+        ".content p{margin:0;line-height:1.15;min-height:1.15em;white-space:pre-wrap}" +
+        ".tab{display:inline-block;text-indent:0}" +
+        ".page-break{break-before:page;border-top:1px dashed #bbb;margin:1em -1in}" +
+        ".footer{display:flex;justify-content:space-between;margin-bottom:-0.5in;padding-top:1em}" +
+        ".footer div{flex:1}" +
+        ".footer .middle{text-align:center}" +
+        ".footer .right{text-align:right}";
+
+    private final Template template;
+
+    private final RenderPlan renderPlan;
+
+    private final List<String> sectionHashes;
+
+    private final RenderServices renderServices;
+
+    /** Body content of the page. */
+    private final StringBuilder content = new StringBuilder(4096);
+
+    /** Css rules of all styles used in the content, by class name. */
+    private final Map<String, String> cssRules = new LinkedHashMap<>();
+
+
+    HtmlDocumentWriter(Template template, RenderPlan renderPlan, List<String> sectionHashes, RenderServices renderServices) {
+
+        this.template = template;
+        this.renderPlan = renderPlan;
+        this.sectionHashes = sectionHashes;
+        this.renderServices = renderServices;
+    }
+
+
+    /**
+     * Writes the html document to the given stream. The stream itself is not closed.
+     * 
+     * @param outputStream to write the html to.
+     * @throws IOException if writing to the stream fails.
+     */
+    void write(OutputStream outputStream) throws IOException {
+
+        // buffer content to collect styles
+        new SectionFormatter(template, renderPlan, sectionHashes, this, renderServices).addContent();
+
+        // footer style is needed in the head as well
+        String footer = getFooter(template.getFooter());
+
+        try (Writer writer = new OutputStreamWriter(CloseShieldOutputStream.wrap(outputStream), StandardCharsets.UTF_8)) {
+            writer.write("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>");
+            writer.write(escape(template.getTitle()));
+            writer.write("</title><style>");
+            writer.write(BASE_CSS);
+            for (Map.Entry<String, String> cssRule : cssRules.entrySet())
+                writer.append('.').append(cssRule.getKey()).append('{').append(cssRule.getValue()).append('}');
+            writer.write("</style></head><body><div class=\"page\">");
+
+            writer.write(getHeader(template.getHeader()));
+            writer.write("<div class=\"content\">");
+            writer.append(content);
+            writer.write("</div>");
+            writer.write(footer);
+
+            writer.write("</div></body></html>");
+        }
+    }
+
+
+    @Override
+    public void accept(Paragraph paragraph) {
+
+        Style style = paragraph.getStyle();
+
+        // built on its own, so the content of the page is only ever appended to
+        StringBuilder html = new StringBuilder(256);
+
+        // page break
+        if (style != null && style.isStartOnNewPage())
+            html.append("<div class=\"page-break\"></div>");
+
+        html.append("<p");
+
+        if (style != null)
+            html.append(" class=\"").append(getParagraphClass(style)).append('"');
+
+        // indent
+        float firstLineStart = 0;
+        if (paragraph.getIndentFromLeft() != null) {
+            float indentFromLeft = paragraph.getIndentFromLeft() * POINTS_PER_TWIP;
+            float indentHanging = paragraph.getIndentHanging() == null ? 0 : paragraph.getIndentHanging() * POINTS_PER_TWIP;
+
+            html.append(" style=\"padding-left:").append(indentFromLeft).append("pt;text-indent:").append(-indentHanging).append("pt\"");
+
+            firstLineStart = indentFromLeft - indentHanging;
+        }
+
+        html.append('>');
+
+        // runs, the text in front of a tab is padded up to the next tab stop
+        Iterator<TabStop> tabStops = paragraph.getTabStops().iterator();
+        StringBuilder segment = new StringBuilder();
+        for (Run run : paragraph.getRuns()) {
+            // case: no text
+            if (run.getContents().isEmpty())
+                continue;
+
+            if (run.getStyle() != null)
+                segment.append("<span class=\"").append(getRunClass(run.getStyle())).append("\">");
+
+            for (RunContent runContent : run.getContents()) {
+                if (runContent instanceof RunContent.Text text)
+                    segment.append(escape(text.value()));
+
+                else if (runContent instanceof RunContent.Tab) {
+                    // case: no tab stop left
+                    if (!tabStops.hasNext()) {
+                        segment.append('\t');
+                        continue;
+                    }
+
+                    // close open span, wrap everything since the last tab and reopen
+                    if (run.getStyle() != null)
+                        segment.append("</span>");
+
+                    float width = tabStops.next().position() * POINTS_PER_TWIP - firstLineStart;
+                    html.append("<span class=\"tab\" style=\"min-width:").append(width).append("pt\">")
+                        .append(segment)
+                        .append("</span>");
+                    segment.setLength(0);
+
+                    if (run.getStyle() != null)
+                        segment.append("<span class=\"").append(getRunClass(run.getStyle())).append("\">");
+
+                } else
+                    segment.append("<br>");
+            }
+
+            if (run.getStyle() != null)
+                segment.append("</span>");
+        }
+
+        content.append(html).append(segment).append("</p>");
+    }
+
+
+    /**
+     * @param header of the template, may be null.
+     * @return the header with logo, empty if there is no logo.
+     */
+    private String getHeader(Header header) {
+
+        // case: no header
+        if (header == null)
+            return "";
+
+        // case: referenced by hash, let the browser cache it
+        if (header.getLogoHash() != null && MediaLibrary.isValidHash(header.getLogoHash()))
+            return "<div class=\"header\"><img alt=\"Logo\" style=\"" + LOGO_SIZE + "\" src=\"" + MEDIA_URL + header.getLogoHash() + "\"></div>";
+
+        Optional<byte[]> logo = renderServices.getMediaLibrary().findFile(header.getLogo());
+
+        // case: logo not found
+        if (logo.isEmpty())
+            return "";
+
+        String dataUrl = "data:" + PictureFormat.detect(logo.get()).getContentType() + ";base64," + Base64.getEncoder().encodeToString(logo.get());
+
+        return "<div class=\"header\"><img alt=\"Logo\" style=\"" + LOGO_SIZE + "\" src=\"" + dataUrl + "\"></div>";
+    }
+
+
+    /**
+     * @param footer of the template, may be null.
+     * @return the footer with three columns, empty if there is no footer.
+     */
+    private String getFooter(Footer footer) {
+
+        // case: no footer
+        if (footer == null)
+            return "";
+
+        StringBuilder html = new StringBuilder("<div class=\"footer");
+        if (footer.getStyle() != null)
+            html.append(' ').append(getRunClass(footer.getStyle()));
+        html.append("\">");
+
+        addFooterColumn(html, "left", footer.getLeftSection());
+        addFooterColumn(html, "middle", footer.getMiddleSection());
+        addFooterColumn(html, "right", footer.getRightSection());
+
+        return html.append("</div>").toString();
+    }
+
+
+    private void addFooterColumn(StringBuilder html, String cssClass, List<String> lines) {
+
+        html.append("<div class=\"").append(cssClass).append("\">");
+
+        for (String line : lines == null ? Collections.<String>emptyList() : lines)
+            html.append(escape(line)).append("<br>");
+
+        html.append("</div>");
+    }
+
+
+    private String getRunClass(Style style) {
+
+        String className = StyleRegistry.getRunStyleId(style);
+
+        cssRules.computeIfAbsent(className, id -> {
+            StringBuilder css = new StringBuilder()
+                .append("font-family:'").append(escapeCss(style.getFontFamily())).append("',sans-serif;")
+                .append("font-size:").append(style.getFontSize()).append("pt;")
+                .append("color:#").append(escapeCss(style.getColor())).append(';');
+
+            if (style.isBold())
+                css.append("font-weight:bold;");
+
+            if (style.isItalic())
+                css.append("font-style:italic;");
+
+            return css.toString();
+        });
+
+        return className;
+    }
+
+
+    private String getParagraphClass(Style style) {
+
+        String className = StyleRegistry.getParagraphStyleId(style);
+
+        cssRules.computeIfAbsent(className, id -> "text-align:" + getTextAlign(style.getTextAlign()) + ";");
+
+        return className;
+    }
+
+
+    private static String getTextAlign(ParagraphAlignment paragraphAlignment) {
+
+        // case: no alignment
+        if (paragraphAlignment == null)
+            return "left";
+
+        return switch (paragraphAlignment) {
+            case CENTER -> "center";
+            case RIGHT, END -> "right";
+            case BOTH, DISTRIBUTE -> "justify";
+            default -> "left";
+        };
+    }
+
+
+    private static String escape(String value) {
+
+        return value == null ? "" : HtmlUtils.htmlEscape(value, StandardCharsets.UTF_8.name());
+    }
+
+
+    /**
+     * @param value to use in a css value, may be null.
+     * @return the value without characters that could end the value or rule.
+     */
+    private static String escapeCss(String value) {
+
+        return value == null ? "" : value.replaceAll("[^A-Za-z0-9 _-]", "");
+    }
+}
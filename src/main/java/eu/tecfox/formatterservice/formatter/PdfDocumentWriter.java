@@ -0,0 +1,382 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.springframework.http.HttpStatus;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.draw.VerticalPositionMark;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.ParagraphSink;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.RunContent;
+import eu.tecfox.formatterservice.formatter.model.TabStop;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Footer;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Class writing a .pdf document straight from the {@link SectionFormatter}'s paragraphs, without building 
+ * or converting a .docx document.
+ * <p>
+ * Lays out the page like the .docx path does: A4 with Word's default margins, the header logo on the top 
+ * right and the footer's three columns aligned left, center and right at the bottom of every page. Only 
+ * the sections within the {@link SectionExecutor}'s lookahead are held at a time, finished pages are 
+ * flushed to the stream.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class PdfDocumentWriter implements ParagraphSink {
+
+    /** Points per twip. */
+    private static final float POINTS_PER_TWIP = 1 / 20f;
+
+    /** Points per centimeter. */
+    private static final float POINTS_PER_CENTIMETER = 72 / 2.54f;
+
+    /** Word's default margin of one inch. */
+    private static final float PAGE_MARGIN = 72;
+
+    /** Distance of header and footer to the page border. */
+    private static final float HEADER_FOOTER_MARGIN = PAGE_MARGIN / 2;
+
+    /** Size of the header logo, same as in {@link HeaderFooterFormatter}. */
+    private static final float LOGO_WIDTH = 3.53f * POINTS_PER_CENTIMETER;
+
+    private static final float LOGO_HEIGHT = 0.9f * POINTS_PER_CENTIMETER;
+
+    /** Line height relative to the font size. */
+    private static final float LINE_HEIGHT = 1.15f;
+
+    /** Font size of runs without style. */
+    private static final float DEFAULT_FONT_SIZE = 11;
+
+    private final Template template;
+
+    private final RenderPlan renderPlan;
+
+    private final List<String> sectionHashes;
+
+    private final RenderServices renderServices;
+
+    private final FontRegistry fontRegistry;
+
+    /** Fonts used in the document by run style id. */
+    private final Map<String, Font> fonts = new HashMap<>();
+
+    private Document document;
+
+
+    PdfDocumentWriter(Template template, RenderPlan renderPlan, List<String> sectionHashes, RenderServices renderServices) {
+
+        this.template = template;
+        this.renderPlan = renderPlan;
+        this.sectionHashes = sectionHashes;
+        this.renderServices = renderServices;
+        this.fontRegistry = renderServices.getFontRegistry();
+    }
+
+
+    /**
+     * Writes the document to the given stream. The stream itself is not closed.
+     * 
+     * @param outputStream to write the .pdf document to.
+     * @throws IOException if writing to the stream fails.
+     */
+    void write(OutputStream outputStream) throws IOException {
+
+        this.document = new Document(PageSize.A4, PAGE_MARGIN, PAGE_MARGIN, PAGE_MARGIN, PAGE_MARGIN);
+
+        try {
+            PdfWriter pdfWriter = PdfWriter.getInstance(document, CloseShieldOutputStream.wrap(outputStream));
+            pdfWriter.setPageEvent(new HeaderFooterEvent(getLogo(template.getHeader()), template.getFooter()));
+
+            document.open();
+
+            // stream content
+            new SectionFormatter(template, renderPlan, sectionHashes, this, renderServices).addContent();
+
+            // case: no content, still write one page
+            pdfWriter.setPageEmpty(false);
+
+            document.close();
+
+        } catch (DocumentException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    @Override
+    public void accept(Paragraph paragraph) {
+
+        Style style = paragraph.getStyle();
+
+        // page break
+        if (style != null && style.isStartOnNewPage())
+            document.newPage();
+
+        com.lowagie.text.Paragraph pdfParagraph = new com.lowagie.text.Paragraph();
+        pdfParagraph.setLeading(0, LINE_HEIGHT);
+
+        // text-align
+        if (style != null)
+            pdfParagraph.setAlignment(getAlignment(style.getTextAlign()));
+
+        // indent
+        float firstLineStart = 0;
+        if (paragraph.getIndentFromLeft() != null) {
+            float indentHanging = paragraph.getIndentHanging() == null ? 0 : paragraph.getIndentHanging() * POINTS_PER_TWIP;
+
+            pdfParagraph.setIndentationLeft(paragraph.getIndentFromLeft() * POINTS_PER_TWIP);
+            pdfParagraph.setFirstLineIndent(-indentHanging);
+
+            firstLineStart = paragraph.getIndentFromLeft() * POINTS_PER_TWIP - indentHanging;
+        }
+
+        // runs, tabs jump to the tab stops in order
+        Iterator<TabStop> tabStops = paragraph.getTabStops().iterator();
+        for (Run run : paragraph.getRuns())
+            addRun(pdfParagraph, run, tabStops, firstLineStart);
+
+        // case: empty paragraph, keep the line
+        if (pdfParagraph.isEmpty())
+            pdfParagraph.add(new Chunk(" ", getFont(null)));
+
+        try {
+            document.add(pdfParagraph);
+
+        } catch (DocumentException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Adds the contents of a run as chunks.
+     * 
+     * @param pdfParagraph to add the chunks to.
+     * @param run to add.
+     * @param tabStops remaining tab stops of the paragraph.
+     * @param firstLineStart position of the first line relative to the left margin in points.
+     */
+    private void addRun(com.lowagie.text.Paragraph pdfParagraph, Run run, Iterator<TabStop> tabStops, float firstLineStart) {
+
+        Font font = getFont(run.getStyle());
+
+        for (RunContent content : run.getContents()) {
+            if (content instanceof RunContent.Text text)
+                pdfParagraph.add(new Chunk(text.value(), font));
+
+            else if (content instanceof RunContent.Tab) {
+                // case: no tab stop left
+                if (!tabStops.hasNext())
+                    pdfParagraph.add(new Chunk(" ", font));
+                else
+                    pdfParagraph.add(new Chunk(new VerticalPositionMark(), tabStops.next().position() * POINTS_PER_TWIP - firstLineStart));
+
+            } else
+                pdfParagraph.add(Chunk.NEWLINE);
+        }
+    }
+
+
+    /**
+     * @param style of a run, may be null.
+     * @return the font for the style, created once per document.
+     */
+    private Font getFont(Style style) {
+
+        // case: no style
+        if (style == null)
+            return fonts.computeIfAbsent("", id -> fontRegistry.getFont(null, BaseFont.IDENTITY_H, DEFAULT_FONT_SIZE, Font.NORMAL, Color.BLACK));
+
+        return fonts.computeIfAbsent(StyleRegistry.getRunStyleId(style), id -> {
+            int fontStyle = (style.isBold() ? Font.BOLD : 0) | (style.isItalic() ? Font.ITALIC : 0);
+
+            return fontRegistry.getFont(style.getFontFamily(), BaseFont.IDENTITY_H, style.getFontSize(), fontStyle, getColor(style.getColor()));
+        });
+    }
+
+
+    /**
+     * @param hexColor like "FF0000" or "F00", may be null.
+     * @return the color, black if invalid.
+     */
+    static Color getColor(String hexColor) {
+
+        // case: no color
+        if (hexColor == null)
+            return Color.BLACK;
+
+        // case: short form
+        if (hexColor.length() == 3)
+            hexColor = "" + hexColor.charAt(0) + hexColor.charAt(0) + hexColor.charAt(1) + hexColor.charAt(1) + hexColor.charAt(2) + hexColor.charAt(2);
+
+        try {
+            return new Color(Integer.parseInt(hexColor, 16));
+
+        } catch (NumberFormatException e) {
+            return Color.BLACK;
+        }
+    }
+
+
+    private static int getAlignment(ParagraphAlignment paragraphAlignment) {
+
+        // case: no alignment
+        if (paragraphAlignment == null)
+            return Element.ALIGN_LEFT;
+
+        return switch (paragraphAlignment) {
+            case CENTER -> Element.ALIGN_CENTER;
+            case RIGHT, END -> Element.ALIGN_RIGHT;
+            case BOTH, DISTRIBUTE -> Element.ALIGN_JUSTIFIED;
+            default -> Element.ALIGN_LEFT;
+        };
+    }
+
+
+    /**
+     * @param header of the template, may be null.
+     * @return the logo as pdf image or null if there is none.
+     */
+    private Image getLogo(Header header) {
+
+        // case: no header
+        if (header == null)
+            return null;
+
+        MediaLibrary mediaLibrary = renderServices.getMediaLibrary();
+        Optional<byte[]> logo = header.getLogoHash() != null ? mediaLibrary.find(header.getLogoHash()) : mediaLibrary.findFile(header.getLogo());
+
+        // case: logo not found
+        if (logo.isEmpty())
+            return null;
+
+        try {
+            Image image = Image.getInstance(logo.get());
+            image.scaleAbsolute(LOGO_WIDTH, LOGO_HEIGHT);
+
+            return image;
+
+        } catch (IOException | DocumentException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Draws header logo and footer on every finished page.
+     */
+    private final class HeaderFooterEvent extends PdfPageEventHelper {
+
+        private final Image logo;
+
+        private final Footer footer;
+
+
+        private HeaderFooterEvent(Image logo, Footer footer) {
+
+            this.logo = logo;
+            this.footer = footer;
+        }
+
+
+        @Override
+        public void onEndPage(PdfWriter pdfWriter, Document pdfDocument) {
+
+            PdfContentByte canvas = pdfWriter.getDirectContent();
+
+            // logo on the top right
+            if (logo != null) {
+                logo.setAbsolutePosition(pdfDocument.right() - LOGO_WIDTH, pdfDocument.getPageSize().getHeight() - HEADER_FOOTER_MARGIN - LOGO_HEIGHT);
+
+                try {
+                    canvas.addImage(logo);
+
+                } catch (DocumentException e) {
+                    throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            }
+
+            // case: no footer
+            if (footer == null)
+                return;
+
+            List<String> leftSection = getLines(footer.getLeftSection());
+            List<String> middleSection = getLines(footer.getMiddleSection());
+            List<String> rightSection = getLines(footer.getRightSection());
+            int numLines = Math.max(leftSection.size(), Math.max(middleSection.size(), rightSection.size()));
+
+            Font font = getFont(footer.getStyle());
+            float lineHeight = font.getSize() * LINE_HEIGHT;
+            float center = (pdfDocument.left() + pdfDocument.right()) / 2;
+
+            // first line on top, last line at the footer margin
+            for (int i = 0; i < numLines; i++) {
+                float y = HEADER_FOOTER_MARGIN + (numLines - 1 - i) * lineHeight;
+
+                showLine(canvas, Element.ALIGN_LEFT, leftSection, i, font, pdfDocument.left(), y);
+                showLine(canvas, Element.ALIGN_CENTER, middleSection, i, font, center, y);
+                showLine(canvas, Element.ALIGN_RIGHT, rightSection, i, font, pdfDocument.right(), y);
+            }
+        }
+
+
+        private void showLine(PdfContentByte canvas, int alignment, List<String> lines, int index, Font font, float x, float y) {
+
+            if (index < lines.size() && lines.get(index) != null)
+                ColumnText.showTextAligned(canvas, alignment, new Phrase(lines.get(index), font), x, y, 0);
+        }
+
+
+        private List<String> getLines(List<String> footerSection) {
+
+            return footerSection == null ? Collections.emptyList() : footerSection;
+        }
+    }
+}
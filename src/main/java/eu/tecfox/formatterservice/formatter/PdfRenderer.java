@@ -0,0 +1,37 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+
+/**
+ * Ways the {@link Formatter} can create a .pdf document.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public enum PdfRenderer {
+
+    /** 
+     * Builds the .docx document and converts it with a {@link eu.tecfox.formatterservice.converter.DocumentConverter}. 
+     */
+    CONVERTER,
+
+    /** 
+     * Lays out the content straight into the pdf without any .docx document in between. 
+     * @see PdfDocumentWriter
+     */
+    NATIVE
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+
+/**
+ * Engines the {@link Formatter} can render a .docx document with.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public enum RenderEngine {
+
+    /** Builds the whole document with Apache POI's XWPF model before writing it. */
+    XWPF,
+
+    /** 
+     * Streams the document content straight into the zip without building a document model, so memory 
+     * does not grow with the size of the profile. 
+     * @see StreamingDocxWriter
+     */
+    STREAMING
+}
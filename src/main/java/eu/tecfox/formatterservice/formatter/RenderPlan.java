@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.util.List;
+import java.util.Map;
+
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.Separator;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Immutable result of compiling a {@link Template} with {@link RenderPlanCompiler}.
+ * <p>
+ * Holds everything about a template that does not depend on the values of a profile: the style to use for
+ * every key and value with all fall backs already applied, the separators and what kind of content each
+ * section element renders. Rendering a profile then only binds the values to the plan.
+ *
+ * @param version of the template the plan has been compiled from.
+ * @param titleStyle style of the template title.
+ * @param sections one plan per section, in template order.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+record RenderPlan(
+    String version,
+    Style titleStyle,
+    List<SectionPlan> sections
+) {
+
+    /**
+     * Kind of content a section element renders as value.
+     */
+    enum ValueKind {
+        /** Single text, e.g. a String or Date. */
+        TEXT,
+
+        /** List of Strings, each followed or preceded by a separator. */
+        STRING_LIST,
+
+        /** List of nested section elements, each followed by a line break. */
+        NESTED_LIST
+    }
+
+
+    /**
+     * Plan of a single {@link Section}.
+     *
+     * @param showTitle true if the section title should be added.
+     * @param titleStyle style of the section title.
+     * @param styleKey fall back style of keys.
+     * @param styleValue fall back style of values.
+     * @param elements plans of the section elements by their identifier.
+     */
+    record SectionPlan(
+        boolean showTitle,
+        Style titleStyle,
+        Style styleKey,
+        Style styleValue,
+        Map<String, ElementPlan> elements
+    ) {
+
+        /**
+         * Gets the plan of a section element. Elements without a known identifier are compiled on the fly.
+         *
+         * @param sectionElement to get the plan for.
+         * @return the {@link ElementPlan} of the section element.
+         */
+        ElementPlan getElementPlan(SectionElement sectionElement) {
+
+            ElementPlan elementPlan = sectionElement.getIdentifier() == null ? null : elements.get(sectionElement.getIdentifier());
+
+            return elementPlan != null ? elementPlan : RenderPlanCompiler.compileElement(sectionElement, styleKey, styleValue);
+        }
+    }
+
+
+    /**
+     * Plan of a single {@link SectionElement}.
+     *
+     * @param styleKey resolved style of the key.
+     * @param styleValue resolved style of the value.
+     * @param keySeparator separator to add behind the key.
+     * @param valueSeparator separator to add to every list value.
+     * @param valueSeparatorInFront true if the value separator goes in front of a list value.
+     * @param valueKind what the value renders as.
+     * @param nestedKey plan of the key if the key is a section element itself, else null.
+     * @param nestedValues plans of the nested values by their {@link NestedValueShape}, empty if there are none.
+     * @param styleKeyFallback raw key style of the element, fall back for nested elements.
+     * @param styleValueFallback raw value style of the element, fall back for nested elements.
+     */
+    record ElementPlan(
+        Style styleKey,
+        Style styleValue,
+        Separator keySeparator,
+        Separator valueSeparator,
+        boolean valueSeparatorInFront,
+        ValueKind valueKind,
+        ElementPlan nestedKey,
+        Map<NestedValueShape, ElementPlan> nestedValues,
+        Style styleKeyFallback,
+        Style styleValueFallback
+    ) {
+
+        /**
+         * Gets the plan of a nested value. Nested values with an unknown shape are compiled on the fly.
+         *
+         * @param nestedValue to get the plan for.
+         * @return the {@link ElementPlan} of the nested value.
+         */
+        ElementPlan getNestedValuePlan(SectionElement nestedValue) {
+
+            ElementPlan elementPlan = nestedValues.get(NestedValueShape.of(nestedValue));
+
+            return elementPlan != null ? elementPlan : RenderPlanCompiler.compileElement(nestedValue, styleKeyFallback, styleValueFallback);
+        }
+    }
+
+
+    /**
+     * Everything the plan of a nested value depends on. Nested values are added per profile with new 
+     * identifiers, so their plans are shared by shape instead.
+     *
+     * @param type class of the nested value.
+     * @param styleKey raw key style of the nested value.
+     * @param styleValue raw value style of the nested value.
+     */
+    record NestedValueShape(
+        Class<?> type,
+        Style styleKey,
+        Style styleValue
+    ) {
+
+        /**
+         * @param nestedValue to get the shape of.
+         * @return the shape of the nested value.
+         */
+        static NestedValueShape of(SectionElement nestedValue) {
+
+            return new NestedValueShape(nestedValue.getClass(), nestedValue.getStyleKey(), nestedValue.getStyleValue());
+        }
+    }
+}
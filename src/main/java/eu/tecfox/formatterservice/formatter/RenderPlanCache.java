@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.cache.LruCache;
+import eu.tecfox.formatterservice.template.models.Template;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Cache of compiled {@link RenderPlan}s by template version, see {@link RenderPlanCompiler#getVersion(Template)}.
+ * <p>
+ * Bounded by the number of template versions, least recently used plans are evicted first. Hits, misses, 
+ * evictions and size are published as "formatter.plan.cache.*" metrics.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class RenderPlanCache {
+
+    /** Number of template versions to keep a plan for if none is configured. */
+    public static final int DEFAULT_SIZE = 64;
+
+    private final LruCache<String, RenderPlan> cache;
+
+
+    public RenderPlanCache(@Value("${formatter.plan-cache.size:" + DEFAULT_SIZE + "}") int size, MeterRegistry meterRegistry) {
+
+        this.cache = new LruCache<>(size);
+
+        FunctionCounter.builder("formatter.plan.cache.gets", cache, LruCache::getHits)
+                       .description("Lookups of compiled render plans.")
+                       .tag("result", "hit")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.plan.cache.gets", cache, LruCache::getMisses)
+                       .description("Lookups of compiled render plans.")
+                       .tag("result", "miss")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.plan.cache.evictions", cache, LruCache::getEvictions)
+                       .description("Render plans evicted to stay within the cache size.")
+                       .register(meterRegistry);
+
+        Gauge.builder("formatter.plan.cache.size", cache, LruCache::size)
+             .description("Number of cached render plans.")
+             .register(meterRegistry);
+    }
+
+
+    /**
+     * Gets the cached plan for the version of the given template or compiles it.
+     * <p>
+     * Computing the version walks the whole template, so callers should get the plan once per render and 
+     * pass it on.
+     *
+     * @param template to get the plan for.
+     * @return the {@link RenderPlan} of the template.
+     */
+    RenderPlan getPlan(Template template) {
+
+        return cache.computeIfAbsent(RenderPlanCompiler.getVersion(template), version -> RenderPlanCompiler.compile(template, version));
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.formatter.RenderPlan.ElementPlan;
+import eu.tecfox.formatterservice.formatter.RenderPlan.NestedValueShape;
+import eu.tecfox.formatterservice.formatter.RenderPlan.SectionPlan;
+import eu.tecfox.formatterservice.formatter.RenderPlan.ValueKind;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedKey;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedValue;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringListElement;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.Separator;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.SeparatorCategory;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Class compiling a validated {@link Template} into a {@link RenderPlan}.
+ * <p>
+ * Plans are cached by template version in the {@link RenderPlanCache}. The version is derived from everything 
+ * a plan depends on (styles, separators, element types and identifiers) but not from any values, so all 
+ * profiles using the same template share one plan. Nested values are added per profile and only described by 
+ * their type and styles, never by their identifier.
+ *
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class RenderPlanCompiler {
+
+    private RenderPlanCompiler() {}
+
+
+    /**
+     * Compiles a template into a plan without using the cache.
+     *
+     * @param template to compile.
+     * @param version of the template.
+     * @return a new {@link RenderPlan}.
+     */
+    static RenderPlan compile(Template template, String version) {
+
+        List<SectionPlan> sectionPlans = new ArrayList<>();
+
+        for (Section section : template.getSections()) {
+            // compile each distinct element once
+            Map<String, ElementPlan> elementPlans = new LinkedHashMap<>();
+            for (SectionElement sectionElement : section.getElements())
+                if (sectionElement.getIdentifier() != null)
+                    elementPlans.putIfAbsent(sectionElement.getIdentifier(), 
+                                             compileElement(sectionElement, section.getStyleKey(), section.getStyleValue()));
+
+            sectionPlans.add(new SectionPlan(section.isShowTitle(), 
+                                             section.getStyleTitle(), 
+                                             section.getStyleKey(), 
+                                             section.getStyleValue(), 
+                                             Map.copyOf(elementPlans)));
+        }
+
+        return new RenderPlan(version, template.getStyle(), List.copyOf(sectionPlans));
+    }
+
+
+    /**
+     * Compiles a single section element, resolving its styles against the given fall backs.
+     *
+     * @param sectionElement to compile.
+     * @param styleKeyFallback style to use if the element has no key style.
+     * @param styleValueFallback style to use if the element has no value style.
+     * @return the {@link ElementPlan} of the section element.
+     * @see StyleFormatter#getKeyOrValueStyle(SectionElement, Style, Style, boolean)
+     */
+    static ElementPlan compileElement(SectionElement sectionElement, Style styleKeyFallback, Style styleValueFallback) {
+
+        // resolve styles
+        Style styleKey = StyleFormatter.getKeyOrValueStyle(sectionElement, styleKeyFallback, styleValueFallback, true);
+        Style styleValue = StyleFormatter.getKeyOrValueStyle(sectionElement, styleKeyFallback, styleValueFallback, false);
+
+        // resolve separators
+        Separator keySeparator = styleKey != null ? styleKey.getSeparator() : null;
+        Separator valueSeparator = styleValue != null ? styleValue.getSeparator() : null;
+        boolean valueSeparatorInFront = valueSeparator != null && SeparatorCategory.IN_FRONT.equals(valueSeparator.getCategory());
+
+        // case: nested key
+        ElementPlan nestedKey = null;
+        if (sectionElement.getKey() instanceof NestedKey)
+            nestedKey = compileElement((SectionElement) sectionElement.getKey(), sectionElement.getStyleKey(), sectionElement.getStyleValue());
+
+        // get value kind
+        ValueKind valueKind = ValueKind.TEXT;
+        Map<NestedValueShape, ElementPlan> nestedValues = Map.of();
+
+        // case: list of nested values
+        if (sectionElement instanceof NestedElement nestedElement) {
+            valueKind = ValueKind.NESTED_LIST;
+            nestedValues = compileNestedValues(nestedElement);
+
+        // case: list of strings
+        } else if (sectionElement instanceof StringListElement)
+            valueKind = ValueKind.STRING_LIST;
+
+        return new ElementPlan(styleKey, 
+                               styleValue, 
+                               keySeparator, 
+                               valueSeparator, 
+                               valueSeparatorInFront, 
+                               valueKind, 
+                               nestedKey, 
+                               nestedValues,
+                               sectionElement.getStyleKey(),
+                               sectionElement.getStyleValue());
+    }
+
+
+    /**
+     * Computes the version of a template. Two templates with the same version compile to the same plan.
+     *
+     * @param template to compute the version of.
+     * @return a hex encoded hash.
+     */
+    static String getVersion(Template template) {
+
+        StringBuilder description = new StringBuilder();
+
+        describeStyle(description, template.getStyle());
+
+        for (Section section : template.getSections()) {
+            description.append("|section:").append(section.isShowTitle());
+            describeStyle(description, section.getStyleTitle());
+            describeStyle(description, section.getStyleKey());
+            describeStyle(description, section.getStyleValue());
+
+            Set<String> describedIdentifiers = new HashSet<>();
+            for (SectionElement sectionElement : section.getElements())
+                if (sectionElement.getIdentifier() != null && describedIdentifiers.add(sectionElement.getIdentifier()))
+                    describeElement(description, sectionElement);
+        }
+
+        return sha256(description.toString());
+    }
+
+
+    private static Map<NestedValueShape, ElementPlan> compileNestedValues(NestedElement nestedElement) {
+
+        // case: no values
+        if (nestedElement.getValue() == null)
+            return Map.of();
+
+        Map<NestedValueShape, ElementPlan> nestedValues = new LinkedHashMap<>();
+        for (NestedValue nestedValue : nestedElement.getValue()) {
+            SectionElement sectionElement = (SectionElement) nestedValue;
+            nestedValues.computeIfAbsent(NestedValueShape.of(sectionElement), 
+                                         shape -> compileElement(sectionElement, 
+                                                                 nestedElement.getStyleKey(), 
+                                                                 nestedElement.getStyleValue()));
+        }
+
+        return Map.copyOf(nestedValues);
+    }
+
+
+    private static void describeElement(StringBuilder description, SectionElement sectionElement) {
+
+        description.append("|element:")
+                   .append(sectionElement.getIdentifier())
+                   .append(':')
+                   .append(sectionElement.getClass().getSimpleName());
+        describeStyle(description, sectionElement.getStyleKey());
+        describeStyle(description, sectionElement.getStyleValue());
+
+        // case: nested key
+        if (sectionElement.getKey() instanceof NestedKey) {
+            description.append("|key");
+            describeElement(description, (SectionElement) sectionElement.getKey());
+        }
+
+        // case: nested values, described by shape only since identifiers differ per profile
+        if (sectionElement instanceof NestedElement nestedElement && nestedElement.getValue() != null) {
+            Set<String> nestedValueShapes = new TreeSet<>();
+            for (NestedValue nestedValue : nestedElement.getValue()) {
+                StringBuilder nestedValueShape = new StringBuilder("|value:").append(nestedValue.getClass().getSimpleName());
+                describeStyle(nestedValueShape, ((SectionElement) nestedValue).getStyleKey());
+                describeStyle(nestedValueShape, ((SectionElement) nestedValue).getStyleValue());
+                nestedValueShapes.add(nestedValueShape.toString());
+            }
+
+            nestedValueShapes.forEach(description::append);
+        }
+    }
+
+
+    private static void describeStyle(StringBuilder description, Style style) {
+
+        // case: no style
+        if (style == null) {
+            description.append("|-");
+            return;
+        }
+
+        Separator separator = style.getSeparator();
+
+        description.append('|')
+                   .append(style.getFontFamily()).append(',')
+                   .append(style.getFontSize()).append(',')
+                   .append(style.getColor()).append(',')
+                   .append(style.isBold()).append(',')
+                   .append(style.isItalic()).append(',')
+                   .append(style.getTextAlign()).append(',')
+                   .append(style.isStartOnNewPage()).append(',')
+                   .append(separator != null ? separator.getValue() : null).append(',')
+                   .append(separator != null ? separator.getCategory() : null);
+    }
+
+
+    /**
+     * @param value to hash.
+     * @return the hex encoded SHA-256 hash of the UTF-8 bytes of the value.
+     */
+    static String sha256(String value) {
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.media.FileSystemMediaStore;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.metrics.RenderMetrics;
+import eu.tecfox.formatterservice.template.models.Template;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Beans every render needs besides the {@link Template}: the {@link MediaLibrary} to load logos from, the 
+ * {@link FontRegistry} for pdfs, the {@link SectionExecutor}, the {@link RenderMetrics} and the caches of 
+ * rendered sections, compiled plans and document skeletons.
+ * <p>
+ * Beans creating a {@link Formatter} inject this and pass it on, so every class taking part in a render 
+ * uses the instances of the application context.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Getter
+@Component
+@RequiredArgsConstructor
+public class RenderServices {
+
+    private final MediaLibrary mediaLibrary;
+
+    private final FontRegistry fontRegistry;
+
+    private final SectionExecutor sectionExecutor;
+
+    private final RenderMetrics renderMetrics;
+
+    private final FragmentCache fragmentCache;
+
+    private final RenderPlanCache renderPlanCache;
+
+    private final SkeletonCache skeletonCache;
+
+
+    /**
+     * Creates new services with default configuration and their own caches and pool, for code running 
+     * without application context like tests and benchmarks. Media are kept as files in 
+     * {@link FileSystemMediaStore#DEFAULT_DIRECTORY}.
+     * 
+     * @param meterRegistry to register the {@link RenderMetrics} and cache metrics at.
+     * @return new services, never shared with anyone else.
+     */
+    public static RenderServices createStandalone(MeterRegistry meterRegistry) {
+
+        MediaLibrary mediaLibrary = new MediaLibrary(new FileSystemMediaStore(FileSystemMediaStore.DEFAULT_DIRECTORY), 
+                                                     MediaLibrary.DEFAULT_CACHE_SIZE);
+
+        return new RenderServices(mediaLibrary, 
+                                  new FontRegistry(FontRegistry.DEFAULT_FONT_DIRECTORY, FontRegistry.DEFAULT_FALLBACK_FONT), 
+                                  new SectionExecutor(0, SectionExecutor.DEFAULT_MIN_SECTIONS, 0), 
+                                  new RenderMetrics(meterRegistry, mediaLibrary), 
+                                  new FragmentCache(FragmentCache.DEFAULT_SIZE, meterRegistry), 
+                                  new RenderPlanCache(RenderPlanCache.DEFAULT_SIZE, meterRegistry), 
+                                  new SkeletonCache(SkeletonCache.DEFAULT_SIZE, meterRegistry));
+    }
+}
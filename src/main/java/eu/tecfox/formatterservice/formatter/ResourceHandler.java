@@ -1,7 +1,6 @@
 package eu.tecfox.formatterservice.formatter;
 
 import java.io.File;
-import java.util.UUID;
 
 import eu.tecfox.formatterservice.exception.ApiRequestException;
 import lombok.extern.log4j.Log4j2;
@@ -24,10 +23,12 @@ public class ResourceHandler {
 
     public static final String PROFILE_TEMPLATE = "src/main/java/eu/tecfox/formatterservice/template/profileTemplate.json";
 
-    public static final String DOCX_FORMATTED_BY_API = "Profile-" + UUID.randomUUID() + ".docx";
-
     public static final String PDF_FORMATTED_BY_API = "Profile.pdf";
 
+    public static final String DOCX_DOWNLOAD_NAME = "Profile.docx";
+
+    public static final String BATCH_DOWNLOAD_NAME = "Profiles.zip";
+
 
     /**
      * Creates directories at the specified path if they don't already exist.
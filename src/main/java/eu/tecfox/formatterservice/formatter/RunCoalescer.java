@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Class reducing the number of runs of a {@link Paragraph} without changing how it looks.
+ * <p>
+ * Removes runs without content, merges adjacent runs rendering with the same character style and merges 
+ * adjacent texts inside a run. This way a key with its separator or a whole list of values usually ends up 
+ * as a single run with a single text.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class RunCoalescer {
+
+    /**
+     * Coalesces the runs of a paragraph in place.
+     * 
+     * @param paragraph to coalesce.
+     */
+    static void coalesce(Paragraph paragraph) {
+
+        List<Run> runs = paragraph.getRuns();
+
+        // case: nothing to coalesce
+        if (runs.isEmpty())
+            return;
+
+        List<Run> coalescedRuns = new ArrayList<>(runs.size());
+        Run previousRun = null;
+
+        for (Run run : runs) {
+            // case: empty run
+            if (run.getContents().isEmpty())
+                continue;
+
+            // case: same style as previous run
+            if (previousRun != null && hasSameRunStyle(previousRun.getStyle(), run.getStyle())) {
+                previousRun.append(run);
+                continue;
+            }
+
+            coalescedRuns.add(run);
+            previousRun = run;
+        }
+
+        for (Run run : coalescedRuns)
+            run.mergeTexts();
+
+        runs.clear();
+        runs.addAll(coalescedRuns);
+    }
+
+
+    /**
+     * Compares only the properties that end up in the character style, so e.g. styles differing in 
+     * text-align or separator still count as equal.
+     * 
+     * @param style first style, may be null.
+     * @param otherStyle second style, may be null.
+     * @return true if both styles result in the same character style.
+     */
+    private static boolean hasSameRunStyle(Style style, Style otherStyle) {
+
+        // case: same or both null
+        if (style == otherStyle)
+            return true;
+
+        // case: one is null
+        if (style == null || otherStyle == null)
+            return false;
+
+        return Objects.equals(StyleRegistry.getRunStyleId(style), StyleRegistry.getRunStyleId(otherStyle));
+    }
+}
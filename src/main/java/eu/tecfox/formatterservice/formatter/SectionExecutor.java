@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.template.models.section.Section;
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Renders the {@link Section}s of a document concurrently on a fork-join pool.
+ * <p>
+ * Every section is rendered into its own list of paragraphs, independent of any document, so sections can be 
+ * rendered in any order. The results are passed on in template order and spliced into the document by the 
+ * calling thread. At most "formatter.sections.lookahead" sections are rendered ahead of the one passed on 
+ * next, so a render never holds more than this many sections in memory. Documents with only a few sections 
+ * are rendered on the calling thread, as handing them off costs more than it saves.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class SectionExecutor {
+
+    /** Minimum number of sections to render concurrently if none is configured. */
+    public static final int DEFAULT_MIN_SECTIONS = 8;
+
+    /** Pool to render on, null if sections are always rendered on the calling thread. */
+    private final ForkJoinPool pool;
+
+    private final int minSections;
+
+    /** Maximum number of sections rendered but not passed on yet. */
+    private final int lookahead;
+
+
+    /**
+     * @param parallelism number of threads to render on, 0 for one per cpu, 1 to always render on the calling thread.
+     * @param minSections minimum number of sections to render concurrently.
+     * @param lookahead maximum number of sections rendered ahead, 0 for twice the parallelism.
+     */
+    public SectionExecutor(@Value("${formatter.sections.parallelism:0}") int parallelism, 
+                           @Value("${formatter.sections.min-sections:" + DEFAULT_MIN_SECTIONS + "}") int minSections,
+                           @Value("${formatter.sections.lookahead:0}") int lookahead) {
+
+        // default to one thread per cpu, 1 renders sequentially
+        int poolSize = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        this.pool = poolSize > 1 ? new ForkJoinPool(poolSize) : null;
+        this.minSections = minSections;
+        this.lookahead = pool == null ? 1 : (lookahead > 0 ? lookahead : 2 * poolSize);
+    }
+
+
+    /**
+     * Renders all sections, concurrently if there are enough of them, and collects the results.
+     * 
+     * @param <T> result of rendering a single section.
+     * @param numSections number of sections to render.
+     * @param renderSection renders the section with the given index, must not touch any shared document.
+     * @return the results in section order.
+     * @throws RuntimeException the first exception thrown by rendering a section, in section order.
+     */
+    public <T> List<T> render(int numSections, IntFunction<T> renderSection) {
+
+        List<T> results = new ArrayList<>(numSections);
+
+        render(numSections, renderSection, results::add);
+
+        return results;
+    }
+
+
+    /**
+     * Renders all sections, concurrently if there are enough of them, and passes every result on as soon as 
+     * all sections before it have been passed on. At most {@link #getLookahead()} results are held at a time.
+     * 
+     * @param <T> result of rendering a single section.
+     * @param numSections number of sections to render.
+     * @param renderSection renders the section with the given index, must not touch any shared document.
+     * @param sectionConsumer called with the results in section order, always on the calling thread.
+     * @throws RuntimeException the first exception thrown by rendering a section, in section order.
+     */
+    public <T> void render(int numSections, IntFunction<T> renderSection, Consumer<T> sectionConsumer) {
+
+        // case: not worth handing off
+        if (pool == null || numSections < minSections) {
+            for (int i = 0; i < numSections; i++)
+                sectionConsumer.accept(renderSection.apply(i));
+
+            return;
+        }
+
+        Deque<ForkJoinTask<T>> tasks = new ArrayDeque<>(lookahead);
+        try {
+            for (int i = 0; i < numSections; i++) {
+                // case: window full, pass on the oldest section first
+                if (tasks.size() == lookahead)
+                    sectionConsumer.accept(tasks.removeFirst().join());
+
+                int sectionIndex = i;
+                tasks.addLast(pool.submit(() -> renderSection.apply(sectionIndex)));
+            }
+
+            // pass on the rest in section order, no matter which finished first
+            while (!tasks.isEmpty())
+                sectionConsumer.accept(tasks.removeFirst().join());
+
+        } finally {
+            // case: failed, don't render sections nobody will pass on
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
+
+
+    /**
+     * @return the maximum number of rendered sections a render holds at a time.
+     */
+    public int getLookahead() {
+
+        return lookahead;
+    }
+
+
+    @PreDestroy
+    void close() {
+
+        if (pool != null)
+            pool.shutdown();
+    }
+}
@@ -15,12 +15,21 @@
  */
 package eu.tecfox.formatterservice.formatter;
 
+import static eu.tecfox.formatterservice.formatter.StyleFormatter.CURSOR_FIRST_THIRD;
+
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
 
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.formatter.RenderPlan.ElementPlan;
+import eu.tecfox.formatterservice.formatter.RenderPlan.SectionPlan;
+import eu.tecfox.formatterservice.formatter.RenderPlan.ValueKind;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.ParagraphSink;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.TabStop;
 import eu.tecfox.formatterservice.template.models.Template;
 import eu.tecfox.formatterservice.template.models.section.Section;
 import eu.tecfox.formatterservice.template.models.section.elements.NestedKey;
@@ -28,46 +37,193 @@ import eu.tecfox.formatterservice.template.models.section.elements.NestedValue;
 import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
 import eu.tecfox.formatterservice.template.models.section.elements.separator.Separator;
 import eu.tecfox.formatterservice.template.models.section.elements.separator.SeparatorCategory;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.SeparatorValue;
 import eu.tecfox.formatterservice.template.models.style.Style;
-import lombok.RequiredArgsConstructor;
 
 
 /**
- * Class to add the content from a {@link Template} to the {@link XWPFDocument}.
+ * Class to add the content from a {@link Template} to a document.
+ * <p>
+ * The content is built as {@link Paragraph}s and passed to a {@link ParagraphSink} section by section, so the same 
+ * content can be written to an {@link XWPFDocument} or streamed by the {@link StreamingDocxWriter}. Runs of 
+ * every paragraph are merged by the {@link RunCoalescer} before.
  * <p>
- * Uses {@link StyleFormatter}s methods for the styling.
+ * The paragraphs of every section are cached in the {@link FragmentCache} by section identifier and content, 
+ * so editing a single value only renders the section containing it again. Cached paragraphs are shared by all renders and must not be 
+ * modified by any sink.
  * 
  * @since 1.0
  * @author Florin Schikarski
  */
-@RequiredArgsConstructor
 public class SectionFormatter {
 
+    /** Tab stop after a key with an indent separator. */
+    private static final TabStop INDENT_TAB_STOP = new TabStop("left", CURSOR_FIRST_THIRD.intValue());
+
     private final Template template;
 
-    private final XWPFDocument document;
+    private final RenderPlan renderPlan;
+
+    /** Content hashes of the sections, keying them in the {@link FragmentCache}. */
+    private final List<String> sectionHashes;
+
+    private final ParagraphSink paragraphSink;
+
+    private final SectionExecutor sectionExecutor;
+
+    private final FragmentCache fragmentCache;
+
+    /** Paragraph currently being built, passed to the sink once the next one is created. */
+    private Paragraph paragraph;
+
+
+    public SectionFormatter(Template template, XWPFDocument document, RenderServices renderServices) {
+
+        this(template, new XwpfParagraphSink(document), renderServices);
+    }
+
+
+    public SectionFormatter(Template template, ParagraphSink paragraphSink, RenderServices renderServices) {
+
+        this(template, renderServices.getRenderPlanCache().getPlan(template), ContentHash.ofSections(template), paragraphSink, renderServices);
+    }
+
+
+    SectionFormatter(Template template, ParagraphSink paragraphSink, SectionExecutor sectionExecutor, FragmentCache fragmentCache) {
+
+        this(template, 
+             RenderPlanCompiler.compile(template, RenderPlanCompiler.getVersion(template)), 
+             ContentHash.ofSections(template), 
+             paragraphSink, 
+             sectionExecutor, 
+             fragmentCache);
+    }
+
+
+    /**
+     * @param template to add the content of.
+     * @param renderPlan of the template, computed once per render by the caller.
+     * @param sectionHashes of the template, computed once per render by the caller, see {@link ContentHash#ofSections(Template)}.
+     * @param paragraphSink to pass the paragraphs to.
+     * @param renderServices to render the sections with.
+     */
+    SectionFormatter(Template template, RenderPlan renderPlan, List<String> sectionHashes, ParagraphSink paragraphSink, RenderServices renderServices) {
+
+        this(template, renderPlan, sectionHashes, paragraphSink, renderServices.getSectionExecutor(), renderServices.getFragmentCache());
+    }
+
+
+    private SectionFormatter(Template template, 
+                             RenderPlan renderPlan, 
+                             List<String> sectionHashes, 
+                             ParagraphSink paragraphSink, 
+                             SectionExecutor sectionExecutor, 
+                             FragmentCache fragmentCache) {
+
+        this.template = template;
+        this.renderPlan = renderPlan;
+        this.sectionHashes = sectionHashes;
+        this.paragraphSink = paragraphSink;
+        this.sectionExecutor = sectionExecutor;
+        this.fragmentCache = fragmentCache;
+    }
 
 
     /**
      * Iterates sections from the template and adds content and style to the document.
      * Also adds the template title.
      * <p>
-     * Adds a line break after every section.
+     * Adds a line break after every section. Styles and separators are taken from the {@link RenderPlan} 
+     * of the template, which is compiled only once per template version. Sections that have been rendered 
+     * before with the same content are taken from the cache, all others are rendered by the 
+     * {@link SectionExecutor}. Every section is passed to the sink as soon as all sections before it have 
+     * been, so only the sections within the executor's lookahead are held at a time.
      */
     void addContent() {
-        
+
         // add template title
-        addTitle(template.getTitle(), template.getStyle());
+        addTitle(template.getTitle(), renderPlan.titleStyle());
 
-        // add all sections of template
-        for (Section section : template.getSections()) {
-            
-            // add section
-            addSection(section);
+        // render all sections of template, concurrently if there are many, and add them in template order
+        List<Section> sections = template.getSections();
+        sectionExecutor.render(sections.size(), 
+                               i -> getSectionParagraphs(sections.get(i), renderPlan.sections().get(i), sectionHashes.get(i)),
+                               this::addSectionParagraphs);
+
+        // pass last paragraph
+        flushParagraph();
+    }
+
+
+    /**
+     * Passes the paragraphs of a rendered section to the sink, followed by a line break.
+     * 
+     * @param paragraphs of the section.
+     */
+    private void addSectionParagraphs(List<Paragraph> paragraphs) {
+
+        // pass title or previous line break first
+        flushParagraph();
+
+        // add section
+        for (Paragraph sectionParagraph : paragraphs)
+            paragraphSink.accept(sectionParagraph);
+
+        // add line break
+        createParagraph(); 
+    }
+
+
+    /**
+     * Gets the paragraphs of a section from the cache or renders them.
+     * 
+     * @param section to get the paragraphs of.
+     * @param sectionPlan compiled plan of the section.
+     * @param sectionHash content hash of the section.
+     * @return the complete paragraphs of the section, without the line break after it.
+     */
+    private List<Paragraph> getSectionParagraphs(Section section, SectionPlan sectionPlan, String sectionHash) {
 
-            // add line break
-            document.createParagraph(); 
+        // styles and values are part of the content, any change renders the section again
+        String key = section.getIdentifier() + ":" + sectionHash;
+
+        return fragmentCache.computeIfAbsent(key, k -> {
+            List<Paragraph> sectionParagraphs = new ArrayList<>();
+
+            SectionFormatter sectionFormatter = new SectionFormatter(template, renderPlan, sectionHashes, sectionParagraphs::add, sectionExecutor, fragmentCache);
+            sectionFormatter.addSection(section, sectionPlan);
+            sectionFormatter.flushParagraph();
+
+            return List.copyOf(sectionParagraphs);
+        });
+    }
+
+
+    /**
+     * Passes the current paragraph to the sink and starts a new one.
+     * 
+     * @return the new paragraph.
+     */
+    private Paragraph createParagraph() {
+
+        flushParagraph();
+
+        this.paragraph = new Paragraph();
+
+        return paragraph;
+    }
+
+
+    private void flushParagraph() {
+
+        if (paragraph != null) {
+            // merge runs with same style
+            RunCoalescer.coalesce(paragraph);
+
+            paragraphSink.accept(paragraph);
         }
+
+        this.paragraph = null;
     }
 
 
@@ -84,17 +240,17 @@ public class SectionFormatter {
             return;
         
         // create line
-        XWPFParagraph paragraph = document.createParagraph();
-        XWPFRun run = paragraph.createRun();
+        Paragraph paragraph = createParagraph();
+        Run run = paragraph.createRun();
 
         // add text
-        run.setText(title);
+        run.addText(title);
 
         // set style
-        StyleFormatter.addStyle(paragraph, run, style);
+        addStyle(paragraph, run, style);
 
         // add separator
-        StyleFormatter.addSeparatorBehind(paragraph, run, style.getSeparator());
+        addSeparatorBehind(paragraph, run, style.getSeparator());
     }
     
 
@@ -104,53 +260,35 @@ public class SectionFormatter {
      * Also adds the section title.
      * 
      * @param section to add.
+     * @param sectionPlan compiled plan of the section.
      */
-    private void addSection(Section section) {
-        
-        // get section elements
-        List<SectionElement> sectionElements = section.getElements();
+    private void addSection(Section section, SectionPlan sectionPlan) {
         
         // add section title
-        if (section.isShowTitle())
-            addTitle(section.getTitle(), section.getStyleTitle()); 
+        if (sectionPlan.showTitle())
+            addTitle(section.getTitle(), sectionPlan.titleStyle()); 
         
         // add section elements
-        for (SectionElement sectionElement : sectionElements) {
-            // create paragraph
-            addSectionElement(sectionElement, section.getStyleKey(), section.getStyleValue());
-        }
+        for (SectionElement sectionElement : section.getElements())
+            addSectionElement(sectionElement, sectionPlan.getElementPlan(sectionElement), createParagraph());
     }
     
     
     /**
-     * Adds key and value of a section element to the document. One paragraph will be used for one section element.
-     * <p>
-     * If the section element is not nested (thus has no paragraph yet), one will be created.
+     * Adds key and value of a section element to the given paragraph. One paragraph will be used for one section 
+     * element including its nested elements.
      * 
      * @param sectionElement to add.
-     * @param styleKeySection of the section.
-     * @param styleValueSection of the section.
-     * @param sectionElementParagraph array with the paragraph of the section element (if nested).
+     * @param elementPlan compiled plan of the section element.
+     * @param paragraph of the section element.
      */
-    private void addSectionElement(SectionElement sectionElement, 
-                                   Style styleKeySection, 
-                                   Style styleValueSection, 
-                                   XWPFParagraph... sectionElementParagraph) {
-        
-        // create paragraph
-        XWPFParagraph paragraph;
-        try {
-            paragraph = sectionElementParagraph[0];
-
-        } catch (ArrayIndexOutOfBoundsException e) {
-            paragraph = document.createParagraph();
-        }
+    private void addSectionElement(SectionElement sectionElement, ElementPlan elementPlan, Paragraph paragraph) {
         
         // add key
-        addKeyOrValue(paragraph, sectionElement, styleKeySection, styleValueSection, true);
+        addKeyOrValue(paragraph, sectionElement, elementPlan, true);
         
         // add value
-        addKeyOrValue(paragraph, sectionElement, styleKeySection, styleValueSection, false);
+        addKeyOrValue(paragraph, sectionElement, elementPlan, false);
     }
     
     
@@ -158,63 +296,47 @@ public class SectionFormatter {
      * Adds either a key or a value and the related style and separator (if key) of a section element to the document.
      * <p>
      * Covers any key or value type a template can have: String, List, {@link NestedKey} or {@link NestedValue}.
-     * <p>
-     * If the section element has no style objects defined (those are optional) the style of the section will be used 
-     * as fallback (those are not optional). 
      * 
      * @param paragraph to add a new run to.
-     * @param sectionElement to take style and content from.
-     * @param styleKeySection style of a the section key.
-     * @param styleValueSection style of the section value.
+     * @param sectionElement to take the content from.
+     * @param elementPlan to take style and separators from.
      * @param isKey true if a key should be added.
-     * @see StyleFormatter
      */
-    private void addKeyOrValue(XWPFParagraph paragraph, 
+    private void addKeyOrValue(Paragraph paragraph, 
                                SectionElement sectionElement, 
-                               Style styleKeySection, 
-                               Style styleValueSection, 
+                               ElementPlan elementPlan, 
                                boolean isKey) {
  
         // create run
-        XWPFRun run = paragraph.createRun();
-
-        // get key / value
-        Object keyOrValue = isKey ? sectionElement.getKey() : sectionElement.getValue();
+        Run run = paragraph.createRun();
 
         // get keyString / valueString
         String keyOrValueString = isKey ? sectionElement.getKeyString() : sectionElement.getValueString();
-        
-        // get style
-        Style style = StyleFormatter.getKeyOrValueStyle(sectionElement, styleKeySection, styleValueSection, isKey);
  
         // case: empty
         if (keyOrValueString.isBlank())
             return;
 
-        // case: nested key / nested value
-        if (keyOrValue instanceof NestedKey || keyOrValue instanceof NestedValue) {
-            addSectionElement((SectionElement)keyOrValue, 
-                              sectionElement.getStyleKey(), 
-                              sectionElement.getStyleValue(), 
-                              paragraph);
-            
+        // case: nested key
+        if (isKey && elementPlan.nestedKey() != null) {
+            addSectionElement((SectionElement) sectionElement.getKey(), elementPlan.nestedKey(), paragraph);
             return;
         }
         
         // case: value and list
-        if (!isKey && sectionElement.getValue() instanceof List) {
-            addListValues(paragraph, run, sectionElement, styleKeySection, styleValueSection);
+        if (!isKey && elementPlan.valueKind() != ValueKind.TEXT && sectionElement.getValue() instanceof List<?> values) {
+            addListValues(paragraph, run, values, elementPlan);
 
         // case: any
         } else
-            run.setText(keyOrValueString);
+            run.addText(keyOrValueString);
 
         // add style
-        StyleFormatter.addStyle(paragraph, run, style);
+        addStyle(paragraph, run, isKey ? elementPlan.styleKey() : elementPlan.styleValue());
 
         // add separator
         if(isKey)
-            StyleFormatter.addSeparatorBehind(paragraph, run, style.getSeparator());
+            addSeparatorBehind(paragraph, run, elementPlan.keySeparator());
     }
     
     /**
@@ -224,18 +346,13 @@ public class SectionFormatter {
      * 
      * @param paragraph to add a nested value to.
      * @param run to add the list values to.
-     * @param sectionElement containing the style.
-     * @param styleKeySection containing the style fall back for a key (if section element has no style).
-     * @param styleValueSection containing the style fall back for a value (if section element has no style).
+     * @param values of the section element.
+     * @param elementPlan of the section element containing the separator and the plans of nested values.
      */
-    private void addListValues(XWPFParagraph paragraph, 
-                               XWPFRun run, 
-                               SectionElement sectionElement, 
-                               Style styleKeySection, 
-                               Style styleValueSection) {
-
-        // get values
-        List<?> values = (List<?>)sectionElement.getValue();
+    private void addListValues(Paragraph paragraph, 
+                               Run run, 
+                               List<?> values, 
+                               ElementPlan elementPlan) {
         
         // get list size
         int numValues = values.size();
@@ -255,19 +372,15 @@ public class SectionFormatter {
             // case: nested value
             if (listValue instanceof NestedValue) {
                 // add nested value
-                addSectionElement((SectionElement)listValue, 
-                                  sectionElement.getStyleKey(), 
-                                  sectionElement.getStyleValue(),
-                                  paragraph);
+                SectionElement nestedValue = (SectionElement) listValue;
+                addSectionElement(nestedValue, elementPlan.getNestedValuePlan(nestedValue), paragraph);
 
                 // add break 
                 run.addBreak();
                 
             // case: any value
-            } else {
-                Style styleValue = StyleFormatter.getKeyOrValueStyle(sectionElement, styleKeySection, styleValueSection, false);
-                addListValue(run, listValue, styleValue.getSeparator(), i, isLastValue); 
-            }
+            } else
+                addListValue(run, listValue, elementPlan.valueSeparator(), elementPlan.valueSeparatorInFront(), i, isLastValue); 
         }
     }
 
@@ -278,22 +391,24 @@ public class SectionFormatter {
      * @param run the value is added to.
      * @param value to add.
      * @param separator to add after or in front of the value.
+     * @param isSeparatorInFront true if the separator's category is {@link SeparatorCategory#IN_FRONT}.
      * @param listIndex of the value in the regarding value list.
      * @param isLastValue true if value is the last in the regarding value list.
      */
-    private void addListValue(XWPFRun run, 
+    private void addListValue(Run run, 
                               Object value, 
                               Separator separator, 
+                              boolean isSeparatorInFront,
                               int listIndex, 
                               boolean isLastValue) {
 
         // case: separator in front
-        if (separator.getCategory().equals(SeparatorCategory.IN_FRONT)) {
+        if (isSeparatorInFront) {
             // add separator
-            StyleFormatter.addSeparatorInFront(run, separator, listIndex);
+            run.addText(StyleFormatter.getSeparatorInFrontText(separator, listIndex));
 
             // add value
-            run.setText(value.toString());
+            run.addText(value.toString());
 
             // add breaks
             run.addBreak();
@@ -303,11 +418,53 @@ public class SectionFormatter {
         // case: separator behind
         } else {
             // add value
-            run.setText(value.toString());
+            run.addText(value.toString());
 
             // add separator (except after last value)
             if (!isLastValue)
-                StyleFormatter.addSeparatorBehind(null, run, separator);
+                addSeparatorBehind(null, run, separator);
         }
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Sets the style of a run and its paragraph. Same as {@link StyleFormatter#addStyle}.
+     * 
+     * @param paragraph to set the text-align and page break in.
+     * @param run to style.
+     * @param style with the style information to use.
+     */
+    private void addStyle(Paragraph paragraph, Run run, Style style) {
+
+        run.setStyle(style);
+        paragraph.setStyle(style);
+    }
+
+
+    /**
+     * Appends a {@link Separator} to the given run. Same as {@link StyleFormatter#addSeparatorBehind}.
+     * 
+     * @param paragraph to make the indent in. May be null if no indent is used.
+     * @param run to append the separator to.
+     * @param separator to append.
+     */
+    private void addSeparatorBehind(Paragraph paragraph, Run run, Separator separator) {
+
+        // case: indent
+        if (separator.getValue().equals(SeparatorValue.INDENT) && paragraph != null) {
+            // add indent with first line hanging
+            paragraph.setIndent(CURSOR_FIRST_THIRD.intValue(), CURSOR_FIRST_THIRD.intValue());
+            paragraph.addTabStop(INDENT_TAB_STOP);
+
+            // add tab for first line
+            run.addTab();
+
+        // case: line break
+        } else if (separator.getValue().equals(SeparatorValue.LINE_BREAK)) {
+            run.addBreak();
+        
+        // case: any other
+        } else 
+            run.addText(separator.getChars());
+    }
+}
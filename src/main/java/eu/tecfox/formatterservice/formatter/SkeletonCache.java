@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.cache.LruCache;
+import eu.tecfox.formatterservice.template.models.Template;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Cache of {@link DocumentSkeleton}s as .docx bytes by skeleton version, see 
+ * {@link DocumentSkeleton#getVersion(Template, RenderPlan, eu.tecfox.formatterservice.media.MediaLibrary)}.
+ * <p>
+ * Bounded by the number of skeletons, least recently used skeletons are evicted first. Hits, misses, 
+ * evictions and size are published as "formatter.skeleton.cache.*" metrics.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class SkeletonCache {
+
+    /** Number of skeletons to keep if none is configured. */
+    public static final int DEFAULT_SIZE = 16;
+
+    private final LruCache<String, byte[]> cache;
+
+
+    public SkeletonCache(@Value("${formatter.skeleton-cache.size:" + DEFAULT_SIZE + "}") int size, MeterRegistry meterRegistry) {
+
+        this.cache = new LruCache<>(size);
+
+        FunctionCounter.builder("formatter.skeleton.cache.gets", cache, LruCache::getHits)
+                       .description("Lookups of document skeletons.")
+                       .tag("result", "hit")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.skeleton.cache.gets", cache, LruCache::getMisses)
+                       .description("Lookups of document skeletons.")
+                       .tag("result", "miss")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.skeleton.cache.evictions", cache, LruCache::getEvictions)
+                       .description("Document skeletons evicted to stay within the cache size.")
+                       .register(meterRegistry);
+
+        Gauge.builder("formatter.skeleton.cache.size", cache, LruCache::size)
+             .description("Number of cached document skeletons.")
+             .register(meterRegistry);
+    }
+
+
+    /**
+     * Gets the skeleton of the given template, rendering it if it is not cached yet.
+     * 
+     * @param template to get the skeleton for.
+     * @param renderPlan of the template.
+     * @param renderServices to render the skeleton with.
+     * @return the skeleton as .docx bytes. Shared, must not be modified.
+     */
+    byte[] getSkeleton(Template template, RenderPlan renderPlan, RenderServices renderServices) {
+
+        return cache.computeIfAbsent(DocumentSkeleton.getVersion(template, renderPlan, renderServices.getMediaLibrary()), 
+                                     version -> DocumentSkeleton.render(template, renderPlan, renderServices));
+    }
+}
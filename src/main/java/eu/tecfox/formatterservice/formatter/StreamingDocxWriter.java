@@ -0,0 +1,541 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.xmlbeans.XmlOptions;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyle;
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.ParagraphSink;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.RunContent;
+import eu.tecfox.formatterservice.formatter.model.TabStop;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Class writing a .docx document without building an {@link org.apache.poi.xwpf.usermodel.XWPFDocument}.
+ * <p>
+ * Copies all parts of the {@link DocumentSkeleton} and streams the body of "word/document.xml" paragraph by 
+ * paragraph with a {@link XMLStreamWriter}, straight into a {@link ZipOutputStream}. Only the sections 
+ * within the {@link SectionExecutor}'s lookahead are held in memory at a time, written paragraphs are not 
+ * kept. The output is the same as with {@link XwpfParagraphSink}.
+ * <p>
+ * The skeleton's document part is copied event by event with a {@link XMLStreamReader}, the content is inserted 
+ * before the section properties of the body. Prefixes are resolved by namespace, so the skeleton may use any.
+ * <p>
+ * Styles that are not part of the skeleton yet are appended to "word/styles.xml", which is written last.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class StreamingDocxWriter implements ParagraphSink {
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+
+    private static final String STYLES_PART = "word/styles.xml";
+
+    /** Namespace of WordprocessingML. */
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String W = "w";
+
+    /** JDK's own factory, writes a sequence of paragraphs without complaining about multiple root elements. */
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newDefaultFactory();
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+
+    private final Template template;
+
+    private final RenderPlan renderPlan;
+
+    private final List<String> sectionHashes;
+
+    private final RenderServices renderServices;
+
+    private XMLStreamWriter xml;
+
+    /** Styles xml of the skeleton, to look up which styles need to be added. */
+    private String stylesXml;
+
+    /** Ids of the styles present in the skeleton. */
+    private final Set<String> skeletonStyleIds = new HashSet<>();
+
+    /** Styles used in the content that are not part of the skeleton, by style id. */
+    private final Map<String, CTStyle> missingStyles = new LinkedHashMap<>();
+
+
+    StreamingDocxWriter(Template template, RenderPlan renderPlan, List<String> sectionHashes, RenderServices renderServices) {
+
+        this.template = template;
+        this.renderPlan = renderPlan;
+        this.sectionHashes = sectionHashes;
+        this.renderServices = renderServices;
+    }
+
+
+    /**
+     * Writes the document to the given stream. The stream itself is not closed.
+     * 
+     * @param outputStream to write the .docx document to.
+     * @throws IOException if writing to the stream fails.
+     */
+    void write(OutputStream outputStream) throws IOException {
+
+        byte[] skeleton = renderServices.getSkeletonCache().getSkeleton(template, renderPlan, renderServices);
+        String documentXml = null;
+
+        try (ZipOutputStream zip = new ZipOutputStream(CloseShieldOutputStream.wrap(outputStream));
+             ZipInputStream skeletonZip = new ZipInputStream(new ByteArrayInputStream(skeleton))) {
+
+            // copy skeleton parts, keep document and styles for later
+            for (ZipEntry entry = skeletonZip.getNextEntry(); entry != null; entry = skeletonZip.getNextEntry()) {
+                if (DOCUMENT_PART.equals(entry.getName()))
+                    documentXml = new String(skeletonZip.readAllBytes(), StandardCharsets.UTF_8);
+
+                else if (STYLES_PART.equals(entry.getName()))
+                    this.stylesXml = new String(skeletonZip.readAllBytes(), StandardCharsets.UTF_8);
+
+                else {
+                    zip.putNextEntry(new ZipEntry(entry.getName()));
+                    skeletonZip.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+
+            // case: invalid skeleton
+            if (documentXml == null || stylesXml == null)
+                throw new ApiRequestException("Document skeleton is incomplete.", HttpStatus.INTERNAL_SERVER_ERROR);
+
+            readSkeletonStyleIds();
+
+            writeDocumentPart(zip, documentXml);
+
+            writeStylesPart(zip);
+
+        } catch (XMLStreamException e) {
+            throw new ApiRequestException("Failed to copy document skeleton: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    @Override
+    public void accept(Paragraph paragraph) {
+
+        try {
+            writeParagraph(paragraph);
+
+        } catch (XMLStreamException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Writes the skeleton's document part with the content streamed in before the section properties of the 
+     * body, or before its end if there are none.
+     * 
+     * @param zip to write to.
+     * @param documentXml of the skeleton.
+     * @throws IOException if writing fails.
+     * @throws XMLStreamException if the skeleton cannot be parsed.
+     * @throws ApiRequestException if the skeleton has no body.
+     */
+    private void writeDocumentPart(ZipOutputStream zip, String documentXml) throws IOException, XMLStreamException {
+
+        zip.putNextEntry(new ZipEntry(DOCUMENT_PART));
+        Writer writer = new OutputStreamWriter(CloseShieldOutputStream.wrap(zip), StandardCharsets.UTF_8);
+
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(documentXml));
+        this.xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+        xml.setPrefix(W, W_NS);
+
+        // depth of the body's children, 0 until the body starts
+        int bodyDepth = 0;
+        int depth = 0;
+        boolean contentWritten = false;
+
+        xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            // case: section properties or end of body, content goes first
+            if (!contentWritten && bodyDepth > 0 && depth == bodyDepth && 
+                ((event == XMLStreamConstants.START_ELEMENT && isW(reader, "sectPr")) || event == XMLStreamConstants.END_ELEMENT)) {
+                new SectionFormatter(template, renderPlan, sectionHashes, this, renderServices).addContent();
+                contentWritten = true;
+            }
+
+            copyEvent(reader, xml);
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+
+                // case: body, content is written with the w prefix
+                if (bodyDepth == 0 && isW(reader, "body")) {
+                    bodyDepth = depth;
+                    if (!W_NS.equals(reader.getNamespaceURI(W)))
+                        xml.writeNamespace(W, W_NS);
+                }
+
+            } else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+        reader.close();
+
+        // case: unexpected document
+        if (!contentWritten)
+            throw new ApiRequestException("Document skeleton has no body.", HttpStatus.INTERNAL_SERVER_ERROR);
+
+        xml.flush();
+        writer.flush();
+
+        zip.closeEntry();
+    }
+
+
+    /**
+     * Writes the skeleton's styles part including all styles used by the content.
+     * 
+     * @param zip to write to.
+     * @throws IOException if writing fails.
+     * @throws XMLStreamException if the skeleton cannot be parsed.
+     * @throws ApiRequestException if the skeleton has no styles element.
+     */
+    private void writeStylesPart(ZipOutputStream zip) throws IOException, XMLStreamException {
+
+        zip.putNextEntry(new ZipEntry(STYLES_PART));
+
+        // case: all styles present
+        if (missingStyles.isEmpty()) {
+            zip.write(stylesXml.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            return;
+        }
+
+        Writer writer = new OutputStreamWriter(CloseShieldOutputStream.wrap(zip), StandardCharsets.UTF_8);
+
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(stylesXml));
+        XMLStreamWriter stylesWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+
+        XmlOptions xmlOptions = new XmlOptions();
+        xmlOptions.setSaveSyntheticDocumentElement(new QName(W_NS, "style"));
+        xmlOptions.setSaveSuggestedPrefixes(Map.of(W_NS, W));
+
+        int depth = 0;
+        boolean stylesWritten = false;
+
+        stylesWriter.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            // case: end of styles, append missing ones
+            if (event == XMLStreamConstants.END_ELEMENT && depth == 1 && isW(reader, "styles")) {
+                for (CTStyle ctStyle : missingStyles.values())
+                    copyFragment(ctStyle.xmlText(xmlOptions), stylesWriter);
+                stylesWritten = true;
+            }
+
+            copyEvent(reader, stylesWriter);
+
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+        reader.close();
+
+        // case: unexpected styles
+        if (!stylesWritten)
+            throw new ApiRequestException("Document skeleton has no styles.", HttpStatus.INTERNAL_SERVER_ERROR);
+
+        stylesWriter.flush();
+        writer.flush();
+
+        zip.closeEntry();
+    }
+
+
+    /**
+     * Collects the ids of all styles defined in the skeleton's styles part.
+     * 
+     * @throws XMLStreamException if the styles cannot be parsed.
+     */
+    private void readSkeletonStyleIds() throws XMLStreamException {
+
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(stylesXml));
+
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && isW(reader, "style")) {
+                String styleId = reader.getAttributeValue(W_NS, "styleId");
+                if (styleId != null)
+                    skeletonStyleIds.add(styleId);
+            }
+        }
+
+        reader.close();
+    }
+
+
+    /**
+     * Copies an xml fragment, leaving out its document events.
+     * 
+     * @param fragmentXml to copy.
+     * @param writer to copy to.
+     * @throws XMLStreamException if the fragment cannot be parsed or written.
+     */
+    private static void copyFragment(String fragmentXml, XMLStreamWriter writer) throws XMLStreamException {
+
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(fragmentXml));
+
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.END_DOCUMENT)
+                copyEvent(reader, writer);
+        }
+
+        reader.close();
+    }
+
+
+    /**
+     * Copies the current event of the reader, including namespace declarations and attributes of elements. 
+     * The xml declaration and DTDs are not copied.
+     * 
+     * @param reader positioned at the event to copy.
+     * @param writer to copy to.
+     * @throws XMLStreamException if writing fails.
+     */
+    private static void copyEvent(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+
+        switch (reader.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT -> {
+                writer.writeStartElement(nullToEmpty(reader.getPrefix()), reader.getLocalName(), nullToEmpty(reader.getNamespaceURI()));
+
+                for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                    String prefix = reader.getNamespacePrefix(i);
+                    if (prefix == null || prefix.isEmpty())
+                        writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+                    else
+                        writer.writeNamespace(prefix, reader.getNamespaceURI(i));
+                }
+
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String namespace = reader.getAttributeNamespace(i);
+                    if (namespace == null || namespace.isEmpty())
+                        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                    else
+                        writer.writeAttribute(nullToEmpty(reader.getAttributePrefix(i)), namespace, reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                }
+            }
+
+            case XMLStreamConstants.END_ELEMENT -> writer.writeEndElement();
+
+            case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE -> writer.writeCharacters(reader.getText());
+
+            case XMLStreamConstants.CDATA -> writer.writeCData(reader.getText());
+
+            case XMLStreamConstants.COMMENT -> writer.writeComment(reader.getText());
+
+            case XMLStreamConstants.PROCESSING_INSTRUCTION -> writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+
+            case XMLStreamConstants.END_DOCUMENT -> writer.writeEndDocument();
+
+            default -> {
+                // nothing to copy
+            }
+        }
+    }
+
+
+    /**
+     * @param reader positioned at an element.
+     * @param localName to check.
+     * @return true if the element is the WordprocessingML element with this local name, whatever its prefix.
+     */
+    private static boolean isW(XMLStreamReader reader, String localName) {
+
+        return W_NS.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+    }
+
+
+    private static String nullToEmpty(String value) {
+
+        return value != null ? value : "";
+    }
+
+
+    /**
+     * @return a factory for the trusted skeleton parts that does not resolve DTDs or external entities anyway.
+     */
+    private static XMLInputFactory newXmlInputFactory() {
+
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newDefaultFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return xmlInputFactory;
+    }
+
+
+    private void writeParagraph(Paragraph paragraph) throws XMLStreamException {
+
+        // case: empty paragraph
+        if (paragraph.isEmpty()) {
+            xml.writeEmptyElement(W, "p", W_NS);
+            return;
+        }
+
+        xml.writeStartElement(W, "p", W_NS);
+
+        // paragraph properties, in schema order
+        boolean hasProperties = paragraph.getStyle() != null || 
+                                !paragraph.getTabStops().isEmpty() || 
+                                paragraph.getIndentFromLeft() != null || 
+                                paragraph.getIndentHanging() != null;
+        if (hasProperties) {
+            xml.writeStartElement(W, "pPr", W_NS);
+
+            if (paragraph.getStyle() != null)
+                writeValueElement("pStyle", getParagraphStyleId(paragraph.getStyle()));
+
+            if (!paragraph.getTabStops().isEmpty()) {
+                xml.writeStartElement(W, "tabs", W_NS);
+                for (TabStop tabStop : paragraph.getTabStops()) {
+                    xml.writeEmptyElement(W, "tab", W_NS);
+                    xml.writeAttribute(W, W_NS, "val", tabStop.alignment());
+                    xml.writeAttribute(W, W_NS, "pos", Integer.toString(tabStop.position()));
+                }
+                xml.writeEndElement();
+            }
+
+            if (paragraph.getIndentFromLeft() != null || paragraph.getIndentHanging() != null) {
+                xml.writeEmptyElement(W, "ind", W_NS);
+                if (paragraph.getIndentFromLeft() != null)
+                    xml.writeAttribute(W, W_NS, "left", paragraph.getIndentFromLeft().toString());
+                if (paragraph.getIndentHanging() != null)
+                    xml.writeAttribute(W, W_NS, "hanging", paragraph.getIndentHanging().toString());
+            }
+
+            xml.writeEndElement();
+        }
+
+        for (Run run : paragraph.getRuns())
+            writeRun(run);
+
+        xml.writeEndElement();
+    }
+
+
+    private void writeRun(Run run) throws XMLStreamException {
+
+        // case: empty run
+        if (run.getStyle() == null && run.getContents().isEmpty()) {
+            xml.writeEmptyElement(W, "r", W_NS);
+            return;
+        }
+
+        xml.writeStartElement(W, "r", W_NS);
+
+        // run properties
+        if (run.getStyle() != null) {
+            xml.writeStartElement(W, "rPr", W_NS);
+            writeValueElement("rStyle", getRunStyleId(run.getStyle()));
+            xml.writeEndElement();
+        }
+
+        // text, tabs and breaks
+        for (RunContent content : run.getContents()) {
+            if (content instanceof RunContent.Text text) {
+                xml.writeStartElement(W, "t", W_NS);
+                xml.writeAttribute("xml", XMLConstants.XML_NS_URI, "space", "preserve");
+                xml.writeCharacters(text.value());
+                xml.writeEndElement();
+
+            } else if (content instanceof RunContent.Tab)
+                xml.writeEmptyElement(W, "tab", W_NS);
+
+            else
+                xml.writeEmptyElement(W, "br", W_NS);
+        }
+
+        xml.writeEndElement();
+    }
+
+
+    private void writeValueElement(String localName, String value) throws XMLStreamException {
+
+        xml.writeEmptyElement(W, localName, W_NS);
+        xml.writeAttribute(W, W_NS, "val", value);
+    }
+
+
+    private String getRunStyleId(Style style) {
+
+        String styleId = StyleRegistry.getRunStyleId(style);
+
+        if (!isInSkeleton(styleId))
+            missingStyles.computeIfAbsent(styleId, id -> StyleRegistry.createRunStyle(style));
+
+        return styleId;
+    }
+
+
+    private String getParagraphStyleId(Style style) {
+
+        String styleId = StyleRegistry.getParagraphStyleId(style);
+
+        if (!isInSkeleton(styleId))
+            missingStyles.computeIfAbsent(styleId, id -> StyleRegistry.createParagraphStyle(style));
+
+        return styleId;
+    }
+
+
+    private boolean isInSkeleton(String styleId) {
+
+        return skeletonStyleIds.contains(styleId);
+    }
+}
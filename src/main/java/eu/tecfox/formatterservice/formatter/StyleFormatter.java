@@ -62,19 +62,31 @@ public class StyleFormatter {
      */
     static void addSeparatorInFront(XWPFRun run, Separator separator, Integer listIndex) {
 
+        run.setText(getSeparatorInFrontText(separator, listIndex));
+    }
+
+
+    /**
+     * Gets the text of a {@link Separator} with {@link SeparatorCategory} 'IN_FRONT'.
+     * 
+     * @param separator to get the text of.
+     * @param listIndex of the regarding value, in case it should be numbered.
+     * @return the separator chars, numbered if the separator is a number.
+     * @see #addSeparatorInFront(XWPFRun, Separator, Integer)
+     */
+    static String getSeparatorInFrontText(Separator separator, Integer listIndex) {
+
         // get sparator value and chars
         SeparatorValue separatorValue = separator.getValue();
         String separatorChars = separator.getChars();
 
         // case: number
         if (separatorValue.equals(SeparatorValue.NUMBER_AND_DOT) || 
-            separatorValue.equals(SeparatorValue.NUMBER_AND_PARANTHESES)) {
-            run.setText((listIndex != null) ? separatorChars.formatted(listIndex + 1) : separatorChars);
+            separatorValue.equals(SeparatorValue.NUMBER_AND_PARANTHESES))
+            return (listIndex != null) ? separatorChars.formatted(listIndex + 1) : separatorChars;
 
         // case: any other
-        } else {
-            run.setText(separatorChars);
-        }
+        return separatorChars;
     }
 
 
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFStyle;
+import org.apache.poi.xwpf.usermodel.XWPFStyles;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTFonts;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPPrGeneral;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTRPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyle;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STJc;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STStyleType;
+
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Class registering every distinct {@link Style} of a document once in the document's styles part.
+ * <p>
+ * Font-family, font-size, color, bold and italic become a character style, text-align and page break 
+ * become a paragraph style. Runs and paragraphs then only reference these styles by id instead of 
+ * carrying their own copy of every property.
+ * <p>
+ * Style ids are derived from the style properties, so equal styles always share one id. 
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class StyleRegistry {
+
+    private final XWPFStyles styles;
+
+    /** Ids of all styles known to be present in {@link #styles}. */
+    private final Set<String> registeredStyleIds = new HashSet<>();
+
+
+    StyleRegistry(XWPFDocument document) {
+
+        this.styles = document.createStyles();
+    }
+
+
+    /**
+     * Sets the style of a run and the paragraph it belongs to. Replaces {@link StyleFormatter#addStyle} for 
+     * document content.
+     * 
+     * @param paragraph to set the text-align and page break in.
+     * @param run to set the font in.
+     * @param style with the style information to use.
+     */
+    void applyStyle(XWPFParagraph paragraph, XWPFRun run, Style style) {
+
+        run.setStyle(registerRunStyle(style));
+
+        paragraph.setStyle(registerParagraphStyle(style));
+    }
+
+
+    /**
+     * Adds a character style for the font properties of given style, if not present yet.
+     * 
+     * @param style to take font-family, font-size, color, bold and italic from.
+     * @return the id of the character style.
+     */
+    String registerRunStyle(Style style) {
+
+        String styleId = getRunStyleId(style);
+
+        // case: already registered
+        if (isRegistered(styleId))
+            return styleId;
+
+        addStyle(styleId, createRunStyle(style));
+
+        return styleId;
+    }
+
+
+    /**
+     * Adds a paragraph style for the paragraph properties of given style, if not present yet.
+     * 
+     * @param style to take text-align and page break from.
+     * @return the id of the paragraph style.
+     */
+    String registerParagraphStyle(Style style) {
+
+        String styleId = getParagraphStyleId(style);
+
+        // case: already registered
+        if (isRegistered(styleId))
+            return styleId;
+
+        addStyle(styleId, createParagraphStyle(style));
+
+        return styleId;
+    }
+
+
+    /**
+     * Creates the character style for the font properties of given style without adding it anywhere.
+     * 
+     * @param style to take font-family, font-size, color, bold and italic from.
+     * @return a new {@link CTStyle} with the id of {@link #getRunStyleId(Style)}.
+     */
+    static CTStyle createRunStyle(Style style) {
+
+        CTStyle ctStyle = createStyle(getRunStyleId(style), STStyleType.CHARACTER);
+        CTRPr rPr = ctStyle.addNewRPr();
+
+        // font-family
+        CTFonts fonts = rPr.addNewRFonts();
+        fonts.setAscii(style.getFontFamily());
+        fonts.setHAnsi(style.getFontFamily());
+        fonts.setCs(style.getFontFamily());
+        fonts.setEastAsia(style.getFontFamily());
+
+        // font-size, in half points
+        BigInteger halfPoints = BigInteger.valueOf(style.getFontSize() * 2L);
+        rPr.addNewSz().setVal(halfPoints);
+        rPr.addNewSzCs().setVal(halfPoints);
+
+        // color
+        rPr.addNewColor().setVal(style.getColor());
+
+        // bold
+        if (style.isBold())
+            rPr.addNewB();
+
+        // italic
+        if (style.isItalic())
+            rPr.addNewI();
+
+        return ctStyle;
+    }
+
+
+    /**
+     * Creates the paragraph style for the paragraph properties of given style without adding it anywhere.
+     * 
+     * @param style to take text-align and page break from.
+     * @return a new {@link CTStyle} with the id of {@link #getParagraphStyleId(Style)}.
+     */
+    static CTStyle createParagraphStyle(Style style) {
+
+        CTStyle ctStyle = createStyle(getParagraphStyleId(style), STStyleType.PARAGRAPH);
+        CTPPrGeneral pPr = ctStyle.addNewPPr();
+
+        // text-align
+        if (style.getTextAlign() != null)
+            pPr.addNewJc().setVal(STJc.Enum.forInt(style.getTextAlign().getValue()));
+
+        // page break
+        if (style.isStartOnNewPage())
+            pPr.addNewPageBreakBefore();
+
+        return ctStyle;
+    }
+
+
+    /**
+     * @param style to get the character style id for.
+     * @return an id like "Run-Calibri-11-000000-Bold", unique for the font properties of the style.
+     */
+    static String getRunStyleId(Style style) {
+
+        StringBuilder styleId = new StringBuilder("Run-")
+            .append(escape(style.getFontFamily())).append('-')
+            .append(style.getFontSize()).append('-')
+            .append(escape(style.getColor()));
+
+        if (style.isBold())
+            styleId.append("-Bold");
+
+        if (style.isItalic())
+            styleId.append("-Italic");
+
+        return styleId.toString();
+    }
+
+
+    /**
+     * @param style to get the paragraph style id for.
+     * @return an id like "Paragraph-CENTER-PageBreak", unique for the paragraph properties of the style.
+     */
+    static String getParagraphStyleId(Style style) {
+
+        StringBuilder styleId = new StringBuilder("Paragraph-")
+            .append(style.getTextAlign() != null ? style.getTextAlign().name() : "DEFAULT");
+
+        if (style.isStartOnNewPage())
+            styleId.append("-PageBreak");
+
+        return styleId.toString();
+    }
+
+
+    /**
+     * Replaces any char that is not a letter or digit with '_' followed by its hex code, so ids cannot 
+     * collide with the '-' used between properties.
+     * 
+     * @param value to escape, may be null.
+     * @return the escaped value.
+     */
+    private static String escape(String value) {
+
+        // case: no value
+        if (value == null)
+            return "_";
+
+        StringBuilder escaped = new StringBuilder(value.length());
+        value.codePoints().forEach(codePoint -> {
+            if (codePoint < 128 && Character.isLetterOrDigit(codePoint))
+                escaped.appendCodePoint(codePoint);
+            else
+                escaped.append('_').append(Integer.toHexString(codePoint)).append('_');
+        });
+
+        return escaped.toString();
+    }
+
+
+    private boolean isRegistered(String styleId) {
+
+        // case: known
+        if (registeredStyleIds.contains(styleId))
+            return true;
+
+        // case: present in document already, e.g. from a skeleton
+        if (styles.styleExist(styleId)) {
+            registeredStyleIds.add(styleId);
+            return true;
+        }
+
+        return false;
+    }
+
+
+    private static CTStyle createStyle(String styleId, STStyleType.Enum type) {
+
+        CTStyle ctStyle = CTStyle.Factory.newInstance();
+        ctStyle.setStyleId(styleId);
+        ctStyle.setType(type);
+        ctStyle.addNewName().setVal(styleId);
+
+        return ctStyle;
+    }
+
+
+    private void addStyle(String styleId, CTStyle ctStyle) {
+
+        styles.addStyle(new XWPFStyle(ctStyle, styles));
+        registeredStyleIds.add(styleId);
+    }
+}
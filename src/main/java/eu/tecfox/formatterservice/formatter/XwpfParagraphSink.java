@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.math.BigInteger;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STTabJc;
+
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.ParagraphSink;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.RunContent;
+import eu.tecfox.formatterservice.formatter.model.TabStop;
+
+
+/**
+ * {@link ParagraphSink} appending every paragraph to the body of an {@link XWPFDocument}.
+ * <p>
+ * Styles are registered with a {@link StyleRegistry}, so runs and paragraphs only reference them by id.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+class XwpfParagraphSink implements ParagraphSink {
+
+    private final XWPFDocument document;
+
+    private final StyleRegistry styleRegistry;
+
+
+    XwpfParagraphSink(XWPFDocument document) {
+
+        this.document = document;
+        this.styleRegistry = new StyleRegistry(document);
+    }
+
+
+    @Override
+    public void accept(Paragraph paragraph) {
+
+        XWPFParagraph xwpfParagraph = document.createParagraph();
+
+        // add style
+        if (paragraph.getStyle() != null)
+            xwpfParagraph.setStyle(styleRegistry.registerParagraphStyle(paragraph.getStyle()));
+
+        // add indent
+        if (paragraph.getIndentFromLeft() != null)
+            xwpfParagraph.setIndentFromLeft(paragraph.getIndentFromLeft());
+
+        if (paragraph.getIndentHanging() != null)
+            xwpfParagraph.setIndentationHanging(paragraph.getIndentHanging());
+
+        // add tab stops
+        for (TabStop tabStop : paragraph.getTabStops())
+            StyleFormatter.setTabStop(xwpfParagraph, STTabJc.Enum.forString(tabStop.alignment()), BigInteger.valueOf(tabStop.position()));
+
+        // add runs
+        for (Run run : paragraph.getRuns())
+            addRun(xwpfParagraph, run);
+    }
+
+
+    private void addRun(XWPFParagraph xwpfParagraph, Run run) {
+
+        XWPFRun xwpfRun = xwpfParagraph.createRun();
+
+        // add style
+        if (run.getStyle() != null)
+            xwpfRun.setStyle(styleRegistry.registerRunStyle(run.getStyle()));
+
+        // add text, tabs and breaks
+        for (RunContent content : run.getContents()) {
+            if (content instanceof RunContent.Text text)
+                xwpfRun.setText(text.value());
+
+            else if (content instanceof RunContent.Tab)
+                xwpfRun.addTab();
+
+            else
+                xwpfRun.addBreak();
+        }
+    }
+}
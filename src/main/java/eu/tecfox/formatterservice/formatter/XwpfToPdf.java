@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageMar;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageSz;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import fr.opensagres.poi.xwpf.converter.core.XWPFConverterException;
+import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
+import fr.opensagres.poi.xwpf.converter.pdf.PdfOptions;
+
+
+/**
+ * Class converting an in memory {@link XWPFDocument} to pdf in pure Java, without MS Word and without 
+ * writing the docx anywhere first.
+ * <p>
+ * Uses the fonts of the {@link FontRegistry}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class XwpfToPdf {
+
+    /** A4 in twentieths of a point, Word's default if the document does not specify a page size. */
+    private static final long PAGE_WIDTH = 11906;
+
+    private static final long PAGE_HEIGHT = 16838;
+
+    /** One inch in twentieths of a point, Word's default margin. */
+    private static final long PAGE_MARGIN = 1440;
+
+
+    /**
+     * Converts a document to pdf. The stream is not closed.
+     * 
+     * @param document to convert.
+     * @param outputStream to write the pdf to.
+     * @param fontRegistry to take the fonts from.
+     * @throws ApiRequestException if the conversion fails.
+     */
+    public static void convert(XWPFDocument document, OutputStream outputStream, FontRegistry fontRegistry) {
+
+        // the converter needs an explicit page layout
+        addPageLayout(document);
+
+        PdfOptions pdfOptions = PdfOptions.create().fontProvider(fontRegistry);
+
+        // the converter closes the stream when done
+        try {
+            PdfConverter.getInstance().convert(document, CloseShieldOutputStream.wrap(outputStream), pdfOptions);
+
+        } catch (IOException | XWPFConverterException e) {
+            throw new ApiRequestException("Failed to convert document to pdf: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Adds page size and margins to the document if missing. Word falls back to defaults for both, the 
+     * converter does not.
+     * 
+     * @param document to add the page layout to.
+     */
+    private static void addPageLayout(XWPFDocument document) {
+
+        CTSectPr sectPr = document.getDocument().getBody().isSetSectPr() ? document.getDocument().getBody().getSectPr() 
+                                                                         : document.getDocument().getBody().addNewSectPr();
+
+        if (!sectPr.isSetPgSz()) {
+            CTPageSz pageSize = sectPr.addNewPgSz();
+            pageSize.setW(BigInteger.valueOf(PAGE_WIDTH));
+            pageSize.setH(BigInteger.valueOf(PAGE_HEIGHT));
+        }
+
+        if (!sectPr.isSetPgMar()) {
+            CTPageMar pageMargin = sectPr.addNewPgMar();
+            pageMargin.setTop(BigInteger.valueOf(PAGE_MARGIN));
+            pageMargin.setBottom(BigInteger.valueOf(PAGE_MARGIN));
+            pageMargin.setLeft(BigInteger.valueOf(PAGE_MARGIN));
+            pageMargin.setRight(BigInteger.valueOf(PAGE_MARGIN));
+            pageMargin.setHeader(BigInteger.valueOf(PAGE_MARGIN / 2));
+            pageMargin.setFooter(BigInteger.valueOf(PAGE_MARGIN / 2));
+        }
+    }
+}
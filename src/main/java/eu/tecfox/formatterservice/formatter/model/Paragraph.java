@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.tecfox.formatterservice.template.models.style.Style;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Lightweight paragraph of the document content, independent of the format it is written to.
+ * <p>
+ * Mirrors the parts of {@link org.apache.poi.xwpf.usermodel.XWPFParagraph} the formatter uses: a style for 
+ * text-align and page break, an indent with hanging first line, tab stops and a list of {@link Run}s.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Getter
+public class Paragraph {
+
+    /** Style to take text-align and page break from, null for an unstyled paragraph. */
+    @Setter
+    private Style style;
+
+    /** Indent of the left border in twips, null if not indented. */
+    private Integer indentFromLeft;
+
+    /** Indent the first line is moved back by in twips, null if not hanging. */
+    private Integer indentHanging;
+
+    private final List<TabStop> tabStops = new ArrayList<>(1);
+
+    private final List<Run> runs = new ArrayList<>(4);
+
+
+    /**
+     * @return a new run appended to the paragraph.
+     */
+    public Run createRun() {
+
+        Run run = new Run();
+        runs.add(run);
+
+        return run;
+    }
+
+
+    /**
+     * @param indentFromLeft indent of the left border in twips.
+     * @param indentHanging indent the first line is moved back by in twips, may be null.
+     */
+    public void setIndent(int indentFromLeft, Integer indentHanging) {
+
+        this.indentFromLeft = indentFromLeft;
+        this.indentHanging = indentHanging;
+    }
+
+
+    /**
+     * @param tabStop to append.
+     */
+    public void addTabStop(TabStop tabStop) {
+
+        tabStops.add(tabStop);
+    }
+
+
+    /**
+     * @return true if the paragraph has neither runs nor any properties.
+     */
+    public boolean isEmpty() {
+
+        return runs.isEmpty() && style == null && indentFromLeft == null && tabStops.isEmpty();
+    }
+}
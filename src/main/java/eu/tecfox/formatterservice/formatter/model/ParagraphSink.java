@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter.model;
+
+
+/**
+ * Receives the {@link Paragraph}s of the document content one by one, in document order, and writes them 
+ * to a concrete format.
+ * <p>
+ * A paragraph is only passed on once it is complete, so sinks may write it right away and forget it.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@FunctionalInterface
+public interface ParagraphSink {
+
+    /**
+     * @param paragraph the next complete paragraph.
+     */
+    void accept(Paragraph paragraph);
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.tecfox.formatterservice.template.models.style.Style;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Lightweight run of a {@link Paragraph}: text, tabs and line breaks sharing one {@link Style}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Getter
+public class Run {
+
+    /** Style to take the font properties from, null for an unstyled run. */
+    @Setter
+    private Style style;
+
+    private final List<RunContent> contents = new ArrayList<>(2);
+
+
+    /**
+     * @param text to append.
+     */
+    public void addText(String text) {
+
+        contents.add(new RunContent.Text(text));
+    }
+
+
+    public void addTab() {
+
+        contents.add(RunContent.Tab.INSTANCE);
+    }
+
+
+    public void addBreak() {
+
+        contents.add(RunContent.Break.INSTANCE);
+    }
+
+
+    /**
+     * Appends all contents of another run to this one.
+     * 
+     * @param run to take the contents from.
+     */
+    public void append(Run run) {
+
+        contents.addAll(run.contents);
+    }
+
+
+    /**
+     * Merges adjacent texts into a single text.
+     */
+    public void mergeTexts() {
+
+        // case: nothing to merge
+        if (contents.size() < 2)
+            return;
+
+        List<RunContent> mergedContents = new ArrayList<>(contents.size());
+        StringBuilder text = null;
+
+        for (RunContent content : contents) {
+            if (content instanceof RunContent.Text textContent) {
+                if (text == null)
+                    text = new StringBuilder();
+                text.append(textContent.value());
+                continue;
+            }
+
+            if (text != null) {
+                mergedContents.add(new RunContent.Text(text.toString()));
+                text = null;
+            }
+            mergedContents.add(content);
+        }
+
+        if (text != null)
+            mergedContents.add(new RunContent.Text(text.toString()));
+
+        contents.clear();
+        contents.addAll(mergedContents);
+    }
+
+
+    /**
+     * @return the text of all {@link RunContent.Text} contents.
+     */
+    public String getText() {
+
+        StringBuilder text = new StringBuilder();
+        for (RunContent content : contents)
+            if (content instanceof RunContent.Text textContent)
+                text.append(textContent.value());
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter.model;
+
+
+/**
+ * Single content of a {@link Run}, in the order it is added.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public sealed interface RunContent permits RunContent.Text, RunContent.Tab, RunContent.Break {
+
+    /**
+     * Text, whitespace is preserved.
+     * 
+     * @param value the text.
+     */
+    record Text(String value) implements RunContent {}
+
+
+    /**
+     * Tab jumping to the next {@link TabStop} of the paragraph.
+     */
+    enum Tab implements RunContent {
+        INSTANCE
+    }
+
+
+    /**
+     * Line break.
+     */
+    enum Break implements RunContent {
+        INSTANCE
+    }
+}
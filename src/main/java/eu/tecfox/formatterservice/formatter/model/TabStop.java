@@ -0,0 +1,30 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter.model;
+
+
+/**
+ * Position a tab jumps to inside a {@link Paragraph}.
+ * 
+ * @param alignment of the text after the tab, as in OOXML, e.g. "left" or "center".
+ * @param position of the tab stop in twips.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record TabStop(
+    String alignment,
+    int position
+) {}
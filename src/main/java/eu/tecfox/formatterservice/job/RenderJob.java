@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.job;
+
+import java.time.Instant;
+
+import eu.tecfox.formatterservice.formatter.PdfRenderer;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+
+
+/**
+ * Snapshot of an asynchronous render job. Every change of state creates a new snapshot.
+ * 
+ * @param id unique id of the job.
+ * @param status current state of the job.
+ * @param renderEngine the job is rendered with.
+ * @param pdfRenderer the job is rendered to pdf with, null if it is rendered to docx.
+ * @param callbackUrl to notify once the job is finished, may be null.
+ * @param createdAt time the job has been queued.
+ * @param startedAt time rendering started, null while queued.
+ * @param finishedAt time rendering finished, null until finished.
+ * @param artifactId id of the rendered document in the artifact store, null unless succeeded.
+ * @param error message of the failure, null unless failed.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record RenderJob(
+    String id,
+    RenderJobStatus status,
+    RenderEngine renderEngine,
+    PdfRenderer pdfRenderer,
+    String callbackUrl,
+    Instant createdAt,
+    Instant startedAt,
+    Instant finishedAt,
+    String artifactId,
+    String error
+) {
+
+    /**
+     * @param id of the job.
+     * @param renderEngine to render with.
+     * @param pdfRenderer to render to pdf with, null to render to docx.
+     * @param callbackUrl to notify, may be null.
+     * @return a new queued job.
+     */
+    static RenderJob queued(String id, RenderEngine renderEngine, PdfRenderer pdfRenderer, String callbackUrl) {
+
+        return new RenderJob(id, RenderJobStatus.QUEUED, renderEngine, pdfRenderer, callbackUrl, Instant.now(), null, null, null, null);
+    }
+
+
+    RenderJob running() {
+
+        return new RenderJob(id, RenderJobStatus.RUNNING, renderEngine, pdfRenderer, callbackUrl, createdAt, Instant.now(), null, null, null);
+    }
+
+
+    RenderJob succeeded(String artifactId) {
+
+        return new RenderJob(id, RenderJobStatus.SUCCEEDED, renderEngine, pdfRenderer, callbackUrl, createdAt, startedAt, Instant.now(), artifactId, null);
+    }
+
+
+    RenderJob failed(String error) {
+
+        return new RenderJob(id, RenderJobStatus.FAILED, renderEngine, pdfRenderer, callbackUrl, createdAt, startedAt, Instant.now(), null, error);
+    }
+}
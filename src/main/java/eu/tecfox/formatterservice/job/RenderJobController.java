@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.job;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import eu.tecfox.formatterservice.artifact.Artifact;
+import eu.tecfox.formatterservice.artifact.ArtifactStore;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.formatter.PdfRenderer;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.template.models.Template;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Class handling all endpoints related to {@link RenderJob}s.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@RestController
+@RequestMapping("/api/formatter/jobs")
+@Api(tags = {"Render Job Controller"})
+@Tag(name = "Render Job Controller", description = "All endpoints related to asynchronous render jobs.")
+@RequiredArgsConstructor
+public class RenderJobController {
+
+    private final RenderJobService renderJobService;
+
+    private final ArtifactStore artifactStore;
+
+    /** Engine to render with if the request does not specify one. */
+    @Value("${formatter.engine:XWPF}")
+    private RenderEngine defaultRenderEngine;
+
+    /** Renderer to create pdfs with if the request does not specify one. */
+    @Value("${formatter.pdf.renderer:CONVERTER}")
+    private PdfRenderer defaultPdfRenderer;
+
+
+    @PostMapping
+    @ApiOperation(value = "Queue a profile for formatting as docx or pdf. Returns immediately, poll the job or pass a callback url to be notified.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 202, message = "The queued job."),
+        @ApiResponse(code = 400, message = "Invalid callback url or callback host not allowed."),
+        @ApiResponse(code = 429, message = "Too many jobs queued, retry after the time in the Retry-After header.")
+    })
+    public ResponseEntity<RenderJob> submit(@RequestBody Template template, 
+                                            @RequestParam(defaultValue = "false") boolean pdf,
+                                            @RequestParam(required = false) RenderEngine engine,
+                                            @RequestParam(required = false) PdfRenderer pdfRenderer,
+                                            @RequestParam(required = false) String callbackUrl) {
+
+        RenderJob job = renderJobService.submit(template, 
+                                                engine != null ? engine : defaultRenderEngine, 
+                                                pdf ? (pdfRenderer != null ? pdfRenderer : defaultPdfRenderer) : null, 
+                                                callbackUrl);
+
+        return ResponseEntity.accepted()
+                             .location(URI.create("/api/formatter/jobs/" + job.id()))
+                             .body(job);
+    }
+
+
+    @GetMapping("/{id}")
+    @ApiOperation(value = "Get the current state of a job.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The job."),
+        @ApiResponse(code = 404, message = "No job with this id, it might have expired.")
+    })
+    public ResponseEntity<RenderJob> getJob(@PathVariable String id) {
+
+        RenderJob job = renderJobService.find(id)
+                                        .orElseThrow(() -> new ApiRequestException("No job with id " + id + " found.", HttpStatus.NOT_FOUND));
+
+        return ResponseEntity.ok(job);
+    }
+
+
+    @GetMapping("/{id}/result")
+    @ApiOperation(value = "Download the formatted profile of a finished job.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The formatted profile."),
+        @ApiResponse(code = 404, message = "No job with this id or its result has expired."),
+        @ApiResponse(code = 409, message = "The job has not succeeded (yet).")
+    })
+    public ResponseEntity<Resource> downloadResult(@PathVariable String id) {
+
+        Artifact artifact = renderJobService.getResult(id);
+
+        return ResponseEntity.ok()
+                             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + artifact.fileName())
+                             // personal data, only the client may keep it and has to revalidate it before using it
+                             .cacheControl(CacheControl.noCache().cachePrivate())
+                             .contentLength(artifact.size())
+                             .contentType(MediaType.parseMediaType(artifact.contentType()))
+                             .body(new InputStreamResource(artifactStore.open(artifact.id())));
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.job;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.DOCX_DOWNLOAD_NAME;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.PDF_FORMATTED_BY_API;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.tecfox.formatterservice.admission.AdmissionPermit;
+import eu.tecfox.formatterservice.admission.RenderAdmission;
+import eu.tecfox.formatterservice.artifact.Artifact;
+import eu.tecfox.formatterservice.artifact.ArtifactStore;
+import eu.tecfox.formatterservice.artifact.ArtifactUpload;
+import eu.tecfox.formatterservice.converter.DocumentConverter;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.exception.TooManyRequestsException;
+import eu.tecfox.formatterservice.formatter.Formatter;
+import eu.tecfox.formatterservice.formatter.PdfRenderer;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.formatter.RenderServices;
+import eu.tecfox.formatterservice.template.models.Template;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Service rendering documents asynchronously on a dedicated, bounded pool of workers.
+ * <p>
+ * Jobs wait in a queue of fixed capacity. If the queue is full new jobs are rejected with HttpStatus 429 
+ * instead of piling up. Rendered documents are kept in the {@link ArtifactStore}, finished jobs are 
+ * forgotten after the configured retention time. A janitor thread removes them every 
+ * 'formatter.jobs.cleanup-interval', also if no new jobs are submitted.
+ * <p>
+ * Pdfs are either written natively or converted by the pooled {@link DocumentConverter}, like pdfs 
+ * downloaded directly.
+ * <p>
+ * Every job is admitted by the {@link RenderAdmission} before it is rendered, so jobs share the budget with 
+ * all other renders. Since nobody waits for a job, it waits up to 'formatter.jobs.admission-wait' for 
+ * budget and fails after that.
+ * <p>
+ * A failed job only reports messages meant for clients, those of {@link ApiRequestException}s. Any other 
+ * failure is logged and reported with a generic message, like in batch renders.
+ * <p>
+ * Callbacks are posted from inside the network, so only hosts in 'formatter.jobs.callback-allowed-hosts' 
+ * may be used as callback. Without any allowed host callbacks are rejected.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Service
+public class RenderJobService {
+
+    /** Content type of rendered documents. */
+    private static final String DOCX_CONTENT_TYPE = "application/octet-stream";
+
+    private static final String PDF_CONTENT_TYPE = "application/pdf";
+
+    private static final Duration CALLBACK_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Error of failures not meant for clients. */
+    private static final String GENERIC_ERROR_MESSAGE = "Rendering failed.";
+
+    private final ArtifactStore artifactStore;
+
+    private final ObjectMapper objectMapper;
+
+    private final RenderServices renderServices;
+
+    private final RenderAdmission renderAdmission;
+
+    private final DocumentConverter documentConverter;
+
+    private final ThreadPoolExecutor workers;
+
+    private final Duration retention;
+
+    /** Time between two removals of expired jobs. */
+    private final Duration cleanupInterval;
+
+    /** Lower case hosts callbacks may be posted to. */
+    private final Set<String> callbackAllowedHosts;
+
+    /** Time after which clients may retry if the queue is full. */
+    private final Duration retryAfter;
+
+    /** Time a job waits for render budget before it fails. */
+    private final Duration admissionWait;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(CALLBACK_TIMEOUT).build();
+
+    /** All jobs that are not finished or finished less than {@link #retention} ago, by id. */
+    private final Map<String, RenderJob> jobs = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService janitor;
+
+
+    public RenderJobService(ArtifactStore artifactStore, 
+                            ObjectMapper objectMapper,
+                            RenderServices renderServices,
+                            RenderAdmission renderAdmission,
+                            DocumentConverter documentConverter,
+                            @Value("${formatter.jobs.threads:2}") int numThreads, 
+                            @Value("${formatter.jobs.queue-capacity:100}") int queueCapacity,
+                            @Value("${formatter.jobs.retention:30m}") Duration retention,
+                            @Value("${formatter.jobs.cleanup-interval:1m}") Duration cleanupInterval,
+                            @Value("${formatter.jobs.callback-allowed-hosts:}") List<String> callbackAllowedHosts,
+                            @Value("${formatter.jobs.retry-after:5s}") Duration retryAfter,
+                            @Value("${formatter.jobs.admission-wait:1m}") Duration admissionWait) {
+
+        this.artifactStore = artifactStore;
+        this.objectMapper = objectMapper;
+        this.renderServices = renderServices;
+        this.renderAdmission = renderAdmission;
+        this.documentConverter = documentConverter;
+        this.retention = retention;
+        this.cleanupInterval = cleanupInterval;
+        this.callbackAllowedHosts = callbackAllowedHosts.stream()
+                                                        .map(String::trim)
+                                                        .filter(host -> !host.isEmpty())
+                                                        .map(host -> host.toLowerCase(Locale.ROOT))
+                                                        .collect(Collectors.toUnmodifiableSet());
+        this.retryAfter = retryAfter;
+        this.admissionWait = admissionWait;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(numThreads, 
+                                              numThreads, 
+                                              0, 
+                                              TimeUnit.MILLISECONDS, 
+                                              new ArrayBlockingQueue<>(queueCapacity), 
+                                              runnable -> {
+                                                  Thread thread = new Thread(runnable, "render-job-" + threadCount.incrementAndGet());
+                                                  thread.setDaemon(true);
+                                                  return thread;
+                                              });
+    }
+
+
+    /**
+     * Queues a template for rendering.
+     * 
+     * @param template to render.
+     * @param renderEngine to render docx documents with, pdfs use the engine their renderer needs.
+     * @param pdfRenderer to render a pdf with, null to render a docx document.
+     * @param callbackUrl http(s) url on an allowed host to POST the finished job to, may be null.
+     * @return the queued job.
+     * @throws TooManyRequestsException if the queue is full.
+     * @throws ApiRequestException with HttpStatus 400 if the callback url is invalid or its host is not allowed.
+     */
+    public RenderJob submit(Template template, RenderEngine renderEngine, PdfRenderer pdfRenderer, String callbackUrl) {
+
+        // case: invalid callback
+        if (callbackUrl != null && !isValidCallbackUrl(callbackUrl))
+            throw new ApiRequestException("Invalid callback url " + callbackUrl + ". Use an absolute http or https url on an allowed host.");
+
+        removeExpiredJobs();
+
+        // converted pdfs need the whole document, native pdfs only hold the sections rendered ahead
+        if (pdfRenderer != null)
+            renderEngine = pdfRenderer == PdfRenderer.NATIVE ? RenderEngine.STREAMING : RenderEngine.XWPF;
+
+        RenderJob job = RenderJob.queued(UUID.randomUUID().toString(), renderEngine, pdfRenderer, callbackUrl);
+        jobs.put(job.id(), job);
+
+        try {
+            workers.execute(() -> run(job.id(), template));
+
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            throw new TooManyRequestsException("Too many render jobs queued, try again later.", retryAfter);
+        }
+
+        return job;
+    }
+
+
+    /**
+     * @param id of the job.
+     * @return the current state of the job or an empty optional if there is none with this id.
+     */
+    public Optional<RenderJob> find(String id) {
+
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+
+    /**
+     * Gets the rendered document of a job.
+     * 
+     * @param id of the job.
+     * @return the artifact of the rendered document.
+     * @throws ApiRequestException with HttpStatus 404 if there is no job or artifact and 409 if the job has 
+     *                             not succeeded (yet).
+     */
+    public Artifact getResult(String id) {
+
+        RenderJob job = find(id).orElseThrow(() -> new ApiRequestException("No job with id " + id + " found.", HttpStatus.NOT_FOUND));
+
+        // case: not done
+        if (job.status() != RenderJobStatus.SUCCEEDED)
+            throw new ApiRequestException("Job " + id + " is " + job.status() + ".", HttpStatus.CONFLICT);
+
+        return artifactStore.find(job.artifactId())
+                            .orElseThrow(() -> new ApiRequestException("Result of job " + id + " has expired.", HttpStatus.NOT_FOUND));
+    }
+
+
+    /**
+     * @return the number of jobs waiting for a worker.
+     */
+    public int getQueueSize() {
+
+        return workers.getQueue().size();
+    }
+
+
+    /**
+     * @return the executor running the jobs. Package-private for testing.
+     */
+    ThreadPoolExecutor getWorkers() {
+
+        return workers;
+    }
+
+
+    /**
+     * Starts the background thread removing expired jobs periodically.
+     */
+    @PostConstruct
+    private void startJanitor() {
+
+        this.janitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "render-job-janitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = cleanupInterval.toMillis();
+        janitor.scheduleWithFixedDelay(() -> {
+            try {
+                removeExpiredJobs();
+
+            } catch (RuntimeException e) {
+                log.info("Failed to remove expired render jobs: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    @PreDestroy
+    private void shutdown() {
+
+        if (janitor != null)
+            janitor.shutdownNow();
+
+        workers.shutdownNow();
+    }
+
+
+    /**
+     * Renders the template of a job into the artifact store and notifies the callback.
+     * 
+     * @param id of the job.
+     * @param template to render.
+     */
+    private void run(String id, Template template) {
+
+        RenderJob job = jobs.computeIfPresent(id, (jobId, queuedJob) -> queuedJob.running());
+
+        // case: removed in the meantime
+        if (job == null)
+            return;
+
+        try {
+            job = render(job, template);
+
+        } catch (ApiRequestException e) {
+            log.info("Render job " + id + " failed.", e);
+            job = job.failed(e.getMessage());
+
+        } catch (Exception e) {
+            log.warn("Render job " + id + " failed.", e);
+            job = job.failed(GENERIC_ERROR_MESSAGE);
+        }
+
+        jobs.put(id, job);
+
+        notifyCallback(job);
+    }
+
+
+    /**
+     * Renders the template of a running job into the artifact store once the render is admitted.
+     * 
+     * @param job the running job.
+     * @param template to render.
+     * @return the succeeded job, or the failed one if the document could not be stored.
+     * @throws TooManyRequestsException if no budget became available in time.
+     * @throws IOException if writing the document fails.
+     */
+    private RenderJob render(RenderJob job, Template template) throws IOException {
+
+        // wait for budget, held until the document is stored
+        AdmissionPermit admissionPermit = renderAdmission.admit(template, job.renderEngine(), admissionWait);
+
+        boolean pdf = job.pdfRenderer() != null;
+
+        try (ArtifactUpload upload = artifactStore.create(pdf ? PDF_FORMATTED_BY_API : DOCX_DOWNLOAD_NAME, pdf ? PDF_CONTENT_TYPE : DOCX_CONTENT_TYPE)) {
+            Formatter formatter = new Formatter(template, job.renderEngine(), renderServices);
+
+            if (job.pdfRenderer() == PdfRenderer.NATIVE)
+                formatter.writeNativePdf(upload);
+
+            // convert in memory
+            else if (job.pdfRenderer() == PdfRenderer.CONVERTER)
+                formatter.writePdf(upload, documentConverter);
+
+            else {
+                formatter.buildDocument();
+                formatter.writeDocument(upload);
+            }
+
+            Artifact artifact = upload.commit();
+
+            // case: discarded by store, e.g. too large
+            if (artifact == null)
+                return job.failed("Rendered document could not be stored.");
+
+            return job.succeeded(artifact.id());
+
+        } finally {
+            admissionPermit.close();
+        }
+    }
+
+
+    /**
+     * Posts the finished job as JSON to its callback url. Failures are logged only.
+     * 
+     * @param job the finished job.
+     */
+    private void notifyCallback(RenderJob job) {
+
+        // case: no callback
+        if (job.callbackUrl() == null)
+            return;
+
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(job.callbackUrl()))
+                                             .timeout(CALLBACK_TIMEOUT)
+                                             .header("Content-Type", "application/json")
+                                             .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(job)))
+                                             .build();
+
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                      .whenComplete((response, throwable) -> {
+                          if (throwable != null)
+                              log.info("Callback of job " + job.id() + " failed: " + throwable.getMessage());
+                      });
+
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.info("Callback of job " + job.id() + " failed: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Forgets jobs finished longer than the retention time ago. Package-private for testing.
+     * 
+     * @return the number of removed jobs.
+     */
+    int removeExpiredJobs() {
+
+        Instant expiredBefore = Instant.now().minus(retention);
+        int numJobs = jobs.size();
+
+        jobs.values().removeIf(job -> job.status().isFinished() && job.finishedAt().isBefore(expiredBefore));
+
+        return numJobs - jobs.size();
+    }
+
+
+    private boolean isValidCallbackUrl(String callbackUrl) {
+
+        try {
+            URI uri = URI.create(callbackUrl);
+
+            // case: no http(s)
+            if (!uri.isAbsolute() || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())))
+                return false;
+
+            return uri.getHost() != null && callbackAllowedHosts.contains(uri.getHost().toLowerCase(Locale.ROOT));
+
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.job;
+
+
+/**
+ * States of a {@link RenderJob}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public enum RenderJobStatus {
+
+    /** Waiting for a free worker. */
+    QUEUED,
+
+    /** Being rendered. */
+    RUNNING,
+
+    /** Rendered, the result can be downloaded. */
+    SUCCEEDED,
+
+    /** Rendering failed, see the error of the job. */
+    FAILED;
+
+
+    /**
+     * @return true if the job will not change anymore.
+     */
+    public boolean isFinished() {
+
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+
+
+/**
+ * {@link MediaStore} keeping every media as a single file named by its hash.
+ * <p>
+ * Used if "formatter.media.store" is set to "filesystem" or not set at all.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+@ConditionalOnProperty(name = "formatter.media.store", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemMediaStore implements MediaStore {
+
+    /** Directory to use if none is configured. */
+    public static final String DEFAULT_DIRECTORY = INPUT_RESOURCE_PATH + "media/";
+
+    private final Path directory;
+
+
+    public FileSystemMediaStore(@Value("${formatter.media.directory:" + DEFAULT_DIRECTORY + "}") String directory) {
+
+        this.directory = Paths.get(directory);
+    }
+
+
+    @Override
+    public void save(String hash, byte[] content, PictureFormat pictureFormat) {
+
+        Path path = getPath(hash);
+
+        // case: content addressed, nothing changed
+        if (Files.exists(path))
+            return;
+
+        try {
+            Files.createDirectories(directory);
+
+            // write to temp file first, so readers never see half a file
+            Path tempPath = Files.createTempFile(directory, hash, ".part");
+            Files.write(tempPath, content);
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+            throw new ApiRequestException("Failed to save media " + hash + ".", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    @Override
+    public Optional<byte[]> load(String hash) {
+
+        Path path = getPath(hash);
+
+        // case: unknown
+        if (!Files.isRegularFile(path))
+            return Optional.empty();
+
+        try {
+            return Optional.of(Files.readAllBytes(path));
+
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+
+    @Override
+    public boolean exists(String hash) {
+
+        return Files.isRegularFile(getPath(hash));
+    }
+
+
+    /**
+     * @param hash of the media.
+     * @return path of the media file.
+     * @throws ApiRequestException if the hash is not a hex encoded SHA-256 hash.
+     */
+    private Path getPath(String hash) {
+
+        if (!MediaLibrary.isValidHash(hash))
+            throw new ApiRequestException("Invalid media hash " + hash + ".");
+
+        return directory.resolve(hash);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Class handling all endpoints related to the {@link MediaLibrary}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@RestController
+@RequestMapping("/api/media")
+@Api(tags = {"Media Controller"})
+@Tag(name = "Media Controller", description = "All endpoints related to media like header logos.")
+@RequiredArgsConstructor
+public class MediaController {
+
+    private final MediaLibrary mediaLibrary;
+
+
+    @PostMapping(consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_GIF_VALUE, 
+                             "image/bmp", MediaType.APPLICATION_OCTET_STREAM_VALUE}, 
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Save a picture and get the hash to reference it by, e.g. as 'logoHash' in the template header.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Hash, content type and size of the picture."),
+        @ApiResponse(code = 400, message = "Empty request body."),
+        @ApiResponse(code = 415, message = "Not a png, jpeg, gif or bmp picture.")
+    })
+    public ResponseEntity<MediaInfo> saveMedia(@RequestBody byte[] content) {
+
+        return ResponseEntity.ok(mediaLibrary.save(content));
+    }
+
+
+    @GetMapping("/{hash}")
+    @ApiOperation(value = "Download a picture by its hash.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The picture."),
+        @ApiResponse(code = 400, message = "Invalid hash."),
+        @ApiResponse(code = 404, message = "No picture with this hash.")
+    })
+    public ResponseEntity<byte[]> getMedia(@PathVariable String hash) {
+
+        byte[] content = mediaLibrary.find(hash)
+                                     .orElseThrow(() -> new ApiRequestException("No media with hash " + hash + " found.", HttpStatus.NOT_FOUND));
+
+        // content addressed, so content never changes
+        return ResponseEntity.ok()
+                             .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic())
+                             .contentType(MediaType.parseMediaType(PictureFormat.detect(content).getContentType()))
+                             .body(content);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+
+/**
+ * Metadata of a media saved in the {@link MediaLibrary}.
+ * 
+ * @param hash SHA-256 hash of the content, used to reference the media in a template.
+ * @param contentType media type detected from the content.
+ * @param size of the content in bytes.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record MediaInfo(
+    String hash,
+    String contentType,
+    long size
+) {}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.cache.LruCache;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+
+
+/**
+ * Library of media like header logos, addressed by the SHA-256 hash of their content.
+ * <p>
+ * Keeps recently used media in a bounded in-memory cache in front of the {@link MediaStore}, so rendering 
+ * does not read the same logo from disk or database again and again. Cached arrays are shared and must 
+ * not be modified. Logo sizes are remembered separately, since metrics and admission look them up for every 
+ * render. Unknown hashes are remembered only for "formatter.media.miss-ttl", so media saved by other instances 
+ * are sized correctly soon after.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class MediaLibrary {
+
+    /** Cache size to use if none is configured. */
+    public static final DataSize DEFAULT_CACHE_SIZE = DataSize.ofMegabytes(32);
+
+    /** Prefix of cache keys of media loaded by file path. */
+    private static final String FILE_KEY_PREFIX = "file:";
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    /** Time to remember unknown hashes if none is configured. */
+    public static final Duration DEFAULT_MISS_TTL = Duration.ofSeconds(5);
+
+    /** Number of media sizes to remember, unknown hashes included. */
+    private static final int SIZE_CACHE_ENTRIES = 4096;
+
+    private final MediaStore mediaStore;
+
+    private final LruCache<String, byte[]> cache;
+
+    /** Sizes of media by hash, 0 for unknown hashes. */
+    private final LruCache<String, MediaSize> sizes = new LruCache<>(SIZE_CACHE_ENTRIES);
+
+    /** Content hashes of logo files by absolute path, modification time and length, each version is hashed once. */
+    private final LruCache<String, String> fileHashes = new LruCache<>(SIZE_CACHE_ENTRIES);
+
+    /** How long an unknown hash is remembered before the store is asked again. */
+    private final Duration missTtl;
+
+
+    /**
+     * Creates the library remembering unknown hashes for {@link #DEFAULT_MISS_TTL}, e.g. for tests.
+     * 
+     * @param mediaStore to load and save media with.
+     * @param cacheSize maximum total size of cached media.
+     */
+    public MediaLibrary(MediaStore mediaStore, DataSize cacheSize) {
+
+        this(mediaStore, cacheSize, DEFAULT_MISS_TTL);
+    }
+
+
+    @Autowired
+    public MediaLibrary(MediaStore mediaStore, 
+                        @Value("${formatter.media.cache-size:32MB}") DataSize cacheSize,
+                        @Value("${formatter.media.miss-ttl:5s}") Duration missTtl) {
+
+        this.mediaStore = mediaStore;
+        this.cache = new LruCache<>(cacheSize.toBytes(), content -> content.length);
+        this.missTtl = missTtl;
+    }
+
+
+    /**
+     * Saves a picture to the library.
+     * 
+     * @param content of the picture.
+     * @return the {@link MediaInfo} including the hash to reference the picture by.
+     * @throws ApiRequestException if the content is empty or not a supported picture.
+     */
+    public MediaInfo save(byte[] content) {
+
+        // case: no content
+        if (content == null || content.length == 0)
+            throw new ApiRequestException("Media is empty.");
+
+        PictureFormat pictureFormat = PictureFormat.detect(content);
+        String hash = hash(content);
+
+        mediaStore.save(hash, content, pictureFormat);
+        cache.put(hash, content);
+        sizes.put(hash, new MediaSize(content.length, null));
+
+        return new MediaInfo(hash, pictureFormat.getContentType(), content.length);
+    }
+
+
+    /**
+     * @param hash of the media.
+     * @return the content of the media or an empty optional if there is none with this hash.
+     * @throws ApiRequestException if the hash is not a hex encoded SHA-256 hash.
+     */
+    public Optional<byte[]> find(String hash) {
+
+        // case: invalid hash
+        if (!isValidHash(hash))
+            throw new ApiRequestException("Invalid media hash " + hash + ".");
+
+        byte[] content = cache.get(hash);
+
+        // case: not cached
+        if (content == null) {
+            Optional<byte[]> loadedContent = mediaStore.load(hash);
+            loadedContent.ifPresent(loaded -> cache.put(hash, loaded));
+
+            return loadedContent;
+        }
+
+        return Optional.of(content);
+    }
+
+
+    /**
+     * Reads a media from a file path, for templates still referencing the logo by path. The file is 
+     * cached until it is modified.
+     * 
+     * @param path of the file.
+     * @return the content of the file or an empty optional if it cannot be read.
+     */
+    public Optional<byte[]> findFile(String path) {
+
+        // case: no path
+        if (path == null || path.isBlank())
+            return Optional.empty();
+
+        File file = new File(path);
+
+        // case: no file
+        if (!file.isFile())
+            return Optional.empty();
+
+        String key = FILE_KEY_PREFIX + file.getAbsolutePath() + ":" + file.lastModified();
+        byte[] content = cache.get(key);
+
+        // case: not cached
+        if (content == null) {
+            try {
+                content = Files.readAllBytes(file.toPath());
+                cache.put(key, content);
+
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(content);
+    }
+
+
+    /**
+     * Gets the size of the logo of a header. Logos are referenced by hash if there is one, else by path, like 
+     * the renderers load them.
+     * <p>
+     * Logo files are not read, only their length is looked up. A logo referenced by hash is loaded into the 
+     * cache the first time its size is looked up, as the render needs it right after. Its size is remembered 
+     * after that. If there is no media with this hash, this is remembered for the miss ttl only, since another 
+     * instance might save it.
+     * 
+     * @param header of a template, may be null.
+     * @return the size of the logo in bytes or 0 if there is none or it cannot be found.
+     */
+    public long getLogoSize(Header header) {
+
+        // case: referenced by hash
+        if (header != null && header.getLogoHash() != null)
+            return getSize(header.getLogoHash());
+
+        File logoFile = getLogoFile(header);
+
+        return logoFile != null ? logoFile.length() : 0;
+    }
+
+
+    /**
+     * Gets the hash identifying the logo of a header, e.g. to key cached renders on. Logos referenced by hash 
+     * are returned as they are.
+     * <p>
+     * A logo file is read and hashed once per version, the version being its modification time and length 
+     * like in the {@link eu.tecfox.formatterservice.cache.RenderCache} key. Later lookups only look these up, 
+     * so a replaced logo file gets a new hash. Missing files are not remembered.
+     * 
+     * @param header of a template, may be null.
+     * @return the hash of the logo or null if there is none or its file cannot be read.
+     */
+    public String getLogoHash(Header header) {
+
+        // case: no logo
+        if (header == null || (header.getLogoHash() == null && header.getLogo() == null))
+            return null;
+
+        // case: referenced by hash
+        if (header.getLogoHash() != null)
+            return header.getLogoHash();
+
+        File file = new File(header.getLogo());
+
+        // case: no file
+        if (!file.isFile())
+            return null;
+
+        String key = file.getAbsolutePath() + ":" + file.lastModified() + ":" + file.length();
+        String hash = fileHashes.get(key);
+
+        // case: version not hashed yet
+        if (hash == null) {
+            hash = findFile(header.getLogo()).map(MediaLibrary::hash).orElse(null);
+            if (hash != null)
+                fileHashes.put(key, hash);
+        }
+
+        return hash;
+    }
+
+
+    /**
+     * @param hash of the media, may be invalid.
+     * @return the size of the media in bytes or 0 if the hash is invalid or unknown.
+     */
+    private long getSize(String hash) {
+
+        // case: invalid hash
+        if (!isValidHash(hash))
+            return 0;
+
+        MediaSize size = sizes.get(hash, MediaSize::isExpired);
+
+        // case: not looked up yet or unknown hash expired
+        if (size == null) {
+            size = find(hash)
+                .map(content -> new MediaSize(content.length, null))
+                .orElseGet(() -> new MediaSize(0, Instant.now().plus(missTtl)));
+            sizes.put(hash, size);
+        }
+
+        return size.bytes();
+    }
+
+
+    /**
+     * @param header of a template, may be null.
+     * @return the logo file of a header referencing its logo by path, null if the logo is referenced by hash or 
+     *         there is none.
+     */
+    public static File getLogoFile(Header header) {
+
+        // case: no logo or referenced by hash
+        if (header == null || header.getLogo() == null || header.getLogoHash() != null)
+            return null;
+
+        return new File(header.getLogo());
+    }
+
+
+    /**
+     * @param hash to check.
+     * @return true if the hash is a lower case hex encoded SHA-256 hash.
+     */
+    public static boolean isValidHash(String hash) {
+
+        return hash != null && HASH_PATTERN.matcher(hash).matches();
+    }
+
+
+    /**
+     * @param content to hash.
+     * @return the lower case hex encoded SHA-256 hash of the content.
+     */
+    public static String hash(byte[] content) {
+
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    /**
+     * Remembered size of a media.
+     * 
+     * @param bytes size of the media, 0 if there is none with this hash.
+     * @param expiresAt time to ask the store again, null if the media is known and never expires.
+     */
+    private record MediaSize(long bytes, Instant expiresAt) {
+
+        private boolean isExpired() {
+
+            return expiresAt != null && !Instant.now().isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import java.util.Optional;
+
+
+/**
+ * Interface of a persistent store keeping media by the hash of their content.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public interface MediaStore {
+
+    /**
+     * Saves a media. Saving the same content twice is a no-op.
+     * 
+     * @param hash of the content.
+     * @param content of the media.
+     * @param pictureFormat of the content.
+     */
+    void save(String hash, byte[] content, PictureFormat pictureFormat);
+
+    /**
+     * @param hash of the content.
+     * @return the content or an empty optional if there is no media with this hash.
+     */
+    Optional<byte[]> load(String hash);
+
+    /**
+     * @param hash of the content.
+     * @return true if there is a media with this hash.
+     */
+    boolean exists(String hash);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * {@link MediaStore} keeping media in MongoDB next to the templates.
+ * <p>
+ * Used if "formatter.media.store" is set to "mongo".
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "formatter.media.store", havingValue = "mongo")
+public class MongoMediaStore implements MediaStore {
+
+    private final MediaRepository mediaRepository;
+
+
+    @Override
+    public void save(String hash, byte[] content, PictureFormat pictureFormat) {
+
+        // case: content addressed, nothing changed
+        if (mediaRepository.existsById(hash))
+            return;
+
+        mediaRepository.save(new Media(hash, pictureFormat.getContentType(), content));
+    }
+
+
+    @Override
+    public Optional<byte[]> load(String hash) {
+
+        return mediaRepository.findById(hash).map(Media::getContent);
+    }
+
+
+    @Override
+    public boolean exists(String hash) {
+
+        return mediaRepository.existsById(hash);
+    }
+}
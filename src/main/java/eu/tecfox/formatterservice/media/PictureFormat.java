@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import org.apache.poi.xwpf.usermodel.Document;
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Picture formats that can be used as media, detected by the magic bytes at the start of the picture 
+ * instead of a file name.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PictureFormat {
+
+    PNG(Document.PICTURE_TYPE_PNG, "image/png", new int[] {0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}),
+
+    JPEG(Document.PICTURE_TYPE_JPEG, "image/jpeg", new int[] {0xFF, 0xD8, 0xFF}),
+
+    GIF(Document.PICTURE_TYPE_GIF, "image/gif", new int[] {'G', 'I', 'F', '8'}),
+
+    BMP(Document.PICTURE_TYPE_BMP, "image/bmp", new int[] {'B', 'M'});
+
+    /** Picture type as used by {@link org.apache.poi.xwpf.usermodel.XWPFRun#addPicture}. */
+    private final int poiType;
+
+    private final String contentType;
+
+    private final int[] magicBytes;
+
+
+    /**
+     * Detects the format of a picture.
+     * 
+     * @param picture bytes of the picture.
+     * @return the {@link PictureFormat} of the picture.
+     * @throws ApiRequestException if the format is not supported.
+     */
+    public static PictureFormat detect(byte[] picture) {
+
+        for (PictureFormat pictureFormat : values())
+            if (pictureFormat.matches(picture))
+                return pictureFormat;
+
+        throw new ApiRequestException("Unknown picture format. Use either png, jpeg, gif or bmp.", HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
+
+    private boolean matches(byte[] picture) {
+
+        // case: too short
+        if (picture == null || picture.length < magicBytes.length)
+            return false;
+
+        for (int i = 0; i < magicBytes.length; i++)
+            if ((picture[i] & 0xFF) != magicBytes[i])
+                return false;
+
+        return true;
+    }
+}
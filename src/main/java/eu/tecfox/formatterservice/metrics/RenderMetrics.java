@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Meters of the render pipeline, exposed through actuator (e.g. at /actuator/prometheus).
+ * <p>
+ * Every {@link RenderStage} has a timer with percentile histogram, so a latency spike can be traced to 
+ * header and footer, content, writing or pdf conversion. Database calls are timed by the mongo driver 
+ * metrics of actuator. Distribution summaries track output size and the size of rendered templates, 
+ * a long task timer the renders in flight.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class RenderMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final MediaLibrary mediaLibrary;
+
+    private final Map<RenderStage, Timer> stageTimers = new EnumMap<>(RenderStage.class);
+
+    /** Output size by format, created on first use. */
+    private final Map<String, DistributionSummary> outputSizes = new ConcurrentHashMap<>();
+
+    private final DistributionSummary sectionCounts;
+
+    private final DistributionSummary elementCounts;
+
+    private final DistributionSummary logoSizes;
+
+    private final LongTaskTimer activeRenders;
+
+
+    public RenderMetrics(MeterRegistry meterRegistry, MediaLibrary mediaLibrary) {
+
+        this.meterRegistry = meterRegistry;
+        this.mediaLibrary = mediaLibrary;
+
+        for (RenderStage renderStage : RenderStage.values())
+            stageTimers.put(renderStage, Timer.builder("formatter.render.stage")
+                                              .description("Time spent in a stage of the render pipeline.")
+                                              .tag("stage", renderStage.getTag())
+                                              .publishPercentileHistogram()
+                                              .register(meterRegistry));
+
+        this.sectionCounts = DistributionSummary.builder("formatter.render.sections")
+                                                .description("Number of sections of rendered templates.")
+                                                .publishPercentileHistogram()
+                                                .register(meterRegistry);
+
+        this.elementCounts = DistributionSummary.builder("formatter.render.elements")
+                                                .description("Number of section elements, including nested ones, of rendered templates.")
+                                                .publishPercentileHistogram()
+                                                .register(meterRegistry);
+
+        this.logoSizes = DistributionSummary.builder("formatter.render.logo.size")
+                                            .description("Size of the logo of rendered templates.")
+                                            .baseUnit("bytes")
+                                            .register(meterRegistry);
+
+        this.activeRenders = LongTaskTimer.builder("formatter.render.active")
+                                          .description("Renders in flight.")
+                                          .register(meterRegistry);
+    }
+
+
+    /**
+     * Starts timing a render, it counts as in flight until the returned sample is stopped.
+     * 
+     * @param template to render, its size is recorded.
+     * @return the sample to stop once the render is finished.
+     */
+    public LongTaskTimer.Sample startRender(Template template) {
+
+        recordTemplate(template);
+
+        return activeRenders.start();
+    }
+
+
+    /**
+     * @return a sample to pass to {@link #stop(Timer.Sample, RenderStage)} once the stage is finished.
+     */
+    public Timer.Sample start() {
+
+        return Timer.start(meterRegistry);
+    }
+
+
+    /**
+     * @param sample started by {@link #start()}.
+     * @param renderStage that has finished.
+     */
+    public void stop(Timer.Sample sample, RenderStage renderStage) {
+
+        sample.stop(stageTimers.get(renderStage));
+    }
+
+
+    /**
+     * @param format of the output, e.g. "docx", "pdf" or "html".
+     * @param numBytes size of the output.
+     */
+    public void recordOutputSize(String format, long numBytes) {
+
+        outputSizes.computeIfAbsent(format, key -> DistributionSummary.builder("formatter.render.output.size")
+                                                                      .description("Size of rendered documents.")
+                                                                      .baseUnit("bytes")
+                                                                      .tag("format", key)
+                                                                      .publishPercentileHistogram()
+                                                                      .register(meterRegistry))
+                   .record(numBytes);
+    }
+
+
+    private void recordTemplate(Template template) {
+
+        // case: no sections
+        if (template.getSections() == null)
+            return;
+
+        int numElements = 0;
+        for (Section section : template.getSections())
+            if (section.getElements() != null)
+                for (SectionElement sectionElement : section.getElements())
+                    numElements += countElements(sectionElement);
+
+        sectionCounts.record(template.getSections().size());
+        elementCounts.record(numElements);
+
+        long logoSize = mediaLibrary.getLogoSize(template.getHeader());
+        if (logoSize > 0)
+            logoSizes.record(logoSize);
+    }
+
+
+    private static int countElements(SectionElement sectionElement) {
+
+        // case: nested, count key and values as well
+        if (sectionElement instanceof NestedElement nestedElement)
+            return 2 + (nestedElement.getValue() == null ? 0 : nestedElement.getValue().size());
+
+        return 1;
+    }
+}
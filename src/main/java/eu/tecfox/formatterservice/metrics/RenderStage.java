@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Stage of the render pipeline, timed by {@link RenderMetrics}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RenderStage {
+
+    /** Adding header and footer to a new document skeleton. Skeletons are cached, so this is rare. */
+    HEADER_FOOTER("header_footer"),
+
+    /** Adding the sections to a document. */
+    CONTENT("content"),
+
+    /** Writing a document as docx, native pdf or html. Includes the content for streaming renders. */
+    WRITE("write"),
+
+    /** Converting a built document to pdf. */
+    CONVERT("convert");
+
+    /** Value of the stage tag. */
+    private final String tag;
+}
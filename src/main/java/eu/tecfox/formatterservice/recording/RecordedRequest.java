@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.recording;
+
+import java.time.Instant;
+import java.util.Map;
+
+
+/**
+ * A single recorded http request, one JSON object per line in a requests.jsonl file.
+ * <p>
+ * Written by the {@link RequestRecordingFilter} and read by the load test harness to replay the request.
+ * 
+ * @param timestamp when the request has been received.
+ * @param method http method, e.g. "GET".
+ * @param path request path without query, e.g. "/api/formatter".
+ * @param query query string without leading "?", null if there is none.
+ * @param headers replayable headers like Content-Type, Accept and If-None-Match.
+ * @param body request body as UTF-8 text, null if there is none.
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public record RecordedRequest(
+    Instant timestamp,
+    String method,
+    String path,
+    String query,
+    Map<String, String> headers,
+    String body
+) {}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.recording;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Filter recording requests to the formatter and template endpoints as {@link RecordedRequest}s, one 
+ * JSON object per line, so real traffic can be replayed by the load test harness.
+ * <p>
+ * Only bodies read by the controller are recorded. Requests with a body larger than the configured maximum 
+ * size are skipped, since they could not be replayed. Headers other than the ones needed to replay a request 
+ * (e.g. cookies or authorization) are never recorded.
+ * <p>
+ * Batch requests are not recorded: their body is read while the response is streamed, after this filter 
+ * has returned, so it would always be recorded empty.
+ * <p>
+ * Used if "formatter.recording.enabled" is set to true.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "formatter.recording.enabled", havingValue = "true")
+public class RequestRecordingFilter extends OncePerRequestFilter {
+
+    /** Paths of the requests to record. */
+    private static final List<String> RECORDED_PATHS = List.of("/api/formatter", "/api/template");
+
+    /** Paths below {@link #RECORDED_PATHS} whose bodies are read asynchronously. */
+    private static final List<String> EXCLUDED_PATHS = List.of("/api/formatter/batch");
+
+    /** Headers needed to replay a request. */
+    private static final List<String> RECORDED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, 
+                                                                 HttpHeaders.ACCEPT, 
+                                                                 HttpHeaders.IF_NONE_MATCH);
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxBodySize;
+
+    private final BufferedWriter writer;
+
+
+    public RequestRecordingFilter(ObjectMapper objectMapper, 
+                                  @Value("${formatter.recording.file:./outputResources/recordings/requests.jsonl}") String file, 
+                                  @Value("${formatter.recording.max-body-size:1MB}") DataSize maxBodySize) throws IOException {
+
+        this.objectMapper = objectMapper;
+        this.maxBodySize = (int) maxBodySize.toBytes();
+
+        Path path = Paths.get(file);
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        // append, so restarts keep what has been recorded before
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        log.info("Recording requests to {}", path.toAbsolutePath());
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+
+        String path = request.getRequestURI();
+
+        return RECORDED_PATHS.stream().noneMatch(path::startsWith) || EXCLUDED_PATHS.stream().anyMatch(path::startsWith);
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        Instant timestamp = Instant.now();
+
+        // keeps the body once the controller has read it
+        LimitedRequestWrapper requestWrapper = new LimitedRequestWrapper(request, maxBodySize);
+
+        try {
+            filterChain.doFilter(requestWrapper, response);
+
+        } finally {
+            record(timestamp, requestWrapper);
+        }
+    }
+
+
+    /**
+     * Appends a request to the recording. Failing to record never fails the request.
+     * 
+     * @param timestamp when the request has been received.
+     * @param request to record, after it has been handled.
+     */
+    private void record(Instant timestamp, LimitedRequestWrapper request) {
+
+        // case: body incomplete, replaying it would fail
+        if (request.isTruncated()) {
+            log.info("Not recording {} {}, body exceeds the maximum size of {} bytes", request.getMethod(), request.getRequestURI(), maxBodySize);
+            return;
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String header : RECORDED_HEADERS)
+            if (request.getHeader(header) != null)
+                headers.put(header, request.getHeader(header));
+
+        byte[] body = request.getContentAsByteArray();
+
+        RecordedRequest recordedRequest = new RecordedRequest(timestamp, 
+                                                              request.getMethod(), 
+                                                              request.getRequestURI(), 
+                                                              request.getQueryString(), 
+                                                              headers, 
+                                                              body.length == 0 ? null : new String(body, StandardCharsets.UTF_8));
+
+        try {
+            String line = objectMapper.writeValueAsString(recordedRequest);
+
+            synchronized (writer) {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            }
+
+        } catch (IOException e) {
+            log.warn("Failed to record request {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        }
+    }
+
+
+    @PreDestroy
+    void close() throws IOException {
+
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+
+
+    /**
+     * Request keeping its body up to a maximum size and remembering if the body has been larger.
+     */
+    private static class LimitedRequestWrapper extends ContentCachingRequestWrapper {
+
+        private boolean truncated = false;
+
+
+        LimitedRequestWrapper(HttpServletRequest request, int maxBodySize) {
+
+            super(request, maxBodySize);
+        }
+
+
+        @Override
+        protected void handleContentOverflow(int contentCacheLimit) {
+
+            this.truncated = true;
+        }
+
+
+        boolean isTruncated() {
+
+            return truncated;
+        }
+    }
+}
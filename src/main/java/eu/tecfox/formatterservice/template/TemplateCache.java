@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.template;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.tecfox.formatterservice.cache.LruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Bounded cache of recently used named templates, as {@link TemplateSnapshot}s by name.
+ * <p>
+ * Lookups are O(1) no matter how many templates are stored, the least recently used template is evicted 
+ * once the configured number of templates is cached. Templates expire once they have been cached for 
+ * "formatter.template-cache.ttl", so saves of other instances are seen after at most this long, even for 
+ * templates that are used all the time. Hits, misses, evictions and size are published as 
+ * "formatter.template.cache.*" metrics, expired templates count as misses.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+@Component
+public class TemplateCache {
+
+    /** Number of templates to cache if none is configured. */
+    static final int DEFAULT_SIZE = 256;
+
+    /** Time to live of cached templates if none is configured. */
+    static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+    private final LruCache<String, TemplateSnapshot> cache;
+
+    private final Duration ttl;
+
+
+    public TemplateCache(@Value("${formatter.template-cache.size:" + DEFAULT_SIZE + "}") int size,
+                         @Value("${formatter.template-cache.ttl:30s}") Duration ttl,
+                         MeterRegistry meterRegistry) {
+
+        this.cache = new LruCache<>(size);
+        this.ttl = ttl;
+
+        FunctionCounter.builder("formatter.template.cache.gets", cache, LruCache::getHits)
+                       .description("Lookups of named templates.")
+                       .tag("result", "hit")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.template.cache.gets", cache, LruCache::getMisses)
+                       .description("Lookups of named templates.")
+                       .tag("result", "miss")
+                       .register(meterRegistry);
+
+        FunctionCounter.builder("formatter.template.cache.evictions", cache, LruCache::getEvictions)
+                       .description("Named templates evicted to stay within the cache size.")
+                       .register(meterRegistry);
+
+        Gauge.builder("formatter.template.cache.size", cache, LruCache::size)
+             .description("Number of cached named templates.")
+             .register(meterRegistry);
+    }
+
+
+    /**
+     * @param name of the template.
+     * @return the cached snapshot or null if the template is not cached or has expired.
+     */
+    TemplateSnapshot get(String name) {
+
+        return cache.get(name, templateSnapshot -> templateSnapshot.isExpired(ttl));
+    }
+
+
+    /**
+     * Caches a template loaded from the database, unless a save has cached a newer one in the meantime.
+     * 
+     * @param name of the template.
+     * @param templateSnapshot of the loaded template.
+     * @return the cached snapshot, the given one or the newer one.
+     */
+    TemplateSnapshot putLoaded(String name, TemplateSnapshot templateSnapshot) {
+
+        TemplateSnapshot cachedSnapshot = cache.putIfAbsent(name, templateSnapshot);
+
+        return cachedSnapshot != null ? cachedSnapshot : templateSnapshot;
+    }
+
+
+    /**
+     * Caches a template after it has been saved, replacing the cached one.
+     * 
+     * @param name of the template.
+     * @param templateSnapshot of the saved template.
+     */
+    void putSaved(String name, TemplateSnapshot templateSnapshot) {
+
+        cache.put(name, templateSnapshot);
+    }
+
+
+    public long getHits() {
+
+        return cache.getHits();
+    }
+
+
+    public long getMisses() {
+
+        return cache.getMisses();
+    }
+}
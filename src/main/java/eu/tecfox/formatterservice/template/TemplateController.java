@@ -31,11 +31,13 @@ import lombok.RequiredArgsConstructor;
 
 // import static org.mockito.Mockito.description;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -77,6 +79,37 @@ public class TemplateController {
         if (bindingResult.hasErrors()) {
             throw new ApiRequestException(BindingResultErrorFormatter.getErrorMessagesAsJson(bindingResult));
         }
+        // the default template has no name
+        template.setName(null);
+        return ResponseEntity.ok().body(templateService.saveTemplate(template));
+    }
+
+    @GetMapping(value = "/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Get a named template, e.g. of a customer or language.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The template."),
+        @ApiResponse(code = 400, message = "Invalid template name."),
+        @ApiResponse(code = 404, message = "No template with this name found."),
+    })
+    public ResponseEntity<Template> getTemplate(@PathVariable String name) {
+        Template template = templateService.getTemplate(name)
+            .orElseThrow(() -> new ApiRequestException("No template " + name + " found.", HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok().body(template);
+    }
+
+    @PostMapping(value = "/{name}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Create or replace a named template.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "The saved template."),
+        @ApiResponse(code = 400, message = "Invalid template or template name.")
+    })
+    public ResponseEntity<Template> saveTemplate(@PathVariable String name, 
+                                                 @RequestBody @Validated(ValidTemplate.class) Template template, 
+                                                 BindingResult bindingResult) throws JsonProcessingException {
+        if (bindingResult.hasErrors()) {
+            throw new ApiRequestException(BindingResultErrorFormatter.getErrorMessagesAsJson(bindingResult));
+        }
+        template.setName(name);
         return ResponseEntity.ok().body(templateService.saveTemplate(template));
     }
 }
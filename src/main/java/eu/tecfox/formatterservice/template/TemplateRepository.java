@@ -16,6 +16,8 @@
 
 package eu.tecfox.formatterservice.template;
 
+import java.util.Optional;
+
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -29,4 +31,19 @@ import eu.tecfox.formatterservice.template.models.Template;
  */
 @Repository
 public interface TemplateRepository extends MongoRepository<Template, String> {
+
+    /**
+     * Find a template by its name, uses the unique index on the name.
+     *
+     * @param name the name of the template
+     * @return an optional with the template if it exists
+     */
+    Optional<Template> findByName(String name);
+
+    /**
+     * Find the default template, the one without name.
+     *
+     * @return an optional with the template if it exists
+     */
+    Optional<Template> findFirstByNameIsNull();
 }
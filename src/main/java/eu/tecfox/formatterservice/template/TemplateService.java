@@ -31,7 +31,11 @@ public interface TemplateService {
 
     Optional<Template> getTemplate();
 
+    Optional<Template> getTemplate(String name);
+
     Template saveTemplate(Template template);
 
+    Template fillTemplate(String name, Template profile);
+
     void prepareTemplate(Template template);
 }
@@ -18,37 +18,89 @@ package eu.tecfox.formatterservice.template;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import eu.tecfox.formatterservice.exception.ApiRequestException;
 import eu.tecfox.formatterservice.formatter.ResourceHandler;
 import eu.tecfox.formatterservice.template.models.Template;
 import eu.tecfox.formatterservice.template.models.section.Section;
 import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
 import eu.tecfox.formatterservice.template.models.section.elements.NestedValue;
 import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.annotation.PostConstruct;
 
-import lombok.RequiredArgsConstructor;
-
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 /**
  * Implementation of the {@link TemplateService} interface with all business
  * logic related to templates.
  *
+ * <p>
+ *     The default template (the one without name) is held in memory as an immutable
+ *     {@link TemplateSnapshot}. It is loaded from the database on first access and
+ *     replaced after every successful save, so reads rarely query the database.
+ *     Saves of other instances are not seen until the snapshot expires after
+ *     'formatter.template-snapshot.ttl' and is loaded again, so other instances
+ *     serve the previous template at most this long.
+ *     Named templates are kept the same way in the bounded {@link TemplateCache}.
+ * </p>
+ *
  * @author Valentin Laucht
  * @version 1.0
  */
 @Service
-@RequiredArgsConstructor
 public class TemplateServiceImpl implements TemplateService {
 
+    /** Names are part of urls, so only allow url safe characters. */
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-z0-9._-]{1,64}$");
+
+    /** Time to live of the default template snapshot if none is configured. */
+    static final Duration DEFAULT_SNAPSHOT_TTL = Duration.ofSeconds(30);
+
     private final TemplateRepository templateRepository;
 
+    private final TemplateCache templateCache;
+
+    /** How long the snapshot of the default template is used before it is loaded again. */
+    private final Duration snapshotTtl;
+
+    /** Default template, null until loaded from the database. Replaced as a whole, never modified. */
+    private final AtomicReference<TemplateSnapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Creates the service with a template cache of default size, e.g. for tests.
+     *
+     * @param templateRepository the repository
+     */
+    public TemplateServiceImpl(TemplateRepository templateRepository) {
+        this(templateRepository, new TemplateCache(TemplateCache.DEFAULT_SIZE, TemplateCache.DEFAULT_TTL, Metrics.globalRegistry), DEFAULT_SNAPSHOT_TTL);
+    }
+
+    @Autowired
+    public TemplateServiceImpl(TemplateRepository templateRepository,
+                               TemplateCache templateCache,
+                               @Value("${formatter.template-snapshot.ttl:30s}") Duration snapshotTtl) {
+        this.templateRepository = templateRepository;
+        this.templateCache = templateCache;
+        this.snapshotTtl = snapshotTtl;
+    }
+
     /**
      * Method to load an initial template if the database is empty.
      * @throws IOException if json deserialization fails.
@@ -66,39 +118,179 @@ public class TemplateServiceImpl implements TemplateService {
     }
 
     /**
-     * Get the template from the database.
+     * Get the default template from the snapshot.
      *
      * <p>
-     *     Only one template can exist at a time. Thus, get the first entry.
+     *     The default template is the one without name. The database is only queried
+     *     if no snapshot has been loaded yet or the snapshot has expired. Every call
+     *     returns a new copy, so callers may modify it.
      * </p>
      *
      * @return an optional with the template if it exists
      */
     @Override
     public Optional<Template> getTemplate() {
-        List<Template> templates = templateRepository.findAll();
-        return templates.isEmpty() ? Optional.empty() : Optional.of(templates.get(0));
+        return getSnapshot().map(TemplateSnapshot::toTemplate);
+    }
+
+    /**
+     * Get a named template from the cache.
+     *
+     * <p>
+     *     The database is only queried if the template is not cached. Every call
+     *     returns a new copy, so callers may modify it.
+     * </p>
+     *
+     * @param name the name of the template
+     * @return an optional with the template if it exists
+     * @throws ApiRequestException if the name is invalid
+     */
+    @Override
+    public Optional<Template> getTemplate(String name) {
+        return getSnapshot(name).map(TemplateSnapshot::toTemplate);
     }
 
     /**
      * Save the template to the database.
      *
+     * <p>
+     *     Saves the default template if the template has no name, else the template
+     *     with this name. Publishes a new snapshot once the database confirmed the
+     *     write. Saves are serialized, so snapshots always match the last write.
+     * </p>
+     *
      * @param template the template
      * @return the saved template
+     * @throws ApiRequestException if the name is invalid
      */
     @Override
-    public Template saveTemplate(Template template) {
+    public synchronized Template saveTemplate(Template template) {
         prepareTemplate(template);
 
-        return templateRepository.save(template);
+        Template savedTemplate = templateRepository.save(template);
+
+        if (savedTemplate.getName() == null) {
+            snapshot.set(TemplateSnapshot.of(savedTemplate));
+        } else {
+            templateCache.putSaved(savedTemplate.getName(), TemplateSnapshot.of(savedTemplate));
+        }
+
+        return savedTemplate;
+    }
+
+    /**
+     * Fill a named template with the values of a profile.
+     *
+     * <p>
+     *     Sections and elements are matched by identifier. Sections and elements the
+     *     profile has no values for are left out, as their values have been cleared
+     *     when the template was saved.
+     * </p>
+     *
+     * @param name the name of the template
+     * @param profile the profile with the values
+     * @return a new template with style and structure of the named template and the values of the profile
+     * @throws ApiRequestException if the name is invalid or there is no template with this name
+     */
+    @Override
+    public Template fillTemplate(String name, Template profile) {
+        Template template = getTemplate(name)
+            .orElseThrow(() -> new ApiRequestException("No template " + name + " found.", HttpStatus.NOT_FOUND));
+
+        Map<String, Section> profileSections = (profile.getSections() == null ? List.<Section>of() : profile.getSections())
+            .stream()
+            .filter(section -> section.getIdentifier() != null && section.getElements() != null)
+            .collect(Collectors.toMap(Section::getIdentifier, Function.identity(), (first, second) -> first));
+
+        List<Section> sections = new ArrayList<>();
+        for (Section section: template.getSections()) {
+            Section profileSection = profileSections.get(section.getIdentifier());
+            if (profileSection == null) {
+                continue;
+            }
+
+            Set<String> identifiers = profileSection.getElements()
+                .stream()
+                .map(SectionElement::getIdentifier)
+                .collect(Collectors.toSet());
+
+            section.patch(profileSection);
+            section.getElements().removeIf(sectionElement -> !identifiers.contains(sectionElement.getIdentifier()));
+
+            if (!section.getElements().isEmpty()) {
+                sections.add(section);
+            }
+        }
+
+        template.setSections(sections);
+
+        return template;
+    }
+
+    /**
+     * Get the snapshot of the default template, loading it from the database if there is none yet
+     * or it has expired.
+     *
+     * @return an optional with the snapshot if a template exists
+     */
+    private Optional<TemplateSnapshot> getSnapshot() {
+        TemplateSnapshot currentSnapshot = snapshot.get();
+        if (currentSnapshot != null && !currentSnapshot.isExpired(snapshotTtl)) {
+            return Optional.of(currentSnapshot);
+        }
+
+        Optional<Template> template = templateRepository.findFirstByNameIsNull();
+        if (template.isEmpty()) {
+            snapshot.compareAndSet(currentSnapshot, null);
+            return Optional.empty();
+        }
+
+        // keep a snapshot published by a save in the meantime, it is newer
+        TemplateSnapshot loadedSnapshot = TemplateSnapshot.of(template.get());
+        snapshot.compareAndSet(currentSnapshot, loadedSnapshot);
+
+        TemplateSnapshot newestSnapshot = snapshot.get();
+        return Optional.of(newestSnapshot != null ? newestSnapshot : loadedSnapshot);
+    }
+
+    /**
+     * Get the snapshot of a named template, loading it from the database if it is not cached.
+     *
+     * @param name the name of the template
+     * @return an optional with the snapshot if the template exists
+     * @throws ApiRequestException if the name is invalid
+     */
+    private Optional<TemplateSnapshot> getSnapshot(String name) {
+        validateName(name);
+
+        TemplateSnapshot cachedSnapshot = templateCache.get(name);
+        if (cachedSnapshot != null) {
+            return Optional.of(cachedSnapshot);
+        }
+
+        // unknown names are not cached, so they are visible as soon as they are saved
+        return templateRepository.findByName(name)
+            .map(template -> templateCache.putLoaded(name, TemplateSnapshot.of(template)));
+    }
+
+    /**
+     * Validate the name of a template.
+     *
+     * @param name the name of the template
+     * @throws ApiRequestException if the name is not url safe or too long
+     */
+    private static void validateName(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new ApiRequestException("Invalid template name " + name + ". Only letters, digits, '.', '_' and '-' are allowed.");
+        }
     }
 
     /**
      * Method to prepare a template before it is saved to the database.
      *
      * <p>
-     *     Ensures that the id matches the id of an existing template so that
-     *     it gets overwritten.
+     *     Ensures that the id matches the id of an existing template with the same
+     *     name (or the default template, if there is no name) so that it gets overwritten.
      *     Fills identifiers for each section element, if no identifier exists.
      *     Identifiers are used to identify an element, even if its name changes.
      * </p>
@@ -108,7 +300,8 @@ public class TemplateServiceImpl implements TemplateService {
     @Override
     public void prepareTemplate(Template template) {
         // set template id so it overrides the existing template
-        getTemplate().ifPresent(value -> template.setId(value.getId()));
+        Optional<TemplateSnapshot> existingSnapshot = template.getName() == null ? getSnapshot() : getSnapshot(template.getName());
+        template.setId(existingSnapshot.map(TemplateSnapshot::id).orElse(null));
 
         // prepare identifiers for new elements
         for (Section section: template.getSections()) {
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.template;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.models.Template;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Immutable copy of a saved template.
+ *
+ * <p>
+ *     Kept as json, since the template model itself is mutable. The id is not
+ *     part of the json and kept separately. Other instances of the service may save
+ *     the template, so snapshots expire and are loaded again after a while.
+ * </p>
+ *
+ * @param id the database id of the template
+ * @param json the serialized template
+ * @param createdAt when the snapshot has been taken
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+record TemplateSnapshot(String id, byte[] json, Instant createdAt) {
+
+    /** Mapper for snapshots, including the audit dates. */
+    private static final ObjectMapper SNAPSHOT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    /**
+     * @param template the saved template
+     * @return a snapshot of the template
+     */
+    static TemplateSnapshot of(Template template) {
+        try {
+            return new TemplateSnapshot(template.getId(), SNAPSHOT_MAPPER.writeValueAsBytes(template), Instant.now());
+        } catch (IOException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * @param timeToLive how long a snapshot may be used
+     * @return true if the snapshot is at least as old as the time to live
+     */
+    boolean isExpired(Duration timeToLive) {
+        return !Instant.now().isBefore(createdAt.plus(timeToLive));
+    }
+
+    /**
+     * @return a new template with the content of this snapshot
+     */
+    Template toTemplate() {
+        try {
+            Template template = SNAPSHOT_MAPPER.readValue(json, Template.class);
+            template.setId(id);
+            return template;
+        } catch (IOException e) {
+            throw new ApiRequestException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -53,6 +54,13 @@ public class Template extends AuditMetaData {
     @JsonIgnore
     private String id;
 
+    /**
+     * Unique name to address the template by, e.g. per customer or language.
+     * Null for the default template, which is not part of the index.
+     */
+    @Indexed(unique = true, sparse = true)
+    private String name;
+
     @NotBlank(message = "Template must have a title.", groups = {ValidTemplate.class})
     private String title;
 
@@ -23,7 +23,10 @@ import lombok.Data;
  *
  * <p>
  *     Header holds the data for the header in a
- *     generated Word Document.
+ *     generated Word Document. The logo is referenced
+ *     either by the hash of an image in the
+ *     {@link eu.tecfox.formatterservice.media.MediaLibrary}
+ *     or by a file path.
  * </p>
  *
  * @author Valentin Laucht
@@ -32,4 +35,6 @@ import lombok.Data;
 @Data
 public class Header {
     private String logo;
+
+    private String logoHash;
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.exception.TooManyRequestsException;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.formatter.SectionExecutor;
+import eu.tecfox.formatterservice.media.FileSystemMediaStore;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringListElement;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link RenderAdmission} and {@link RenderCostEstimator}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RenderAdmissionTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(7);
+
+    @TempDir
+    private Path tempDir;
+
+
+    @Test
+    void admit_shouldRejectIfMemoryBudgetIsExhausted() {
+
+        RenderAdmission renderAdmission = createAdmission(DataSize.ofMegabytes(3), 10);
+        RenderCost renderCost = new RenderCost(DataSize.ofMegabytes(2).toBytes(), 1);
+
+        AdmissionPermit admissionPermit = renderAdmission.admit(renderCost);
+        try {
+            TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> renderAdmission.admit(renderCost));
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+            assertEquals(RETRY_AFTER, exception.getRetryAfter());
+
+        } finally {
+            admissionPermit.close();
+        }
+
+        // should be admitted again once released
+        renderAdmission.admit(renderCost).close();
+    }
+
+
+    @Test
+    void admit_shouldRejectIfCpuBudgetIsExhausted() {
+
+        RenderAdmission renderAdmission = createAdmission(DataSize.ofMegabytes(100), 2);
+        RenderCost renderCost = new RenderCost(1024, 1);
+
+        AdmissionPermit first = renderAdmission.admit(renderCost);
+        AdmissionPermit second = renderAdmission.admit(renderCost);
+        try {
+            assertThrows(TooManyRequestsException.class, () -> renderAdmission.admit(renderCost));
+
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+
+    @Test
+    void admit_shouldAdmitRenderLargerThanBudgetIfIdle() {
+
+        RenderAdmission renderAdmission = createAdmission(DataSize.ofMegabytes(1), 1);
+
+        AdmissionPermit admissionPermit = renderAdmission.admit(new RenderCost(DataSize.ofMegabytes(10).toBytes(), 5));
+        try {
+            assertEquals(0, renderAdmission.getAvailableMemory());
+            assertEquals(0, renderAdmission.getAvailableCpuUnits());
+
+        } finally {
+            admissionPermit.close();
+        }
+    }
+
+
+    @Test
+    void close_shouldReleaseBudgetOnlyOnce() {
+
+        RenderAdmission renderAdmission = createAdmission(DataSize.ofMegabytes(4), 4);
+
+        AdmissionPermit admissionPermit = renderAdmission.admit(new RenderCost(DataSize.ofMegabytes(1).toBytes(), 2));
+        admissionPermit.close();
+        admissionPermit.close();
+
+        assertEquals(DataSize.ofMegabytes(4).toBytes(), renderAdmission.getAvailableMemory());
+        assertEquals(4, renderAdmission.getAvailableCpuUnits());
+    }
+
+
+    @Test
+    void estimate_shouldGrowWithListEntries() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        RenderCost before = RenderCostEstimator.estimate(template, RenderEngine.XWPF, createMediaLibrary(), 1);
+
+        // add a long list
+        StringListElement stringListElement = new StringListElement();
+        stringListElement.setKey("Key");
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            values.add("Value " + i);
+        stringListElement.setValue(values);
+
+        Section section = template.getSections().get(0);
+        List<SectionElement> elements = new ArrayList<>(section.getElements());
+        elements.add(stringListElement);
+        section.setElements(elements);
+
+        RenderCost after = RenderCostEstimator.estimate(template, RenderEngine.XWPF, createMediaLibrary(), 1);
+
+        assertTrue(after.memoryBytes() >= before.memoryBytes() + 5000 * RenderCostEstimator.ENTRY_BYTES);
+        assertTrue(after.cpuUnits() > before.cpuUnits());
+
+        // streaming should need less memory, unless all sections are held
+        assertTrue(RenderCostEstimator.estimate(template, RenderEngine.STREAMING, createMediaLibrary(), 1).memoryBytes() < after.memoryBytes());
+        assertEquals(after.memoryBytes(), RenderCostEstimator.estimate(template, RenderEngine.STREAMING, createMediaLibrary(), template.getSections().size()).memoryBytes());
+    }
+
+
+    @Test
+    void estimate_shouldChargeStreamingForLargestSection() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+
+        // add a long list to the first section only
+        StringListElement stringListElement = new StringListElement();
+        stringListElement.setKey("Key");
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            values.add("Value " + i);
+        stringListElement.setValue(values);
+
+        Section section = template.getSections().get(0);
+        List<SectionElement> elements = new ArrayList<>(section.getElements());
+        elements.add(stringListElement);
+        section.setElements(elements);
+
+        RenderCost streamingCost = RenderCostEstimator.estimate(template, RenderEngine.STREAMING, createMediaLibrary(), 1);
+
+        assertTrue(streamingCost.memoryBytes() >= RenderCostEstimator.BASE_BYTES + 5000 * RenderCostEstimator.ENTRY_BYTES);
+    }
+
+
+    private RenderAdmission createAdmission(DataSize memoryBudget, int cpuBudget) {
+
+        return new RenderAdmission(createMediaLibrary(), new SectionExecutor(1, SectionExecutor.DEFAULT_MIN_SECTIONS, 0), memoryBudget, cpuBudget, Duration.ofMillis(50), RETRY_AFTER);
+    }
+
+
+    private MediaLibrary createMediaLibrary() {
+
+        return new MediaLibrary(new FileSystemMediaStore(tempDir.toString()), DataSize.ofMegabytes(1));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.artifact;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+
+
+/**
+ * Test class for {@link FileSystemArtifactStore}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class FileSystemArtifactStoreTest {
+
+    private static final byte[] CONTENT = "TestArtifact".getBytes();
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    void commit_shouldMakeArtifactDownloadable() throws IOException {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), 1024, 1024);
+
+        // write artifact
+        String id = upload(store);
+
+        // should be found
+        assertTrue(store.find(id).isPresent());
+        assertEquals(CONTENT.length, store.find(id).get().size());
+
+        // should have same content
+        try (InputStream is = store.open(id)) {
+            assertArrayEquals(CONTENT, is.readAllBytes());
+        }
+    }
+
+
+    @Test
+    void close_shouldDiscardUncommittedArtifact() {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), 1024, 1024);
+
+        // write without commit
+        ArtifactUpload upload = store.create("test.docx", "application/octet-stream");
+        upload.write(CONTENT, 0, CONTENT.length);
+        upload.close();
+
+        // should not exist
+        assertFalse(store.find(upload.getId()).isPresent());
+        assertThrows(ApiRequestException.class, () -> store.open(upload.getId()));
+    }
+
+
+    @Test
+    void commit_shouldDiscardArtifactExceedingMaxArtifactSize() {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), 1024, CONTENT.length - 1);
+
+        // write too big artifact
+        ArtifactUpload upload = store.create("test.docx", "application/octet-stream");
+        upload.write(CONTENT, 0, CONTENT.length);
+
+        // should not be committed
+        assertNull(upload.commit());
+        assertFalse(store.find(upload.getId()).isPresent());
+    }
+
+
+    @Test
+    void evict_shouldRemoveExpiredArtifacts() {
+
+        FileSystemArtifactStore store = createStore(Duration.ZERO, 1024, 1024);
+
+        String id = upload(store);
+
+        // expired immediately
+        assertFalse(store.find(id).isPresent());
+        assertEquals(1, store.evict());
+        assertEquals(0, store.getTotalBytes());
+    }
+
+
+    @Test
+    void commit_shouldEvictOldestArtifactIfQuotaIsExceeded() {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), CONTENT.length * 2 - 1, 1024);
+
+        String oldestId = upload(store);
+        String newestId = upload(store);
+
+        // only newest should be left
+        assertFalse(store.find(oldestId).isPresent());
+        assertTrue(store.find(newestId).isPresent());
+        assertEquals(CONTENT.length, store.getTotalBytes());
+    }
+
+
+    @Test
+    void write_shouldCountUploadsInProgressAgainstQuota() {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), CONTENT.length * 2 - 1, 1024);
+
+        // neither is committed yet
+        ArtifactUpload upload = store.create("test.docx", "application/octet-stream");
+        upload.write(CONTENT, 0, CONTENT.length);
+        assertEquals(CONTENT.length, store.getUploadingBytes());
+
+        ArtifactUpload otherUpload = store.create("test.docx", "application/octet-stream");
+        otherUpload.write(CONTENT, 0, CONTENT.length);
+
+        // no room for the second one
+        assertNull(otherUpload.commit());
+        assertEquals(CONTENT.length, store.getUploadingBytes());
+
+        assertNotNull(upload.commit());
+        assertEquals(0, store.getUploadingBytes());
+        assertEquals(CONTENT.length, store.getTotalBytes());
+    }
+
+
+    @Test
+    void close_shouldGiveBackBytesOfUncommittedArtifact() {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), 1024, 1024);
+
+        ArtifactUpload upload = store.create("test.docx", "application/octet-stream");
+        upload.write(CONTENT, 0, CONTENT.length);
+        upload.close();
+
+        assertEquals(0, store.getUploadingBytes());
+        assertEquals(0, store.getTotalBytes());
+    }
+
+
+    @Test
+    void delete_shouldKeepFileUntilLastReaderIsDone() throws IOException {
+
+        FileSystemArtifactStore store = createStore(Duration.ofMinutes(1), 1024, 1024);
+
+        String id = upload(store);
+
+        try (InputStream is = store.open(id)) {
+            // delete while reading
+            assertTrue(store.delete(id));
+            assertTrue(Files.exists(directory.resolve(id)));
+
+            // should still be readable
+            assertArrayEquals(CONTENT, is.readAllBytes());
+        }
+
+        // should be gone after reader is done
+        assertFalse(Files.exists(directory.resolve(id)));
+        assertFalse(store.delete(id));
+    }
+
+
+    private FileSystemArtifactStore createStore(Duration timeToLive, long maxTotalBytes, long maxArtifactBytes) {
+
+        return new FileSystemArtifactStore(directory.toString(), 
+                                           timeToLive, 
+                                           DataSize.ofBytes(maxTotalBytes), 
+                                           DataSize.ofBytes(maxArtifactBytes), 
+                                           Duration.ofMinutes(1));
+    }
+
+
+    private String upload(ArtifactStore store) {
+
+        try (ArtifactUpload upload = store.create("test.docx", "application/octet-stream")) {
+            upload.write(CONTENT, 0, CONTENT.length);
+            assertNotNull(upload.commit());
+
+            return upload.getId();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test class for {@link LruCache}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class LruCacheTest {
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed() {
+
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        // use "a" so "b" is the least recently used
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+
+    @Test
+    void put_shouldRespectWeight() {
+
+        LruCache<String, String> cache = new LruCache<>(5, String::length);
+        cache.put("a", "123");
+        cache.put("b", "45");
+        cache.put("c", "6");
+
+        assertNull(cache.get("a"));
+        assertEquals(3, cache.getWeight());
+
+        // too heavy to cache at all
+        cache.put("d", "123456");
+        assertNull(cache.get("d"));
+    }
+
+
+    @Test
+    void get_shouldRemoveStaleValues() {
+
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a", value -> false));
+        assertNull(cache.get("a", value -> true));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+
+    @Test
+    void computeIfAbsent_shouldComputeOnlyOnce() {
+
+        LruCache<String, String> cache = new LruCache<>(2);
+
+        assertEquals("1", cache.computeIfAbsent("a", key -> "1"));
+        assertEquals("1", cache.computeIfAbsent("a", key -> "2"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+
+    @Test
+    void putIfAbsent_shouldKeepCachedValue() {
+
+        LruCache<String, String> cache = new LruCache<>(2);
+
+        assertNull(cache.putIfAbsent("a", "1"));
+        assertEquals("1", cache.putIfAbsent("a", "2"));
+        assertEquals("1", cache.get("a"));
+    }
+}
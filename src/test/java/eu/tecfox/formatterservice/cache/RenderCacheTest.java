@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.cache.RenderCache.Recorder;
+import eu.tecfox.formatterservice.cache.RenderCache.RenderResult;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Test class for {@link RenderCache}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RenderCacheTest {
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RenderCache renderCache = new RenderCache(DataSize.ofBytes(10), DataSize.ofBytes(6), meterRegistry);
+
+
+    @Test
+    void getKey_shouldIgnoreAuditMetaData() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        String key = renderCache.getKey(template, "html");
+
+        template.setLastModifiedDate(LocalDateTime.now());
+        template.setModifiedByUser("someone else");
+
+        assertEquals(key, renderCache.getKey(template, "html"));
+    }
+
+
+    @Test
+    void getKey_shouldDependOnContentAndFormat() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        String key = renderCache.getKey(template, "html");
+
+        assertNotEquals(key, renderCache.getKey(template, "docx-XWPF"));
+
+        template.setTitle(template.getTitle() + " changed");
+        assertNotEquals(key, renderCache.getKey(template, "html"));
+    }
+
+
+    @Test
+    void getKey_shouldDependOnSectionsHashedOnce() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        List<String> sectionHashes = ContentHash.ofSections(template);
+        String key = renderCache.getKey(template, sectionHashes, "html");
+
+        assertEquals(template.getSections().size(), sectionHashes.size());
+        assertEquals(renderCache.getKey(template, "html"), key);
+
+        template.getSections().get(0).setTitle("changed");
+        assertNotEquals(key, renderCache.getKey(template, "html"));
+    }
+
+
+    @Test
+    void recorder_shouldCacheOnCommitOnly() {
+
+        Recorder recorder = renderCache.record("a");
+        recorder.write(new byte[] {1, 2, 3}, 0, 3);
+
+        // case: not finished
+        assertNull(renderCache.get("a"));
+
+        recorder.commit();
+        RenderResult renderResult = renderCache.get("a");
+
+        assertArrayEquals(new byte[] {1, 2, 3}, renderResult.content());
+    }
+
+
+    @Test
+    void recorder_shouldSkipTooLargeDocuments() {
+
+        Recorder recorder = renderCache.record("a");
+        recorder.write(new byte[7], 0, 7);
+        recorder.commit();
+
+        assertNull(renderCache.get("a"));
+    }
+
+
+    @Test
+    void getStats_shouldCountHitsAndEvictions() {
+
+        renderCache.put("a", new RenderResult(new byte[6]));
+        renderCache.put("b", new RenderResult(new byte[6]));
+
+        renderCache.get("a");
+        renderCache.get("b");
+
+        RenderCacheStats stats = renderCache.getStats();
+        assertEquals(1, stats.entries());
+        assertEquals(6, stats.bytes());
+        assertEquals(1, stats.evictions());
+        assertEquals(0.5, stats.getHitRate());
+
+        // same numbers as metrics
+        assertEquals(1, meterRegistry.get("formatter.render.cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("formatter.render.cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, meterRegistry.get("formatter.render.cache.evictions").functionCounter().count());
+        assertEquals(6, meterRegistry.get("formatter.render.cache.size").gauge().value());
+    }
+}
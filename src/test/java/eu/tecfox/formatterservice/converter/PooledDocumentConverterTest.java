@@ -0,0 +1,298 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.converter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.exception.TooManyRequestsException;
+
+
+/**
+ * Test class for {@link PooledDocumentConverter}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class PooledDocumentConverterTest {
+
+    private static final byte[] DOCX = "docx".getBytes();
+
+    private final StubBackend stubBackend = new StubBackend();
+
+    private PooledDocumentConverter converter;
+
+
+    @AfterEach
+    void cleanUp() {
+
+        stubBackend.blocker.countDown();
+
+        if (converter != null)
+            converter.close();
+    }
+
+
+    @Test
+    void convert_shouldReuseWarmInstances() throws Exception {
+
+        this.converter = new PooledDocumentConverter(stubBackend, 2, 10, 4, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        stubBackend.blocker.countDown();
+
+        for (int i = 0; i < 20; i++) {
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            converter.convert(new ByteArrayInputStream(DOCX), pdf);
+
+            assertArrayEquals("pdf:docx".getBytes(), pdf.toByteArray());
+        }
+
+        // only the pool has been started
+        assertEquals(2, stubBackend.numStarts.get());
+    }
+
+
+    @Test
+    void convert_shouldNotExceedPoolSize() throws Exception {
+
+        this.converter = new PooledDocumentConverter(stubBackend, 2, 20, 4, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                futures.add(executorService.submit(() -> {
+                    converter.convert(new ByteArrayInputStream(DOCX), new ByteArrayOutputStream());
+                    return null;
+                }));
+
+            // let conversions pile up, then release them
+            Thread.sleep(200);
+            stubBackend.blocker.countDown();
+
+            for (Future<?> future : futures)
+                future.get(10, TimeUnit.SECONDS);
+
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertTrue(stubBackend.maxConcurrent.get() <= 2);
+    }
+
+
+    @Test
+    void convert_shouldBeTooManyRequestsIfQueueIsFull() throws Exception {
+
+        this.converter = new PooledDocumentConverter(stubBackend, 1, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(3));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            // occupy worker, then queue
+            executorService.submit(() -> convertQuietly());
+            stubBackend.started.await(5, TimeUnit.SECONDS);
+            executorService.submit(() -> convertQuietly());
+
+            // wait until queued
+            for (int i = 0; i < 100 && converter.getQueueSize() == 0; i++)
+                Thread.sleep(10);
+
+            TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, 
+                                                               () -> converter.convert(new ByteArrayInputStream(DOCX), new ByteArrayOutputStream()));
+            assertEquals(Duration.ofSeconds(3), exception.getRetryAfter());
+
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+
+    @Test
+    void convert_shouldTimeOutAndReplaceStuckInstance() throws Exception {
+
+        this.converter = new PooledDocumentConverter(stubBackend, 1, 10, 1, Duration.ofMillis(200), Duration.ofSeconds(1));
+
+        // instance blocks until interrupted
+        ApiRequestException exception = assertThrows(ApiRequestException.class, 
+                                                      () -> converter.convert(new ByteArrayInputStream(DOCX), new ByteArrayOutputStream()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+
+        // next job should run on a new instance
+        stubBackend.blocker.countDown();
+        converter.convert(new ByteArrayInputStream(DOCX), new ByteArrayOutputStream());
+
+        assertEquals(2, stubBackend.numStarts.get());
+        assertEquals(1, stubBackend.numCloses.get());
+    }
+
+
+    @Test
+    void convert_shouldCloseDocumentOnWorkerAfterTimeout() throws Exception {
+
+        this.converter = new PooledDocumentConverter(stubBackend, 1, 10, 1, Duration.ofMillis(200), Duration.ofSeconds(1));
+        ClosingDocument document = new ClosingDocument();
+
+        // instance blocks until interrupted, document stays open meanwhile
+        assertThrows(ApiRequestException.class, () -> converter.convert(document, new ByteArrayOutputStream()));
+
+        assertTrue(document.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(document.closingThread.startsWith("converter-"));
+    }
+
+
+    @Test
+    void convert_shouldCloseDocumentIfQueueIsFull() throws Exception {
+
+        this.converter = new PooledDocumentConverter(stubBackend, 1, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(3));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            // occupy worker, then queue
+            executorService.submit(() -> convertQuietly());
+            stubBackend.started.await(5, TimeUnit.SECONDS);
+            executorService.submit(() -> convertQuietly());
+
+            // wait until queued
+            for (int i = 0; i < 100 && converter.getQueueSize() == 0; i++)
+                Thread.sleep(10);
+
+            ClosingDocument document = new ClosingDocument();
+            assertThrows(TooManyRequestsException.class, () -> converter.convert(document, new ByteArrayOutputStream()));
+            assertEquals(0, document.closed.getCount());
+
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+
+    private Void convertQuietly() {
+
+        try {
+            converter.convert(new ByteArrayInputStream(DOCX), new ByteArrayOutputStream());
+
+        } catch (IOException | RuntimeException e) {
+            // ignore
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Backend prefixing the input with "pdf:", blocking every conversion until {@link #blocker} is counted down.
+     */
+    private static final class StubBackend implements ConverterBackend {
+
+        private final CountDownLatch blocker = new CountDownLatch(1);
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final AtomicInteger numStarts = new AtomicInteger();
+
+        private final AtomicInteger numCloses = new AtomicInteger();
+
+        private final AtomicInteger numConcurrent = new AtomicInteger();
+
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+
+        @Override
+        public String getName() {
+
+            return "stub";
+        }
+
+
+        @Override
+        public ConverterInstance start() {
+
+            numStarts.incrementAndGet();
+
+            return new ConverterInstance() {
+
+                @Override
+                public void convert(InputStream docx, OutputStream pdf) throws IOException {
+
+                    maxConcurrent.accumulateAndGet(numConcurrent.incrementAndGet(), Math::max);
+                    started.countDown();
+                    try {
+                        blocker.await();
+
+                        pdf.write("pdf:".getBytes());
+                        pdf.write(docx.readAllBytes());
+
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted.");
+
+                    } finally {
+                        numConcurrent.decrementAndGet();
+                    }
+                }
+
+
+                @Override
+                public void close() {
+
+                    numCloses.incrementAndGet();
+                }
+            };
+        }
+    }
+
+
+    /**
+     * Document remembering when and on which thread it has been closed.
+     */
+    private static final class ClosingDocument extends XWPFDocument {
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private volatile String closingThread;
+
+
+        @Override
+        public void close() throws IOException {
+
+            this.closingThread = Thread.currentThread().getName();
+            closed.countDown();
+            super.close();
+        }
+    }
+}
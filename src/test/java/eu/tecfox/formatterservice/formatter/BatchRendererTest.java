@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.tecfox.formatterservice.admission.AdmissionPermit;
+import eu.tecfox.formatterservice.admission.RenderAdmission;
+import eu.tecfox.formatterservice.admission.RenderCost;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link BatchRenderer}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class BatchRendererTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private RenderAdmission renderAdmission;
+
+    private BatchRenderer batchRenderer;
+
+    private String templateJson;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        // create resource folders
+        ResourceHandler.createDirs(INPUT_RESOURCE_PATH, OUTPUT_RESOURCE_PATH);
+
+        this.renderAdmission = new RenderAdmission(RENDER_SERVICES.getMediaLibrary(), 
+                                                   RENDER_SERVICES.getSectionExecutor(), 
+                                                   DataSize.ofMegabytes(64), 
+                                                   4, 
+                                                   Duration.ofMillis(50), 
+                                                   Duration.ofSeconds(1));
+
+        // small window to make the pipeline wrap around
+        this.batchRenderer = new BatchRenderer(mapper, RENDER_SERVICES, renderAdmission, 2, 2, DataSize.ofMegabytes(1));
+        this.templateJson = mapper.writeValueAsString(TestDataGenerator.generateValidNewTemplate());
+    }
+
+
+    @Test
+    void render_shouldWriteEntriesInInputOrder() throws IOException {
+
+        String input = String.join("\n", templateJson, templateJson, "", "{ invalid", templateJson, templateJson);
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        int numRendered = batchRenderer.render(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), zip, RenderEngine.XWPF);
+
+        assertEquals(4, numRendered);
+        assertEquals(List.of("00001-Profile.docx", "00002-Profile.docx", "00004-error.txt", "00005-Profile.docx", "00006-Profile.docx"), 
+                     getEntryNames(zip.toByteArray()));
+    }
+
+
+    @Test
+    void render_shouldWriteErrorIfLineIsNotAdmitted() throws IOException {
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+
+        // use up the whole budget
+        AdmissionPermit admissionPermit = renderAdmission.admit(new RenderCost(Long.MAX_VALUE, Integer.MAX_VALUE));
+        try {
+            int numRendered = batchRenderer.render(new ByteArrayInputStream(templateJson.getBytes(StandardCharsets.UTF_8)), zip, RenderEngine.XWPF);
+
+            assertEquals(0, numRendered);
+
+        } finally {
+            admissionPermit.close();
+        }
+
+        assertEquals(List.of("00001-error.txt"), getEntryNames(zip.toByteArray()));
+    }
+
+
+    @Test
+    void render_shouldWriteErrorWithoutInternals() throws IOException {
+
+        String input = String.join("\n", "{ invalid", templateJson);
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        batchRenderer.render(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), zip, RenderEngine.XWPF);
+
+        assertEquals("Line is not a valid template.", getEntries(zip.toByteArray()).get("00001-error.txt"));
+    }
+
+
+    @Test
+    void render_shouldWriteErrorIfLineIsTooLong() throws IOException {
+
+        BatchRenderer smallBatchRenderer = new BatchRenderer(mapper, RENDER_SERVICES, renderAdmission, 2, 2, DataSize.ofBytes(templateJson.getBytes(StandardCharsets.UTF_8).length + 1));
+        String input = String.join("\r\n", templateJson, templateJson + " ".repeat(10), templateJson);
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        int numRendered = smallBatchRenderer.render(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), zip, RenderEngine.XWPF);
+
+        assertEquals(2, numRendered);
+
+        Map<String, String> entries = getEntries(zip.toByteArray());
+        assertEquals(List.of("00001-Profile.docx", "00002-error.txt", "00003-Profile.docx"), List.copyOf(entries.keySet()));
+        assertTrue(entries.get("00002-error.txt").startsWith("Line is longer than"));
+    }
+
+
+    private List<String> getEntryNames(byte[] zip) throws IOException {
+
+        List<String> entryNames = new ArrayList<>();
+
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry())
+                entryNames.add(entry.getName());
+        }
+
+        return entryNames;
+    }
+
+
+    /**
+     * @return the content of every entry by name, in zip order.
+     */
+    private Map<String, String> getEntries(byte[] zip) throws IOException {
+
+        Map<String, String> entries = new LinkedHashMap<>();
+
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry())
+                entries.put(entry.getName(), new String(zipInputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        return entries;
+    }
+}
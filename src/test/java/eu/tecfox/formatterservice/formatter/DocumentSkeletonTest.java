@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link DocumentSkeleton}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class DocumentSkeletonTest {
+
+    private Template template;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        // create resource folders
+        ResourceHandler.createDirs(INPUT_RESOURCE_PATH, OUTPUT_RESOURCE_PATH);
+
+        this.template = TestDataGenerator.generateValidNewTemplate();
+    }
+
+
+    @Test
+    void newDocument_shouldHaveHeaderFooterAndStyles() throws IOException {
+
+        try (XWPFDocument document = DocumentSkeleton.newDocument(template, RENDER_SERVICES)) {
+            assertEquals(1, document.getHeaderList().size());
+            assertEquals(1, document.getFooterList().size());
+            assertTrue(document.getParagraphs().isEmpty());
+
+            // styles of plan should be registered
+            assertTrue(document.getStyles().styleExist(StyleRegistry.getRunStyleId(template.getStyle())));
+        }
+    }
+
+
+    @Test
+    void newDocument_shouldAddContentBeforeSectionProperties() throws IOException {
+
+        try (XWPFDocument document = DocumentSkeleton.newDocument(template, RENDER_SERVICES)) {
+            new SectionFormatter(template, document, RENDER_SERVICES).addContent();
+
+            assertFalse(document.getParagraphs().isEmpty());
+            assertTrue(document.getDocument().getBody().isSetSectPr());
+
+            // section properties must stay the last body element
+            assertEquals("sectPr", document.getDocument().getBody().getDomNode().getLastChild().getLocalName());
+        }
+    }
+
+
+    @Test
+    void getVersion_shouldChangeWithFooter() {
+
+        RenderPlan renderPlan = RENDER_SERVICES.getRenderPlanCache().getPlan(template);
+        String version = DocumentSkeleton.getVersion(template, renderPlan, RENDER_SERVICES.getMediaLibrary());
+
+        template.getFooter().getLeftSection().add("Another line");
+
+        assertNotEquals(version, DocumentSkeleton.getVersion(template, renderPlan, RENDER_SERVICES.getMediaLibrary()));
+    }
+
+
+    @Test
+    void getVersion_shouldChangeWithLogoHash() {
+
+        RenderPlan renderPlan = RENDER_SERVICES.getRenderPlanCache().getPlan(template);
+        template.getHeader().setLogoHash("a".repeat(64));
+        String version = DocumentSkeleton.getVersion(template, renderPlan, RENDER_SERVICES.getMediaLibrary());
+
+        template.getHeader().setLogoHash("b".repeat(64));
+
+        assertNotEquals(version, DocumentSkeleton.getVersion(template, renderPlan, RENDER_SERVICES.getMediaLibrary()));
+    }
+
+
+    @Test
+    void getVersion_shouldChangeIfLogoFileIsReplaced(@TempDir Path directory) throws IOException {
+
+        Path logoFile = directory.resolve("logo.png");
+        Files.copy(Paths.get(INPUT_RESOURCE_PATH, "TecFox_Logo.png"), logoFile);
+
+        Header header = new Header();
+        header.setLogo(logoFile.toString());
+        template.setHeader(header);
+
+        RenderPlan renderPlan = RENDER_SERVICES.getRenderPlanCache().getPlan(template);
+        String version = DocumentSkeleton.getVersion(template, renderPlan, RENDER_SERVICES.getMediaLibrary());
+
+        // replace file, with another modification time
+        Files.write(logoFile, new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00});
+        Files.setLastModifiedTime(logoFile, FileTime.fromMillis(Files.getLastModifiedTime(logoFile).toMillis() + 10_000));
+
+        assertNotEquals(version, DocumentSkeleton.getVersion(template, renderPlan, RENDER_SERVICES.getMediaLibrary()));
+    }
+}
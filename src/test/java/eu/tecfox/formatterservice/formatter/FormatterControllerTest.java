@@ -15,28 +15,62 @@
  */
 package eu.tecfox.formatterservice.formatter;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import eu.tecfox.formatterservice.admission.RenderAdmission;
+import eu.tecfox.formatterservice.artifact.FileSystemArtifactStore;
+import eu.tecfox.formatterservice.cache.RenderCache;
+import eu.tecfox.formatterservice.converter.PooledDocumentConverter;
+import eu.tecfox.formatterservice.converter.XdocreportBackend;
 import eu.tecfox.formatterservice.formatter.FormatterController;
 import eu.tecfox.formatterservice.formatter.ResourceHandler;
+import eu.tecfox.formatterservice.media.FileSystemMediaStore;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.metrics.RenderMetrics;
+import eu.tecfox.formatterservice.template.TemplateService;
 import eu.tecfox.formatterservice.template.models.Template;
 import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 
 /**
@@ -46,6 +80,10 @@ import eu.tecfox.formatterservice.testdata.TestDataGenerator;
  * @author Florin Schikarski
  */
 @WebMvcTest(FormatterController.class)
+@Import({FileSystemArtifactStore.class, BatchRenderer.class, RenderAdmission.class, PooledDocumentConverter.class, XdocreportBackend.class, RenderCache.class,
+         RenderServices.class, MediaLibrary.class, FileSystemMediaStore.class, FontRegistry.class, SectionExecutor.class, RenderMetrics.class, FragmentCache.class,
+         RenderPlanCache.class, SkeletonCache.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"spring.cloud.discovery.enabled=false", "formatter.media.store=filesystem"})
 @TestInstance(Lifecycle.PER_CLASS)
 // TODO: rewrite every test
 public class FormatterControllerTest {
@@ -53,8 +91,16 @@ public class FormatterControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @MockBean
+    private TemplateService templateService;
+
+    @Autowired
+    private RenderCache renderCache;
+
     private Template template;
 
+    private ObjectMapper mapper = new ObjectMapper();
+
     
     @BeforeAll
     void setup() throws IOException { 
@@ -63,27 +109,257 @@ public class FormatterControllerTest {
         ResourceHandler.createDirs(INPUT_RESOURCE_PATH, OUTPUT_RESOURCE_PATH);
 
         // set template
-        this.template = TestDataGenerator.generateValidTemplate();
+        this.template = TestDataGenerator.generateValidNewTemplate();
     }
 
 
-    // @Test
+    @BeforeEach
+    void clearRenderCache() {
+
+        // every test renders, cached documents get no artifact
+        renderCache.invalidateAll();
+    }
+
+
+    @Test
     void formatAndDownload_asDocx_shouldBeOk() throws Exception {
 
+        // count files before
+        int numFiles = new File(OUTPUT_RESOURCE_PATH).listFiles().length;
+
         // send request
-        this.mockMvc.perform(get("/api/formatter/pdf=false"))
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "false")
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        // document is streamed asynchronously
+        this.mockMvc.perform(asyncDispatch(result))
                             .andExpect(status().isOk())
                             .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+
+        // nothing should have been written to disk
+        assertEquals(numFiles, new File(OUTPUT_RESOURCE_PATH).listFiles().length);
     }
 
 
-    // @Test
-    void formatAndDownload_asPdf_shouldBeOk() throws Exception {
+    @Test
+    void formatAndDownload_withStreamingEngine_shouldBeOk() throws Exception {
+
+        // send request
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "false")
+                                                    .param("engine", RenderEngine.STREAMING.name())
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        // should be a valid docx
+        byte[] document = this.mockMvc.perform(asyncDispatch(result))
+                                      .andExpect(status().isOk())
+                                      .andReturn()
+                                      .getResponse()
+                                      .getContentAsByteArray();
+
+        try (XWPFDocument xwpfDocument = new XWPFDocument(new ByteArrayInputStream(document))) {
+            assertFalse(xwpfDocument.getParagraphs().isEmpty());
+        }
+    }
+
+
+    @Test
+    void preview_shouldReturnHtml() throws Exception {
 
         // send request
-        this.mockMvc.perform(get("/api/formatter/pdf=true"))
+        MvcResult result = this.mockMvc.perform(get("/api/formatter/preview")
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        String html = this.mockMvc.perform(asyncDispatch(result))
+                                  .andExpect(status().isOk())
+                                  .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML))
+                                  .andExpect(header().string("Cache-Control", "no-cache, private"))
+                                  .andReturn()
+                                  .getResponse()
+                                  .getContentAsString(StandardCharsets.UTF_8);
+
+        assertTrue(html.contains(template.getTitle()));
+    }
+
+
+    @Test
+    void formatAndDownload_shouldBeNotModifiedIfETagMatches() throws Exception {
+
+        // format once
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "false")
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
                             .andExpect(status().isOk())
-                            .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+                            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+
+        // revalidate
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(get("/api/formatter")
+                                .param("pdf", "false")
+                                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(template)))
+                            .andExpect(status().isNotModified())
+                            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+
+    @Test
+    void formatAndDownload_shouldServeSameDocumentFromCache() throws Exception {
+
+        String templateJson = mapper.writeValueAsString(template);
+
+        // format once
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "false")
+                                                    .param("engine", RenderEngine.STREAMING.name())
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(templateJson))
+                                       .andReturn();
+
+        byte[] document = this.mockMvc.perform(asyncDispatch(result))
+                                      .andExpect(status().isOk())
+                                      .andReturn().getResponse().getContentAsByteArray();
+
+        // format again, should not render a second time
+        MvcResult cachedResult = this.mockMvc.perform(get("/api/formatter")
+                                                          .param("pdf", "false")
+                                                          .param("engine", RenderEngine.STREAMING.name())
+                                                          .contentType(MediaType.APPLICATION_JSON)
+                                                          .content(templateJson))
+                                             .andReturn();
+
+        // should not store the cached document again
+        this.mockMvc.perform(asyncDispatch(cachedResult))
+                            .andExpect(status().isOk())
+                            .andExpect(header().doesNotExist(FormatterController.ARTIFACT_ID_HEADER))
+                            .andExpect(content().bytes(document));
+
+        String artifactId = result.getResponse().getHeader(FormatterController.ARTIFACT_ID_HEADER);
+        this.mockMvc.perform(get("/api/formatter/artifacts/" + artifactId))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(document));
+    }
+
+
+    @Test
+    void formatBatch_shouldReturnZip() throws Exception {
+
+        String templateJson = mapper.writeValueAsString(template);
+
+        // send request
+        MvcResult result = this.mockMvc.perform(post("/api/formatter/batch")
+                                                    .contentType("application/x-ndjson")
+                                                    .content(templateJson + "\n" + templateJson + "\n"))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        byte[] zip = this.mockMvc.perform(asyncDispatch(result))
+                                 .andExpect(status().isOk())
+                                 .andExpect(content().contentType("application/zip"))
+                                 .andReturn()
+                                 .getResponse()
+                                 .getContentAsByteArray();
+
+        // should have one entry per line
+        int numEntries = 0;
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            while (zipInputStream.getNextEntry() != null)
+                numEntries++;
+        }
+        assertEquals(2, numEntries);
+    }
+
+
+    @Test
+    void downloadArtifact_shouldReturnSameDocumentAgain() throws Exception {
+
+        // format once
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "false")
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andReturn();
+
+        byte[] document = this.mockMvc.perform(asyncDispatch(result))
+                                      .andExpect(status().isOk())
+                                      .andReturn().getResponse().getContentAsByteArray();
+
+        // download again
+        String artifactId = result.getResponse().getHeader(FormatterController.ARTIFACT_ID_HEADER);
+        this.mockMvc.perform(get("/api/formatter/artifacts/" + artifactId))
+                            .andExpect(status().isOk())
+                            .andExpect(content().bytes(document));
+    }
+
+
+    @Test
+    void downloadArtifact_shouldBeNotFoundIfUnknown() throws Exception {
+
+        // send request
+        this.mockMvc.perform(get("/api/formatter/artifacts/unknown"))
+                            .andExpect(status().isNotFound());
+    }
+
+
+    @Test
+    void formatAndDownload_asPdf_shouldBeOk() throws Exception {
+
+        // send request
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "true")
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        // should be a pdf
+        byte[] document = this.mockMvc.perform(asyncDispatch(result))
+                                      .andExpect(status().isOk())
+                                      .andExpect(content().contentType(MediaType.APPLICATION_PDF_VALUE))
+                                      .andReturn()
+                                      .getResponse()
+                                      .getContentAsByteArray();
+
+        assertEquals("%PDF", new String(document, 0, 4));
+    }
+
+
+    @Test
+    void formatAndDownload_asNativePdf_shouldBeOk() throws Exception {
+
+        // send request
+        MvcResult result = this.mockMvc.perform(get("/api/formatter")
+                                                    .param("pdf", "true")
+                                                    .param("pdfRenderer", PdfRenderer.NATIVE.name())
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        // should be a pdf
+        byte[] document = this.mockMvc.perform(asyncDispatch(result))
+                                      .andExpect(status().isOk())
+                                      .andExpect(content().contentType(MediaType.APPLICATION_PDF_VALUE))
+                                      .andReturn()
+                                      .getResponse()
+                                      .getContentAsByteArray();
+
+        assertEquals("%PDF", new String(document, 0, 4));
     }
 
 
@@ -96,12 +372,12 @@ public class FormatterControllerTest {
     }
 
 
-    // @Test
-    void deleteFiles_shouldBeOk() throws Exception {
+    @Test
+    void deleteArtifact_shouldBeNotFoundIfUnknown() throws Exception {
 
         // send request
-        this.mockMvc.perform(delete("/api/formatter/deleteFiles"))
-                            .andExpect(status().isOk());
+        this.mockMvc.perform(delete("/api/formatter/artifacts/unknown"))
+                            .andExpect(status().isNotFound());
     }
 
 
@@ -111,4 +387,23 @@ public class FormatterControllerTest {
         // delete all test files
         ResourceHandler.clearDirectory(OUTPUT_RESOURCE_PATH);
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void formatAndDownloadWithTemplate_shouldRenderFilledTemplate() throws Exception {
+
+        when(templateService.fillTemplate(eq("customer-en"), any())).thenReturn(template);
+
+        // send request
+        MvcResult result = this.mockMvc.perform(get("/api/formatter/templates/customer-en")
+                                                    .param("pdf", "false")
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .content(mapper.writeValueAsString(template)))
+                                       .andExpect(request().asyncStarted())
+                                       .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+}
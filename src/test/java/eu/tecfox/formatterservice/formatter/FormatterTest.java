@@ -17,12 +17,14 @@ package eu.tecfox.formatterservice.formatter;
 
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
 import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.List;
 
@@ -32,7 +34,6 @@ import org.junit.jupiter.api.TestInstance.Lifecycle;
 
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 
 import eu.tecfox.formatterservice.formatter.Formatter;
@@ -49,76 +50,97 @@ import eu.tecfox.formatterservice.testdata.TestDataGenerator;
  */
 @TestInstance(Lifecycle.PER_CLASS)
 public class FormatterTest {
+
     
     private Template template;
 
     private Formatter formatter;
     
-    private String docxFilePath;
-
-    private File docxFile;
+    private byte[] docxBytes;
 
 
     @BeforeAll
     void setup() throws IOException { 
 
         // create resource folders
-        ResourceHandler.createDirs(INPUT_RESOURCE_PATH, OUTPUT_RESOURCE_PATH);
+        ResourceHandler.createDirs(INPUT_RESOURCE_PATH);
 
         // create template
         // this.template = TestDataGenerator.generateValidContract();
         this.template = TestDataGenerator.generateValidNewTemplate();
 
         // create formatter
-        this.formatter = new Formatter(template);
-    
-        // format
-        this.docxFilePath = formatter.formatDocument();
+        this.formatter = new Formatter(template, RENDER_SERVICES);
     
-        // create file
-        this.docxFile = new File(docxFilePath);
+        // format into memory
+        this.docxBytes = writeToBytes(formatter);
     }
     
     
     @Test
-    void formatDocument_shouldWriteDocxFile() throws IOException {
+    void writeDocument_shouldWriteDocx() throws IOException {
+
+        // is a readable .docx
+        try (XWPFDocument document = readBytesToDocx(docxBytes)) {
+            assertNotNull(document);
+        }
+    }
+
+
+    @Test
+    void writeDocument_shouldNotWriteToDisk() throws IOException {
+
+        File outputResources = new File(OUTPUT_RESOURCE_PATH);
+        int numFiles = outputResources.exists() ? outputResources.listFiles().length : 0;
 
-        // exists
-        assertTrue(docxFile.exists());
+        writeToBytes(new Formatter(template, RENDER_SERVICES));
 
-        // is .docx
-        int docxFilePathLength = docxFilePath.length();
-        String praefix = docxFilePath.substring(docxFilePathLength - 5, docxFilePathLength);
-        assertEquals(".docx", praefix);
+        assertEquals(numFiles, outputResources.exists() ? outputResources.listFiles().length : 0);
     }
 
 
     @Test
-    void formatDocument_shouldNotBeEmpty() throws IOException {
+    void writeDocument_shouldNotBeEmpty() throws IOException {
 
         // create document
-        XWPFDocument document = readFileToDocx(docxFilePath);
+        try (XWPFDocument document = readBytesToDocx(docxBytes)) {
+            // not empty
+            List<XWPFParagraph> paragraphs = document.getParagraphs();
+            assertFalse(paragraphs.isEmpty());
+            assertFalse(paragraphs.get(0).getRuns().isEmpty());
+            assertFalse(paragraphs.get(0).getText().isEmpty());
+        }
+    }
+
+
+    @Test
+    void writeDocument_shouldBuildDocumentIfNotBuiltYet() throws IOException {
 
-        // not empty
-        List<XWPFParagraph> paragraphs = document.getParagraphs();
-        assertFalse(paragraphs.isEmpty());
-        assertFalse(paragraphs.get(0).getRuns().isEmpty());
-        assertFalse(paragraphs.get(0).getText().isEmpty());
+        // write without building first
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new Formatter(TestDataGenerator.generateValidNewTemplate(), RENDER_SERVICES).writeDocument(os);
+
+        // should be readable and not empty
+        try (XWPFDocument document = readBytesToDocx(os.toByteArray())) {
+            assertFalse(document.getParagraphs().isEmpty());
+            assertFalse(document.getParagraphs().get(0).getText().isEmpty());
+        }
     }
 
 
-    @AfterAll
-    void cleanUp() {
+    private byte[] writeToBytes(Formatter formatter) throws IOException {
+
+        formatter.buildDocument();
 
-        // delete all test files
-        ResourceHandler.clearDirectory(OUTPUT_RESOURCE_PATH);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        formatter.writeDocument(os);
+
+        return os.toByteArray();
     }
 
 
-    private XWPFDocument readFileToDocx(String path) throws IOException {
+    private XWPFDocument readBytesToDocx(byte[] bytes) throws IOException {
 
-        try (FileInputStream fis = new FileInputStream(path);) {
-            return new XWPFDocument(fis);
-        }
+        return new XWPFDocument(new ByteArrayInputStream(bytes));
     }
-}           
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Test class for {@link FragmentCache}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class FragmentCacheTest {
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+
+    @Test
+    void weigh_shouldGrowWithText() {
+
+        assertTrue(FragmentCache.weigh(List.of(createParagraph("a".repeat(100)))) > FragmentCache.weigh(List.of(createParagraph("a"))));
+    }
+
+
+    @Test
+    void computeIfAbsent_shouldEvictBySize() {
+
+        List<Paragraph> paragraphs = List.of(createParagraph("a".repeat(100)));
+        long weight = FragmentCache.weigh(paragraphs);
+        FragmentCache fragmentCache = new FragmentCache(DataSize.ofBytes(weight * 2), meterRegistry);
+
+        fragmentCache.computeIfAbsent("a", key -> paragraphs);
+        fragmentCache.computeIfAbsent("b", key -> paragraphs);
+        fragmentCache.computeIfAbsent("c", key -> paragraphs);
+
+        assertEquals(1, meterRegistry.get("formatter.fragment.cache.evictions").functionCounter().count());
+        assertEquals(weight * 2, meterRegistry.get("formatter.fragment.cache.size").gauge().value());
+    }
+
+
+    @Test
+    void computeIfAbsent_shouldCountHitsAndMisses() {
+
+        FragmentCache fragmentCache = new FragmentCache(FragmentCache.DEFAULT_SIZE, meterRegistry);
+        List<Paragraph> paragraphs = List.of(createParagraph("text"));
+
+        fragmentCache.computeIfAbsent("a", key -> paragraphs);
+        assertSame(paragraphs, fragmentCache.computeIfAbsent("a", key -> List.of()));
+
+        assertEquals(1, meterRegistry.get("formatter.fragment.cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("formatter.fragment.cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+
+    private static Paragraph createParagraph(String text) {
+
+        Paragraph paragraph = new Paragraph();
+        paragraph.createRun().addText(text);
+
+        return paragraph;
+    }
+}
@@ -18,6 +18,8 @@ import org.junit.jupiter.api.TestInstance.Lifecycle;
 
 import eu.tecfox.formatterservice.formatter.HeaderFooterFormatter;
 import eu.tecfox.formatterservice.formatter.ResourceHandler;
+import eu.tecfox.formatterservice.media.FileSystemMediaStore;
+import eu.tecfox.formatterservice.media.MediaLibrary;
 import eu.tecfox.formatterservice.template.models.Template;
 import eu.tecfox.formatterservice.testdata.TestDataGenerator;
 
@@ -32,6 +34,8 @@ import eu.tecfox.formatterservice.testdata.TestDataGenerator;
 public class HeaderFooterFormatterTest {
 
     private Template template;
+
+    private MediaLibrary mediaLibrary = new MediaLibrary(new FileSystemMediaStore(FileSystemMediaStore.DEFAULT_DIRECTORY), MediaLibrary.DEFAULT_CACHE_SIZE);
     
     private XWPFDocument document = new XWPFDocument();
     
@@ -49,7 +53,7 @@ public class HeaderFooterFormatterTest {
         this.template = TestDataGenerator.generateValidNewTemplate();
 
         // set headerFooterFormatter
-        this.headerFooterFormatter = new HeaderFooterFormatter(template, document);
+        this.headerFooterFormatter = new HeaderFooterFormatter(template, document, mediaLibrary);
 
         // add header and footer
         headerFooterFormatter.addHeaderAndFooter();
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.TabStop;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.style.Style;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link HtmlDocumentWriter}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class HtmlDocumentWriterTest {
+
+    @Test
+    void write_shouldContainContentStylesAndFooter() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        String html = write(template);
+
+        // content
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.contains(template.getTitle()));
+
+        // css class of the title style
+        Style titleStyle = template.getStyle();
+        assertTrue(html.contains("." + StyleRegistry.getRunStyleId(titleStyle) + "{"));
+
+        // footer
+        assertTrue(html.contains("class=\"footer"));
+        assertTrue(html.contains(template.getFooter().getRightSection().get(0)));
+    }
+
+
+    @Test
+    void write_shouldEscapeText() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        template.setTitle("<script>alert(1)</script>");
+
+        String html = write(template);
+
+        assertFalse(html.contains("<script>"));
+        assertTrue(html.contains("&lt;script&gt;"));
+    }
+
+
+    @Test
+    void accept_shouldPadTextInFrontOfTabUpToTabStop() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        String runClass = StyleRegistry.getRunStyleId(template.getStyle());
+
+        // first line starts at 36pt, the tab stop is at 144pt
+        Paragraph paragraph = new Paragraph();
+        paragraph.setIndent(1440, 720);
+        paragraph.addTabStop(new TabStop("left", 2880));
+
+        Run key = paragraph.createRun();
+        key.addText("Key");
+        key.addTab();
+        key.addText("Value");
+        key.addTab();
+
+        Run value = paragraph.createRun();
+        value.setStyle(template.getStyle());
+        value.addText("Styled");
+
+        HtmlDocumentWriter htmlDocumentWriter = createWriter(template);
+        htmlDocumentWriter.accept(paragraph);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        htmlDocumentWriter.write(outputStream);
+        String html = outputStream.toString(StandardCharsets.UTF_8);
+
+        // text before the tab is wrapped, no tab stop is left for the second tab
+        assertTrue(html.contains("<p style=\"padding-left:72.0pt;text-indent:-36.0pt\">" + 
+                                 "<span class=\"tab\" style=\"min-width:108.0pt\">Key</span>" + 
+                                 "Value\t" + 
+                                 "<span class=\"" + runClass + "\">Styled</span></p>"));
+    }
+
+
+    @Test
+    void accept_shouldKeepStyleOfRunAcrossTab() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+        String runClass = StyleRegistry.getRunStyleId(template.getStyle());
+
+        Paragraph paragraph = new Paragraph();
+        paragraph.addTabStop(new TabStop("left", 2000));
+
+        Run run = paragraph.createRun();
+        run.setStyle(template.getStyle());
+        run.addText("Key");
+        run.addTab();
+        run.addText("Value");
+
+        HtmlDocumentWriter htmlDocumentWriter = createWriter(template);
+        htmlDocumentWriter.accept(paragraph);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        htmlDocumentWriter.write(outputStream);
+
+        // span is closed inside the tab and opened again after it
+        assertTrue(outputStream.toString(StandardCharsets.UTF_8)
+                               .contains("<p><span class=\"tab\" style=\"min-width:100.0pt\">" + 
+                                         "<span class=\"" + runClass + "\">Key</span></span>" + 
+                                         "<span class=\"" + runClass + "\">Value</span></p>"));
+    }
+
+
+    private HtmlDocumentWriter createWriter(Template template) {
+
+        return new HtmlDocumentWriter(template, RENDER_SERVICES.getRenderPlanCache().getPlan(template), ContentHash.ofSections(template), RENDER_SERVICES);
+    }
+
+
+    private String write(Template template) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        createWriter(template).write(outputStream);
+
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
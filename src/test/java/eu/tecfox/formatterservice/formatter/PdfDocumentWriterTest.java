@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+
+import eu.tecfox.formatterservice.cache.ContentHash;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link PdfDocumentWriter}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class PdfDocumentWriterTest {
+
+    @Test
+    void write_shouldContainContentAndFooter() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new PdfDocumentWriter(template, RENDER_SERVICES.getRenderPlanCache().getPlan(template), ContentHash.ofSections(template), RENDER_SERVICES).write(outputStream);
+
+        PdfReader pdfReader = new PdfReader(outputStream.toByteArray());
+        try {
+            String firstPage = new PdfTextExtractor(pdfReader).getTextFromPage(1);
+
+            // title and footer should be on the first page
+            assertTrue(firstPage.contains(template.getTitle()));
+            assertTrue(firstPage.contains(template.getFooter().getLeftSection().get(0)));
+
+        } finally {
+            pdfReader.close();
+        }
+    }
+
+
+    @Test
+    void getColor_shouldParseShortAndLongHex() {
+
+        assertEquals(new Color(0x7F7F7F), PdfDocumentWriter.getColor("7F7F7F"));
+        assertEquals(new Color(0xFF0000), PdfDocumentWriter.getColor("F00"));
+        assertEquals(Color.BLACK, PdfDocumentWriter.getColor("invalid"));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.formatter.RenderPlan.ElementPlan;
+import eu.tecfox.formatterservice.formatter.RenderPlan.SectionPlan;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Test class for {@link RenderPlanCompiler}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RenderPlanCompilerTest {
+
+    private Template template;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        this.template = TestDataGenerator.generateValidNewTemplate();
+    }
+
+
+    @Test
+    void getVersion_shouldBeEqualForEqualTemplates() throws IOException {
+
+        Template otherTemplate = TestDataGenerator.generateValidNewTemplate();
+
+        assertEquals(RenderPlanCompiler.getVersion(template), RenderPlanCompiler.getVersion(otherTemplate));
+    }
+
+
+    @Test
+    void getVersion_shouldChangeWithStyle() {
+
+        String version = RenderPlanCompiler.getVersion(template);
+
+        // change style
+        template.getStyle().setBold(!template.getStyle().isBold());
+
+        assertNotEquals(version, RenderPlanCompiler.getVersion(template));
+    }
+
+
+    @Test
+    void getVersion_shouldIgnoreTitles() {
+
+        String version = RenderPlanCompiler.getVersion(template);
+
+        // change title
+        template.setTitle(template.getTitle() + " changed");
+
+        assertEquals(version, RenderPlanCompiler.getVersion(template));
+    }
+
+
+    @Test
+    void getVersion_shouldIgnoreNestedValueIdentifiers() {
+
+        String version = RenderPlanCompiler.getVersion(template);
+
+        // give every nested value a new identifier, like a profile adding entries does
+        getNestedElement().getValue().forEach(nestedValue -> ((SectionElement) nestedValue).setIdentifier(UUID.randomUUID().toString()));
+
+        assertEquals(version, RenderPlanCompiler.getVersion(template));
+    }
+
+
+    @Test
+    void getNestedValuePlan_shouldReusePlanForNewIdentifier() {
+
+        NestedElement nestedElement = getNestedElement();
+        SectionElement nestedValue = (SectionElement) nestedElement.getValue().get(0);
+        ElementPlan elementPlan = RenderPlanCompiler.compileElement(nestedElement, null, null);
+        ElementPlan nestedValuePlan = elementPlan.getNestedValuePlan(nestedValue);
+
+        nestedValue.setIdentifier(UUID.randomUUID().toString());
+
+        assertSame(nestedValuePlan, elementPlan.getNestedValuePlan(nestedValue));
+    }
+
+
+    @Test
+    void getPlan_shouldBeCachedByVersion() throws IOException {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RenderPlanCache renderPlanCache = new RenderPlanCache(RenderPlanCache.DEFAULT_SIZE, meterRegistry);
+
+        RenderPlan renderPlan = renderPlanCache.getPlan(template);
+
+        assertSame(renderPlan, renderPlanCache.getPlan(TestDataGenerator.generateValidNewTemplate()));
+        assertEquals(1, meterRegistry.get("formatter.plan.cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+
+    @Test
+    void compile_shouldResolveElementStyles() {
+
+        RenderPlan renderPlan = RenderPlanCompiler.compile(template, RenderPlanCompiler.getVersion(template));
+
+        assertEquals(template.getSections().size(), renderPlan.sections().size());
+
+        // should resolve style fall backs like StyleFormatter
+        for (int i = 0; i < template.getSections().size(); i++) {
+            Section section = template.getSections().get(i);
+            SectionPlan sectionPlan = renderPlan.sections().get(i);
+
+            for (SectionElement sectionElement : section.getElements()) {
+                ElementPlan elementPlan = sectionPlan.getElementPlan(sectionElement);
+
+                assertNotNull(elementPlan);
+                assertEquals(StyleFormatter.getKeyOrValueStyle(sectionElement, section.getStyleKey(), section.getStyleValue(), true), 
+                             elementPlan.styleKey());
+                assertEquals(StyleFormatter.getKeyOrValueStyle(sectionElement, section.getStyleKey(), section.getStyleValue(), false), 
+                             elementPlan.styleValue());
+            }
+        }
+    }
+
+
+    private NestedElement getNestedElement() {
+
+        return template.getSections()
+                       .stream()
+                       .flatMap(section -> section.getElements().stream())
+                       .filter(NestedElement.class::isInstance)
+                       .map(NestedElement.class::cast)
+                       .findFirst()
+                       .orElseThrow();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.formatter.model.RunContent;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Test class for {@link RunCoalescer}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RunCoalescerTest {
+
+    private Style style;
+
+    private Style boldStyle;
+
+
+    @BeforeEach
+    void setup() {
+
+        this.style = createStyle(false);
+        this.boldStyle = createStyle(true);
+    }
+
+
+    @Test
+    void coalesce_shouldMergeRunsWithSameStyle() {
+
+        Paragraph paragraph = new Paragraph();
+        addRun(paragraph, style, "Key:");
+        paragraph.createRun().setStyle(style);
+        addRun(paragraph, createStyle(false), "Value");
+        addRun(paragraph, boldStyle, "Bold");
+
+        RunCoalescer.coalesce(paragraph);
+
+        List<Run> runs = paragraph.getRuns();
+        assertEquals(2, runs.size());
+        assertEquals("Key:Value", runs.get(0).getText());
+        assertEquals("Bold", runs.get(1).getText());
+    }
+
+
+    @Test
+    void coalesce_shouldMergeAdjacentTexts() {
+
+        Paragraph paragraph = new Paragraph();
+        Run run = paragraph.createRun();
+        run.addText("a");
+        run.addText(", ");
+        run.addText("b");
+        run.addBreak();
+        run.addText("c");
+
+        RunCoalescer.coalesce(paragraph);
+
+        List<RunContent> contents = paragraph.getRuns().get(0).getContents();
+        assertEquals(List.of(new RunContent.Text("a, b"), RunContent.Break.INSTANCE, new RunContent.Text("c")), contents);
+    }
+
+
+    @Test
+    void coalesce_shouldRemoveEmptyRuns() {
+
+        Paragraph paragraph = new Paragraph();
+        paragraph.createRun();
+        paragraph.createRun().setStyle(boldStyle);
+
+        RunCoalescer.coalesce(paragraph);
+
+        assertTrue(paragraph.getRuns().isEmpty());
+    }
+
+
+    private void addRun(Paragraph paragraph, Style style, String text) {
+
+        Run run = paragraph.createRun();
+        run.setStyle(style);
+        run.addText(text);
+    }
+
+
+    private Style createStyle(boolean bold) {
+
+        Style style = new Style();
+        style.setFontFamily("Tahoma");
+        style.setFontSize(11);
+        style.setColor("000000");
+        style.setBold(bold);
+        style.setTextAlign(ParagraphAlignment.LEFT);
+
+        return style;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
+import eu.tecfox.formatterservice.formatter.model.Run;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Test class for {@link SectionExecutor}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class SectionExecutorTest {
+
+    private SectionExecutor sectionExecutor = new SectionExecutor(4, 1, 3);
+
+
+    @Test
+    void render_shouldKeepSectionOrder() {
+
+        // later sections finish first
+        List<Integer> results = sectionExecutor.render(16, i -> {
+            sleep(16 - i);
+            return i;
+        });
+
+        assertEquals(IntStream.range(0, 16).boxed().toList(), results);
+    }
+
+
+    @Test
+    void render_shouldHoldAtMostLookaheadSections() {
+
+        AtomicInteger heldSections = new AtomicInteger();
+        AtomicInteger maxHeldSections = new AtomicInteger();
+        List<Integer> results = new ArrayList<>();
+
+        sectionExecutor.render(16, i -> {
+            maxHeldSections.accumulateAndGet(heldSections.incrementAndGet(), Math::max);
+            return i;
+
+        }, i -> {
+            // slow sink, so rendering gets ahead
+            sleep(2);
+            heldSections.decrementAndGet();
+            results.add(i);
+        });
+
+        assertEquals(IntStream.range(0, 16).boxed().toList(), results);
+        assertTrue(maxHeldSections.get() <= sectionExecutor.getLookahead());
+    }
+
+
+    @Test
+    void render_shouldThrowExceptionOfSection() {
+
+        assertThrows(IllegalStateException.class, () -> sectionExecutor.render(4, i -> {
+            if (i == 2)
+                throw new IllegalStateException("section " + i);
+
+            return i;
+        }));
+    }
+
+
+    @Test
+    void addContent_shouldAddSectionsInTemplateOrder() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+
+        // unique titles, so no section comes from the cache
+        List<String> titles = new ArrayList<>();
+        for (Section section : template.getSections()) {
+            section.setShowTitle(true);
+            section.setTitle("section " + titles.size() + " " + System.nanoTime());
+            titles.add(section.getTitle());
+        }
+
+        List<String> texts = new ArrayList<>();
+        FragmentCache fragmentCache = new FragmentCache(FragmentCache.DEFAULT_SIZE, new SimpleMeterRegistry());
+        new SectionFormatter(template, paragraph -> texts.add(getText(paragraph)), sectionExecutor, fragmentCache).addContent();
+
+        // section titles (followed by their separator) should appear in template order
+        List<String> addedTitles = texts.stream()
+                                        .flatMap(text -> titles.stream().filter(text::startsWith))
+                                        .toList();
+        assertEquals(titles, addedTitles);
+    }
+
+
+    private static String getText(Paragraph paragraph) {
+
+        StringBuilder text = new StringBuilder();
+        for (Run run : paragraph.getRuns())
+            text.append(run.getText());
+
+        return text.toString().strip();
+    }
+
+
+    private static void sleep(long millis) {
+
+        try {
+            Thread.sleep(millis);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
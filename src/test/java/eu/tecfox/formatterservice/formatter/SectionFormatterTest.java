@@ -17,10 +17,17 @@ package eu.tecfox.formatterservice.formatter;
 
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
 import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
 import static org.junit.Assert.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
@@ -30,6 +37,7 @@ import org.junit.jupiter.api.Test;
 
 import eu.tecfox.formatterservice.formatter.ResourceHandler;
 import eu.tecfox.formatterservice.formatter.SectionFormatter;
+import eu.tecfox.formatterservice.formatter.model.Paragraph;
 import eu.tecfox.formatterservice.template.models.Template;
 import eu.tecfox.formatterservice.testdata.TestDataGenerator;
 
@@ -62,7 +70,7 @@ public class SectionFormatterTest {
         this.template = TestDataGenerator.generateValidNewTemplate();
 
         // create sectionFormatter
-        this.sectionFormatter = new SectionFormatter(template, document);
+        this.sectionFormatter = new SectionFormatter(template, document, RENDER_SERVICES);
 
         // add test content
         sectionFormatter.addContent();
@@ -83,4 +91,42 @@ public class SectionFormatterTest {
         // first run should have some text
         assertFalse(runs.get(0).text().isEmpty());
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void addContent_shouldRenderOnlyChangedSectionsAgain() {
+
+        List<Paragraph> paragraphs = render(template);
+        List<Paragraph> unchangedParagraphs = render(template);
+
+        // unchanged sections should be reused, only title and line breaks are new
+        int numReused = countSame(paragraphs, unchangedParagraphs);
+        assertEquals(paragraphs.size() - 1 - template.getSections().size(), numReused);
+
+        // change first section
+        template.getSections().get(0).setTitle("changed " + System.nanoTime());
+        List<Paragraph> changedParagraphs = render(template);
+
+        int numReusedAfterChange = countSame(paragraphs, changedParagraphs);
+        assertTrue(numReusedAfterChange < numReused);
+        assertTrue(numReusedAfterChange > 0);
+    }
+
+
+    private List<Paragraph> render(Template template) {
+
+        List<Paragraph> paragraphs = new ArrayList<>();
+        new SectionFormatter(template, paragraphs::add, RENDER_SERVICES).addContent();
+
+        return paragraphs;
+    }
+
+
+    private int countSame(List<Paragraph> paragraphs, List<Paragraph> otherParagraphs) {
+
+        Set<Paragraph> paragraphSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        paragraphSet.addAll(paragraphs);
+
+        return (int) otherParagraphs.stream().filter(paragraphSet::contains).count();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.INPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.formatter.ResourceHandler.OUTPUT_RESOURCE_PATH;
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.style.Style;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link StreamingDocxWriter}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class StreamingDocxWriterTest {
+
+    private Template template;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        // create resource folders
+        ResourceHandler.createDirs(INPUT_RESOURCE_PATH, OUTPUT_RESOURCE_PATH);
+
+        this.template = TestDataGenerator.generateValidNewTemplate();
+    }
+
+
+    @Test
+    void write_shouldHaveSameContentAsXwpf() throws IOException {
+
+        try (XWPFDocument xwpfDocument = render(RenderEngine.XWPF);
+             XWPFDocument streamedDocument = render(RenderEngine.STREAMING)) {
+
+            List<XWPFParagraph> expectedParagraphs = xwpfDocument.getParagraphs();
+            List<XWPFParagraph> paragraphs = streamedDocument.getParagraphs();
+
+            assertFalse(paragraphs.isEmpty());
+            assertEquals(expectedParagraphs.size(), paragraphs.size());
+
+            // should have same text, styles and indents
+            for (int i = 0; i < paragraphs.size(); i++) {
+                XWPFParagraph expectedParagraph = expectedParagraphs.get(i);
+                XWPFParagraph paragraph = paragraphs.get(i);
+
+                assertEquals(expectedParagraph.getText(), paragraph.getText());
+                assertEquals(expectedParagraph.getStyle(), paragraph.getStyle());
+                assertEquals(expectedParagraph.getIndentationLeft(), paragraph.getIndentationLeft());
+                assertEquals(expectedParagraph.getIndentationHanging(), paragraph.getIndentationHanging());
+                assertEquals(expectedParagraph.getRuns().size(), paragraph.getRuns().size());
+
+                for (int j = 0; j < paragraph.getRuns().size(); j++)
+                    assertEquals(expectedParagraph.getRuns().get(j).getStyle(), paragraph.getRuns().get(j).getStyle());
+            }
+
+            // should keep header, footer and section properties
+            assertEquals(xwpfDocument.getHeaderList().size(), streamedDocument.getHeaderList().size());
+            assertEquals(xwpfDocument.getFooterList().size(), streamedDocument.getFooterList().size());
+            assertEquals(xwpfDocument.getAllPictures().size(), streamedDocument.getAllPictures().size());
+        }
+    }
+
+
+    @Test
+    void write_shouldKeepSectionPropertiesLast() throws IOException {
+
+        try (XWPFDocument streamedDocument = render(RenderEngine.STREAMING)) {
+            assertEquals("sectPr", streamedDocument.getDocument().getBody().getDomNode().getLastChild().getLocalName());
+        }
+    }
+
+
+    @Test
+    void write_shouldAddStylesMissingInSkeleton() throws IOException {
+
+        // elements without identifier are not part of the plan, so neither are their styles
+        Section section = template.getSections().get(0);
+        SectionElement sectionElement = section.getElements().get(0);
+        sectionElement.setIdentifier(null);
+
+        Style styleKey = new Style();
+        styleKey.setFontFamily("Courier New");
+        styleKey.setFontSize(42);
+        styleKey.setColor("123456");
+        styleKey.setSeparator(section.getStyleKey().getSeparator());
+        sectionElement.setStyleKey(styleKey);
+
+        try (XWPFDocument streamedDocument = render(RenderEngine.STREAMING)) {
+            String styleId = StyleRegistry.getRunStyleId(styleKey);
+
+            assertTrue(streamedDocument.getStyles().styleExist(styleId));
+        }
+    }
+
+
+    private XWPFDocument render(RenderEngine renderEngine) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Formatter formatter = new Formatter(template, renderEngine, RENDER_SERVICES);
+        formatter.buildDocument();
+        formatter.writeDocument(outputStream);
+
+        return new XWPFDocument(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
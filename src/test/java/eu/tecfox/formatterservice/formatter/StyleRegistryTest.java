@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/** 
+ * Test class for {@link StyleRegistry}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class StyleRegistryTest {
+
+    private XWPFDocument document;
+
+    private StyleRegistry styleRegistry;
+
+    private Style style;
+
+
+    @BeforeEach
+    void setup() {
+
+        this.document = new XWPFDocument();
+        this.styleRegistry = new StyleRegistry(document);
+
+        this.style = new Style();
+        this.style.setFontFamily("Times New Roman");
+        this.style.setFontSize(11);
+        this.style.setColor("7F7F7F");
+        this.style.setBold(true);
+        this.style.setItalic(false);
+        this.style.setTextAlign(ParagraphAlignment.CENTER);
+        this.style.setStartOnNewPage(true);
+    }
+
+
+    @Test
+    void applyStyle_shouldReferenceRegisteredStyles() {
+
+        XWPFParagraph paragraph = document.createParagraph();
+        XWPFRun run = paragraph.createRun();
+
+        styleRegistry.applyStyle(paragraph, run, style);
+
+        assertEquals(StyleRegistry.getRunStyleId(style), run.getStyle());
+        assertEquals(StyleRegistry.getParagraphStyleId(style), paragraph.getStyle());
+        assertTrue(document.getStyles().styleExist(run.getStyle()));
+        assertTrue(document.getStyles().styleExist(paragraph.getStyle()));
+
+        // should not carry inline font properties
+        assertFalse(run.getCTR().isSetRPr() && run.getCTR().getRPr().sizeOfRFontsArray() > 0);
+    }
+
+
+    @Test
+    void registerRunStyle_shouldRegisterEqualStylesOnce() {
+
+        Style equalStyle = new Style();
+        equalStyle.setFontFamily(style.getFontFamily());
+        equalStyle.setFontSize(style.getFontSize());
+        equalStyle.setColor(style.getColor());
+        equalStyle.setBold(style.isBold());
+
+        int numStyles = document.getStyles().getNumberOfStyles();
+
+        assertEquals(styleRegistry.registerRunStyle(style), styleRegistry.registerRunStyle(equalStyle));
+        assertEquals(numStyles + 1, document.getStyles().getNumberOfStyles());
+    }
+
+
+    @Test
+    void getRunStyleId_shouldEscapeFontFamily() {
+
+        String styleId = StyleRegistry.getRunStyleId(style);
+
+        assertFalse(styleId.contains(" "));
+
+        // should not collide with other font families
+        style.setFontFamily("Times-New-Roman");
+        assertNotEquals(styleId, StyleRegistry.getRunStyleId(style));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.formatter;
+
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.converter.PooledDocumentConverter;
+import eu.tecfox.formatterservice.converter.XdocreportBackend;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link XwpfToPdf}, converting through the {@link XdocreportBackend}, and {@link FontRegistry}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class XwpfToPdfTest {
+
+    @Test
+    void writePdf_shouldConvertInMemory() throws IOException {
+
+        Template template = TestDataGenerator.generateValidNewTemplate();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // convert like the application does
+        PooledDocumentConverter documentConverter = new PooledDocumentConverter(new XdocreportBackend(RENDER_SERVICES.getFontRegistry()), 
+                                                                                1, 
+                                                                                1, 
+                                                                                1, 
+                                                                                Duration.ofMinutes(1), 
+                                                                                Duration.ofSeconds(1));
+        try {
+            new Formatter(template, RenderEngine.STREAMING, RENDER_SERVICES).writePdf(outputStream, documentConverter);
+
+        } finally {
+            documentConverter.close();
+        }
+
+        // should be a pdf
+        byte[] pdf = outputStream.toByteArray();
+        assertTrue(pdf.length > 0);
+        assertEquals("%PDF", new String(pdf, 0, 4));
+    }
+
+
+    @Test
+    void resolveFamily_shouldFallBackIfFontIsNotInstalled() {
+
+        FontRegistry fontRegistry = RENDER_SERVICES.getFontRegistry();
+
+        assertEquals(FontRegistry.DEFAULT_FALLBACK_FONT, fontRegistry.resolveFamily("Some Font That Does Not Exist"));
+        assertEquals(FontRegistry.DEFAULT_FALLBACK_FONT, fontRegistry.resolveFamily(null));
+    }
+}
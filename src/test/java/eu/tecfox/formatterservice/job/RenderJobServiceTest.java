@@ -0,0 +1,314 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.job;
+
+import static eu.tecfox.formatterservice.testdata.TestRenderServices.RENDER_SERVICES;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.tecfox.formatterservice.admission.AdmissionPermit;
+import eu.tecfox.formatterservice.admission.RenderAdmission;
+import eu.tecfox.formatterservice.admission.RenderCost;
+import eu.tecfox.formatterservice.artifact.Artifact;
+import eu.tecfox.formatterservice.artifact.FileSystemArtifactStore;
+import eu.tecfox.formatterservice.converter.PooledDocumentConverter;
+import eu.tecfox.formatterservice.converter.XdocreportBackend;
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.exception.TooManyRequestsException;
+import eu.tecfox.formatterservice.formatter.PdfRenderer;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+
+
+/**
+ * Test class for {@link RenderJobService}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RenderJobServiceTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(3);
+
+    @TempDir
+    Path directory;
+
+    private FileSystemArtifactStore artifactStore;
+
+    private RenderAdmission renderAdmission;
+
+    private PooledDocumentConverter documentConverter;
+
+    private RenderJobService renderJobService;
+
+    private Template template;
+
+    /** Keeps the single worker busy until counted down. */
+    private final CountDownLatch workerBlocker = new CountDownLatch(1);
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        this.artifactStore = new FileSystemArtifactStore(directory.toString(), 
+                                                                            Duration.ofMinutes(1), 
+                                                                            DataSize.ofMegabytes(10), 
+                                                                            DataSize.ofMegabytes(10), 
+                                                                            Duration.ofMinutes(1));
+
+        this.renderAdmission = new RenderAdmission(RENDER_SERVICES.getMediaLibrary(), 
+                                                   RENDER_SERVICES.getSectionExecutor(), 
+                                                   DataSize.ofMegabytes(64), 
+                                                   4, 
+                                                   Duration.ofMillis(50), 
+                                                   RETRY_AFTER);
+
+        this.documentConverter = new PooledDocumentConverter(new XdocreportBackend(RENDER_SERVICES.getFontRegistry()), 
+                                                             1, 
+                                                             10, 
+                                                             1, 
+                                                             Duration.ofMinutes(1), 
+                                                             RETRY_AFTER);
+
+        this.renderJobService = new RenderJobService(artifactStore, 
+                                                     new ObjectMapper(), 
+                                                     RENDER_SERVICES, 
+                                                     renderAdmission,
+                                                     documentConverter,
+                                                     1, 
+                                                     1, 
+                                                     Duration.ofMinutes(1), 
+                                                     Duration.ofMinutes(1), 
+                                                     List.of("callbacks.example.org"), 
+                                                     RETRY_AFTER,
+                                                     Duration.ofMillis(50));
+        this.template = TestDataGenerator.generateValidNewTemplate();
+    }
+
+
+    @AfterEach
+    void cleanUp() {
+
+        workerBlocker.countDown();
+        documentConverter.close();
+    }
+
+
+    @Test
+    void submit_shouldRenderDocument() throws Exception {
+
+        RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, null, null);
+        assertEquals(RenderJobStatus.QUEUED, job.status());
+
+        // wait for job
+        RenderJob finishedJob = awaitFinished(job.id());
+
+        assertEquals(RenderJobStatus.SUCCEEDED, finishedJob.status());
+        assertTrue(renderJobService.getResult(job.id()).size() > 0);
+    }
+
+
+    @Test
+    void submit_shouldConvertPdf() throws Exception {
+
+        RenderJob job = renderJobService.submit(template, RenderEngine.STREAMING, PdfRenderer.CONVERTER, null);
+
+        // converting needs the whole document
+        assertEquals(RenderEngine.XWPF, job.renderEngine());
+
+        assertPdf(awaitFinished(job.id()));
+    }
+
+
+    @Test
+    void submit_shouldWriteNativePdf() throws Exception {
+
+        RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, PdfRenderer.NATIVE, null);
+        assertEquals(RenderEngine.STREAMING, job.renderEngine());
+
+        assertPdf(awaitFinished(job.id()));
+    }
+
+
+    @Test
+    void submit_shouldFailWithoutBudget() throws Exception {
+
+        // use up the whole budget
+        AdmissionPermit admissionPermit = renderAdmission.admit(new RenderCost(Long.MAX_VALUE, Integer.MAX_VALUE));
+        try {
+            RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, null, null);
+            RenderJob finishedJob = awaitFinished(job.id());
+
+            // message meant for clients is kept
+            assertEquals(RenderJobStatus.FAILED, finishedJob.status());
+            assertEquals("Too many documents are being formatted at the moment, try again later.", finishedJob.error());
+
+        } finally {
+            admissionPermit.close();
+        }
+
+        // budget given back
+        RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, null, null);
+        assertEquals(RenderJobStatus.SUCCEEDED, awaitFinished(job.id()).status());
+    }
+
+
+    @Test
+    void submit_shouldBeTooManyRequestsIfQueueIsFull() {
+
+        // occupy worker and queue
+        renderJobService.getWorkers().execute(this::blockWorker);
+        renderJobService.getWorkers().execute(this::blockWorker);
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> renderJobService.submit(template, RenderEngine.XWPF, null, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        assertEquals(RETRY_AFTER, exception.getRetryAfter());
+    }
+
+
+    @Test
+    void submit_shouldBeBadRequestIfCallbackUrlIsInvalid() {
+
+        assertThrows(ApiRequestException.class, () -> renderJobService.submit(template, RenderEngine.XWPF, null, "file:///etc/passwd"));
+    }
+
+
+    @Test
+    void submit_shouldBeBadRequestIfCallbackHostIsNotAllowed() {
+
+        ApiRequestException exception = assertThrows(ApiRequestException.class, 
+                                                      () -> renderJobService.submit(template, RenderEngine.XWPF, null, "http://169.254.169.254/latest/meta-data"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getHttpStatus());
+    }
+
+
+    @Test
+    void submit_shouldAcceptCallbackOnAllowedHost() {
+
+        // occupy worker, the callback is never posted
+        renderJobService.getWorkers().execute(this::blockWorker);
+
+        RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, null, "https://Callbacks.example.org/jobs");
+
+        assertEquals(RenderJobStatus.QUEUED, job.status());
+    }
+
+
+    @Test
+    void getResult_shouldBeConflictIfJobIsNotFinished() {
+
+        // occupy worker
+        renderJobService.getWorkers().execute(this::blockWorker);
+
+        RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, null, null);
+
+        ApiRequestException exception = assertThrows(ApiRequestException.class, () -> renderJobService.getResult(job.id()));
+        assertEquals(HttpStatus.CONFLICT, exception.getHttpStatus());
+    }
+
+
+    @Test
+    void find_shouldBeEmptyIfUnknown() {
+
+        assertFalse(renderJobService.find("unknown").isPresent());
+    }
+
+
+    @Test
+    void removeExpiredJobs_shouldForgetOnlyFinishedJobsAfterRetention() throws Exception {
+
+        this.renderJobService = new RenderJobService(artifactStore, 
+                                                     new ObjectMapper(), 
+                                                     RENDER_SERVICES, 
+                                                     renderAdmission,
+                                                     documentConverter,
+                                                     1, 
+                                                     1, 
+                                                     Duration.ZERO, 
+                                                     Duration.ofMinutes(1), 
+                                                     List.of("callbacks.example.org"), 
+                                                     RETRY_AFTER,
+                                                     Duration.ofMillis(50));
+
+        RenderJob job = renderJobService.submit(template, RenderEngine.XWPF, null, null);
+        awaitFinished(job.id());
+
+        // let the retention pass
+        Thread.sleep(10);
+
+        assertEquals(1, renderJobService.removeExpiredJobs());
+        assertFalse(renderJobService.find(job.id()).isPresent());
+    }
+
+
+    private RenderJob awaitFinished(String id) throws InterruptedException {
+
+        for (int i = 0; i < 300; i++) {
+            RenderJob job = renderJobService.find(id).orElseThrow();
+
+            if (job.status().isFinished())
+                return job;
+
+            Thread.sleep(100);
+        }
+
+        throw new AssertionError("Job " + id + " did not finish in time.");
+    }
+
+
+    private void assertPdf(RenderJob finishedJob) throws IOException {
+
+        assertEquals(RenderJobStatus.SUCCEEDED, finishedJob.status());
+
+        Artifact artifact = renderJobService.getResult(finishedJob.id());
+        assertEquals("application/pdf", artifact.contentType());
+
+        try (InputStream pdf = artifactStore.open(artifact.id())) {
+            assertArrayEquals("%PDF".getBytes(), pdf.readNBytes(4));
+        }
+    }
+
+
+    private void blockWorker() {
+
+        try {
+            workerBlocker.await();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
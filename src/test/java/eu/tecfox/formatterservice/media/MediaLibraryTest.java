@@ -0,0 +1,219 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.media;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+
+
+/**
+ * Test class for {@link MediaLibrary}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class MediaLibraryTest {
+
+    private static final String LOGO_PATH = "./inputResources/TecFox_Logo.png";
+
+    @TempDir
+    private Path directory;
+
+    private MediaLibrary mediaLibrary;
+
+    private byte[] logo;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        this.mediaLibrary = new MediaLibrary(new FileSystemMediaStore(directory.toString()), DataSize.ofMegabytes(1));
+        this.logo = Files.readAllBytes(Paths.get(LOGO_PATH));
+    }
+
+
+    @Test
+    void save_shouldBeContentAddressed() {
+
+        MediaInfo mediaInfo = mediaLibrary.save(logo);
+
+        assertEquals(MediaLibrary.hash(logo), mediaInfo.hash());
+        assertEquals("image/png", mediaInfo.contentType());
+        assertTrue(Files.exists(directory.resolve(mediaInfo.hash())));
+
+        // saving again should give same hash
+        assertEquals(mediaInfo, mediaLibrary.save(logo.clone()));
+    }
+
+
+    @Test
+    void find_shouldLoadFromStore() {
+
+        String hash = mediaLibrary.save(logo).hash();
+
+        // new library with empty cache
+        MediaLibrary otherMediaLibrary = new MediaLibrary(new FileSystemMediaStore(directory.toString()), DataSize.ofMegabytes(1));
+
+        assertArrayEquals(logo, otherMediaLibrary.find(hash).orElseThrow());
+        assertTrue(otherMediaLibrary.find(MediaLibrary.hash(new byte[] {1})).isEmpty());
+    }
+
+
+    @Test
+    void find_shouldThrowIfHashInvalid() {
+
+        assertThrows(ApiRequestException.class, () -> mediaLibrary.find("../TecFox_Logo.png"));
+    }
+
+
+    @Test
+    void findFile_shouldReadFile() {
+
+        assertArrayEquals(logo, mediaLibrary.findFile(LOGO_PATH).orElseThrow());
+        assertTrue(mediaLibrary.findFile("./inputResources/noLogo.png").isEmpty());
+    }
+
+
+    @Test
+    void getLogoSize_shouldPreferHashOverPath() {
+
+        Header header = new Header();
+        header.setLogo(LOGO_PATH);
+        assertEquals(logo.length, mediaLibrary.getLogoSize(header));
+
+        // case: referenced by hash, path is ignored
+        header.setLogoHash(mediaLibrary.save(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00}).hash());
+        assertEquals(4, mediaLibrary.getLogoSize(header));
+
+        // case: invalid hash or no header
+        header.setLogoHash("../TecFox_Logo.png");
+        assertEquals(0, mediaLibrary.getLogoSize(header));
+        assertEquals(0, mediaLibrary.getLogoSize(null));
+    }
+
+
+    @Test
+    void getLogoSize_shouldRememberUnknownHashForMissTtl() {
+
+        AtomicInteger numLoads = new AtomicInteger();
+        MediaLibrary countingMediaLibrary = new MediaLibrary(countingMediaStore(numLoads), DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+
+        Header header = new Header();
+        header.setLogoHash(MediaLibrary.hash(logo));
+
+        assertEquals(0, countingMediaLibrary.getLogoSize(header));
+        assertEquals(0, countingMediaLibrary.getLogoSize(header));
+        assertEquals(1, numLoads.get());
+
+        // case: saved in the meantime
+        countingMediaLibrary.save(logo);
+        assertEquals(logo.length, countingMediaLibrary.getLogoSize(header));
+        assertEquals(1, numLoads.get());
+    }
+
+
+    @Test
+    void getLogoSize_shouldLookUpUnknownHashAgainAfterMissTtl() {
+
+        AtomicInteger numLoads = new AtomicInteger();
+        MediaLibrary countingMediaLibrary = new MediaLibrary(countingMediaStore(numLoads), DataSize.ofMegabytes(1), Duration.ZERO);
+
+        Header header = new Header();
+        header.setLogoHash(MediaLibrary.hash(logo));
+
+        assertEquals(0, countingMediaLibrary.getLogoSize(header));
+        assertEquals(1, numLoads.get());
+
+        // case: saved by another instance
+        new MediaLibrary(new FileSystemMediaStore(directory.toString()), DataSize.ofMegabytes(1)).save(logo);
+
+        assertEquals(logo.length, countingMediaLibrary.getLogoSize(header));
+        assertEquals(2, numLoads.get());
+
+        // known size never expires
+        assertEquals(logo.length, countingMediaLibrary.getLogoSize(header));
+        assertEquals(2, numLoads.get());
+    }
+
+
+    @Test
+    void getLogoHash_shouldChangeIfLogoFileIsReplaced() throws IOException {
+
+        Path logoFile = Files.write(directory.resolve("logo.png"), logo);
+
+        Header header = new Header();
+        header.setLogo(logoFile.toString());
+        assertEquals(MediaLibrary.hash(logo), mediaLibrary.getLogoHash(header));
+
+        // replace file, with another modification time
+        byte[] otherLogo = new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00};
+        Files.write(logoFile, otherLogo);
+        Files.setLastModifiedTime(logoFile, FileTime.fromMillis(Files.getLastModifiedTime(logoFile).toMillis() + 10_000));
+
+        assertEquals(MediaLibrary.hash(otherLogo), mediaLibrary.getLogoHash(header));
+
+        // case: referenced by hash, missing file or no header
+        header.setLogoHash("a".repeat(64));
+        assertEquals("a".repeat(64), mediaLibrary.getLogoHash(header));
+        header.setLogoHash(null);
+        header.setLogo("./inputResources/noLogo.png");
+        assertNull(mediaLibrary.getLogoHash(header));
+        assertNull(mediaLibrary.getLogoHash(null));
+    }
+
+
+    @Test
+    void detect_shouldUseMagicBytes() {
+
+        assertEquals(PictureFormat.PNG, PictureFormat.detect(logo));
+        assertEquals(PictureFormat.JPEG, PictureFormat.detect(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00}));
+        assertThrows(ApiRequestException.class, () -> mediaLibrary.save("no picture".getBytes()));
+    }
+
+
+    private FileSystemMediaStore countingMediaStore(AtomicInteger numLoads) {
+
+        return new FileSystemMediaStore(directory.toString()) {
+
+            @Override
+            public Optional<byte[]> load(String hash) {
+
+                numLoads.incrementAndGet();
+                return super.load(hash);
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.tecfox.formatterservice.formatter.Formatter;
+import eu.tecfox.formatterservice.formatter.RenderEngine;
+import eu.tecfox.formatterservice.formatter.RenderServices;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Test class for {@link RenderMetrics}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RenderMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RenderServices renderServices;
+
+    private Template template;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        // passed to the formatter
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.renderServices = RenderServices.createStandalone(meterRegistry);
+
+        this.template = TestDataGenerator.generateValidNewTemplate();
+    }
+
+
+    @Test
+    void formatter_shouldTimeStagesAndRecordSizes() throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Formatter formatter = new Formatter(template, RenderEngine.XWPF, renderServices);
+        formatter.buildDocument();
+        formatter.writeDocument(outputStream);
+
+        assertEquals(1, getStageCount(RenderStage.CONTENT));
+        assertEquals(1, getStageCount(RenderStage.WRITE));
+
+        // output size should match what has been written
+        DistributionSummary outputSize = meterRegistry.get("formatter.render.output.size").tag("format", "docx").summary();
+        assertEquals(outputStream.size(), outputSize.totalAmount());
+
+        // template recorded once per render
+        DistributionSummary sections = meterRegistry.get("formatter.render.sections").summary();
+        assertEquals(1, sections.count());
+        assertEquals(template.getSections().size(), sections.max());
+        assertTrue(meterRegistry.get("formatter.render.elements").summary().max() > 0);
+
+        // nothing in flight anymore
+        assertEquals(0, meterRegistry.get("formatter.render.active").longTaskTimer().activeTasks());
+    }
+
+
+    @Test
+    void formatter_shouldCountRenderAsInFlightUntilWritten() throws IOException {
+
+        LongTaskTimer activeRenders = meterRegistry.get("formatter.render.active").longTaskTimer();
+
+        Formatter formatter = new Formatter(template, RenderEngine.XWPF, renderServices);
+        formatter.buildDocument();
+
+        // still in flight between building and writing
+        assertEquals(1, activeRenders.activeTasks());
+
+        formatter.writeDocument(new ByteArrayOutputStream());
+        assertEquals(0, activeRenders.activeTasks());
+        assertEquals(1, meterRegistry.get("formatter.render.sections").summary().count());
+    }
+
+
+    @Test
+    void finishRender_shouldStopRenderThatIsNeverWritten() {
+
+        Formatter formatter = new Formatter(template, RenderEngine.XWPF, renderServices);
+        formatter.buildDocument();
+
+        // e.g. request timed out, called by the body and the completion callback
+        formatter.finishRender();
+        formatter.finishRender();
+
+        assertEquals(0, meterRegistry.get("formatter.render.active").longTaskTimer().activeTasks());
+    }
+
+
+    @Test
+    void formatter_shouldTimeHtmlAsWrite() throws IOException {
+
+        new Formatter(template, RenderEngine.STREAMING, renderServices).writeHtml(new ByteArrayOutputStream());
+
+        assertEquals(1, getStageCount(RenderStage.WRITE));
+        assertEquals(1, meterRegistry.get("formatter.render.output.size").tag("format", "html").summary().count());
+    }
+
+
+    private long getStageCount(RenderStage renderStage) {
+
+        return meterRegistry.get("formatter.render.stage").tag("stage", renderStage.getTag()).timer().count();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.recording;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Test class for {@link RequestRecordingFilter}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class RequestRecordingFilterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    private Path tempDir;
+
+    private Path file;
+
+    private RequestRecordingFilter requestRecordingFilter;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        this.file = tempDir.resolve("recordings/requests.jsonl");
+        this.requestRecordingFilter = new RequestRecordingFilter(OBJECT_MAPPER, file.toString(), DataSize.ofKilobytes(1));
+    }
+
+
+    @AfterEach
+    void cleanUp() throws IOException {
+
+        requestRecordingFilter.close();
+    }
+
+
+    @Test
+    void doFilter_shouldRecordReplayableRequest() throws ServletException, IOException {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/formatter");
+        request.setQueryString("format=pdf");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.addHeader(HttpHeaders.AUTHORIZATION, "secret");
+        request.setContent("{\"sections\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        requestRecordingFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet()));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+
+        RecordedRequest recordedRequest = OBJECT_MAPPER.readValue(lines.get(0), RecordedRequest.class);
+        assertEquals("POST", recordedRequest.method());
+        assertEquals("/api/formatter", recordedRequest.path());
+        assertEquals("format=pdf", recordedRequest.query());
+        assertEquals("{\"sections\":[]}", recordedRequest.body());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, recordedRequest.headers().get(HttpHeaders.CONTENT_TYPE));
+
+        // case: never record credentials
+        assertFalse(recordedRequest.headers().containsKey(HttpHeaders.AUTHORIZATION));
+    }
+
+
+    @Test
+    void doFilter_shouldAppendOneLinePerRequest() throws ServletException, IOException {
+
+        requestRecordingFilter.doFilter(new MockHttpServletRequest("GET", "/api/template"), new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet()));
+        requestRecordingFilter.doFilter(new MockHttpServletRequest("GET", "/api/template/example"), new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet()));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+
+        // case: no body
+        assertNull(OBJECT_MAPPER.readValue(lines.get(0), RecordedRequest.class).body());
+        assertEquals("/api/template/example", OBJECT_MAPPER.readValue(lines.get(1), RecordedRequest.class).path());
+    }
+
+
+    @Test
+    void doFilter_shouldNotRecordOtherPaths() throws ServletException, IOException {
+
+        requestRecordingFilter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet()));
+        requestRecordingFilter.doFilter(new MockHttpServletRequest("POST", "/api/formatter/batch"), new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet()));
+
+        assertEquals(0, Files.readAllLines(file).size());
+    }
+
+
+    @Test
+    void doFilter_shouldNotRecordTooLargeBody() throws ServletException, IOException {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/formatter");
+        request.setContent(new byte[(int) DataSize.ofKilobytes(2).toBytes()]);
+
+        requestRecordingFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet()));
+
+        assertEquals(0, Files.readAllLines(file).size());
+    }
+
+
+    /**
+     * Reads the request body, like a controller would.
+     */
+    private static class ReadingServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+            request.getInputStream().readAllBytes();
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -93,4 +94,31 @@ class TemplateControllerTest {
                 .contentType("application/json"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void Should_GetNamedTemplateIfExists() throws Exception {
+        when(templateService.getTemplate("customer-en")).thenReturn(Optional.of(new Template()));
+        this.mvc.perform(get("/api/template/customer-en"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"));
+    }
+
+    @Test
+    void Should_ReturnNotFound_If_NamedTemplateDoesNotExist() throws Exception {
+        when(templateService.getTemplate("customer-en")).thenReturn(Optional.empty());
+        this.mvc.perform(get("/api/template/customer-en"))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.message").value("No template customer-en found."));
+    }
+
+    @Test
+    void Should_SaveNamedTemplate_If_TemplateIsValid() throws Exception {
+        Template template = TestDataGenerator.generateValidTemplate();
+        when(templateService.saveTemplate(argThat(saved -> "customer-en".equals(saved.getName())))).thenReturn(template);
+        this.mvc.perform(post("/api/template/customer-en")
+                .content(mapper.writeValueAsString(template))
+                .contentType("application/json"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"));
+    }
+}
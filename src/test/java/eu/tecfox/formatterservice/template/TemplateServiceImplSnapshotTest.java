@@ -0,0 +1,273 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import eu.tecfox.formatterservice.exception.ApiRequestException;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringElement;
+import eu.tecfox.formatterservice.testdata.TestDataGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Test class for the template snapshots and the named templates of {@link TemplateServiceImpl}, without 
+ * database.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class TemplateServiceImplSnapshotTest {
+
+    private TemplateRepository templateRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TemplateServiceImpl templateService;
+
+    private Template storedTemplate;
+
+    private Template namedTemplate;
+
+
+    @BeforeEach
+    void setup() throws IOException {
+
+        this.storedTemplate = TestDataGenerator.generateValidNewTemplate();
+        storedTemplate.setId("stored");
+
+        this.namedTemplate = TestDataGenerator.generateValidNewTemplate();
+        namedTemplate.setId("named");
+        namedTemplate.setName("customer-en");
+        namedTemplate.setTitle("Customer profile");
+
+        this.templateRepository = mock(TemplateRepository.class);
+        when(templateRepository.findFirstByNameIsNull()).thenReturn(Optional.of(storedTemplate));
+        when(templateRepository.findByName(anyString())).thenReturn(Optional.empty());
+        when(templateRepository.findByName("customer-en")).thenReturn(Optional.of(namedTemplate));
+        when(templateRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.templateService = new TemplateServiceImpl(templateRepository, new TemplateCache(2, TemplateCache.DEFAULT_TTL, meterRegistry), TemplateServiceImpl.DEFAULT_SNAPSHOT_TTL);
+    }
+
+
+    @Test
+    void getTemplate_shouldQueryDatabaseOnce() {
+
+        for (int i = 0; i < 5; i++)
+            assertEquals("stored", templateService.getTemplate().orElseThrow().getId());
+
+        verify(templateRepository, times(1)).findFirstByNameIsNull();
+        verify(templateRepository, never()).findAll();
+    }
+
+
+    @Test
+    void getTemplate_shouldReloadExpiredSnapshot() throws IOException {
+
+        TemplateServiceImpl expiringTemplateService = new TemplateServiceImpl(templateRepository, new TemplateCache(2, TemplateCache.DEFAULT_TTL, meterRegistry), Duration.ZERO);
+        assertEquals(storedTemplate.getTitle(), expiringTemplateService.getTemplate().orElseThrow().getTitle());
+
+        // case: saved by another instance
+        Template savedTemplate = TestDataGenerator.generateValidNewTemplate();
+        savedTemplate.setId("stored");
+        savedTemplate.setTitle("saved elsewhere");
+        when(templateRepository.findFirstByNameIsNull()).thenReturn(Optional.of(savedTemplate));
+
+        assertEquals("saved elsewhere", expiringTemplateService.getTemplate().orElseThrow().getTitle());
+        verify(templateRepository, times(2)).findFirstByNameIsNull();
+    }
+
+
+    @Test
+    void getTemplate_shouldReturnCopies() {
+
+        Template template = templateService.getTemplate().orElseThrow();
+        template.setTitle("modified by caller");
+
+        Template otherTemplate = templateService.getTemplate().orElseThrow();
+
+        assertNotSame(template, otherTemplate);
+        assertEquals(storedTemplate.getTitle(), otherTemplate.getTitle());
+    }
+
+
+    @Test
+    void saveTemplate_shouldPublishSnapshotAfterWrite() throws IOException {
+
+        Template template = TestDataGenerator.generateValidTemplate();
+        template.setTitle("new title");
+
+        Template savedTemplate = templateService.saveTemplate(template);
+
+        // case: overrides the existing template
+        assertEquals("stored", savedTemplate.getId());
+        assertEquals("new title", templateService.getTemplate().orElseThrow().getTitle());
+
+        verify(templateRepository, times(1)).findFirstByNameIsNull();
+    }
+
+
+    @Test
+    void saveTemplate_shouldKeepSnapshotIfWriteFails() throws IOException {
+
+        when(templateRepository.save(any())).thenThrow(new IllegalStateException("write failed"));
+
+        Template template = TestDataGenerator.generateValidTemplate();
+        template.setTitle("new title");
+
+        assertThrows(IllegalStateException.class, () -> templateService.saveTemplate(template));
+
+        assertEquals(storedTemplate.getTitle(), templateService.getTemplate().orElseThrow().getTitle());
+    }
+
+
+    @Test
+    void getTemplate_shouldBeEmptyWithoutTemplate() {
+
+        when(templateRepository.findFirstByNameIsNull()).thenReturn(Optional.empty());
+
+        assertTrue(templateService.getTemplate().isEmpty());
+    }
+
+
+    @Test
+    void getTemplateByName_shouldCacheTemplate() {
+
+        for (int i = 0; i < 5; i++)
+            assertEquals("Customer profile", templateService.getTemplate("customer-en").orElseThrow().getTitle());
+
+        verify(templateRepository, times(1)).findByName("customer-en");
+
+        assertEquals(4, meterRegistry.get("formatter.template.cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("formatter.template.cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, meterRegistry.get("formatter.template.cache.size").gauge().value());
+    }
+
+
+    @Test
+    void getTemplateByName_shouldReloadExpiredTemplate() {
+
+        SimpleMeterRegistry expiringMeterRegistry = new SimpleMeterRegistry();
+        TemplateServiceImpl expiringTemplateService = new TemplateServiceImpl(templateRepository, new TemplateCache(2, Duration.ZERO, expiringMeterRegistry), TemplateServiceImpl.DEFAULT_SNAPSHOT_TTL);
+        assertEquals("Customer profile", expiringTemplateService.getTemplate("customer-en").orElseThrow().getTitle());
+
+        // case: saved by another instance
+        namedTemplate.setTitle("saved elsewhere");
+
+        assertEquals("saved elsewhere", expiringTemplateService.getTemplate("customer-en").orElseThrow().getTitle());
+        verify(templateRepository, times(2)).findByName("customer-en");
+        assertEquals(2, expiringMeterRegistry.get("formatter.template.cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+
+    @Test
+    void getTemplateByName_shouldNotCacheUnknownNames() {
+
+        assertTrue(templateService.getTemplate("unknown").isEmpty());
+        assertTrue(templateService.getTemplate("unknown").isEmpty());
+
+        verify(templateRepository, times(2)).findByName("unknown");
+    }
+
+
+    @Test
+    void getTemplateByName_shouldRejectInvalidNames() {
+
+        assertThrows(ApiRequestException.class, () -> templateService.getTemplate("../other"));
+        assertThrows(ApiRequestException.class, () -> templateService.getTemplate(""));
+    }
+
+
+    @Test
+    void saveTemplate_withName_shouldOnlyReplaceTemplateWithThisName() throws IOException {
+
+        Template template = TestDataGenerator.generateValidTemplate();
+        template.setName("customer-en");
+        template.setTitle("new title");
+
+        assertEquals("named", templateService.saveTemplate(template).getId());
+        assertEquals("new title", templateService.getTemplate("customer-en").orElseThrow().getTitle());
+        assertEquals(storedTemplate.getTitle(), templateService.getTemplate().orElseThrow().getTitle());
+
+        // case: new name
+        Template otherTemplate = TestDataGenerator.generateValidTemplate();
+        otherTemplate.setName("customer-de");
+
+        assertNull(templateService.saveTemplate(otherTemplate).getId());
+        assertEquals(otherTemplate.getTitle(), templateService.getTemplate("customer-de").orElseThrow().getTitle());
+    }
+
+
+    @Test
+    void fillTemplate_shouldTakeValuesOfProfile() throws IOException {
+
+        Section templateSection = namedTemplate.getSections().get(0);
+        SectionElement templateElement = templateSection.getElements().get(0);
+
+        // profile with values for the first element of the first section only
+        StringElement profileElement = new StringElement();
+        profileElement.setIdentifier(templateElement.getIdentifier());
+        profileElement.setKey(templateElement.getKeyString());
+        profileElement.setValue("value of profile");
+
+        Section profileSection = new Section();
+        profileSection.setIdentifier(templateSection.getIdentifier());
+        profileSection.setElements(new ArrayList<>(List.of(profileElement)));
+
+        Template profile = new Template();
+        profile.setSections(new ArrayList<>(List.of(profileSection)));
+
+        Template template = templateService.fillTemplate("customer-en", profile);
+
+        assertEquals("Customer profile", template.getTitle());
+        assertEquals(1, template.getSections().size());
+        assertEquals(1, template.getSections().get(0).getElements().size());
+        assertEquals("value of profile", template.getSections().get(0).getElements().get(0).getValue());
+
+        // case: cached template not modified
+        assertEquals(namedTemplate.getSections().size(), templateService.getTemplate("customer-en").orElseThrow().getSections().size());
+
+        // case: unknown template
+        ApiRequestException e = assertThrows(ApiRequestException.class, () -> templateService.fillTemplate("unknown", profile));
+        assertEquals(HttpStatus.NOT_FOUND, e.getHttpStatus());
+    }
+}
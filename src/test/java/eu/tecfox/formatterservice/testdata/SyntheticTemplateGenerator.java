@@ -0,0 +1,439 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.testdata;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.imageio.ImageIO;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.elements.Footer;
+import eu.tecfox.formatterservice.template.models.elements.Header;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.DateElement;
+import eu.tecfox.formatterservice.template.models.section.elements.DateRange;
+import eu.tecfox.formatterservice.template.models.section.elements.DateRangeElement;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedKey;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedValue;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringListElement;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.Separator;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.SeparatorCategory;
+import eu.tecfox.formatterservice.template.models.section.elements.separator.SeparatorValue;
+import eu.tecfox.formatterservice.template.models.style.Style;
+
+
+/**
+ * Generates valid {@link Template}s of any size for tests, benchmarks and load tests.
+ * <p>
+ * Numbers of sections and elements, string list lengths, nested values, number of distinct styles and 
+ * logo size are configurable. Element types, texts and styles are chosen at random, but the same 
+ * configuration and seed always generate the same template (including identifiers and logo).
+ * <p>
+ * Usage: {@code new SyntheticTemplateGenerator().sections(16).elements(32).seed(42).generate()}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class SyntheticTemplateGenerator {
+
+    private static final List<String> FONTS = List.of("Tahoma", "Arial", "Calibri", "Times New Roman", "Courier New");
+
+    private static final List<ParagraphAlignment> ALIGNMENTS = List.of(ParagraphAlignment.LEFT, ParagraphAlignment.CENTER, ParagraphAlignment.RIGHT);
+
+    /** Separators as used by real templates. */
+    private static final List<Separator> SEPARATORS = List.of(new Separator(SeparatorValue.LINE_BREAK, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.COMMA, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.INDENT, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.TAB, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.SPACE, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.COLON, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.DASH, SeparatorCategory.BEHIND), 
+                                                              new Separator(SeparatorValue.BULLETPOINT, SeparatorCategory.IN_FRONT));
+
+    private static final List<String> WORDS = List.of("Lorem", "ipsum", "dolor", "sit", "amet", "consetetur", "sadipscing", 
+                                                      "elitr", "sed", "diam", "nonumy", "eirmod", "tempor", "invidunt", "Java", 
+                                                      "Spring", "Backend", "Planung", "Beratung", "Entwicklung", "Architektur");
+
+    private int numSections = 8;
+
+    private int numElements = 8;
+
+    private int listLength = 8;
+
+    private int numNestedValues = 4;
+
+    private int numStyles = 4;
+
+    private int logoSize = 0;
+
+    private MediaLibrary mediaLibrary;
+
+    private long seed = 1;
+
+
+    /**
+     * @param numSections number of sections, at least 1.
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator sections(int numSections) {
+
+        this.numSections = Math.max(numSections, 1);
+        return this;
+    }
+
+
+    /**
+     * @param numElements number of elements of every section, at least 1.
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator elements(int numElements) {
+
+        this.numElements = Math.max(numElements, 1);
+        return this;
+    }
+
+
+    /**
+     * @param listLength number of values of every string list.
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator listLength(int listLength) {
+
+        this.listLength = Math.max(listLength, 0);
+        return this;
+    }
+
+
+    /**
+     * @param numNestedValues number of values of every nested element, at least 1.
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator nestedValues(int numNestedValues) {
+
+        this.numNestedValues = Math.max(numNestedValues, 1);
+        return this;
+    }
+
+
+    /**
+     * @param numStyles number of distinct styles to choose from, at least 1.
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator styles(int numStyles) {
+
+        this.numStyles = Math.max(numStyles, 1);
+        return this;
+    }
+
+
+    /**
+     * @param logoSize approximate size of the logo in bytes. 0 for no logo.
+     * @param mediaLibrary to save the logo to, it is referenced by its hash. Should be the library the 
+     *                     template is rendered with.
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator logoSize(int logoSize, MediaLibrary mediaLibrary) {
+
+        this.logoSize = Math.max(logoSize, 0);
+        this.mediaLibrary = mediaLibrary;
+        return this;
+    }
+
+
+    /**
+     * @param seed of the random values. 
+     * @return this generator.
+     */
+    public SyntheticTemplateGenerator seed(long seed) {
+
+        this.seed = seed;
+        return this;
+    }
+
+
+    /**
+     * @return a new valid template, the same one for the same configuration.
+     */
+    public Template generate() {
+
+        Random random = new Random(seed);
+
+        List<Style> styles = new ArrayList<>(numStyles);
+        for (int i = 0; i < numStyles; i++)
+            styles.add(newStyle(random));
+
+        Template template = new Template();
+        template.setTitle("Synthetic " + numSections + "x" + numElements);
+        template.setStyle(pick(random, styles));
+
+        List<Section> sections = new ArrayList<>(numSections);
+        for (int i = 0; i < numSections; i++)
+            sections.add(newSection(random, styles, i));
+
+        template.setSections(sections);
+        template.setHeader(newHeader(random));
+        template.setFooter(newFooter(random, styles));
+
+        return template;
+    }
+
+
+    private Section newSection(Random random, List<Style> styles, int index) {
+
+        Section section = new Section();
+        section.setIdentifier(newIdentifier(random));
+        section.setTitle("Section " + (index + 1) + " " + newText(random, 2));
+        section.setShowTitle(true);
+        section.setStyleTitle(pick(random, styles));
+        section.setStyleKey(pick(random, styles));
+        section.setStyleValue(pick(random, styles));
+
+        List<SectionElement> elements = new ArrayList<>(numElements);
+        for (int i = 0; i < numElements; i++) {
+            // keys must be unique within a section
+            String key = "Element " + (i + 1);
+
+            SectionElement sectionElement = switch (random.nextInt(5)) {
+                case 0 -> newStringListElement(random, key);
+                case 1 -> newDateElement(random, key);
+                case 2 -> newDateRangeElement(random, key);
+                case 3 -> newNestedElement(random, styles, key);
+                default -> newStringElement(random, key);
+            };
+
+            elements.add(sectionElement);
+        }
+
+        section.setElements(elements);
+
+        return section;
+    }
+
+
+    private NestedElement newNestedElement(Random random, List<Style> styles, String key) {
+
+        NestedElement nestedElement = new NestedElement();
+        init(random, nestedElement);
+        nestedElement.setHighlightNestedKeys(random.nextBoolean());
+
+        // nested values fall back to the styles of their element, not of the section
+        nestedElement.setStyleKey(pick(random, styles));
+        nestedElement.setStyleValue(pick(random, styles));
+
+        SectionElement nestedKey = random.nextBoolean() ? newStringElement(random, key) : newDateRangeElement(random, key);
+        nestedKey.setStyleKey(pick(random, styles));
+        nestedElement.setKey((NestedKey) nestedKey);
+
+        List<NestedValue> values = new ArrayList<>(numNestedValues);
+        for (int i = 0; i < numNestedValues; i++) {
+            String valueKey = key + "." + (i + 1);
+
+            SectionElement nestedValue = switch (random.nextInt(4)) {
+                case 0 -> newStringListElement(random, valueKey);
+                case 1 -> newDateElement(random, valueKey);
+                case 2 -> newDateRangeElement(random, valueKey);
+                default -> newStringElement(random, valueKey);
+            };
+
+            // case: some values styled differently than their section
+            if (random.nextInt(4) == 0)
+                nestedValue.setStyleValue(pick(random, styles));
+
+            values.add((NestedValue) nestedValue);
+        }
+
+        nestedElement.setValue(values);
+
+        return nestedElement;
+    }
+
+
+    private StringElement newStringElement(Random random, String key) {
+
+        StringElement stringElement = new StringElement();
+        init(random, stringElement);
+        stringElement.setKey(key);
+        stringElement.setValue(newText(random, 1 + random.nextInt(8)));
+
+        return stringElement;
+    }
+
+
+    private StringListElement newStringListElement(Random random, String key) {
+
+        StringListElement stringListElement = new StringListElement();
+        init(random, stringListElement);
+        stringListElement.setKey(key);
+
+        List<String> values = new ArrayList<>(listLength);
+        for (int i = 0; i < listLength; i++)
+            values.add(newText(random, 1 + random.nextInt(3)));
+
+        stringListElement.setValue(values);
+
+        return stringListElement;
+    }
+
+
+    private DateElement newDateElement(Random random, String key) {
+
+        DateElement dateElement = new DateElement();
+        init(random, dateElement);
+        dateElement.setKey(key);
+        dateElement.setValue(newDate(random));
+
+        return dateElement;
+    }
+
+
+    private DateRangeElement newDateRangeElement(Random random, String key) {
+
+        LocalDate from = newDate(random);
+
+        DateRange dateRange = new DateRange();
+        dateRange.setFrom(from);
+        dateRange.setTo(from.plusMonths(1 + random.nextInt(36)));
+
+        DateRangeElement dateRangeElement = new DateRangeElement();
+        init(random, dateRangeElement);
+        dateRangeElement.setKey(key);
+        dateRangeElement.setValue(dateRange);
+
+        return dateRangeElement;
+    }
+
+
+    private static void init(Random random, SectionElement sectionElement) {
+
+        sectionElement.setIdentifier(newIdentifier(random));
+        sectionElement.setRequired(true);
+        sectionElement.setUnique(true);
+    }
+
+
+    private static Style newStyle(Random random) {
+
+        Style style = new Style();
+        style.setFontFamily(pick(random, FONTS));
+        style.setFontSize(9 + random.nextInt(8));
+        style.setColor(String.format("%06X", random.nextInt(0x1000000)));
+        style.setBold(random.nextBoolean());
+        style.setItalic(random.nextInt(4) == 0);
+        style.setTextAlign(pick(random, ALIGNMENTS));
+        Separator separator = pick(random, SEPARATORS);
+        style.setSeparator(new Separator(separator.getValue(), separator.getCategory()));
+
+        return style;
+    }
+
+
+    private Header newHeader(Random random) {
+
+        Header header = new Header();
+
+        // case: no logo
+        if (logoSize == 0)
+            return header;
+
+        header.setLogoHash(mediaLibrary.save(newLogo(random)).hash());
+
+        return header;
+    }
+
+
+    /**
+     * @param random to draw pixels from.
+     * @return a png of random pixels, about {@link #logoSize} bytes large since noise does not compress.
+     */
+    private byte[] newLogo(Random random) {
+
+        // about 3 bytes per rgb pixel
+        int side = Math.max((int) Math.sqrt(logoSize / 3.0), 1);
+
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < side; y++)
+            for (int x = 0; x < side; x++)
+                image.setRGB(x, y, random.nextInt(0x1000000));
+
+        try {
+            ByteArrayOutputStream logo = new ByteArrayOutputStream(logoSize + 1024);
+            ImageIO.write(image, "png", logo);
+
+            return logo.toByteArray();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static Footer newFooter(Random random, List<Style> styles) {
+
+        Footer footer = new Footer();
+        footer.setLeftSection(List.of(newText(random, 2), newText(random, 3), newText(random, 2)));
+        footer.setMiddleSection(List.of(newText(random, 2), newText(random, 4), newText(random, 3)));
+        footer.setRightSection(List.of(newText(random, 3), newText(random, 5), newText(random, 2)));
+        footer.setStyle(pick(random, styles));
+
+        return footer;
+    }
+
+
+    private static String newText(Random random, int numWords) {
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numWords; i++) {
+            if (i > 0)
+                text.append(' ');
+
+            text.append(pick(random, WORDS));
+        }
+
+        return text.toString();
+    }
+
+
+    private static LocalDate newDate(Random random) {
+
+        return LocalDate.of(2000 + random.nextInt(25), 1 + random.nextInt(12), 1);
+    }
+
+
+    private static String newIdentifier(Random random) {
+
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+
+    private static <T> T pick(Random random, List<T> values) {
+
+        return values.get(random.nextInt(values.size()));
+    }
+}
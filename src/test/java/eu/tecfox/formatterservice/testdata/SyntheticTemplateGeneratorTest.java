@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.testdata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import eu.tecfox.formatterservice.formatter.FontRegistry;
+import eu.tecfox.formatterservice.formatter.Formatter;
+import eu.tecfox.formatterservice.formatter.FragmentCache;
+import eu.tecfox.formatterservice.formatter.RenderPlanCache;
+import eu.tecfox.formatterservice.formatter.RenderServices;
+import eu.tecfox.formatterservice.formatter.SectionExecutor;
+import eu.tecfox.formatterservice.formatter.SkeletonCache;
+import eu.tecfox.formatterservice.media.FileSystemMediaStore;
+import eu.tecfox.formatterservice.media.MediaLibrary;
+import eu.tecfox.formatterservice.metrics.RenderMetrics;
+import eu.tecfox.formatterservice.template.models.Template;
+import eu.tecfox.formatterservice.template.models.ValidTemplate;
+import eu.tecfox.formatterservice.template.models.section.Section;
+import eu.tecfox.formatterservice.template.models.section.elements.NestedElement;
+import eu.tecfox.formatterservice.template.models.section.elements.SectionElement;
+import eu.tecfox.formatterservice.template.models.section.elements.StringListElement;
+import eu.tecfox.formatterservice.template.models.style.Style;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+
+/**
+ * Test class for {@link SyntheticTemplateGenerator}.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public class SyntheticTemplateGeneratorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    private Path tempDir;
+
+
+    @Test
+    void generate_shouldBeDeterministic() throws IOException {
+
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator().sections(6).elements(10).seed(42);
+
+        assertEquals(OBJECT_MAPPER.writeValueAsString(generator.generate()), 
+                     OBJECT_MAPPER.writeValueAsString(generator.generate()));
+
+        // case: other seed
+        assertNotEquals(OBJECT_MAPPER.writeValueAsString(generator.generate()), 
+                        OBJECT_MAPPER.writeValueAsString(generator.seed(43).generate()));
+    }
+
+
+    @Test
+    void generate_shouldHaveConfiguredSize() {
+
+        Template template = new SyntheticTemplateGenerator().sections(5)
+                                                            .elements(20)
+                                                            .listLength(7)
+                                                            .nestedValues(3)
+                                                            .styles(2)
+                                                            .generate();
+
+        assertEquals(5, template.getSections().size());
+
+        Map<Style, Boolean> styles = new IdentityHashMap<>();
+        for (Section section : template.getSections()) {
+            assertEquals(20, section.getElements().size());
+            styles.put(section.getStyleTitle(), true);
+            styles.put(section.getStyleKey(), true);
+            styles.put(section.getStyleValue(), true);
+
+            for (SectionElement sectionElement : section.getElements()) {
+                if (sectionElement instanceof StringListElement stringListElement)
+                    assertEquals(7, stringListElement.getValue().size());
+
+                if (sectionElement instanceof NestedElement nestedElement)
+                    assertEquals(3, nestedElement.getValue().size());
+            }
+        }
+
+        assertTrue(styles.size() <= 2);
+    }
+
+
+    @Test
+    void generate_shouldBeValid() {
+
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        for (long seed = 0; seed < 10; seed++) {
+            Template template = new SyntheticTemplateGenerator().sections(8).elements(12).seed(seed).generate();
+
+            assertEquals(0, validator.validate(template, ValidTemplate.class).size());
+        }
+    }
+
+
+    @Test
+    void generate_shouldRenderWithLogo() throws IOException {
+
+        // used by generator and formatter
+        MediaLibrary mediaLibrary = new MediaLibrary(new FileSystemMediaStore(tempDir.toString()), DataSize.ofMegabytes(1));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RenderServices renderServices = new RenderServices(mediaLibrary, 
+                                                           new FontRegistry(FontRegistry.DEFAULT_FONT_DIRECTORY, FontRegistry.DEFAULT_FALLBACK_FONT), 
+                                                           new SectionExecutor(1, SectionExecutor.DEFAULT_MIN_SECTIONS, 0), 
+                                                           new RenderMetrics(meterRegistry, mediaLibrary), 
+                                                           new FragmentCache(FragmentCache.DEFAULT_SIZE, meterRegistry), 
+                                                           new RenderPlanCache(RenderPlanCache.DEFAULT_SIZE, meterRegistry), 
+                                                           new SkeletonCache(SkeletonCache.DEFAULT_SIZE, meterRegistry));
+
+        Template template = new SyntheticTemplateGenerator().sections(4).logoSize(16 * 1024, mediaLibrary).generate();
+
+        String logoHash = template.getHeader().getLogoHash();
+        assertNotNull(logoHash);
+
+        int logoSize = mediaLibrary.find(logoHash).orElseThrow().length;
+        assertTrue(logoSize > 8 * 1024 && logoSize < 32 * 1024, "logo size " + logoSize);
+
+        ByteArrayOutputStream document = new ByteArrayOutputStream();
+        new Formatter(template, renderServices).writeDocument(document);
+
+        assertTrue(document.size() > logoSize);
+    }
+}
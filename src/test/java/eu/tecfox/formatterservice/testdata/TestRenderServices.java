@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.tecfox.formatterservice.testdata;
+
+import eu.tecfox.formatterservice.formatter.RenderServices;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Fixture for tests rendering without application context.
+ * 
+ * @since 1.0
+ * @author Florin Schikarski
+ */
+public final class TestRenderServices {
+
+    /** Services shared by all renders of all tests, like the beans of the application context. */
+    public static final RenderServices RENDER_SERVICES = RenderServices.createStandalone(new SimpleMeterRegistry());
+
+
+    private TestRenderServices() {}
+}